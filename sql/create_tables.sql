@@ -316,6 +316,51 @@ CREATE TABLE `tb_system_config` (
   KEY `idx_sort_order` (`sort_order`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='系统配置表';
 
+-- =============================================
+-- 15. 用户存储用量表
+-- =============================================
+DROP TABLE IF EXISTS `tb_user_storage`;
+CREATE TABLE `tb_user_storage` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '记录ID',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `used_bytes` bigint NOT NULL DEFAULT '0' COMMENT '已用存储空间（字节）',
+  `file_count` int NOT NULL DEFAULT '0' COMMENT '文件数量',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_id` (`user_id`),
+  CONSTRAINT `fk_user_storage_user` FOREIGN KEY (`user_id`) REFERENCES `tb_user` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户存储用量表';
+
+-- =============================================
+-- 16. 用户积分日汇总表
+-- =============================================
+DROP TABLE IF EXISTS `tb_user_coin_daily`;
+CREATE TABLE `tb_user_coin_daily` (
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `earned` int NOT NULL DEFAULT '0' COMMENT '当日获得积分',
+  `consumed` int NOT NULL DEFAULT '0' COMMENT '当日消费积分',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`, `stat_date`),
+  KEY `idx_stat_date` (`stat_date`),
+  CONSTRAINT `fk_user_coin_daily_user` FOREIGN KEY (`user_id`) REFERENCES `tb_user` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户积分日汇总表';
+
+-- =============================================
+-- 17. 管理员操作小时汇总表
+-- =============================================
+DROP TABLE IF EXISTS `tb_admin_log_hourly`;
+CREATE TABLE `tb_admin_log_hourly` (
+  `stat_hour` datetime NOT NULL COMMENT '统计小时（整点）',
+  `admin_id` bigint NOT NULL COMMENT '管理员ID',
+  `operation_type` tinyint NOT NULL COMMENT '操作类型',
+  `op_count` bigint NOT NULL DEFAULT '0' COMMENT '操作次数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_hour`, `admin_id`, `operation_type`),
+  KEY `idx_admin_hour` (`admin_id`, `stat_hour`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='管理员操作小时汇总表';
+
 -- =============================================
 -- 初始化数据
 -- =============================================
@@ -508,12 +553,7 @@ DELIMITER ;
 -- ALTER TABLE `tb_post` ADD FULLTEXT(`title`, `summary`, `content`);
 
 -- 3. 分区表优化（适用于大数据量）
--- 可以考虑对日志表按时间分区
--- ALTER TABLE `tb_admin_log` PARTITION BY RANGE (YEAR(`create_time`)) (
---     PARTITION p2024 VALUES LESS THAN (2025),
---     PARTITION p2025 VALUES LESS THAN (2026),
---     PARTITION p_future VALUES LESS THAN MAXVALUE
--- );
+-- 管理员日志表按月分区见 partition_admin_log.sql
 
 -- =============================================
 -- 脚本执行完成
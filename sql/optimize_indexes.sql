@@ -124,14 +124,7 @@ ALTER TABLE `tb_system_config` ADD INDEX `idx_config_group` (`config_group`, `so
 -- 9. 分区表优化（适用于大数据量）
 -- =============================================
 
--- 日志表按年份分区
--- ALTER TABLE `tb_admin_log` 
--- PARTITION BY RANGE (YEAR(create_time)) (
---     PARTITION p2023 VALUES LESS THAN (2024),
---     PARTITION p2024 VALUES LESS THAN (2025),
---     PARTITION p2025 VALUES LESS THAN (2026),
---     PARTITION p_future VALUES LESS THAN MAXVALUE
--- );
+-- 日志表按月分区：见 partition_admin_log.sql，分区的创建与过期删除由应用定时维护
 
 -- 积分记录表按月份分区
 -- ALTER TABLE `tb_coin`
@@ -0,0 +1,31 @@
+-- =============================================
+-- 管理员日志表按月分区迁移脚本
+-- =============================================
+-- 说明：
+-- 1. MySQL分区表不支持外键，且分区列必须包含在所有唯一键中，
+--    因此需要先删除外键并把主键改为 (id, create_time)
+-- 2. 使用 RANGE COLUMNS(create_time)，按时间范围查询时可裁剪分区
+-- 3. 应用启动后会按 blog.admin-log.partition-ahead-months 自动从 p_future 中拆出后续月份的分区，
+--    保留期之外的整月分区通过 DROP PARTITION 删除
+-- 4. 执行前请根据当前日期调整下面的初始分区
+
+ALTER TABLE `tb_admin_log` DROP FOREIGN KEY `fk_admin_log_user`;
+
+ALTER TABLE `tb_admin_log`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `create_time`);
+
+ALTER TABLE `tb_admin_log`
+PARTITION BY RANGE COLUMNS(`create_time`) (
+    PARTITION p_history VALUES LESS THAN ('2025-01-01'),
+    PARTITION p202501 VALUES LESS THAN ('2025-02-01'),
+    PARTITION p202502 VALUES LESS THAN ('2025-03-01'),
+    PARTITION p202503 VALUES LESS THAN ('2025-04-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- 查看分区情况
+SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS
+FROM information_schema.PARTITIONS
+WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tb_admin_log'
+ORDER BY PARTITION_ORDINAL_POSITION;
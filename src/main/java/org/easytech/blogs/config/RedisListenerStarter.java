@@ -0,0 +1,53 @@
+package org.easytech.blogs.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis消息监听容器启动器
+ * 应用就绪后启动订阅，Redis不可用时只记录日志并定时重试，不阻断应用启动；
+ * 未订阅期间漏掉的消息由令牌吊销的定时同步、布隆过滤器的定时重建补齐
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisListenerStarter {
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureStarted();
+    }
+
+    /**
+     * 容器未运行时尝试启动
+     * @return 容器是否在运行
+     */
+    @Scheduled(fixedDelayString = "${blog.redis.listener-retry-interval:30000}",
+            initialDelayString = "${blog.redis.listener-retry-interval:30000}")
+    public boolean ensureStarted() {
+        if (redisMessageListenerContainer.isRunning()) {
+            return true;
+        }
+        try {
+            redisMessageListenerContainer.start();
+            log.info("Redis消息订阅已启动");
+            return true;
+        } catch (Exception e) {
+            log.warn("Redis消息订阅启动失败，稍后重试: {}", e.getMessage());
+            try {
+                // 复位容器状态，下次重试重新建立订阅
+                redisMessageListenerContainer.stop();
+            } catch (Exception stopError) {
+                log.debug("Redis消息监听容器复位失败: {}", stopError.getMessage());
+            }
+            return false;
+        }
+    }
+}
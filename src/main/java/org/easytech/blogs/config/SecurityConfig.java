@@ -2,6 +2,10 @@ package org.easytech.blogs.config;
 
 import lombok.RequiredArgsConstructor;
 import org.easytech.blogs.security.JwtAuthenticationFilter;
+import org.easytech.blogs.security.RateLimitFilter;
+import org.easytech.blogs.security.RateLimitRule;
+import org.easytech.blogs.service.RateLimitService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,7 +22,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Spring Security配置类
@@ -31,13 +37,18 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitService rateLimitService;
+
+    @Value("${blog.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
 
     /**
      * 密码编码器
+     * 强度调整后已有用户在下次登录时自动重新哈希，强度可用 BcryptCostBenchmark 按目标p99选择
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${blog.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     /**
@@ -82,6 +93,30 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * 限流规则
+     * 针对要做BCrypt或查库的匿名接口按IP计数，针对写操作按用户计数；一个请求命中多条规则时逐条计数
+     */
+    private List<RateLimitRule> rateLimitRules() {
+        Duration minute = Duration.ofMinutes(1);
+        return List.of(
+            // 登录、注册、刷新令牌
+            RateLimitRule.perIp("login", HttpMethod.POST, "/api/*/login", 10, minute),
+            RateLimitRule.perIp("register", HttpMethod.POST, "/api/*/register", 5, minute),
+            RateLimitRule.perIp("refresh", HttpMethod.POST, "/api/auth/refresh", 30, minute),
+            RateLimitRule.perUser("change-password", HttpMethod.POST, "/api/auth/change-password", 5, minute),
+            RateLimitRule.perUser("change-password", HttpMethod.PUT, "/api/users/*/password", 5, minute),
+
+            // 用户名、邮箱可用性检查
+            RateLimitRule.perIp("availability", HttpMethod.GET, "/api/*/check-*", 60, minute),
+
+            // 评论与点赞
+            RateLimitRule.perUser("comment", HttpMethod.POST, "/api/comments", 10, minute),
+            RateLimitRule.perUser("like", null, "/api/*/*/likes", 60, minute),
+            RateLimitRule.perUser("like", HttpMethod.POST, "/api/likes/*", 60, minute)
+        );
+    }
+
     /**
      * Security过滤器链配置
      */
@@ -169,6 +204,11 @@ public class SecurityConfig {
                 })
             );
 
+        // 添加限流过滤器，放在JWT认证之后以便按用户计数
+        if (rateLimitEnabled) {
+            http.addFilterAfter(new RateLimitFilter(rateLimitService, rateLimitRules()), JwtAuthenticationFilter.class);
+        }
+
         return http.build();
     }
 }
\ No newline at end of file
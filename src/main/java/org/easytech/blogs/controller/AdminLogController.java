@@ -7,6 +7,8 @@ import org.easytech.blogs.common.Result;
 import org.easytech.blogs.entity.AdminLog;
 import org.easytech.blogs.service.AdminLogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -129,4 +131,18 @@ public class AdminLogController {
         List<AdminLog> hotspot = adminLogService.getOperationHotspot(days, limit);
         return Result.success(hotspot);
     }
+
+    /**
+     * 从原始日志回填操作小时汇总（管理员功能）
+     * POST /api/admin-logs/rollup/backfill?from=2024-01-01T00:00:00&to=2024-02-01T00:00:00
+     */
+    @PostMapping("/rollup/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<String> backfillOperationRollup(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        int hours = adminLogService.backfillOperationRollup(from, to);
+        return Result.success("操作汇总回填完成，处理了 " + hours + " 小时");
+    }
 }
\ No newline at end of file
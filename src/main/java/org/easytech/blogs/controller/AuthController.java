@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.easytech.blogs.common.Result;
 import org.easytech.blogs.dto.auth.*;
+import org.easytech.blogs.exception.ServiceUnavailableException;
 import org.easytech.blogs.service.AuthService;
 import org.easytech.blogs.util.JwtUtil;
 import org.springframework.util.StringUtils;
@@ -32,6 +33,8 @@ public class AuthController {
         try {
             LoginResponse response = authService.login(request);
             return Result.success(response);
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("用户登录失败: {}", e.getMessage());
             return Result.error("登录失败: " + e.getMessage());
@@ -46,6 +49,8 @@ public class AuthController {
         try {
             LoginResponse response = authService.register(request);
             return Result.success(response);
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("用户注册失败: {}", e.getMessage());
             return Result.error("注册失败: " + e.getMessage());
@@ -98,6 +103,8 @@ public class AuthController {
             Long userId = jwtUtil.getUserIdFromToken(token);
             authService.changePassword(userId, request);
             return Result.success();
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("修改密码失败: {}", e.getMessage());
             return Result.error("修改密码失败: " + e.getMessage());
@@ -3,11 +3,15 @@ package org.easytech.blogs.controller;
 import org.easytech.blogs.common.Result;
 import org.easytech.blogs.entity.Category;
 import org.easytech.blogs.service.CategoryService;
+import org.easytech.blogs.service.CategorySnapshotService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * 分类控制器
  */
@@ -19,6 +23,9 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CategorySnapshotService categorySnapshotService;
+
     /**
      * 创建分类（管理员功能）
      */
@@ -83,20 +90,21 @@ public class CategoryController {
 
     /**
      * 查询所有分类
+     * 直接返回快照中预先序列化的响应体，客户端携带 If-None-Match 且未变更时返回304
      */
     @GetMapping
-    public Result<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
-        return Result.success(categories);
+    public ResponseEntity<byte[]> getAllCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return renderedResponse(categorySnapshotService.getAllJson(), ifNoneMatch);
     }
 
     /**
      * 获取有文章的分类
      */
     @GetMapping("/with-posts")
-    public Result<List<Category>> getCategoriesWithPosts() {
-        List<Category> categories = categoryService.getCategoriesWithPosts();
-        return Result.success(categories);
+    public ResponseEntity<byte[]> getCategoriesWithPosts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return renderedResponse(categorySnapshotService.getWithPostsJson(), ifNoneMatch);
     }
 
     /**
@@ -129,6 +137,39 @@ public class CategoryController {
         return success ? Result.success("更新成功", null) : Result.error("更新失败");
     }
 
+    private ResponseEntity<byte[]> renderedResponse(CategorySnapshotService.RenderedJson rendered, String ifNoneMatch) {
+        if (etagMatches(rendered.etag(), ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(rendered.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(rendered.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rendered.body());
+    }
+
+    /**
+     * If-None-Match 可能是逗号分隔的多个值，经过压缩代理时强ETag会被改为弱ETag（W/前缀）
+     */
+    private static boolean etagMatches(String etag, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // 请求参数类
     public static class CreateCategoryRequest {
         private String name;
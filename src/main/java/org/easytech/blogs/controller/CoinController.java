@@ -4,10 +4,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.easytech.blogs.common.PageResult;
 import org.easytech.blogs.common.Result;
+import org.easytech.blogs.dto.CoinBatchTransferRequest;
 import org.easytech.blogs.entity.Coin;
 import org.easytech.blogs.entity.UserCoin;
 import org.easytech.blogs.service.CoinService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -183,4 +185,38 @@ public class CoinController {
         }
         return Result.error("积分消费失败");
     }
+
+    /**
+     * 用户间积分转账
+     * POST /api/coins/transfer
+     */
+    @PostMapping("/transfer")
+    @PreAuthorize("hasRole('ADMIN') or @securityUtil.isCurrentUser(#fromUserId)")
+    public Result<String> transferCoin(
+            @RequestParam Long fromUserId,
+            @RequestParam Long toUserId,
+            @RequestParam Integer amount,
+            @RequestParam(required = false) String description) {
+
+        boolean success = coinService.transferCoin(fromUserId, toUserId, amount, description);
+        if (success) {
+            return Result.success("积分转账成功");
+        }
+        return Result.error("积分转账失败");
+    }
+
+    /**
+     * 批量发放积分（单事务），仅管理员
+     * POST /api/coins/batch-transfer
+     */
+    @PostMapping("/batch-transfer")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<String> batchTransferCoin(@Validated @RequestBody CoinBatchTransferRequest request) {
+        boolean success = coinService.batchTransferCoin(
+                request.getFromUserId(), request.getAmounts(), request.getDescription());
+        if (success) {
+            return Result.success("批量转账成功，共 " + request.getAmounts().size() + " 个用户");
+        }
+        return Result.error("批量转账失败");
+    }
 }
\ No newline at end of file
@@ -4,15 +4,18 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.easytech.blogs.common.PageResult;
 import org.easytech.blogs.common.Result;
 import org.easytech.blogs.config.FileUploadConfig;
+import org.easytech.blogs.dto.FileMetadata;
 import org.easytech.blogs.entity.FileUpload;
 import org.easytech.blogs.service.FileUploadService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -94,48 +97,45 @@ public class FileUploadController {
      * 文件下载
      */
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId) {
-        try {
-            FileUpload fileUpload = fileUploadService.getById(fileId);
-            if (fileUpload == null) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Path filePath = Paths.get(fileUploadConfig.getPath() + fileUpload.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(fileUpload.getMimeType()))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, 
-                                "attachment; filename=\"" + fileUpload.getOriginalName() + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId, WebRequest webRequest) {
+        return serveFile(fileId, webRequest, true);
     }
 
     /**
      * 文件预览（主要用于图片）
      */
     @GetMapping("/preview/{fileId}")
-    public ResponseEntity<Resource> previewFile(@PathVariable Long fileId) {
+    public ResponseEntity<Resource> previewFile(@PathVariable Long fileId, WebRequest webRequest) {
+        return serveFile(fileId, webRequest, false);
+    }
+
+    /**
+     * 输出文件内容，元数据走缓存，支持ETag/Last-Modified条件请求
+     */
+    private ResponseEntity<Resource> serveFile(Long fileId, WebRequest webRequest, boolean attachment) {
         try {
-            FileUpload fileUpload = fileUploadService.getById(fileId);
-            if (fileUpload == null) {
+            FileMetadata metadata = fileUploadService.getFileMetadata(fileId);
+            if (metadata == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            Path filePath = Paths.get(fileUploadConfig.getPath() + fileUpload.getFilePath());
+            if (webRequest.checkNotModified(metadata.getEtag(), metadata.getLastModified())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            Path filePath = Paths.get(fileUploadConfig.getPath() + metadata.getFilePath());
             Resource resource = new UrlResource(filePath.toUri());
 
             if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(fileUpload.getMimeType()))
-                        .body(resource);
+                ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(metadata.getMimeType()))
+                        .eTag(metadata.getEtag())
+                        .lastModified(metadata.getLastModified());
+                if (attachment) {
+                    builder.header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"" + metadata.getOriginalName() + "\"");
+                }
+                return builder.body(resource);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -246,6 +246,15 @@ public class SystemConfigController {
         return Result.success(count);
     }
 
+    /**
+     * 获取当前配置快照版本号
+     * GET /api/system-config/version
+     */
+    @GetMapping("/version")
+    public Result<Long> getConfigVersion() {
+        return Result.success(systemConfigService.getConfigVersion());
+    }
+
     /**
      * 初始化默认配置
      * POST /api/system-config/init-default
@@ -2,6 +2,7 @@ package org.easytech.blogs.controller;
 
 import org.easytech.blogs.common.Result;
 import org.easytech.blogs.entity.Tag;
+import org.easytech.blogs.service.TagDictionaryService;
 import org.easytech.blogs.service.TagService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +20,9 @@ public class TagController {
     @Autowired
     private TagService tagService;
 
+    @Autowired
+    private TagDictionaryService tagDictionaryService;
+
     /**
      * 创建标签（管理员功能）
      */
@@ -88,6 +92,17 @@ public class TagController {
         return Result.success(tags);
     }
 
+    /**
+     * 标签名称前缀联想，按使用次数排序
+     * GET /api/tags/suggest?prefix=ja&limit=10
+     */
+    @GetMapping("/suggest")
+    public Result<List<Tag>> suggestTags(@RequestParam(required = false) String prefix,
+                                         @RequestParam(defaultValue = "10") Integer limit) {
+        List<Tag> tags = tagDictionaryService.suggest(prefix, limit);
+        return Result.success(tags);
+    }
+
     /**
      * 根据文章ID查询标签
      */
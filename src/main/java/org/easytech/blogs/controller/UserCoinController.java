@@ -4,12 +4,16 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.easytech.blogs.common.PageResult;
 import org.easytech.blogs.common.Result;
+import org.easytech.blogs.dto.CoinReconcileReport;
 import org.easytech.blogs.entity.UserCoin;
 import org.easytech.blogs.service.UserCoinService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -140,6 +144,30 @@ public class UserCoinController {
         return Result.success(leaderboard);
     }
 
+    /**
+     * 获取用户在积分排行榜中的名次
+     * GET /api/user-coins/leaderboard/rank/{userId}?orderBy=coinBalance
+     */
+    @GetMapping("/leaderboard/rank/{userId}")
+    public Result<Map<String, Object>> getUserCoinRank(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "coinBalance") String orderBy) {
+
+        Map<String, Object> rank = userCoinService.getUserCoinRank(userId, orderBy);
+        return Result.success(rank);
+    }
+
+    /**
+     * 从积分账户表重建积分排行榜（管理员功能）
+     * POST /api/user-coins/leaderboard/rebuild
+     */
+    @PostMapping("/leaderboard/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<String> rebuildCoinLeaderboard() {
+        long count = userCoinService.rebuildCoinLeaderboard();
+        return Result.success("积分排行榜重建完成，写入 " + count + " 个账户");
+    }
+
     /**
      * 获取积分统计信息
      * GET /api/user-coins/statistics
@@ -183,6 +211,20 @@ public class UserCoinController {
         return Result.success("批量重新计算完成，处理了 " + count + " 个账户");
     }
 
+    /**
+     * 按积分流水对账所有积分账户（管理员功能）
+     * POST /api/user-coins/reconcile?dryRun=true&resume=false
+     */
+    @PostMapping("/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<CoinReconcileReport> reconcileBalances(
+            @RequestParam(defaultValue = "true") boolean dryRun,
+            @RequestParam(defaultValue = "false") boolean resume) {
+
+        CoinReconcileReport report = userCoinService.reconcileBalances(dryRun, resume);
+        return Result.success(report);
+    }
+
     /**
      * 冻结或解冻积分账户（管理员功能）
      * PUT /api/user-coins/{id}/freeze
@@ -233,6 +275,20 @@ public class UserCoinController {
         return Result.success(trend);
     }
 
+    /**
+     * 从积分流水回填积分日汇总（管理员功能）
+     * POST /api/user-coins/trend/backfill?from=2024-01-01&to=2024-01-31
+     */
+    @PostMapping("/trend/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<String> backfillCoinTrend(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        int days = userCoinService.backfillCoinTrend(from, to);
+        return Result.success("积分趋势回填完成，处理了 " + days + " 天");
+    }
+
     /**
      * 获取用户积分余额
      * GET /api/user-coins/balance/{userId}
@@ -0,0 +1,25 @@
+package org.easytech.blogs.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.Map;
+
+/**
+ * 批量转账请求DTO
+ */
+@Data
+public class CoinBatchTransferRequest {
+
+    @NotNull(message = "转出用户ID不能为空")
+    private Long fromUserId;
+
+    @NotEmpty(message = "接收用户不能为空")
+    @Size(max = 1000, message = "单次最多向1000个用户转账")
+    private Map<Long, Integer> amounts; // 接收用户ID -> 转账金额
+
+    @Size(max = 100, message = "转账描述不能超过100个字符")
+    private String description;
+}
@@ -0,0 +1,22 @@
+package org.easytech.blogs.dto;
+
+import lombok.Data;
+
+/**
+ * 积分账户与流水汇总不一致的记录
+ */
+@Data
+public class CoinLedgerDrift {
+
+    private Long userId;
+
+    // 账户表当前值
+    private Integer coinBalance;
+    private Integer totalEarned;
+    private Integer totalConsumed;
+
+    // 按流水汇总得到的值
+    private Long ledgerBalance;
+    private Long ledgerEarned;
+    private Long ledgerConsumed;
+}
@@ -0,0 +1,31 @@
+package org.easytech.blogs.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 积分对账结果
+ */
+@Data
+public class CoinReconcileReport {
+
+    private boolean dryRun;
+
+    // 本次扫描的用户ID区间 [fromUserId, toUserId)
+    private long fromUserId;
+    private long toUserId;
+
+    private int rangeCount;
+    private long mismatchedAccounts;
+    private long fixedAccounts;
+
+    // 各账户余额偏差绝对值之和
+    private long balanceDrift;
+
+    private long elapsedMillis;
+
+    // 偏差样例，最多保留前若干条
+    private List<CoinLedgerDrift> samples = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package org.easytech.blogs.dto;
+
+import lombok.Value;
+
+/**
+ * 文件元数据（下载/预览热路径使用的不可变快照）
+ */
+@Value
+public class FileMetadata {
+
+    Long id;
+    String filePath;
+    String originalName;
+    String mimeType;
+    Long fileSize;
+    /**
+     * 最后修改时间（毫秒）
+     */
+    long lastModified;
+    /**
+     * 强校验ETag，已包含双引号
+     */
+    String etag;
+}
@@ -0,0 +1,27 @@
+package org.easytech.blogs.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 关联表孤儿数据清理结果
+ */
+@Data
+public class OrphanCleanupReport {
+
+    private String relationTable;
+
+    // 本次扫描的ID区间 [fromId, toId)
+    private long fromId;
+    private long toId;
+
+    private int chunkCount;
+    private long deleted;
+
+    // 按关联列统计的删除行数，如 post_id -> 12
+    private Map<String, Long> deletedByColumn = new LinkedHashMap<>();
+
+    private long elapsedMillis;
+}
@@ -62,4 +62,10 @@ public class AdminLog {
     @TableField(value = "create_time", fill = FieldFill.INSERT)
     private LocalDateTime createTime;
 
+    /**
+     * 操作次数（用于统计结果，不对应数据库字段）
+     */
+    @TableField(exist = false)
+    private Long operationCount;
+
 }
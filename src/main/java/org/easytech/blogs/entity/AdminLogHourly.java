@@ -0,0 +1,48 @@
+package org.easytech.blogs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 管理员操作小时汇总实体类
+ * 按 (管理员, 操作类型, 小时) 累计操作次数，用于操作统计与热点查询
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("tb_admin_log_hourly")
+public class AdminLogHourly {
+
+    /**
+     * 统计小时（整点）
+     */
+    @TableField("stat_hour")
+    private LocalDateTime statHour;
+
+    /**
+     * 管理员ID
+     */
+    @TableField("admin_id")
+    private Long adminId;
+
+    /**
+     * 操作类型
+     */
+    @TableField("operation_type")
+    private Integer operationType;
+
+    /**
+     * 操作次数
+     */
+    @TableField("op_count")
+    private Long opCount;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private LocalDateTime updateTime;
+
+}
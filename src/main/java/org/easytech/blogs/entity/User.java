@@ -87,4 +87,10 @@ public class User {
     @TableField("is_deleted")
     private Integer isDeleted;
 
+    /**
+     * 角色ID，逗号分隔（登录查询结果，不对应数据库字段）
+     */
+    @TableField(exist = false)
+    private String roleIds;
+
 }
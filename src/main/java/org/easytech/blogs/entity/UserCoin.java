@@ -56,4 +56,22 @@ public class UserCoin {
     @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
     private LocalDateTime updateTime;
 
+    /**
+     * 用户名（排行榜关联查询填充）
+     */
+    @TableField(exist = false)
+    private String username;
+
+    /**
+     * 昵称（排行榜关联查询填充）
+     */
+    @TableField(exist = false)
+    private String nickname;
+
+    /**
+     * 头像（排行榜关联查询填充）
+     */
+    @TableField(exist = false)
+    private String avatar;
+
 }
@@ -0,0 +1,49 @@
+package org.easytech.blogs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户积分日汇总实体类
+ * 随积分变动增量累加，用于积分趋势查询
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("tb_user_coin_daily")
+public class UserCoinDaily {
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 统计日期
+     */
+    @TableField("stat_date")
+    private LocalDate statDate;
+
+    /**
+     * 当日获得积分
+     */
+    @TableField("earned")
+    private Integer earned;
+
+    /**
+     * 当日消费积分
+     */
+    @TableField("consumed")
+    private Integer consumed;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private LocalDateTime updateTime;
+
+}
@@ -0,0 +1,54 @@
+package org.easytech.blogs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户存储用量实体类
+ * 按增量维护的用户文件占用汇总，避免每次对文件表做SUM
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("tb_user_storage")
+public class UserStorage {
+
+    /**
+     * 记录ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 已用存储空间（字节）
+     */
+    @TableField("used_bytes")
+    private Long usedBytes;
+
+    /**
+     * 文件数量
+     */
+    @TableField("file_count")
+    private Integer fileCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+
+}
@@ -5,6 +5,7 @@ import org.easytech.blogs.common.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -126,6 +127,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(result);
     }
 
+    /**
+     * 处理服务过载异常，提示客户端稍后重试
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Result<ErrorResponse>> handleServiceUnavailableException(
+            ServiceUnavailableException ex, HttpServletRequest request) {
+        logger.warn("服务过载: {} {}", request.getRequestURI(), ex.getMessage());
+        
+        Result<ErrorResponse> result = Result.error(503, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(result);
+    }
+
     /**
      * 处理文件上传异常
      */
@@ -0,0 +1,15 @@
+package org.easytech.blogs.exception;
+
+/**
+ * 服务暂不可用异常（过载保护，客户端可稍后重试）
+ */
+public class ServiceUnavailableException extends BusinessException {
+    
+    public ServiceUnavailableException() {
+        super(503, "系统繁忙，请稍后重试");
+    }
+    
+    public ServiceUnavailableException(String message) {
+        super(503, message);
+    }
+}
@@ -0,0 +1,60 @@
+package org.easytech.blogs.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.easytech.blogs.entity.AdminLogHourly;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 管理员操作小时汇总Mapper接口
+ * 主键为 (stat_hour, admin_id, operation_type)，按时间范围的统计为一次主键范围读
+ */
+public interface AdminLogHourlyMapper {
+
+    /**
+     * 批量累加小时汇总（不存在则插入）
+     * @param deltas 增量列表（statHour、adminId、operationType、opCount）
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_admin_log_hourly (stat_hour, admin_id, operation_type, op_count, update_time) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{d.statHour}, #{d.adminId}, #{d.operationType}, #{d.opCount}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE op_count = op_count + VALUES(op_count), update_time = NOW()" +
+            "</script>")
+    int batchUpsertDelta(@Param("deltas") List<AdminLogHourly> deltas);
+
+    /**
+     * 按操作类型汇总整点区间内的操作次数
+     * @param adminId 管理员ID，为空时统计全部管理员
+     * @param fromHour 开始小时（含）
+     * @param toHour 结束小时（不含）
+     * @return 每个操作类型一条（operationType、opCount）
+     */
+    @Select("<script>" +
+            "SELECT operation_type, SUM(op_count) AS op_count FROM tb_admin_log_hourly " +
+            "WHERE stat_hour &gt;= #{fromHour} AND stat_hour &lt; #{toHour} " +
+            "<if test='adminId != null'>AND admin_id = #{adminId} </if>" +
+            "GROUP BY operation_type" +
+            "</script>")
+    List<AdminLogHourly> sumByOperationType(@Param("adminId") Long adminId,
+                                            @Param("fromHour") LocalDateTime fromHour,
+                                            @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 从原始日志重算整点区间的汇总（覆盖写入，可重复执行）
+     * @param fromHour 开始小时（含）
+     * @param toHour 结束小时（不含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO tb_admin_log_hourly (stat_hour, admin_id, operation_type, op_count, update_time) " +
+            "SELECT DATE_FORMAT(create_time, '%Y-%m-%d %H:00:00'), admin_id, operation_type, COUNT(*), NOW() " +
+            "FROM tb_admin_log WHERE create_time >= #{fromHour} AND create_time < #{toHour} " +
+            "GROUP BY DATE_FORMAT(create_time, '%Y-%m-%d %H:00:00'), admin_id, operation_type " +
+            "ON DUPLICATE KEY UPDATE op_count = VALUES(op_count), update_time = NOW()")
+    int rebuildRange(@Param("fromHour") LocalDateTime fromHour, @Param("toHour") LocalDateTime toHour);
+}
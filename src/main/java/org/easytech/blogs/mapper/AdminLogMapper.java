@@ -4,9 +4,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.easytech.blogs.entity.AdminLog;
 
 import java.time.LocalDateTime;
@@ -72,39 +74,63 @@ public interface AdminLogMapper extends BaseMapper<AdminLog> {
                                          @Param("endTime") LocalDateTime endTime);
 
     /**
-     * 统计管理员操作次数
-     * @param adminId 管理员ID
-     * @param startTime 开始时间
-     * @param endTime 结束时间
-     * @return 操作次数
+     * 按操作类型统计时间区间内的原始日志条数（用于汇总表覆盖不到的首尾不足一小时部分）
+     * @param adminId 管理员ID，为空时统计全部管理员
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @return 每个操作类型一条（operationType、operationCount）
      */
-    @Select("SELECT COUNT(*) FROM tb_admin_log " +
-            "WHERE admin_id = #{adminId} AND create_time BETWEEN #{startTime} AND #{endTime}")
-    Long countOperationsByAdmin(@Param("adminId") Long adminId, 
-                               @Param("startTime") LocalDateTime startTime, 
-                               @Param("endTime") LocalDateTime endTime);
+    @Select("<script>" +
+            "SELECT operation_type, COUNT(*) AS operation_count FROM tb_admin_log " +
+            "WHERE create_time &gt;= #{startTime} AND create_time &lt; #{endTime} " +
+            "<if test='adminId != null'>AND admin_id = #{adminId} </if>" +
+            "GROUP BY operation_type" +
+            "</script>")
+    List<AdminLog> selectOperationCounts(@Param("adminId") Long adminId,
+                                         @Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime);
 
     /**
-     * 统计各类型操作数量
-     * @param startTime 开始时间
-     * @param endTime 结束时间
-     * @return 操作类型统计列表
+     * 查询最早的日志时间
+     * @return 最早日志时间，无日志时返回null
      */
-    @Select("SELECT operation_type, COUNT(*) as operation_count " +
-            "FROM tb_admin_log " +
-            "WHERE create_time BETWEEN #{startTime} AND #{endTime} " +
-            "GROUP BY operation_type " +
-            "ORDER BY operation_count DESC")
-    List<AdminLog> statisticsOperationTypes(@Param("startTime") LocalDateTime startTime, 
-                                           @Param("endTime") LocalDateTime endTime);
+    @Select("SELECT MIN(create_time) FROM tb_admin_log")
+    LocalDateTime selectFirstLogTime();
 
     /**
-     * 清理指定时间之前的日志
+     * 分批清理指定时间之前的日志，每次最多删除 limit 行以缩短锁持有时间
      * @param beforeTime 清理时间点
+     * @param limit 单批最大删除行数
      * @return 清理影响行数
      */
-    @Delete("DELETE FROM tb_admin_log WHERE create_time < #{beforeTime}")
-    int cleanLogsBefore(@Param("beforeTime") LocalDateTime beforeTime);
+    @Delete("DELETE FROM tb_admin_log WHERE create_time < #{beforeTime} ORDER BY create_time LIMIT #{limit}")
+    int cleanLogsBefore(@Param("beforeTime") LocalDateTime beforeTime, @Param("limit") int limit);
+
+    /**
+     * 查询日志表的分区名（未分区时返回空列表）
+     * @return 按分区顺序排列的分区名
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tb_admin_log' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> selectPartitionNames();
+
+    /**
+     * 从 p_future 中拆出一个月分区
+     * @param partitionName 分区名（pYYYYMM，由程序生成）
+     * @param upperBound 分区上界（次月1日，yyyy-MM-dd，由程序生成）
+     */
+    @Update("ALTER TABLE tb_admin_log REORGANIZE PARTITION p_future INTO (" +
+            "PARTITION ${partitionName} VALUES LESS THAN ('${upperBound}'), " +
+            "PARTITION p_future VALUES LESS THAN (MAXVALUE))")
+    void addMonthPartition(@Param("partitionName") String partitionName, @Param("upperBound") String upperBound);
+
+    /**
+     * 删除整个分区
+     * @param partitionName 分区名（由程序生成）
+     */
+    @Update("ALTER TABLE tb_admin_log DROP PARTITION ${partitionName}")
+    void dropPartition(@Param("partitionName") String partitionName);
 
     /**
      * 根据IP地址查询日志
@@ -118,4 +144,17 @@ public interface AdminLogMapper extends BaseMapper<AdminLog> {
             "WHERE al.ip_address = #{ipAddress} " +
             "ORDER BY al.create_time DESC")
     IPage<AdminLog> selectLogsByIpAddress(Page<AdminLog> page, @Param("ipAddress") String ipAddress);
-}
\ No newline at end of file
+
+    /**
+     * 批量写入管理员日志（单条多行INSERT）
+     * @param logs 日志列表，create_time 由调用方在产生日志时设置
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_admin_log (admin_id, operation_type, operation_content, target_id, ip_address, user_agent, create_time) VALUES " +
+            "<foreach collection='logs' item='l' separator=','>" +
+            "(#{l.adminId}, #{l.operationType}, #{l.operationContent}, #{l.targetId}, #{l.ipAddress}, #{l.userAgent}, #{l.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("logs") List<AdminLog> logs);
+}
@@ -3,6 +3,7 @@ package org.easytech.blogs.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -89,18 +90,31 @@ public interface CoinMapper extends BaseMapper<Coin> {
      * 检查用户今日是否已获得指定类型积分
      * @param userId 用户ID
      * @param operationType 操作类型
-     * @param relatedId 关联对象ID
+     * @param relatedId 关联对象ID，为空时匹配无关联对象的记录
      * @param startTime 今日开始时间
      * @param endTime 今日结束时间
      * @return 是否已获得积分
      */
     @Select("SELECT COUNT(*) > 0 FROM tb_coin " +
             "WHERE user_id = #{userId} AND operation_type = #{operationType} " +
-            "AND related_id = #{relatedId} " +
+            "AND related_id <=> #{relatedId} " +
             "AND create_time BETWEEN #{startTime} AND #{endTime}")
     boolean hasGainedCoinToday(@Param("userId") Long userId, 
                               @Param("operationType") Integer operationType, 
                               @Param("relatedId") Long relatedId,
                               @Param("startTime") LocalDateTime startTime, 
                               @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 批量写入积分流水（单条多行INSERT）
+     * @param records 积分记录列表
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_coin (user_id, amount, operation_type, description, related_id, create_time) VALUES " +
+            "<foreach collection='records' item='r' separator=','>" +
+            "(#{r.userId}, #{r.amount}, #{r.operationType}, #{r.description}, #{r.relatedId}, NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("records") List<Coin> records);
 }
\ No newline at end of file
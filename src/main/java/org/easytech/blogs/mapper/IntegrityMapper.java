@@ -0,0 +1,52 @@
+package org.easytech.blogs.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 数据完整性维护Mapper接口
+ * 表名、列名只能来自 IntegrityMaintenanceServiceImpl 中登记的关联定义，不接受外部输入
+ */
+public interface IntegrityMapper {
+
+    /**
+     * 查询表的最小ID
+     * @param table 表名
+     * @return 最小ID，空表返回null
+     */
+    @Select("SELECT MIN(id) FROM ${table}")
+    Long selectMinId(@Param("table") String table);
+
+    /**
+     * 查询表的最大ID
+     * @param table 表名
+     * @return 最大ID，空表返回null
+     */
+    @Select("SELECT MAX(id) FROM ${table}")
+    Long selectMaxId(@Param("table") String table);
+
+    /**
+     * 反连接删除ID区间内引用了不存在（或已逻辑删除）父记录的关联行
+     * @param table 关联表
+     * @param column 关联列
+     * @param parentTable 父表
+     * @param softDelete 父表是否逻辑删除，是则 is_deleted=1 的父记录也视为不存在
+     * @param fromId 开始ID（含）
+     * @param toId 结束ID（不含）
+     * @return 删除行数
+     */
+    @Delete("<script>" +
+            "DELETE c FROM ${table} c " +
+            "LEFT JOIN ${parentTable} p ON p.id = c.${column}" +
+            "<if test='softDelete'> AND p.is_deleted = 0</if> " +
+            "WHERE c.id &gt;= #{fromId} AND c.id &lt; #{toId} " +
+            "AND c.${column} IS NOT NULL AND p.id IS NULL" +
+            "</script>")
+    int deleteOrphans(@Param("table") String table,
+                      @Param("column") String column,
+                      @Param("parentTable") String parentTable,
+                      @Param("softDelete") boolean softDelete,
+                      @Param("fromId") long fromId,
+                      @Param("toId") long toId);
+}
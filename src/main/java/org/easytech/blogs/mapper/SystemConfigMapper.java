@@ -1,6 +1,7 @@
 package org.easytech.blogs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -74,4 +75,35 @@ public interface SystemConfigMapper extends BaseMapper<SystemConfig> {
      */
     @Select("SELECT COUNT(*) FROM tb_system_config WHERE status = #{status}")
     Long countByStatus(@Param("status") Integer status);
-}
\ No newline at end of file
+
+    /**
+     * 批量更新配置值（单条多行 INSERT ... ON DUPLICATE KEY UPDATE，整批原子生效）
+     * 调用方需保证配置键均已存在，仅更新 config_value
+     * @param configs 配置列表（configKey、configValue）
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_system_config (config_key, config_value, config_name, status, create_time, update_time) VALUES " +
+            "<foreach collection='configs' item='c' separator=','>" +
+            "(#{c.configKey}, #{c.configValue}, #{c.configKey}, 1, NOW(), NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE config_value = VALUES(config_value), update_time = NOW()" +
+            "</script>")
+    int batchUpsertValues(@Param("configs") java.util.List<SystemConfig> configs);
+
+    /**
+     * 批量写入默认配置，已存在的配置键保持原值不变
+     * @param configs 默认配置列表
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_system_config (config_key, config_value, config_name, description, config_group, " +
+            "sort_order, status, is_system, create_time, update_time) VALUES " +
+            "<foreach collection='configs' item='c' separator=','>" +
+            "(#{c.configKey}, #{c.configValue}, #{c.configName}, #{c.description}, #{c.configGroup}, " +
+            "#{c.sortOrder}, #{c.status}, 1, NOW(), NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE config_key = config_key" +
+            "</script>")
+    int batchInsertDefaults(@Param("configs") java.util.List<SystemConfig> configs);
+}
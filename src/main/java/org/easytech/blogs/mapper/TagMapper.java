@@ -40,6 +40,44 @@ public interface TagMapper extends BaseMapper<Tag> {
     @Update("UPDATE tb_tag SET use_count = #{useCount} WHERE id = #{id}")
     int updateUseCount(@Param("id") Long id, @Param("useCount") Long useCount);
 
+    /**
+     * 按增量调整标签使用次数，不会减到0以下
+     */
+    @Update("UPDATE tb_tag SET use_count = GREATEST(use_count + #{delta}, 0) WHERE id = #{id}")
+    int adjustUseCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * 按文章批量扣减标签使用次数（须在删除这些文章的标签关联之前执行）
+     * 一条语句按 tag_id 汇总待删除的关联数并扣减
+     */
+    @Update("<script>" +
+            "UPDATE tb_tag t INNER JOIN (" +
+            "SELECT tag_id, COUNT(*) AS cnt FROM tb_post_tag WHERE post_id IN " +
+            "<foreach collection='postIds' item='postId' open='(' separator=',' close=')'>#{postId}</foreach>" +
+            " GROUP BY tag_id) d ON d.tag_id = t.id " +
+            "SET t.use_count = GREATEST(t.use_count - d.cnt, 0)" +
+            "</script>")
+    int decrementUseCountsByPosts(@Param("postIds") List<Long> postIds);
+
+    /**
+     * 将指定标签的使用次数置0（删除这些标签的全部关联后调用）
+     */
+    @Update("<script>" +
+            "UPDATE tb_tag SET use_count = 0 WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int resetUseCounts(@Param("ids") List<Long> ids);
+
+    /**
+     * 一次 GROUP BY 汇总全部关联并以一条 UPDATE ... JOIN 重建所有标签的使用次数，只改写有偏差的行
+     * @return 被修正的标签数
+     */
+    @Update("UPDATE tb_tag t LEFT JOIN (" +
+            "SELECT tag_id, COUNT(*) AS cnt FROM tb_post_tag GROUP BY tag_id) c ON c.tag_id = t.id " +
+            "SET t.use_count = COALESCE(c.cnt, 0) " +
+            "WHERE t.is_deleted = 0 AND t.use_count <> COALESCE(c.cnt, 0)")
+    int rebuildAllUseCounts();
+
     /**
      * 获取热门标签
      */
@@ -0,0 +1,80 @@
+package org.easytech.blogs.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.easytech.blogs.entity.UserCoinDaily;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户积分日汇总Mapper接口
+ * 主键为 (user_id, stat_date)，趋势查询为一次主键范围读
+ */
+public interface UserCoinDailyMapper {
+
+    /**
+     * 批量累加日汇总（不存在则插入）
+     * @param deltas 增量列表（userId、statDate、earned、consumed），调用方按user_id排序以固定加锁顺序
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_user_coin_daily (user_id, stat_date, earned, consumed, update_time) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{d.userId}, #{d.statDate}, #{d.earned}, #{d.consumed}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE earned = earned + VALUES(earned), consumed = consumed + VALUES(consumed), " +
+            "update_time = NOW()" +
+            "</script>")
+    int batchUpsertDelta(@Param("deltas") List<UserCoinDaily> deltas);
+
+    /**
+     * 查询用户指定日期区间的日汇总
+     * @param userId 用户ID
+     * @param fromDate 开始日期（含）
+     * @param toDate 结束日期（含）
+     * @return 有积分变动的日期汇总，按日期升序
+     */
+    @Select("SELECT user_id, stat_date, earned, consumed, update_time FROM tb_user_coin_daily " +
+            "WHERE user_id = #{userId} AND stat_date BETWEEN #{fromDate} AND #{toDate} " +
+            "ORDER BY stat_date")
+    List<UserCoinDaily> selectByUserAndRange(@Param("userId") Long userId,
+                                             @Param("fromDate") LocalDate fromDate,
+                                             @Param("toDate") LocalDate toDate);
+
+    /**
+     * 删除一天的全部汇总，回填时在重算前调用
+     * @param statDate 统计日期
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM tb_user_coin_daily WHERE stat_date = #{statDate}")
+    int deleteDay(@Param("statDate") LocalDate statDate);
+
+    /**
+     * 从积分流水重算一天的汇总（需先调用 deleteDay 清除当天旧数据）
+     * @param statDate 统计日期
+     * @param startTime 当天开始时间（含）
+     * @param endTime 次日开始时间（不含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO tb_user_coin_daily (user_id, stat_date, earned, consumed, update_time) " +
+            "SELECT user_id, #{statDate}, " +
+            "SUM(CASE WHEN amount > 0 THEN amount ELSE 0 END), " +
+            "SUM(CASE WHEN amount < 0 THEN -amount ELSE 0 END), NOW() " +
+            "FROM tb_coin WHERE create_time >= #{startTime} AND create_time < #{endTime} " +
+            "GROUP BY user_id " +
+            "ON DUPLICATE KEY UPDATE earned = VALUES(earned), consumed = VALUES(consumed), update_time = NOW()")
+    int rebuildDay(@Param("statDate") LocalDate statDate,
+                   @Param("startTime") LocalDateTime startTime,
+                   @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 查询最早的积分流水时间
+     * @return 最早流水时间，无流水时返回null
+     */
+    @Select("SELECT MIN(create_time) FROM tb_coin")
+    LocalDateTime selectFirstLedgerTime();
+}
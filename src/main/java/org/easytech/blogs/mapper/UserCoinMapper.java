@@ -1,12 +1,23 @@
 package org.easytech.blogs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+import org.easytech.blogs.dto.CoinLedgerDrift;
+import org.easytech.blogs.entity.Coin;
 import org.easytech.blogs.entity.UserCoin;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 用户积分账户Mapper接口
  * 负责用户积分账户信息的数据访问操作
@@ -21,6 +32,15 @@ public interface UserCoinMapper extends BaseMapper<UserCoin> {
     @Select("SELECT * FROM tb_user_coin WHERE user_id = #{userId}")
     UserCoin selectByUserId(@Param("userId") Long userId);
 
+    /**
+     * 创建空积分账户（已存在则忽略，避免并发初始化时的唯一键冲突）
+     * @param userId 用户ID
+     * @return 插入行数，0表示账户已存在
+     */
+    @Insert("INSERT IGNORE INTO tb_user_coin (user_id, coin_balance, total_earned, total_consumed, create_time, update_time) " +
+            "VALUES (#{userId}, 0, 0, 0, NOW(), NOW())")
+    int insertIgnore(@Param("userId") Long userId);
+
     /**
      * 更新用户积分余额
      * @param userId 用户ID
@@ -52,6 +72,149 @@ public interface UserCoinMapper extends BaseMapper<UserCoin> {
             "WHERE user_id = #{userId} AND coin_balance >= #{amount}")
     int decreaseCoin(@Param("userId") Long userId, @Param("amount") Integer amount);
 
+    /**
+     * 查询已开通积分账户的用户ID（非锁定读）
+     * @param userIds 用户ID列表
+     * @return 已存在账户的用户ID
+     */
+    @Select("<script>" +
+            "SELECT user_id FROM tb_user_coin WHERE user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<Long> selectExistingUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量创建空积分账户（已存在则忽略）
+     * @param userIds 用户ID列表
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO tb_user_coin (user_id, coin_balance, total_earned, total_consumed, create_time, update_time) VALUES " +
+            "<foreach collection='userIds' item='userId' separator=','>" +
+            "(#{userId}, 0, 0, 0, NOW(), NOW())" +
+            "</foreach>" +
+            "</script>")
+    int batchInsertIgnore(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 按流水批量增加多个用户积分（单条语句，按user_id索引顺序加锁）
+     * @param credits 入账流水（userId、amount），同一用户仅出现一次
+     * @return 更新影响行数
+     */
+    @Update("<script>" +
+            "UPDATE tb_user_coin SET " +
+            "coin_balance = coin_balance + CASE user_id " +
+            "<foreach collection='credits' item='c'> WHEN #{c.userId} THEN #{c.amount}</foreach> END, " +
+            "total_earned = total_earned + CASE user_id " +
+            "<foreach collection='credits' item='c'> WHEN #{c.userId} THEN #{c.amount}</foreach> END, " +
+            "update_time = NOW() " +
+            "WHERE user_id IN " +
+            "<foreach collection='credits' item='c' open='(' separator=',' close=')'>#{c.userId}</foreach>" +
+            "</script>")
+    int batchIncreaseCoin(@Param("credits") List<Coin> credits);
+
+    /**
+     * 流式读取正常状态用户的积分账户（MySQL逐行返回，不在内存中缓存整个结果集）
+     * 禁用和已删除用户不进入排行榜
+     * @param handler 逐行处理回调
+     */
+    @Select("SELECT uc.user_id, uc.coin_balance, uc.total_earned, uc.total_consumed " +
+            "FROM tb_user_coin uc " +
+            "JOIN tb_user u ON uc.user_id = u.id " +
+            "WHERE u.status = 1 AND u.is_deleted = 0")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(UserCoin.class)
+    void streamActiveAccounts(ResultHandler<UserCoin> handler);
+
+    /**
+     * 按用户ID查询正常状态用户的积分账户及用户名、昵称、头像
+     * @param userIds 用户ID集合
+     * @return 账户列表，禁用、已删除或无账户的用户不在结果中
+     */
+    @Select("<script>" +
+            "SELECT uc.*, u.username, u.nickname, u.avatar " +
+            "FROM tb_user_coin uc " +
+            "JOIN tb_user u ON uc.user_id = u.id " +
+            "WHERE u.status = 1 AND u.is_deleted = 0 AND uc.user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<UserCoin> selectActiveAccounts(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 单次扫描统计积分汇总与余额区间分布
+     * @return 汇总及各区间账户数（totalUsers、totalBalance、totalEarned、totalConsumed、bucket0 ~ bucket5）
+     */
+    @Select("SELECT COUNT(*) AS totalUsers, " +
+            "COALESCE(SUM(coin_balance), 0) AS totalBalance, " +
+            "COALESCE(SUM(total_earned), 0) AS totalEarned, " +
+            "COALESCE(SUM(total_consumed), 0) AS totalConsumed, " +
+            "COALESCE(SUM(CASE WHEN coin_balance = 0 THEN 1 ELSE 0 END), 0) AS bucket0, " +
+            "COALESCE(SUM(CASE WHEN coin_balance BETWEEN 1 AND 100 THEN 1 ELSE 0 END), 0) AS bucket1, " +
+            "COALESCE(SUM(CASE WHEN coin_balance BETWEEN 101 AND 500 THEN 1 ELSE 0 END), 0) AS bucket2, " +
+            "COALESCE(SUM(CASE WHEN coin_balance BETWEEN 501 AND 1000 THEN 1 ELSE 0 END), 0) AS bucket3, " +
+            "COALESCE(SUM(CASE WHEN coin_balance BETWEEN 1001 AND 5000 THEN 1 ELSE 0 END), 0) AS bucket4, " +
+            "COALESCE(SUM(CASE WHEN coin_balance > 5000 THEN 1 ELSE 0 END), 0) AS bucket5 " +
+            "FROM tb_user_coin")
+    Map<String, Object> selectBalanceSummary();
+
+    /**
+     * 查询最小的已开户用户ID
+     * @return 最小用户ID，无账户时返回null
+     */
+    @Select("SELECT MIN(user_id) FROM tb_user_coin")
+    Long selectMinUserId();
+
+    /**
+     * 查询最大的已开户用户ID
+     * @return 最大用户ID，无账户时返回null
+     */
+    @Select("SELECT MAX(user_id) FROM tb_user_coin")
+    Long selectMaxUserId();
+
+    /**
+     * 按用户ID区间汇总流水并与账户比对，仅返回不一致的账户
+     * 流水正数计入累计获得，负数计入累计消费
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @return 不一致的账户
+     */
+    @Select("SELECT uc.user_id, uc.coin_balance, uc.total_earned, uc.total_consumed, " +
+            "COALESCE(l.ledger_balance, 0) AS ledger_balance, " +
+            "COALESCE(l.ledger_earned, 0) AS ledger_earned, " +
+            "COALESCE(l.ledger_consumed, 0) AS ledger_consumed " +
+            "FROM tb_user_coin uc " +
+            "LEFT JOIN (" +
+            "  SELECT user_id, SUM(amount) AS ledger_balance, " +
+            "  SUM(CASE WHEN amount > 0 THEN amount ELSE 0 END) AS ledger_earned, " +
+            "  SUM(CASE WHEN amount < 0 THEN -amount ELSE 0 END) AS ledger_consumed " +
+            "  FROM tb_coin WHERE user_id >= #{fromUserId} AND user_id < #{toUserId} " +
+            "  GROUP BY user_id" +
+            ") l ON l.user_id = uc.user_id " +
+            "WHERE uc.user_id >= #{fromUserId} AND uc.user_id < #{toUserId} " +
+            "AND (uc.coin_balance <> COALESCE(l.ledger_balance, 0) " +
+            "OR uc.total_earned <> COALESCE(l.ledger_earned, 0) " +
+            "OR uc.total_consumed <> COALESCE(l.ledger_consumed, 0))")
+    List<CoinLedgerDrift> selectLedgerDrift(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 按偏差量批量校正账户（增量修正，不覆盖对账期间发生的并发变动）
+     * @param drifts 偏差记录，同一用户仅出现一次
+     * @return 更新影响行数
+     */
+    @Update("<script>" +
+            "UPDATE tb_user_coin SET " +
+            "coin_balance = coin_balance + CASE user_id " +
+            "<foreach collection='drifts' item='d'> WHEN #{d.userId} THEN #{d.ledgerBalance} - #{d.coinBalance}</foreach> END, " +
+            "total_earned = total_earned + CASE user_id " +
+            "<foreach collection='drifts' item='d'> WHEN #{d.userId} THEN #{d.ledgerEarned} - #{d.totalEarned}</foreach> END, " +
+            "total_consumed = total_consumed + CASE user_id " +
+            "<foreach collection='drifts' item='d'> WHEN #{d.userId} THEN #{d.ledgerConsumed} - #{d.totalConsumed}</foreach> END, " +
+            "update_time = NOW() " +
+            "WHERE user_id IN " +
+            "<foreach collection='drifts' item='d' open='(' separator=',' close=')'>#{d.userId}</foreach>" +
+            "</script>")
+    int batchApplyDrift(@Param("drifts") List<CoinLedgerDrift> drifts);
+
     /**
      * 查询积分余额排行榜
      * @param limit 排行榜数量限制
@@ -63,7 +226,7 @@ public interface UserCoinMapper extends BaseMapper<UserCoin> {
             "WHERE u.status = 1 AND u.is_deleted = 0 " +
             "ORDER BY uc.coin_balance DESC " +
             "LIMIT #{limit}")
-    java.util.List<UserCoin> selectCoinBalanceRanking(@Param("limit") Integer limit);
+    List<UserCoin> selectCoinBalanceRanking(@Param("limit") Integer limit);
 
     /**
      * 统计总积分情况
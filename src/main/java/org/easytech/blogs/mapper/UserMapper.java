@@ -4,13 +4,19 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 import org.easytech.blogs.entity.Role;
 import org.easytech.blogs.entity.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户Mapper接口
@@ -56,6 +62,15 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT COUNT(*) FROM tb_user WHERE status = #{status} AND is_deleted = 0")
     Long countByStatus(@Param("status") Integer status);
 
+    /**
+     * 流式读取全部未删除用户的用户名和邮箱（MySQL逐行返回，不在内存中缓存整个结果集）
+     * @param handler 逐行处理回调
+     */
+    @Select("SELECT username, email FROM tb_user WHERE is_deleted = 0")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(User.class)
+    void streamAllIdentities(ResultHandler<User> handler);
+
     /**
      * 检查用户名是否存在
      * @param username 用户名
@@ -93,6 +108,44 @@ public interface UserMapper extends BaseMapper<User> {
     @Update("UPDATE tb_user SET last_login_time = NOW(), update_time = NOW() WHERE id = #{userId}")
     int updateLastLoginTime(@Param("userId") Long userId);
 
+    /**
+     * 批量写入最后登录时间（单条 UPDATE ... CASE）
+     * @param logins 用户ID到登录时间
+     * @return 更新影响行数
+     */
+    @Update("<script>" +
+            "UPDATE tb_user SET last_login_time = CASE id " +
+            "<foreach collection='logins' index='userId' item='loginTime'>" +
+            "WHEN #{userId} THEN #{loginTime} " +
+            "</foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='logins' index='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    int batchUpdateLastLoginTime(@Param("logins") Map<Long, LocalDateTime> logins);
+
+    /**
+     * 登录查询：用户及其角色ID一次取回
+     * @param username 用户名
+     * @return 用户信息（roleIds 为逗号分隔的角色ID）
+     */
+    @Select("SELECT u.*, GROUP_CONCAT(ur.role_id) AS role_ids " +
+            "FROM tb_user u " +
+            "LEFT JOIN tb_user_role ur ON u.id = ur.user_id " +
+            "WHERE u.username = #{username} AND u.is_deleted = 0 " +
+            "GROUP BY u.id")
+    User findLoginUser(@Param("username") String username);
+
+    /**
+     * 替换密码哈希（仅当当前哈希仍为旧值时，期间修改过密码则不覆盖）
+     * @param userId 用户ID
+     * @param oldHash 旧哈希
+     * @param newHash 新哈希
+     * @return 更新影响行数
+     */
+    @Update("UPDATE tb_user SET password = #{newHash} WHERE id = #{userId} AND password = #{oldHash}")
+    int updatePasswordHash(@Param("userId") Long userId, @Param("oldHash") String oldHash,
+                           @Param("newHash") String newHash);
+
     /**
      * 根据昵称模糊查询用户
      * @param nickname 昵称关键词
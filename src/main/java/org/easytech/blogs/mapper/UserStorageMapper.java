@@ -0,0 +1,80 @@
+package org.easytech.blogs.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.easytech.blogs.entity.UserStorage;
+
+import java.util.List;
+
+/**
+ * 用户存储用量Mapper接口
+ * 所有用量变更均为单条件语句，依赖行锁保证并发安全
+ */
+public interface UserStorageMapper extends BaseMapper<UserStorage> {
+
+    /**
+     * 根据用户ID查询存储用量
+     */
+    @Select("SELECT * FROM tb_user_storage WHERE user_id = #{userId}")
+    UserStorage selectByUserId(@Param("userId") Long userId);
+
+    /**
+     * 初始化用户存储用量（以文件表现有数据为初值，已存在则忽略）
+     */
+    @Insert("INSERT IGNORE INTO tb_user_storage (user_id, used_bytes, file_count, create_time, update_time) " +
+            "SELECT #{userId}, COALESCE(SUM(file_size), 0), COUNT(*), NOW(), NOW() " +
+            "FROM tb_file_upload WHERE user_id = #{userId} AND is_deleted = 0")
+    int initByUserId(@Param("userId") Long userId);
+
+    /**
+     * 在配额范围内占用存储空间
+     * @return 影响行数，0表示账户不存在或超出配额
+     */
+    @Update("UPDATE tb_user_storage SET used_bytes = used_bytes + #{bytes}, file_count = file_count + 1, " +
+            "update_time = NOW() " +
+            "WHERE user_id = #{userId} AND used_bytes + #{bytes} <= #{quota}")
+    int reserveUsage(@Param("userId") Long userId, @Param("bytes") Long bytes, @Param("quota") Long quota);
+
+    /**
+     * 不校验配额直接增加存储用量
+     */
+    @Update("UPDATE tb_user_storage SET used_bytes = used_bytes + #{bytes}, file_count = file_count + 1, " +
+            "update_time = NOW() WHERE user_id = #{userId}")
+    int increaseUsage(@Param("userId") Long userId, @Param("bytes") Long bytes);
+
+    /**
+     * 释放存储用量
+     */
+    @Update("UPDATE tb_user_storage SET used_bytes = GREATEST(used_bytes - #{bytes}, 0), " +
+            "file_count = GREATEST(file_count - #{count}, 0), update_time = NOW() " +
+            "WHERE user_id = #{userId}")
+    int releaseUsage(@Param("userId") Long userId, @Param("bytes") Long bytes, @Param("count") Integer count);
+
+    /**
+     * 查询与文件表不一致的用量记录的用户ID
+     */
+    @Select("SELECT s.user_id FROM tb_user_storage s " +
+            "LEFT JOIN (SELECT user_id, SUM(file_size) AS total_size, COUNT(*) AS total_count " +
+            "           FROM tb_file_upload WHERE is_deleted = 0 GROUP BY user_id) f ON s.user_id = f.user_id " +
+            "WHERE s.used_bytes <> COALESCE(f.total_size, 0) OR s.file_count <> COALESCE(f.total_count, 0)")
+    List<Long> selectDriftUserIds();
+
+    /**
+     * 锁定用户存储用量行，等待持有该行的上传/删除事务提交
+     */
+    @Select("SELECT * FROM tb_user_storage WHERE user_id = #{userId} FOR UPDATE")
+    UserStorage selectByUserIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * 按文件表重算单个用户的存储用量，需在持有行锁的事务中调用
+     */
+    @Update("UPDATE tb_user_storage SET " +
+            "used_bytes = (SELECT COALESCE(SUM(file_size), 0) FROM tb_file_upload " +
+            "              WHERE user_id = #{userId} AND is_deleted = 0), " +
+            "file_count = (SELECT COUNT(*) FROM tb_file_upload WHERE user_id = #{userId} AND is_deleted = 0), " +
+            "update_time = NOW() WHERE user_id = #{userId}")
+    int rebuildByUserId(@Param("userId") Long userId);
+}
@@ -7,6 +7,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.service.TokenRevocationService;
 import org.easytech.blogs.util.JwtUtil;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -30,6 +31,7 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -39,16 +41,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = extractTokenFromRequest(request);
             
-            if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
+            if (StringUtils.hasText(token)) {
+                // 只解析一次，校验签名和有效期
+                Claims claims = jwtUtil.parseToken(token);
                 // 确保是访问令牌，不是刷新令牌
-                if (jwtUtil.isAccessToken(token)) {
-                    authenticateUser(token, request);
-                } else {
+                if (!"access".equals(claims.get("tokenType", String.class))) {
                     log.debug("尝试使用刷新令牌进行认证，拒绝访问");
+                } else if (tokenRevocationService.isRevoked(claims.getId(),
+                        claims.get("userId", Long.class), claims.getIssuedAt())) {
+                    log.debug("令牌已吊销，拒绝访问");
+                } else {
+                    authenticateUser(token, claims, request);
                 }
             }
         } catch (Exception e) {
-            log.error("JWT认证过程中发生错误: {}", e.getMessage());
+            log.debug("JWT认证失败: {}", e.getMessage());
             // 不中断过滤器链，让Spring Security处理未认证的请求
         }
 
@@ -77,10 +84,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * 对用户进行认证
      */
-    private void authenticateUser(String token, HttpServletRequest request) {
+    private void authenticateUser(String token, Claims claims, HttpServletRequest request) {
         try {
-            Claims claims = jwtUtil.parseToken(token);
-            
             String username = claims.getSubject();
             Long userId = claims.get("userId", Long.class);
             @SuppressWarnings("unchecked")
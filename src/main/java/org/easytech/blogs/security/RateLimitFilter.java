@@ -0,0 +1,84 @@
+package org.easytech.blogs.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.service.RateLimitService;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 接口限流过滤器
+ * 位于JWT认证之后，按 SecurityConfig 中配置的规则对请求计数，超限直接返回429，不进入控制器
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final List<RateLimitRule> rules;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public RateLimitFilter(RateLimitService rateLimitService, List<RateLimitRule> rules) {
+        this.rateLimitService = rateLimitService;
+        this.rules = List.copyOf(rules);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String path = urlPathHelper.getPathWithinApplication(request);
+        for (RateLimitRule rule : rules) {
+            if (!matches(rule, request.getMethod(), path)) {
+                continue;
+            }
+            long retryAfter = rateLimitService.tryAcquire(rule.name() + ":" + resolveKey(rule, request),
+                    rule.limit(), rule.window().toMillis());
+            if (retryAfter > 0) {
+                log.debug("请求被限流: {} {}，规则: {}", request.getMethod(), path, rule.name());
+                reject(response, retryAfter);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean matches(RateLimitRule rule, String method, String path) {
+        return (rule.method() == null || rule.method().matches(method))
+                && pathMatcher.match(rule.pattern(), path);
+    }
+
+    /**
+     * 按用户计数的规则优先取登录用户ID，其余按客户端IP
+     * IP取自 getRemoteAddr，部署在反向代理后时需开启 server.forward-headers-strategy
+     */
+    private String resolveKey(RateLimitRule rule, HttpServletRequest request) {
+        if (rule.perUser()) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication instanceof JwtAuthenticationFilter.JwtAuthenticationToken jwtToken
+                    && jwtToken.getUserId() != null) {
+                return "u" + jwtToken.getUserId();
+            }
+        }
+        return "ip" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterMillis) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf((retryAfterMillis + 999) / 1000));
+        response.getWriter().write("{\"code\":429,\"message\":\"请求过于频繁，请稍后再试\",\"data\":null}");
+    }
+}
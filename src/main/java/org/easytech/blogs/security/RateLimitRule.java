@@ -0,0 +1,32 @@
+package org.easytech.blogs.security;
+
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+
+/**
+ * 限流规则
+ * @param name 规则名，同名规则共用计数
+ * @param method 请求方法，为空表示任意方法
+ * @param pattern 路径模式（Ant风格，不含context-path）
+ * @param limit 窗口内允许的请求数
+ * @param window 窗口长度
+ * @param perUser 是否按用户计数；未登录请求仍按IP计数
+ */
+public record RateLimitRule(String name, HttpMethod method, String pattern, int limit, Duration window,
+                            boolean perUser) {
+
+    /**
+     * 按客户端IP计数的规则
+     */
+    public static RateLimitRule perIp(String name, HttpMethod method, String pattern, int limit, Duration window) {
+        return new RateLimitRule(name, method, pattern, limit, window, false);
+    }
+
+    /**
+     * 按登录用户计数的规则
+     */
+    public static RateLimitRule perUser(String name, HttpMethod method, String pattern, int limit, Duration window) {
+        return new RateLimitRule(name, method, pattern, limit, window, true);
+    }
+}
@@ -0,0 +1,43 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.entity.AdminLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 管理员操作小时汇总服务接口
+ */
+public interface AdminLogRollupService {
+
+    /**
+     * 累加已写入日志的小时汇总
+     * @param logs 已入库的管理员日志
+     */
+    void recordLogs(List<AdminLog> logs);
+
+    /**
+     * 统计时间范围内各操作类型的次数
+     * @param adminId 管理员ID，为空时统计全部管理员
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（含）
+     * @return 每个操作类型一条（operationType、operationCount），按次数降序
+     */
+    List<AdminLog> countByOperationType(Long adminId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 从原始日志重算汇总
+     * @param fromTime 开始时间，向下取整到小时
+     * @param toTime 结束时间，向上取整到小时
+     * @return 影响行数
+     */
+    int rebuild(LocalDateTime fromTime, LocalDateTime toTime);
+
+    /**
+     * 从原始日志回填历史小时汇总，按天分段重算
+     * @param fromTime 开始时间，为空时从最早的日志开始
+     * @param toTime 结束时间，为空时到当前小时；当前小时仍在实时累加，不能回填
+     * @return 回填的小时数
+     */
+    int backfill(LocalDateTime fromTime, LocalDateTime toTime);
+}
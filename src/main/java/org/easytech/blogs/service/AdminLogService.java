@@ -152,4 +152,12 @@ public interface AdminLogService {
      * @return 操作热点统计
      */
     List<AdminLog> getOperationHotspot(int days, int limit);
+
+    /**
+     * 从原始日志回填管理员操作小时汇总
+     * @param fromTime 开始时间，为空时从最早的日志开始
+     * @param toTime 结束时间，为空时到当前小时
+     * @return 回填的小时数
+     */
+    int backfillOperationRollup(LocalDateTime fromTime, LocalDateTime toTime);
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.entity.Category;
+
+import java.util.List;
+
+/**
+ * 分类快照服务接口
+ * 返回的分类对象来自共享快照，调用方只读不改
+ */
+public interface CategorySnapshotService {
+
+    /**
+     * 预先序列化的响应体
+     * @param body JSON字节
+     * @param etag 强校验ETag（含双引号）
+     */
+    record RenderedJson(byte[] body, String etag) {
+    }
+
+    /**
+     * 全部分类，按排序权重、创建时间升序
+     * @return 分类列表
+     */
+    List<Category> getAll();
+
+    /**
+     * 有已发布文章的分类
+     * @return 分类列表
+     */
+    List<Category> getWithPosts();
+
+    /**
+     * 按ID查找分类
+     * @param id 分类ID
+     * @return 分类，不存在时返回null
+     */
+    Category getById(Long id);
+
+    /**
+     * 按名称查找分类（忽略大小写，与表的排序规则一致）
+     * @param name 分类名称
+     * @return 分类，不存在时返回null
+     */
+    Category getByName(String name);
+
+    /**
+     * 全部分类的 Result 响应体
+     * @return 预先序列化的响应
+     */
+    RenderedJson getAllJson();
+
+    /**
+     * 有文章分类的 Result 响应体
+     * @return 预先序列化的响应
+     */
+    RenderedJson getWithPostsJson();
+
+    /**
+     * 分类或分类文章数变更后重建快照（在事务中调用时于提交后执行）
+     */
+    void refresh();
+}
@@ -0,0 +1,42 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.entity.Coin;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户积分日汇总服务接口
+ */
+public interface CoinDailyStatService {
+
+    /**
+     * 累加用户当日积分变动（需与积分流水在同一事务中调用）
+     * @param userId 用户ID
+     * @param amount 变化量，正数计入获得，负数计入消费
+     */
+    void recordChange(Long userId, int amount);
+
+    /**
+     * 按积分流水批量累加当日积分变动
+     * @param records 积分流水
+     */
+    void recordChanges(List<Coin> records);
+
+    /**
+     * 查询用户最近N天的积分趋势
+     * @param userId 用户ID
+     * @param days 天数
+     * @return 每天一条（date、earned、consumed、net），无变动的日期补0
+     */
+    List<Map<String, Object>> getUserTrend(Long userId, int days);
+
+    /**
+     * 从积分流水逐日回填日汇总
+     * @param fromDate 开始日期（含），为空时从最早的流水开始
+     * @param toDate 结束日期（含），为空时到昨天；当天的汇总实时维护，不能回填
+     * @return 回填的天数
+     */
+    int backfill(LocalDate fromDate, LocalDate toDate);
+}
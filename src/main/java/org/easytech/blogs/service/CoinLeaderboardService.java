@@ -0,0 +1,72 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.entity.UserCoin;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 积分排行榜服务接口
+ * 基于Redis有序集合维护余额、累计获得、累计消费三个榜单
+ */
+public interface CoinLeaderboardService {
+
+    /**
+     * 记录单个用户的积分变动（事务提交后写入榜单）
+     * @param userId 用户ID
+     * @param balanceDelta 余额变化量
+     * @param earnedDelta 累计获得变化量
+     * @param consumedDelta 累计消费变化量
+     */
+    void recordChange(Long userId, int balanceDelta, int earnedDelta, int consumedDelta);
+
+    /**
+     * 批量记录多个用户的积分收入（事务提交后以管道方式写入榜单）
+     * @param credits 用户ID -> 入账积分
+     */
+    void recordCredits(Map<Long, Integer> credits);
+
+    /**
+     * 事务提交后按数据库中的账户当前值覆盖用户在各榜单中的分数；
+     * 用户被禁用、删除或没有积分账户时移出榜单
+     * @param userId 用户ID
+     */
+    void syncUser(Long userId);
+
+    /**
+     * 从榜单中移除用户
+     * @param userId 用户ID
+     */
+    void removeUser(Long userId);
+
+    /**
+     * 查询榜单前N名的积分账户（含用户名、昵称、头像），只包含正常状态的用户
+     * @param limit 数量
+     * @param orderBy 榜单：coinBalance、totalEarned、totalConsumed
+     * @return 按名次排列的账户，Redis不可用或榜单尚未建立时返回null
+     */
+    List<UserCoin> getTopAccounts(int limit, String orderBy);
+
+    /**
+     * 查询榜单前N名
+     * @param limit 数量
+     * @param orderBy 榜单：coinBalance、totalEarned、totalConsumed
+     * @return 排行列表（rank、userId、username、nickname、avatar、coinBalance、totalEarned、totalConsumed），
+     *         Redis不可用或榜单尚未建立时返回null
+     */
+    List<Map<String, Object>> getTopUsers(int limit, String orderBy);
+
+    /**
+     * 查询用户在榜单中的名次
+     * @param userId 用户ID
+     * @param orderBy 榜单：coinBalance、totalEarned、totalConsumed
+     * @return 名次信息（userId、rank、score），未上榜时rank为null，Redis不可用时返回null
+     */
+    Map<String, Object> getUserRank(Long userId, String orderBy);
+
+    /**
+     * 从MySQL流式读取积分账户重建全部榜单
+     * @return 写入榜单的账户数
+     */
+    long rebuild();
+}
@@ -0,0 +1,26 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.dto.CoinReconcileReport;
+
+/**
+ * 积分对账服务接口
+ * 以积分流水（tb_coin）为准校正积分账户（tb_user_coin）
+ */
+public interface CoinReconcileService {
+
+    /**
+     * 全量对账
+     * @param dryRun true-只统计偏差不修正
+     * @param resume true-从上次中断的检查点继续
+     * @return 对账结果
+     */
+    CoinReconcileReport reconcileAll(boolean dryRun, boolean resume);
+
+    /**
+     * 单个用户对账
+     * @param userId 用户ID
+     * @param dryRun true-只统计偏差不修正
+     * @return 对账结果
+     */
+    CoinReconcileReport reconcileUser(Long userId, boolean dryRun);
+}
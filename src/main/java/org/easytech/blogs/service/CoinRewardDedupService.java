@@ -0,0 +1,26 @@
+package org.easytech.blogs.service;
+
+/**
+ * 每日积分奖励去重服务接口
+ * 以“日期 + 操作类型”为维度记录已发放的奖励，重复领取无需查询积分流水
+ */
+public interface CoinRewardDedupService {
+
+    /**
+     * 原子地占用今日奖励资格
+     * 在事务中调用时，事务回滚会自动释放占用
+     * @param userId 用户ID
+     * @param operationType 操作类型
+     * @param relatedId 关联对象ID，可为空
+     * @return true-首次占用，可以发放奖励；false-今日已发放
+     */
+    boolean tryAcquire(Long userId, Integer operationType, Long relatedId);
+
+    /**
+     * 释放今日奖励资格（奖励发放失败时调用）
+     * @param userId 用户ID
+     * @param operationType 操作类型
+     * @param relatedId 关联对象ID，可为空
+     */
+    void release(Long userId, Integer operationType, Long relatedId);
+}
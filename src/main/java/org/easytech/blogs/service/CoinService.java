@@ -6,6 +6,7 @@ import org.easytech.blogs.entity.Coin;
 import org.easytech.blogs.entity.UserCoin;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 积分服务接口
@@ -159,4 +160,13 @@ public interface CoinService {
      * @return 转账结果
      */
     boolean transferCoin(Long fromUserId, Long toUserId, Integer amount, String description);
+
+    /**
+     * 批量转账（一个转出方向多个用户发放积分，单事务完成）
+     * @param fromUserId 转出用户ID
+     * @param amounts 接收用户ID到金额的映射
+     * @param description 转账描述
+     * @return 转账结果
+     */
+    boolean batchTransferCoin(Long fromUserId, Map<Long, Integer> amounts, String description);
 }
\ No newline at end of file
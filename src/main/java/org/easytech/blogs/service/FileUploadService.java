@@ -2,6 +2,7 @@ package org.easytech.blogs.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.easytech.blogs.dto.FileMetadata;
 import org.easytech.blogs.entity.FileUpload;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -48,6 +49,13 @@ public interface FileUploadService {
      */
     FileUpload getFileById(Long fileId);
 
+    /**
+     * 获取文件元数据（带本地缓存，供下载/预览使用）
+     * @param fileId 文件ID
+     * @return 文件元数据，不存在返回null
+     */
+    FileMetadata getFileMetadata(Long fileId);
+
     /**
      * 根据ID获取文件信息（别名方法）
      * @param fileId 文件ID
@@ -0,0 +1,30 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.dto.OrphanCleanupReport;
+
+import java.util.List;
+
+/**
+ * 数据完整性维护服务接口
+ */
+public interface IntegrityMaintenanceService {
+
+    /**
+     * 清理一张关联表中引用了不存在父记录的行
+     * @param relationTable 关联表名，须为已登记的关联表
+     * @return 清理结果
+     */
+    OrphanCleanupReport cleanOrphans(String relationTable);
+
+    /**
+     * 依次清理全部已登记的关联表
+     * @return 每张表一条清理结果
+     */
+    List<OrphanCleanupReport> cleanAllOrphans();
+
+    /**
+     * 已登记的关联表
+     * @return 关联表名列表
+     */
+    List<String> getRelationTables();
+}
@@ -0,0 +1,39 @@
+package org.easytech.blogs.service;
+
+import java.util.function.Consumer;
+
+/**
+ * 密码哈希服务接口
+ * BCrypt 计算在独立的有界线程池中执行，排队过深时直接拒绝（503），不占满Web工作线程的CPU
+ */
+public interface PasswordHashingService {
+
+    /**
+     * 计算密码哈希
+     * @param rawPassword 明文密码
+     * @return 哈希后的密码
+     */
+    String encode(String rawPassword);
+
+    /**
+     * 校验密码
+     * @param rawPassword 明文密码
+     * @param encodedPassword 已存储的哈希
+     * @return 是否匹配
+     */
+    boolean matches(String rawPassword, String encodedPassword);
+
+    /**
+     * 已存储哈希的计算强度是否与当前配置不同
+     * @param encodedPassword 已存储的哈希
+     * @return 是否需要重新哈希
+     */
+    boolean needsRehash(String encodedPassword);
+
+    /**
+     * 后台按当前配置重新计算哈希，线程池繁忙时放弃（下次登录再试）
+     * @param rawPassword 明文密码
+     * @param onEncoded 新哈希的回调，在哈希线程中执行
+     */
+    void rehashAsync(String rawPassword, Consumer<String> onEncoded);
+}
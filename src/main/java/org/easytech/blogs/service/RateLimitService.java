@@ -0,0 +1,18 @@
+package org.easytech.blogs.service;
+
+/**
+ * 限流服务接口
+ * 每个桶在本节点内存中按令牌桶判断，被放行的请求定时汇总到Redis滑动窗口，
+ * 全局计数超限后各节点在窗口剩余时间内直接拒绝
+ */
+public interface RateLimitService {
+
+    /**
+     * 尝试获取一个令牌，只读写本节点内存
+     * @param bucket 桶标识（规则名 + 限流对象）
+     * @param limit 窗口内允许的请求数
+     * @param windowMillis 窗口长度（毫秒）
+     * @return 0表示放行，否则为建议的重试等待时间（毫秒）
+     */
+    long tryAcquire(String bucket, int limit, long windowMillis);
+}
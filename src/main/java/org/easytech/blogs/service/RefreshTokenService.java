@@ -0,0 +1,63 @@
+package org.easytech.blogs.service;
+
+import java.util.Date;
+
+/**
+ * 刷新令牌服务接口
+ * 一次登录签发的刷新令牌组成一个家族，家族只记录当前有效的令牌ID；
+ * 每次刷新都轮换出新令牌，已被轮换掉的令牌再次出现即视为泄露；
+ * 轮换后的短暂宽限期内，刚被轮换掉的令牌（多个标签页同时刷新）拿到的是同一个新令牌
+ */
+public interface RefreshTokenService {
+
+    /**
+     * 轮换结果
+     */
+    enum RotationResult {
+        /** 轮换成功 */
+        ROTATED,
+        /** 宽限期内出示刚被轮换掉的令牌，返回那次轮换签发的令牌 */
+        ALREADY_ROTATED,
+        /** 出示的是已被轮换掉的令牌，家族已作废 */
+        REUSED,
+        /** 家族不存在（已过期、已登出或已作废） */
+        UNKNOWN
+    }
+
+    /**
+     * 轮换结果及客户端应使用的刷新令牌
+     * @param result 轮换结果
+     * @param refreshToken 结果为 ALREADY_ROTATED 时为并发请求已轮换出的刷新令牌，其他结果为null
+     */
+    record Rotation(RotationResult result, String refreshToken) {
+
+        public static final Rotation ROTATED = new Rotation(RotationResult.ROTATED, null);
+        public static final Rotation REUSED = new Rotation(RotationResult.REUSED, null);
+        public static final Rotation UNKNOWN = new Rotation(RotationResult.UNKNOWN, null);
+    }
+
+    /**
+     * 登录时创建新家族
+     * @param familyId 家族ID
+     * @param tokenId 首个刷新令牌ID
+     * @param expiresAt 刷新令牌过期时间，家族记录随之过期
+     */
+    void startFamily(String familyId, String tokenId, Date expiresAt);
+
+    /**
+     * 原子地将家族当前令牌从 presentedTokenId 换成 newTokenId
+     * @param familyId 家族ID
+     * @param presentedTokenId 客户端出示的刷新令牌ID
+     * @param newTokenId 新刷新令牌ID
+     * @param newToken 新刷新令牌，宽限期内提供给并发出示旧令牌的请求
+     * @param newExpiresAt 新刷新令牌过期时间
+     * @return 轮换结果
+     */
+    Rotation rotate(String familyId, String presentedTokenId, String newTokenId, String newToken, Date newExpiresAt);
+
+    /**
+     * 作废整个家族（登出）
+     * @param familyId 家族ID
+     */
+    void revokeFamily(String familyId);
+}
@@ -142,4 +142,11 @@ public interface SystemConfigService {
      * 刷新配置缓存（如果使用了缓存）
      */
     void refreshConfigCache();
+
+    /**
+     * 获取当前生效的配置快照版本号
+     * 同一版本内的配置读取来自同一次整体加载，不会读到部分生效的批量修改
+     * @return 配置版本号
+     */
+    long getConfigVersion();
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package org.easytech.blogs.service;
+
+import org.easytech.blogs.entity.Tag;
+
+import java.util.List;
+
+/**
+ * 标签字典服务接口
+ * 返回的标签对象来自共享快照，调用方只读不改
+ */
+public interface TagDictionaryService {
+
+    /**
+     * 按名称查找标签（忽略大小写，与表的排序规则一致）
+     * @param name 标签名称
+     * @return 标签，不存在时返回null
+     */
+    Tag getByName(String name);
+
+    /**
+     * 按ID查找标签
+     * @param id 标签ID
+     * @return 标签，不存在时返回null
+     */
+    Tag getById(Long id);
+
+    /**
+     * 全部标签，按使用次数降序、创建时间升序
+     * @return 标签列表
+     */
+    List<Tag> getAll();
+
+    /**
+     * 热门标签（使用次数大于0）
+     * @param limit 数量
+     * @return 标签列表
+     */
+    List<Tag> getHot(int limit);
+
+    /**
+     * 按名称前缀联想，按使用次数降序
+     * @param prefix 名称前缀，为空时返回热门标签
+     * @param limit 数量
+     * @return 标签列表
+     */
+    List<Tag> suggest(String prefix, int limit);
+
+    /**
+     * 标签名称或标签本身变更后立即重建字典（在事务中调用时于提交后执行）
+     */
+    void refresh();
+
+    /**
+     * 标签使用次数变更后标记字典过期，由定时任务合并重建（在事务中调用时于提交后执行）
+     */
+    void markStale();
+}
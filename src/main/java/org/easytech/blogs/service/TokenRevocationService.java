@@ -0,0 +1,33 @@
+package org.easytech.blogs.service;
+
+import java.util.Date;
+
+/**
+ * 令牌吊销服务接口
+ * 单个令牌按 jti 吊销，整个用户按"早于某时刻签发的令牌全部失效"吊销；
+ * 判断只查本节点内存，各节点通过Redis发布/订阅同步，记录在令牌过期后自动清理
+ */
+public interface TokenRevocationService {
+
+    /**
+     * 吊销单个令牌（登出）
+     * @param tokenId 令牌ID（jti）
+     * @param expiresAt 令牌过期时间，过期后记录自动清理
+     */
+    void revokeToken(String tokenId, Date expiresAt);
+
+    /**
+     * 吊销用户此前签发的全部令牌（修改密码、禁用、删除）
+     * @param userId 用户ID
+     */
+    void revokeUserTokens(Long userId);
+
+    /**
+     * 令牌是否已吊销，只查内存
+     * @param tokenId 令牌ID（jti），旧令牌可能为空
+     * @param userId 用户ID
+     * @param issuedAt 签发时间
+     * @return 是否已吊销
+     */
+    boolean isRevoked(String tokenId, Long userId, Date issuedAt);
+}
@@ -0,0 +1,30 @@
+package org.easytech.blogs.service;
+
+/**
+ * 用户名、邮箱布隆过滤器服务接口
+ * 判断为不存在时可直接答复可用，判断为可能存在时仍需查库；
+ * 名称按数据库排序规则归一（忽略大小写、重音和首尾空格）后再判断
+ */
+public interface UserBloomFilterService {
+
+    /**
+     * 用户名是否可能已被占用
+     * @param username 用户名
+     * @return false 表示一定未被占用；过滤器未加载时返回 true
+     */
+    boolean mightContainUsername(String username);
+
+    /**
+     * 邮箱是否可能已被占用
+     * @param email 邮箱
+     * @return false 表示一定未被占用；过滤器未加载时返回 true
+     */
+    boolean mightContainEmail(String email);
+
+    /**
+     * 注册或修改用户名、邮箱后加入过滤器，并通知其他节点
+     * @param username 用户名，可为空
+     * @param email 邮箱，可为空
+     */
+    void add(String username, String email);
+}
@@ -2,8 +2,10 @@ package org.easytech.blogs.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.easytech.blogs.dto.CoinReconcileReport;
 import org.easytech.blogs.entity.UserCoin;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +31,7 @@ public interface UserCoinService {
 
     /**
      * 更新用户积分账户
+     * 余额变化折算为一条调整流水写入，累计获得、累计消费不允许直接修改
      * @param userCoin 用户积分账户信息
      * @return 更新结果
      */
@@ -72,6 +75,20 @@ public interface UserCoinService {
      */
     List<Map<String, Object>> getCoinLeaderboard(Integer limit, String orderBy);
 
+    /**
+     * 获取用户在积分排行榜中的名次
+     * @param userId 用户ID
+     * @param orderBy 排序字段（coinBalance/totalEarned/totalConsumed）
+     * @return 名次信息（userId、orderBy、rank、score）
+     */
+    Map<String, Object> getUserCoinRank(Long userId, String orderBy);
+
+    /**
+     * 从积分账户表重建积分排行榜
+     * @return 写入榜单的账户数
+     */
+    long rebuildCoinLeaderboard();
+
     /**
      * 获取积分统计信息
      * @return 积分统计信息
@@ -106,6 +123,14 @@ public interface UserCoinService {
      */
     int recalculateAllBalances();
 
+    /**
+     * 按积分流水对账全部积分账户
+     * @param dryRun true-只报告偏差不修正
+     * @param resume true-从上次中断的检查点继续
+     * @return 对账结果
+     */
+    CoinReconcileReport reconcileBalances(boolean dryRun, boolean resume);
+
     /**
      * 冻结或解冻积分账户
      * @param id 账户ID
@@ -122,6 +147,14 @@ public interface UserCoinService {
      */
     List<Map<String, Object>> getUserCoinTrend(Long id, Integer days);
 
+    /**
+     * 从积分流水回填积分日汇总
+     * @param fromDate 开始日期，为空时从最早的流水开始
+     * @param toDate 结束日期，为空时到昨天；当天的汇总实时维护，不能回填
+     * @return 回填的天数
+     */
+    int backfillCoinTrend(LocalDate fromDate, LocalDate toDate);
+
     /**
      * 检查用户是否已有积分账户
      * @param userId 用户ID
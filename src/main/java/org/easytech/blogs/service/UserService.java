@@ -27,6 +27,13 @@ public interface UserService {
      */
     User findByEmail(String email);
 
+    /**
+     * 登录用查询：用户与角色一次查出，角色写入角色缓存；不经过用户缓存，保证拿到最新的密码哈希
+     * @param username 用户名
+     * @return 用户信息
+     */
+    User findLoginUser(String username);
+
     /**
      * 用户注册
      * @param user 用户信息
@@ -73,6 +80,13 @@ public interface UserService {
      */
     boolean resetPassword(Long userId, String newPassword);
 
+    /**
+     * 登录校验通过后，按当前配置的BCrypt强度在后台重新哈希密码
+     * @param user 用户（含已存储的哈希）
+     * @param rawPassword 本次登录的明文密码
+     */
+    void upgradePasswordHash(User user, String rawPassword);
+
     /**
      * 分页查询用户列表
      * @param page 分页参数
@@ -150,6 +164,12 @@ public interface UserService {
      */
     boolean updateLastLoginTime(Long userId);
 
+    /**
+     * 记录登录，最后登录时间异步批量写入
+     * @param userId 用户ID
+     */
+    void recordLastLogin(Long userId);
+
     /**
      * 根据昵称搜索用户
      * @param nickname 昵称关键词
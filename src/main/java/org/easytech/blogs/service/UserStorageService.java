@@ -0,0 +1,42 @@
+package org.easytech.blogs.service;
+
+/**
+ * 用户存储配额服务接口
+ * 维护用户存储用量计数器，上传时按配额校验，删除时释放
+ */
+public interface UserStorageService {
+
+    /**
+     * 占用存储空间，超出配额时抛出异常
+     * @param userId 用户ID
+     * @param bytes 文件大小（字节）
+     */
+    void reserve(Long userId, long bytes);
+
+    /**
+     * 释放存储空间
+     * @param userId 用户ID
+     * @param bytes 释放的字节数
+     * @param fileCount 释放的文件数量
+     */
+    void release(Long userId, long bytes, int fileCount);
+
+    /**
+     * 获取用户已用存储空间
+     * @param userId 用户ID
+     * @return 已用空间（字节）
+     */
+    long getUsedBytes(Long userId);
+
+    /**
+     * 获取单用户存储配额
+     * @return 配额（字节），0表示不限制
+     */
+    long getQuota();
+
+    /**
+     * 按文件表校正所有用户的存储用量
+     * @return 校正前存在偏差的账户数量
+     */
+    long reconcileUsage();
+}
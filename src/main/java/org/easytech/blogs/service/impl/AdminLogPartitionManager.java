@@ -0,0 +1,168 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.mapper.AdminLogMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 管理员日志分区维护
+ * 表已按月分区（见 sql/partition_admin_log.sql）时提前创建后续月份分区，过期数据整月 DROP PARTITION；
+ * 未分区或边界月份的剩余数据按批 DELETE ... LIMIT，每批独立提交。
+ * 多节点部署时通过Redis锁保证同一时间只有一个节点执行分区DDL
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdminLogPartitionManager {
+
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LOCK_KEY = "admin:log:partition:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final AdminLogMapper adminLogMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${blog.admin-log.partition-ahead-months:3}")
+    private int aheadMonths;
+
+    @Value("${blog.admin-log.retention-days:0}")
+    private int retentionDays;
+
+    @Value("${blog.admin-log.purge-batch-size:5000}")
+    private int purgeBatchSize;
+
+    @Value("${blog.admin-log.purge-pause-millis:50}")
+    private long purgePauseMillis;
+
+    /**
+     * 启动后及每天定时：补齐未来分区并清理超过保留期的日志
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${blog.admin-log.maintenance-cron:0 10 0 * * ?}")
+    public void maintain() {
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL))) {
+                log.info("管理员日志分区维护正在其他节点执行，跳过本次任务");
+                return;
+            }
+        } catch (Exception e) {
+            // 拿不到锁时不执行DDL，避免多个节点同时 REORGANIZE 同一分区
+            log.warn("Redis获取管理员日志分区维护锁失败，跳过本次任务: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            ensureFuturePartitions();
+            if (retentionDays > 0) {
+                purgeBefore(LocalDateTime.now().minusDays(retentionDays));
+            }
+        } catch (Exception e) {
+            log.error("管理员日志分区维护失败", e);
+        } finally {
+            try {
+                stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(LOCK_KEY), token);
+            } catch (Exception e) {
+                log.warn("Redis释放管理员日志分区维护锁失败，等待锁过期: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从 p_future 拆出直到 当前月 + partition-ahead-months 的月分区
+     */
+    public void ensureFuturePartitions() {
+        List<String> partitions = adminLogMapper.selectPartitionNames();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        if (!partitions.contains(FUTURE_PARTITION)) {
+            log.warn("管理员日志表缺少 {} 分区，无法自动创建月分区", FUTURE_PARTITION);
+            return;
+        }
+
+        YearMonth last = null;
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month != null && (last == null || month.isAfter(last))) {
+                last = month;
+            }
+        }
+
+        YearMonth target = YearMonth.now().plusMonths(aheadMonths);
+        YearMonth month = last != null ? last.plusMonths(1) : YearMonth.now();
+        for (; !month.isAfter(target); month = month.plusMonths(1)) {
+            String partition = "p" + month.format(MONTH_FORMAT);
+            adminLogMapper.addMonthPartition(partition, month.plusMonths(1).atDay(1).toString());
+            log.info("管理员日志分区已创建: {}", partition);
+        }
+    }
+
+    /**
+     * 清理指定时间之前的日志
+     * @param beforeTime 清理时间点
+     * @return 按批删除的行数（整月删除的分区不计入）
+     */
+    public long purgeBefore(LocalDateTime beforeTime) {
+        // 上界不晚于清理时间点的月分区整体删除，元数据操作，不产生逐行undo
+        for (String partition : adminLogMapper.selectPartitionNames()) {
+            YearMonth month = parseMonth(partition);
+            if (month != null && !month.plusMonths(1).atDay(1).atStartOfDay().isAfter(beforeTime)) {
+                adminLogMapper.dropPartition(partition);
+                log.info("管理员日志分区已删除: {}", partition);
+            }
+        }
+
+        // 剩余数据（未分区的表、边界月份、历史分区）按批删除
+        long deleted = 0;
+        int batch;
+        do {
+            batch = adminLogMapper.cleanLogsBefore(beforeTime, purgeBatchSize);
+            deleted += batch;
+            if (batch == purgeBatchSize && purgePauseMillis > 0) {
+                try {
+                    Thread.sleep(purgePauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (batch == purgeBatchSize);
+
+        log.info("管理员日志清理完成，清理时间点: {}, 按批删除: {}", beforeTime, deleted);
+        return deleted;
+    }
+
+    private static YearMonth parseMonth(String partition) {
+        if (partition == null || partition.length() != 7 || partition.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(1), MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
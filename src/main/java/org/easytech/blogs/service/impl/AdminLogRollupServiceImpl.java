@@ -0,0 +1,190 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.AdminLog;
+import org.easytech.blogs.entity.AdminLogHourly;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.AdminLogHourlyMapper;
+import org.easytech.blogs.mapper.AdminLogMapper;
+import org.easytech.blogs.service.AdminLogRollupService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 管理员操作小时汇总服务实现类
+ * 日志写入后按 (小时, 管理员, 操作类型) 累加计数；统计查询中完整的小时读汇总表，
+ * 只有首尾不足一小时的部分回到原始日志表计数
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdminLogRollupServiceImpl implements AdminLogRollupService {
+
+    private static final Comparator<AdminLogHourly> KEY_ORDER = Comparator
+            .comparing(AdminLogHourly::getStatHour)
+            .thenComparing(AdminLogHourly::getAdminId)
+            .thenComparing(AdminLogHourly::getOperationType);
+
+    private final AdminLogHourlyMapper adminLogHourlyMapper;
+    private final AdminLogMapper adminLogMapper;
+
+    @Override
+    public void recordLogs(List<AdminLog> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return;
+        }
+
+        Map<String, AdminLogHourly> deltas = new HashMap<>();
+        for (AdminLog adminLog : logs) {
+            if (adminLog.getAdminId() == null || adminLog.getOperationType() == null) {
+                continue;
+            }
+            LocalDateTime time = adminLog.getCreateTime() != null ? adminLog.getCreateTime() : LocalDateTime.now();
+            LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+            String key = hour + ":" + adminLog.getAdminId() + ":" + adminLog.getOperationType();
+            AdminLogHourly delta = deltas.computeIfAbsent(key, k -> {
+                AdminLogHourly row = new AdminLogHourly();
+                row.setStatHour(hour);
+                row.setAdminId(adminLog.getAdminId());
+                row.setOperationType(adminLog.getOperationType());
+                row.setOpCount(0L);
+                return row;
+            });
+            delta.setOpCount(delta.getOpCount() + 1);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // 固定加锁顺序，避免与其他写入者死锁
+        List<AdminLogHourly> rows = new ArrayList<>(deltas.values());
+        rows.sort(KEY_ORDER);
+        try {
+            adminLogHourlyMapper.batchUpsertDelta(rows);
+        } catch (Exception e) {
+            // 日志本身已入库，汇总由定时重算修复
+            log.error("管理员操作小时汇总累加失败，汇总行数: {}", rows.size(), e);
+        }
+    }
+
+    @Override
+    public List<AdminLog> countByOperationType(Long adminId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null || endTime.isBefore(startTime)) {
+            return List.of();
+        }
+
+        // 日志时间精确到秒，结束时间（含）换算为下一秒（不含）
+        LocalDateTime endExclusive = endTime.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        LocalDateTime fullFrom = ceilHour(startTime);
+        LocalDateTime fullTo = endExclusive.truncatedTo(ChronoUnit.HOURS);
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        if (fullFrom.isBefore(fullTo)) {
+            if (startTime.isBefore(fullFrom)) {
+                mergeRaw(counts, adminId, startTime, fullFrom);
+            }
+            for (AdminLogHourly row : adminLogHourlyMapper.sumByOperationType(adminId, fullFrom, fullTo)) {
+                counts.merge(row.getOperationType(), row.getOpCount() != null ? row.getOpCount() : 0L, Long::sum);
+            }
+            if (fullTo.isBefore(endExclusive)) {
+                mergeRaw(counts, adminId, fullTo, endExclusive);
+            }
+        } else {
+            // 不足一个完整小时，直接统计原始日志
+            mergeRaw(counts, adminId, startTime, endExclusive);
+        }
+
+        List<AdminLog> result = new ArrayList<>(counts.size());
+        counts.forEach((operationType, count) -> {
+            if (count > 0) {
+                AdminLog stat = new AdminLog();
+                stat.setAdminId(adminId);
+                stat.setOperationType(operationType);
+                stat.setOperationCount(count);
+                result.add(stat);
+            }
+        });
+        result.sort(Comparator.comparing(AdminLog::getOperationCount).reversed());
+        return result;
+    }
+
+    @Override
+    public int rebuild(LocalDateTime fromTime, LocalDateTime toTime) {
+        if (fromTime == null || toTime == null || !fromTime.isBefore(toTime)) {
+            throw new ValidationException("重算时间范围不正确");
+        }
+        int affected = adminLogHourlyMapper.rebuildRange(fromTime.truncatedTo(ChronoUnit.HOURS), ceilHour(toTime));
+        log.info("管理员操作小时汇总重算完成，范围: [{}, {}), 影响行数: {}", fromTime, toTime, affected);
+        return affected;
+    }
+
+    @Override
+    public int backfill(LocalDateTime fromTime, LocalDateTime toTime) {
+        // 当前小时的汇总由日志写入实时累加，覆盖重算会与并发的累加互相覆盖，只允许回填到当前整点
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        if (toTime == null) {
+            toTime = currentHour;
+        } else if (ceilHour(toTime).isAfter(currentHour)) {
+            throw new ValidationException("只能回填当前小时之前的汇总");
+        }
+        if (fromTime == null) {
+            LocalDateTime firstLogTime = adminLogMapper.selectFirstLogTime();
+            if (firstLogTime == null || !firstLogTime.isBefore(toTime)) {
+                return 0;
+            }
+            fromTime = firstLogTime;
+        }
+        if (!fromTime.isBefore(toTime)) {
+            throw new ValidationException("开始时间必须早于结束时间");
+        }
+
+        // 按天分段，每段一次 INSERT ... SELECT，避免单条语句扫描整张日志表
+        LocalDateTime from = fromTime.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = ceilHour(toTime);
+        LocalDateTime segmentFrom = from;
+        while (segmentFrom.isBefore(to)) {
+            LocalDateTime segmentTo = segmentFrom.plusDays(1).isBefore(to) ? segmentFrom.plusDays(1) : to;
+            rebuild(segmentFrom, segmentTo);
+            segmentFrom = segmentTo;
+        }
+
+        int hours = (int) ChronoUnit.HOURS.between(from, to);
+        log.info("管理员操作小时汇总回填完成，范围: [{}, {})，共 {} 小时", from, to, hours);
+        return hours;
+    }
+
+    /**
+     * 每小时重算上一小时的汇总，修复写入汇总失败造成的偏差
+     */
+    @Scheduled(cron = "${blog.admin-log.rollup-repair-cron:0 5 * * * ?}")
+    public void repairLastHour() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        try {
+            rebuild(currentHour.minusHours(1), currentHour);
+        } catch (Exception e) {
+            log.error("管理员操作小时汇总定时重算失败", e);
+        }
+    }
+
+    private void mergeRaw(Map<Integer, Long> counts, Long adminId, LocalDateTime from, LocalDateTime to) {
+        for (AdminLog row : adminLogMapper.selectOperationCounts(adminId, from, to)) {
+            counts.merge(row.getOperationType(), Objects.requireNonNullElse(row.getOperationCount(), 0L), Long::sum);
+        }
+    }
+
+    private static LocalDateTime ceilHour(LocalDateTime time) {
+        LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+        return hour.equals(time) ? hour : hour.plusHours(1);
+    }
+}
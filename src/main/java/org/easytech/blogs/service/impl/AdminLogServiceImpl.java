@@ -8,9 +8,9 @@ import org.easytech.blogs.entity.AdminLog;
 import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.AdminLogMapper;
+import org.easytech.blogs.service.AdminLogRollupService;
 import org.easytech.blogs.service.AdminLogService;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
@@ -27,6 +27,9 @@ import java.util.List;
 public class AdminLogServiceImpl implements AdminLogService {
 
     private final AdminLogMapper adminLogMapper;
+    private final AdminLogWriter adminLogWriter;
+    private final AdminLogPartitionManager adminLogPartitionManager;
+    private final AdminLogRollupService adminLogRollupService;
 
     // 操作类型常量
     private static final int OPERATION_TYPE_LOGIN = 1;           // 登录
@@ -36,7 +39,6 @@ public class AdminLogServiceImpl implements AdminLogService {
     private static final int OPERATION_TYPE_SYSTEM = 5;          // 系统操作
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean recordAdminOperation(Long adminId, Integer operationType, String operationContent, 
                                       Long targetId, String ipAddress, String userAgent) {
         if (adminId == null || operationType == null) {
@@ -51,10 +53,12 @@ public class AdminLogServiceImpl implements AdminLogService {
             adminLog.setTargetId(targetId);
             adminLog.setIpAddress(ipAddress);
             adminLog.setUserAgent(userAgent);
+            // 异步写入时以产生日志的时间为准
+            adminLog.setCreateTime(LocalDateTime.now());
 
-            int result = adminLogMapper.insert(adminLog);
-            if (result > 0) {
-                log.debug("管理员操作日志记录成功，管理员ID: {}, 操作类型: {}", adminId, operationType);
+            // 交给写线程批量入库，不在调用方请求中执行INSERT
+            if (adminLogWriter.submit(adminLog)) {
+                log.debug("管理员操作日志已提交，管理员ID: {}, 操作类型: {}", adminId, operationType);
                 return true;
             }
         } catch (Exception e) {
@@ -107,7 +111,9 @@ public class AdminLogServiceImpl implements AdminLogService {
         if (adminId == null || startTime == null || endTime == null) {
             return 0L;
         }
-        return adminLogMapper.countOperationsByAdmin(adminId, startTime, endTime);
+        return adminLogRollupService.countByOperationType(adminId, startTime, endTime).stream()
+            .mapToLong(AdminLog::getOperationCount)
+            .sum();
     }
 
     @Override
@@ -115,18 +121,18 @@ public class AdminLogServiceImpl implements AdminLogService {
         if (startTime == null || endTime == null) {
             return List.of();
         }
-        return adminLogMapper.statisticsOperationTypes(startTime, endTime);
+        return adminLogRollupService.countByOperationType(null, startTime, endTime);
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public int cleanLogsBefore(LocalDateTime beforeTime) {
         if (beforeTime == null) {
             throw new ValidationException("清理时间不能为空");
         }
 
+        // 不开启外层事务：整月分区直接删除，其余数据分批删除且每批独立提交
         try {
-            int deletedCount = adminLogMapper.cleanLogsBefore(beforeTime);
+            int deletedCount = (int) adminLogPartitionManager.purgeBefore(beforeTime);
             log.info("清理管理员日志完成，清理数量: {}, 清理时间点: {}", deletedCount, beforeTime);
             return deletedCount;
         } catch (Exception e) {
@@ -215,4 +221,9 @@ public class AdminLogServiceImpl implements AdminLogService {
             .limit(limit)
             .collect(java.util.stream.Collectors.toList());
     }
+
+    @Override
+    public int backfillOperationRollup(LocalDateTime fromTime, LocalDateTime toTime) {
+        return adminLogRollupService.backfill(fromTime, toTime);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.AdminLog;
+import org.easytech.blogs.mapper.AdminLogMapper;
+import org.easytech.blogs.service.AdminLogRollupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 管理员日志异步批量写入器
+ * 日志先进入有界队列，由独立写线程每 flush-interval 毫秒或凑满 batch-size 条后以多行INSERT写入；
+ * 队列满时按 overflow-policy 处理，应用关闭时写完队列中剩余的日志；写入成功的日志同时累加小时汇总
+ */
+@Slf4j
+@Component
+public class AdminLogWriter {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 调用线程等待队列空位（不丢日志，最长等待 offer-timeout 毫秒后改为同步写入） */
+        BLOCK,
+        /** 调用线程直接同步写入该条日志（不丢日志） */
+        CALLER_RUNS,
+        /** 丢弃该条日志并计数 */
+        DROP
+    }
+
+    private final AdminLogMapper adminLogMapper;
+    private final AdminLogRollupService adminLogRollupService;
+    private final BlockingQueue<AdminLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AdminLogWriter(AdminLogMapper adminLogMapper,
+                          AdminLogRollupService adminLogRollupService,
+                          @Value("${blog.admin-log.buffer-size:8192}") int bufferSize,
+                          @Value("${blog.admin-log.batch-size:200}") int batchSize,
+                          @Value("${blog.admin-log.flush-interval:500}") long flushIntervalMillis,
+                          @Value("${blog.admin-log.offer-timeout:100}") long offerTimeoutMillis,
+                          @Value("${blog.admin-log.shutdown-timeout:10000}") long shutdownTimeoutMillis,
+                          @Value("${blog.admin-log.overflow-policy:CALLER_RUNS}") OverflowPolicy overflowPolicy) {
+        this.adminLogMapper = adminLogMapper;
+        this.adminLogRollupService = adminLogRollupService;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "admin-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            writerThread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("管理员日志写线程未在{}ms内结束，剩余{}条日志未写入", shutdownTimeoutMillis, queue.size());
+        }
+        log.info("管理员日志写入器已关闭，累计写入: {}, 丢弃: {}", writtenCount.get(), droppedCount.get());
+    }
+
+    /**
+     * 提交一条日志
+     * @param adminLog 管理员日志
+     * @return true-已进入队列或已写入；false-被丢弃
+     */
+    public boolean submit(AdminLog adminLog) {
+        if (running && queue.offer(adminLog)) {
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (running && queue.offer(adminLog, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return writeDirectly(adminLog);
+            case DROP:
+                long dropped = droppedCount.incrementAndGet();
+                if (dropped == 1 || dropped % 1000 == 0) {
+                    log.warn("管理员日志队列已满，累计丢弃{}条", dropped);
+                }
+                return false;
+            case CALLER_RUNS:
+            default:
+                return writeDirectly(adminLog);
+        }
+    }
+
+    /**
+     * 当前队列中等待写入的日志数
+     */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<AdminLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AdminLog first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 在一个刷新周期内尽量凑满一批
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    AdminLog next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 关闭时仍需写完剩余日志，只结束等待
+                running = false;
+            } catch (Exception e) {
+                log.error("管理员日志写线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AdminLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            adminLogMapper.insertBatch(batch);
+            writtenCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            // 批量失败时逐条重试，避免一条异常数据拖累整批
+            log.error("管理员日志批量写入失败，改为逐条写入，条数: {}", batch.size(), e);
+            for (AdminLog adminLog : batch) {
+                writeDirectly(adminLog);
+            }
+            return;
+        }
+        adminLogRollupService.recordLogs(batch);
+    }
+
+    private boolean writeDirectly(AdminLog adminLog) {
+        try {
+            if (adminLogMapper.insert(adminLog) > 0) {
+                writtenCount.incrementAndGet();
+                adminLogRollupService.recordLogs(List.of(adminLog));
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("管理员日志写入失败，管理员ID: {}, 操作类型: {}", adminLog.getAdminId(), adminLog.getOperationType(), e);
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package org.easytech.blogs.service.impl;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.easytech.blogs.dto.auth.*;
@@ -9,11 +10,13 @@ import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.UnauthorizedException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.service.AuthService;
+import org.easytech.blogs.service.PasswordHashingService;
+import org.easytech.blogs.service.RefreshTokenService;
+import org.easytech.blogs.service.TokenRevocationService;
 import org.easytech.blogs.service.UserCoinService;
 import org.easytech.blogs.service.UserService;
 import org.easytech.blogs.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -21,6 +24,7 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -34,21 +38,22 @@ public class AuthServiceImpl implements AuthService {
     private final UserService userService;
     private final UserCoinService userCoinService;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
 
     @Value("${blog.jwt.expiration:86400}")
     private Long jwtExpiration;
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public LoginResponse login(LoginRequest request) {
-        // 验证用户名和密码
-        User user = userService.findByUsername(request.getUsername());
+        // 用户与角色一次查出
+        User user = userService.findLoginUser(request.getUsername());
         if (user == null) {
             throw new UnauthorizedException("用户名或密码错误");
         }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new UnauthorizedException("用户名或密码错误");
         }
 
@@ -57,35 +62,14 @@ public class AuthServiceImpl implements AuthService {
             throw new UnauthorizedException("账户已被禁用");
         }
 
-        // 更新最后登录时间
-        userService.updateLastLoginTime(user.getId());
-
-        // 获取用户角色
-        List<Role> roles = userService.getUserRoles(user.getId());
-        List<String> roleNames = roles.stream()
-                .map(Role::getCode)
-                .collect(Collectors.toList());
-
-        // 生成JWT令牌
-        String accessToken = jwtUtil.generateAccessToken(user.getId(), user.getUsername(), roleNames);
-        String refreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getUsername());
+        // BCrypt强度配置变化后透明升级已存储的哈希
+        userService.upgradePasswordHash(user, request.getPassword());
 
-        // 构建用户信息
-        LoginResponse.UserInfo userInfo = new LoginResponse.UserInfo();
-        userInfo.setUserId(user.getId());
-        userInfo.setUsername(user.getUsername());
-        userInfo.setNickname(user.getNickname());
-        userInfo.setEmail(user.getEmail());
-        userInfo.setAvatar(user.getAvatar());
-        userInfo.setRoles(roleNames);
-        userInfo.setLastLoginTime(user.getLastLoginTime());
+        // 最后登录时间异步批量写入
+        userService.recordLastLogin(user.getId());
 
-        // 构建响应
-        LoginResponse response = new LoginResponse();
-        response.setAccessToken(accessToken);
-        response.setRefreshToken(refreshToken);
-        response.setExpiresIn(jwtExpiration);
-        response.setUserInfo(userInfo);
+        // 角色已随登录查询写入角色缓存
+        LoginResponse response = issueTokens(user, userService.getUserRoles(user.getId()));
 
         log.info("用户登录成功: {}", user.getUsername());
         return response;
@@ -112,7 +96,8 @@ public class AuthServiceImpl implements AuthService {
         // 创建用户
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        // 明文交给 UserService.register 统一哈希，避免重复哈希
+        user.setPassword(request.getPassword());
         user.setEmail(request.getEmail());
         user.setNickname(StringUtils.hasText(request.getNickname()) ? 
                 request.getNickname() : request.getUsername());
@@ -133,13 +118,12 @@ public class AuthServiceImpl implements AuthService {
             log.warn("创建用户积分账户失败，用户ID: {}", registeredUser.getId(), e);
         }
 
-        // 自动登录
-        LoginRequest loginRequest = new LoginRequest();
-        loginRequest.setUsername(request.getUsername());
-        loginRequest.setPassword(request.getPassword());
+        // 自动登录：密码刚刚哈希过，直接签发令牌，不再重复校验
+        userService.recordLastLogin(registeredUser.getId());
+        LoginResponse response = issueTokens(registeredUser, userService.getUserRoles(registeredUser.getId()));
 
         log.info("用户注册成功: {}", request.getUsername());
-        return login(loginRequest);
+        return response;
     }
 
     @Override
@@ -148,65 +132,74 @@ public class AuthServiceImpl implements AuthService {
             throw new ValidationException("刷新令牌不能为空");
         }
 
-        // 验证刷新令牌
-        if (!jwtUtil.validateToken(refreshToken) || !jwtUtil.isRefreshToken(refreshToken)) {
+        // 只解析一次，后续全部从声明中读取
+        Claims claims;
+        try {
+            claims = jwtUtil.parseToken(refreshToken);
+        } catch (Exception e) {
             throw new UnauthorizedException("无效的刷新令牌");
         }
+        if (!"refresh".equals(claims.get("tokenType", String.class))) {
+            throw new UnauthorizedException("无效的刷新令牌");
+        }
+        Long userId = claims.get("userId", Long.class);
+        if (tokenRevocationService.isRevoked(claims.getId(), userId, claims.getIssuedAt())) {
+            throw new UnauthorizedException("刷新令牌已失效，请重新登录");
+        }
 
-        try {
-            // 从刷新令牌中获取用户信息
-            Long userId = jwtUtil.getUserIdFromToken(refreshToken);
-            String username = jwtUtil.getUsernameFromToken(refreshToken);
-
-            // 获取用户信息
-            User user = userService.getUserById(userId);
-            if (user == null || user.getStatus() != 1) {
-                throw new UnauthorizedException("用户不存在或已被禁用");
-            }
-
-            // 获取用户角色
-            List<Role> roles = userService.getUserRoles(user.getId());
-            List<String> roleNames = roles.stream()
-                    .map(Role::getCode)
-                    .collect(Collectors.toList());
-
-            // 生成新的访问令牌
-            String newAccessToken = jwtUtil.generateAccessToken(userId, username, roleNames);
-
-            // 构建用户信息
-            LoginResponse.UserInfo userInfo = new LoginResponse.UserInfo();
-            userInfo.setUserId(user.getId());
-            userInfo.setUsername(user.getUsername());
-            userInfo.setNickname(user.getNickname());
-            userInfo.setEmail(user.getEmail());
-            userInfo.setAvatar(user.getAvatar());
-            userInfo.setRoles(roleNames);
-            userInfo.setLastLoginTime(user.getLastLoginTime());
-
-            // 构建响应
-            LoginResponse response = new LoginResponse();
-            response.setAccessToken(newAccessToken);
-            response.setRefreshToken(refreshToken); // 保持原刷新令牌
-            response.setExpiresIn(jwtExpiration);
-            response.setUserInfo(userInfo);
-
-            log.debug("刷新令牌成功: {}", username);
-            return response;
+        // 用户与角色均走缓存
+        User user = userService.getUserById(userId);
+        if (user == null || user.getStatus() == null || user.getStatus() != 1) {
+            throw new UnauthorizedException("用户不存在或已被禁用");
+        }
 
-        } catch (Exception e) {
-            log.error("刷新令牌失败: {}", e.getMessage());
-            throw new UnauthorizedException("刷新令牌失败");
+        String familyId = claims.get("family", String.class);
+        JwtUtil.IssuedToken newRefreshToken;
+        String refreshTokenValue;
+        if (familyId == null) {
+            // 轮换上线前签发的刷新令牌不属于任何家族：作废它并开启新家族
+            tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            familyId = UUID.randomUUID().toString();
+            newRefreshToken = jwtUtil.issueRefreshToken(userId, user.getUsername(), familyId);
+            refreshTokenService.startFamily(familyId, newRefreshToken.tokenId(), newRefreshToken.expiresAt());
+            refreshTokenValue = newRefreshToken.token();
+        } else {
+            newRefreshToken = jwtUtil.issueRefreshToken(userId, user.getUsername(), familyId);
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(familyId, claims.getId(),
+                    newRefreshToken.tokenId(), newRefreshToken.token(), newRefreshToken.expiresAt());
+            switch (rotation.result()) {
+                case ROTATED -> refreshTokenValue = newRefreshToken.token();
+                // 多个标签页同时刷新：宽限期内拿到并发请求已轮换出的令牌，各页最终持有同一个令牌
+                case ALREADY_ROTATED -> refreshTokenValue = rotation.refreshToken();
+                case REUSED -> {
+                    // 旧令牌被再次使用，说明令牌可能已泄露：家族已作废，同时吊销该用户已签发的全部令牌
+                    log.warn("检测到刷新令牌重用，已吊销用户全部令牌，用户ID: {}", userId);
+                    tokenRevocationService.revokeUserTokens(userId);
+                    throw new UnauthorizedException("刷新令牌已失效，请重新登录");
+                }
+                default -> throw new UnauthorizedException("刷新令牌已失效，请重新登录");
+            }
         }
+
+        LoginResponse response = buildResponse(user, roleCodes(userService.getUserRoles(userId)),
+                familyId, refreshTokenValue);
+        log.debug("刷新令牌成功: {}", user.getUsername());
+        return response;
     }
 
     @Override
     public void logout(String token) {
-        // 在实际项目中，这里可以将令牌加入黑名单
-        // 或者在Redis中记录已登出的令牌
         if (StringUtils.hasText(token)) {
             try {
-                String username = jwtUtil.getUsernameFromToken(token);
-                log.info("用户登出: {}", username);
+                Claims claims = jwtUtil.parseToken(token);
+                refreshTokenService.revokeFamily(claims.get("family", String.class));
+                if (claims.getId() != null) {
+                    tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+                } else {
+                    // 不含jti的旧令牌只能按用户整体吊销
+                    tokenRevocationService.revokeUserTokens(claims.get("userId", Long.class));
+                }
+                log.info("用户登出: {}", claims.getSubject());
             } catch (Exception e) {
                 log.debug("解析登出令牌失败: {}", e.getMessage());
             }
@@ -239,13 +232,39 @@ public class AuthServiceImpl implements AuthService {
             throw new BusinessException("用户不存在");
         }
 
-        // 获取用户角色
-        List<Role> roles = userService.getUserRoles(user.getId());
-        List<String> roleNames = roles.stream()
-                .map(Role::getCode)
-                .collect(Collectors.toList());
+        return buildUserInfo(user, roleCodes(userService.getUserRoles(user.getId())));
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return !userService.existsByUsername(username);
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        return !userService.existsByEmail(email);
+    }
 
-        // 构建用户信息
+    /**
+     * 开启新的刷新令牌家族并签发访问令牌和刷新令牌
+     */
+    private LoginResponse issueTokens(User user, List<Role> roles) {
+        String familyId = UUID.randomUUID().toString();
+        JwtUtil.IssuedToken refreshToken = jwtUtil.issueRefreshToken(user.getId(), user.getUsername(), familyId);
+        refreshTokenService.startFamily(familyId, refreshToken.tokenId(), refreshToken.expiresAt());
+        return buildResponse(user, roleCodes(roles), familyId, refreshToken.token());
+    }
+
+    private LoginResponse buildResponse(User user, List<String> roleNames, String familyId, String refreshToken) {
+        LoginResponse response = new LoginResponse();
+        response.setAccessToken(jwtUtil.generateAccessToken(user.getId(), user.getUsername(), roleNames, familyId));
+        response.setRefreshToken(refreshToken);
+        response.setExpiresIn(jwtExpiration);
+        response.setUserInfo(buildUserInfo(user, roleNames));
+        return response;
+    }
+
+    private LoginResponse.UserInfo buildUserInfo(User user, List<String> roleNames) {
         LoginResponse.UserInfo userInfo = new LoginResponse.UserInfo();
         userInfo.setUserId(user.getId());
         userInfo.setUsername(user.getUsername());
@@ -254,17 +273,12 @@ public class AuthServiceImpl implements AuthService {
         userInfo.setAvatar(user.getAvatar());
         userInfo.setRoles(roleNames);
         userInfo.setLastLoginTime(user.getLastLoginTime());
-
         return userInfo;
     }
 
-    @Override
-    public boolean isUsernameAvailable(String username) {
-        return !userService.existsByUsername(username);
-    }
-
-    @Override
-    public boolean isEmailAvailable(String email) {
-        return !userService.existsByEmail(email);
+    private static List<String> roleCodes(List<Role> roles) {
+        return roles.stream()
+                .map(Role::getCode)
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -9,6 +9,7 @@ import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.CategoryMapper;
 import org.easytech.blogs.mapper.PostMapper;
 import org.easytech.blogs.service.CategoryService;
+import org.easytech.blogs.service.CategorySnapshotService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -26,6 +27,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryMapper categoryMapper;
     private final PostMapper postMapper;
+    private final CategorySnapshotService categorySnapshotService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -36,7 +38,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         // 检查分类名称是否已存在
-        if (isCategoryNameExists(category.getName(), null)) {
+        if (isCategoryNameTaken(category.getName(), null)) {
             throw new BusinessException("分类名称已存在");
         }
 
@@ -51,6 +53,7 @@ public class CategoryServiceImpl implements CategoryService {
 
             int result = categoryMapper.insert(category);
             if (result > 0) {
+                categorySnapshotService.refresh();
                 log.info("分类创建成功，分类名称: {}", category.getName());
                 return true;
             }
@@ -71,7 +74,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         // 检查分类名称是否已存在
-        if (isCategoryNameExists(name, null)) {
+        if (isCategoryNameTaken(name, null)) {
             throw new BusinessException("分类名称已存在");
         }
 
@@ -86,6 +89,7 @@ public class CategoryServiceImpl implements CategoryService {
 
             int result = categoryMapper.insert(category);
             if (result > 0) {
+                categorySnapshotService.refresh();
                 log.info("分类创建成功，分类名称: {}", category.getName());
                 return category;
             }
@@ -112,13 +116,14 @@ public class CategoryServiceImpl implements CategoryService {
 
         // 检查分类名称是否已存在（排除当前分类）
         if (StringUtils.hasText(category.getName()) && 
-            isCategoryNameExists(category.getName(), category.getId())) {
+            isCategoryNameTaken(category.getName(), category.getId())) {
             throw new BusinessException("分类名称已存在");
         }
 
         try {
             int result = categoryMapper.updateById(category);
             if (result > 0) {
+                categorySnapshotService.refresh();
                 log.info("分类更新成功，分类ID: {}", category.getId());
                 return true;
             }
@@ -144,7 +149,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         // 检查分类名称是否已存在（排除当前分类）
-        if (StringUtils.hasText(name) && isCategoryNameExists(name, id)) {
+        if (StringUtils.hasText(name) && isCategoryNameTaken(name, id)) {
             throw new BusinessException("分类名称已存在");
         }
 
@@ -165,6 +170,7 @@ public class CategoryServiceImpl implements CategoryService {
 
             int result = categoryMapper.updateById(existCategory);
             if (result > 0) {
+                categorySnapshotService.refresh();
                 log.info("分类更新成功，分类ID: {}", existCategory.getId());
                 return existCategory;
             }
@@ -202,6 +208,7 @@ public class CategoryServiceImpl implements CategoryService {
         try {
             int result = categoryMapper.deleteById(categoryId);
             if (result > 0) {
+                categorySnapshotService.refresh();
                 log.info("分类删除成功，分类ID: {}", categoryId);
                 return true;
             }
@@ -218,12 +225,14 @@ public class CategoryServiceImpl implements CategoryService {
         if (categoryId == null) {
             return null;
         }
-        return categoryMapper.selectById(categoryId);
+        // 快照未命中时查库，覆盖其他节点刚创建、本节点尚未重建的分类
+        Category category = categorySnapshotService.getById(categoryId);
+        return category != null ? category : categoryMapper.selectById(categoryId);
     }
 
     @Override
     public List<Category> getAllCategories() {
-        return categoryMapper.selectAllCategories();
+        return categorySnapshotService.getAll();
     }
 
     @Override
@@ -231,12 +240,12 @@ public class CategoryServiceImpl implements CategoryService {
         if (!StringUtils.hasText(name)) {
             return null;
         }
-        return categoryMapper.findByName(name);
+        return categorySnapshotService.getByName(name);
     }
 
     @Override
     public List<Category> getCategoriesWithPosts() {
-        return categoryMapper.selectCategoriesWithPosts();
+        return categorySnapshotService.getWithPosts();
     }
 
     @Override
@@ -245,7 +254,7 @@ public class CategoryServiceImpl implements CategoryService {
             return false;
         }
 
-        Category existCategory = categoryMapper.findByName(name);
+        Category existCategory = categorySnapshotService.getByName(name);
         if (existCategory == null) {
             return false;
         }
@@ -258,30 +267,23 @@ public class CategoryServiceImpl implements CategoryService {
         return true;
     }
 
+    /**
+     * 写操作前的名称校验，直接查库而不依赖快照
+     */
+    private boolean isCategoryNameTaken(String name, Long excludeId) {
+        Category existCategory = categoryMapper.findByName(name.trim());
+        return existCategory != null && (excludeId == null || !existCategory.getId().equals(excludeId));
+    }
+
     @Override
     public boolean updateCategoryPostCount(Long categoryId) {
         if (categoryId == null) {
             return false;
         }
-
-        try {
-            // 统计该分类下已发布的文章数量
-            Long postCount = postMapper.selectCount(
-                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<org.easytech.blogs.entity.Post>()
-                    .eq("category_id", categoryId)
-                    .eq("status", 1) // 已发布状态
-                    .eq("is_deleted", 0)
-            );
-
-            int result = categoryMapper.updatePostCount(categoryId, postCount);
-            if (result > 0) {
-                log.debug("分类文章数量更新成功，分类ID: {}, 文章数量: {}", categoryId, postCount);
-                return true;
-            }
-        } catch (Exception e) {
-            log.error("分类文章数量更新失败，分类ID: {}", categoryId, e);
+        if (refreshPostCount(categoryId)) {
+            categorySnapshotService.refresh();
+            return true;
         }
-
         return false;
     }
 
@@ -293,10 +295,12 @@ public class CategoryServiceImpl implements CategoryService {
             int successCount = 0;
 
             for (Category category : categories) {
-                if (updateCategoryPostCount(category.getId())) {
+                if (refreshPostCount(category.getId())) {
                     successCount++;
                 }
             }
+            // 全部更新完成后只重建一次快照
+            categorySnapshotService.refresh();
 
             log.info("批量更新分类文章数量完成，成功更新: {}/{}", successCount, categories.size());
             return successCount == categories.size();
@@ -305,4 +309,29 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BusinessException("批量更新分类文章数量失败");
         }
     }
+
+    /**
+     * 重新统计并写入分类的已发布文章数
+     */
+    private boolean refreshPostCount(Long categoryId) {
+        try {
+            // 统计该分类下已发布的文章数量
+            Long postCount = postMapper.selectCount(
+                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<org.easytech.blogs.entity.Post>()
+                    .eq("category_id", categoryId)
+                    .eq("status", 1) // 已发布状态
+                    .eq("is_deleted", 0)
+            );
+
+            int result = categoryMapper.updatePostCount(categoryId, postCount);
+            if (result > 0) {
+                log.debug("分类文章数量更新成功，分类ID: {}, 文章数量: {}", categoryId, postCount);
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("分类文章数量更新失败，分类ID: {}", categoryId, e);
+        }
+
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package org.easytech.blogs.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.common.Result;
+import org.easytech.blogs.entity.Category;
+import org.easytech.blogs.mapper.CategoryMapper;
+import org.easytech.blogs.service.CategorySnapshotService;
+import org.easytech.blogs.util.RedisVersionedSnapshot;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 分类快照服务实现类
+ * 分类表整体加载为不可变快照，列表响应在重建时一次性序列化为字节数组并计算ETag，
+ * 读请求不再查库也不再序列化；重建后整体替换引用，其他节点通过Redis版本号感知
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategorySnapshotServiceImpl implements CategorySnapshotService {
+
+    private static final String VERSION_KEY = "category:snapshot:version";
+
+    private final CategoryMapper categoryMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private RedisVersionedSnapshot versions;
+
+    /**
+     * 分类快照
+     * @param all 全部分类
+     * @param withPosts 有已发布文章的分类
+     * @param byId ID到分类
+     * @param byName 小写名称到分类
+     * @param allJson 全部分类的响应体
+     * @param withPostsJson 有文章分类的响应体
+     */
+    private record Snapshot(List<Category> all, List<Category> withPosts, Map<Long, Category> byId,
+                            Map<String, Category> byName, RenderedJson allJson, RenderedJson withPostsJson,
+                            boolean loaded) {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), List.of(), Map.of(), Map.of(), null, null, false);
+    }
+
+    @PostConstruct
+    public void init() {
+        versions = new RedisVersionedSnapshot(stringRedisTemplate, VERSION_KEY, "分类快照");
+        try {
+            versions.poll(true, this::rebuild);
+        } catch (Exception e) {
+            // 启动时数据库不可用不阻断应用，首次访问或定时任务再加载
+            log.error("分类快照加载失败", e);
+        }
+    }
+
+    @Override
+    public List<Category> getAll() {
+        return current().all();
+    }
+
+    @Override
+    public List<Category> getWithPosts() {
+        return current().withPosts();
+    }
+
+    @Override
+    public Category getById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return current().byId().get(id);
+    }
+
+    @Override
+    public Category getByName(String name) {
+        if (!StringUtils.hasText(name)) {
+            return null;
+        }
+        return current().byName().get(normalize(name));
+    }
+
+    @Override
+    public RenderedJson getAllJson() {
+        return current().allJson();
+    }
+
+    @Override
+    public RenderedJson getWithPostsJson() {
+        return current().withPostsJson();
+    }
+
+    @Override
+    public void refresh() {
+        versions.publishAfterCommit(this::rebuild);
+    }
+
+    /**
+     * 轮询Redis中的分类版本号，发现其他节点的变更后重建
+     */
+    @Scheduled(fixedDelayString = "${blog.category-snapshot.refresh-interval:5000}")
+    public void pollVersion() {
+        try {
+            versions.poll(!snapshot.loaded(), this::rebuild);
+        } catch (Exception e) {
+            log.warn("分类快照重建失败: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (!current.loaded()) {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    private synchronized Snapshot rebuild() {
+        List<Category> all = categoryMapper.selectAllCategories();
+        List<Category> withPosts = categoryMapper.selectCategoriesWithPosts();
+
+        Map<Long, Category> byId = new HashMap<>(all.size() * 2);
+        Map<String, Category> byName = new HashMap<>(all.size() * 2);
+        for (Category category : all) {
+            byId.put(category.getId(), category);
+            if (category.getName() != null) {
+                byName.putIfAbsent(normalize(category.getName()), category);
+            }
+        }
+
+        all = Collections.unmodifiableList(all);
+        withPosts = Collections.unmodifiableList(withPosts);
+        Snapshot previous = snapshot;
+        Snapshot rebuilt = new Snapshot(all, withPosts, Collections.unmodifiableMap(byId),
+                Collections.unmodifiableMap(byName), render(all, previous.allJson()),
+                render(withPosts, previous.withPostsJson()), true);
+        snapshot = rebuilt;
+        log.debug("分类快照已重建，分类数: {}", all.size());
+        return rebuilt;
+    }
+
+    /**
+     * ETag只按分类数据计算，不含响应时间戳；数据未变时沿用上一版响应，客户端缓存保持有效
+     */
+    private RenderedJson render(List<Category> categories, RenderedJson previous) {
+        try {
+            String etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(categories)) + "\"";
+            if (previous != null && previous.etag().equals(etag)) {
+                return previous;
+            }
+            return new RenderedJson(objectMapper.writeValueAsBytes(Result.success(categories)), etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("分类快照序列化失败", e);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,147 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.Coin;
+import org.easytech.blogs.entity.UserCoinDaily;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.UserCoinDailyMapper;
+import org.easytech.blogs.service.CoinDailyStatService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 用户积分日汇总服务实现类
+ * 积分变动时在同一事务内累加当天的汇总行，趋势查询只读 (user_id, stat_date) 主键区间
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoinDailyStatServiceImpl implements CoinDailyStatService {
+
+    // 趋势查询最大天数
+    private static final int MAX_TREND_DAYS = 365;
+
+    private final UserCoinDailyMapper userCoinDailyMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void recordChange(Long userId, int amount) {
+        if (userId == null || amount == 0) {
+            return;
+        }
+        userCoinDailyMapper.batchUpsertDelta(List.of(buildDelta(userId, LocalDate.now(), amount)));
+    }
+
+    @Override
+    public void recordChanges(List<Coin> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+
+        // 同一用户的多条流水合并为一行，按用户ID排序保证加锁顺序一致
+        LocalDate today = LocalDate.now();
+        TreeMap<Long, UserCoinDaily> deltas = new TreeMap<>();
+        for (Coin record : records) {
+            if (record.getUserId() == null || record.getAmount() == null || record.getAmount() == 0) {
+                continue;
+            }
+            UserCoinDaily delta = buildDelta(record.getUserId(), today, record.getAmount());
+            deltas.merge(record.getUserId(), delta, (current, added) -> {
+                current.setEarned(current.getEarned() + added.getEarned());
+                current.setConsumed(current.getConsumed() + added.getConsumed());
+                return current;
+            });
+        }
+        if (!deltas.isEmpty()) {
+            userCoinDailyMapper.batchUpsertDelta(new ArrayList<>(deltas.values()));
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getUserTrend(Long userId, int days) {
+        if (userId == null) {
+            throw new ValidationException("用户ID不能为空");
+        }
+        if (days <= 0 || days > MAX_TREND_DAYS) {
+            throw new ValidationException("天数必须在1到" + MAX_TREND_DAYS + "之间");
+        }
+
+        LocalDate toDate = LocalDate.now();
+        LocalDate fromDate = toDate.minusDays(days - 1L);
+        Map<LocalDate, UserCoinDaily> stats = new HashMap<>();
+        for (UserCoinDaily daily : userCoinDailyMapper.selectByUserAndRange(userId, fromDate, toDate)) {
+            stats.put(daily.getStatDate(), daily);
+        }
+
+        List<Map<String, Object>> trend = new ArrayList<>(days);
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            UserCoinDaily daily = stats.get(date);
+            int earned = daily != null ? daily.getEarned() : 0;
+            int consumed = daily != null ? daily.getConsumed() : 0;
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("date", date.toString());
+            item.put("earned", earned);
+            item.put("consumed", consumed);
+            item.put("net", earned - consumed);
+            trend.add(item);
+        }
+        return trend;
+    }
+
+    @Override
+    public int backfill(LocalDate fromDate, LocalDate toDate) {
+        // 当天的汇总由积分变动实时累加，回填时重写会与并发的累加互相覆盖，只允许回填今天之前的日期
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (toDate == null) {
+            toDate = yesterday;
+        } else if (toDate.isAfter(yesterday)) {
+            throw new ValidationException("只能回填今天之前的日期");
+        }
+        if (fromDate == null) {
+            LocalDateTime firstLedgerTime = userCoinDailyMapper.selectFirstLedgerTime();
+            if (firstLedgerTime == null || firstLedgerTime.toLocalDate().isAfter(toDate)) {
+                return 0;
+            }
+            fromDate = firstLedgerTime.toLocalDate();
+        }
+        if (fromDate.isAfter(toDate)) {
+            throw new ValidationException("开始日期不能晚于结束日期");
+        }
+
+        // 每天先删除再 INSERT ... SELECT，借助 create_time 索引只扫描当天的流水；
+        // 删除和重算放在同一事务中，流水已不存在的用户不会残留旧汇总，读者也看不到半删的一天
+        int processed = 0;
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            LocalDate statDate = date;
+            Integer rows = transactionTemplate.execute(status -> {
+                userCoinDailyMapper.deleteDay(statDate);
+                return userCoinDailyMapper.rebuildDay(statDate, statDate.atStartOfDay(),
+                        statDate.plusDays(1).atStartOfDay());
+            });
+            processed++;
+            log.debug("积分日汇总回填 {}，写入行数: {}", date, rows);
+        }
+
+        log.info("积分日汇总回填完成，{} 至 {}，共 {} 天", fromDate, toDate, processed);
+        return processed;
+    }
+
+    private UserCoinDaily buildDelta(Long userId, LocalDate date, int amount) {
+        UserCoinDaily delta = new UserCoinDaily();
+        delta.setUserId(userId);
+        delta.setStatDate(date);
+        delta.setEarned(Math.max(amount, 0));
+        delta.setConsumed(Math.max(-amount, 0));
+        return delta;
+    }
+}
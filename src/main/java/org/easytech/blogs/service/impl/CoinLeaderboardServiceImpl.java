@@ -0,0 +1,467 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.UserCoin;
+import org.easytech.blogs.mapper.UserCoinMapper;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 积分排行榜服务实现类
+ * 积分变动在事务提交后以Lua脚本增量写入有序集合，排名查询为O(log n)；榜单只收录正常状态的用户，
+ * 增量只累加到已在榜的成员上，入榜和出榜由全量重建和 syncUser 决定；
+ * 重建期间的变动记入脏集合，新榜单替换上线后按数据库当前值回补，避免替换时丢失增量
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoinLeaderboardServiceImpl implements CoinLeaderboardService {
+
+    private static final String KEY_PREFIX = "coin:leaderboard:";
+    private static final String REBUILD_SUFFIX = ":rebuilding";
+    // 重建进行中标记，同时是跨节点互斥锁
+    private static final String REBUILD_LOCK_KEY = KEY_PREFIX + "rebuild:lock";
+    // 重建期间发生变动的用户
+    private static final String DIRTY_KEY = KEY_PREFIX + "rebuild:dirty";
+    private static final Duration REBUILD_LOCK_TTL = Duration.ofMinutes(30);
+
+    // 重建时每批写入Redis的账户数
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    // 单次查询榜单的最大条数
+    private static final int MAX_LIMIT = 100;
+    // 过滤掉失效用户后不足N名时，最多再向后翻的页数
+    private static final int MAX_SCAN_PAGES = 5;
+    // 榜单缺失时触发后台重建的最小间隔（毫秒）
+    private static final long REBUILD_TRIGGER_INTERVAL = 60_000L;
+
+    // KEYS: 余额榜、获得榜、消费榜、重建标记、脏集合；ARGV: 三个增量、用户ID
+    private static final String INCREMENT_SCRIPT =
+            "if redis.call('EXISTS', KEYS[4]) == 1 then redis.call('SADD', KEYS[5], ARGV[4]) end " +
+            "for i = 1, 3 do " +
+            "  if ARGV[i] ~= '0' and redis.call('ZSCORE', KEYS[i], ARGV[4]) then " +
+            "    redis.call('ZINCRBY', KEYS[i], ARGV[i], ARGV[4]) " +
+            "  end " +
+            "end " +
+            "return 1";
+
+    // KEYS: 重建标记、脏集合；ARGV: 用户ID
+    private static final String MARK_DIRTY_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('SADD', KEYS[2], ARGV[1]) end " +
+            "return 1";
+    private static final RedisScript<Long> MARK_DIRTY_REDIS_SCRIPT = new DefaultRedisScript<>(MARK_DIRTY_SCRIPT, Long.class);
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserCoinMapper userCoinMapper;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "coin-leaderboard-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lastRebuildTrigger;
+
+    /**
+     * 榜单类型
+     */
+    private enum Board {
+        BALANCE("balance", "coinBalance"),
+        EARNED("earned", "totalEarned"),
+        CONSUMED("consumed", "totalConsumed");
+
+        private final String key;
+        private final String field;
+
+        Board(String name, String field) {
+            this.key = KEY_PREFIX + name;
+            this.field = field;
+        }
+
+        static Board of(String orderBy) {
+            for (Board board : values()) {
+                if (board.field.equals(orderBy)) {
+                    return board;
+                }
+            }
+            return BALANCE;
+        }
+
+        int scoreOf(UserCoin account) {
+            return switch (this) {
+                case BALANCE -> toInt(account.getCoinBalance());
+                case EARNED -> toInt(account.getTotalEarned());
+                case CONSUMED -> toInt(account.getTotalConsumed());
+            };
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public void recordChange(Long userId, int balanceDelta, int earnedDelta, int consumedDelta) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> pipelined(connection ->
+                increment(connection, userId.toString(), balanceDelta, earnedDelta, consumedDelta)));
+    }
+
+    @Override
+    public void recordCredits(Map<Long, Integer> credits) {
+        if (credits == null || credits.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> snapshot = new HashMap<>(credits);
+        afterCommit(() -> pipelined(connection -> snapshot.forEach((userId, amount) ->
+                increment(connection, userId.toString(), amount, amount, 0))));
+    }
+
+    @Override
+    public void syncUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                markDirty(userId.toString());
+                resyncUsers(List.of(userId));
+            } catch (Exception e) {
+                log.error("同步用户积分榜单失败，用户ID: {}", userId, e);
+            }
+        });
+    }
+
+    @Override
+    public void removeUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        String member = userId.toString();
+        afterCommit(() -> pipelined(connection -> {
+            // 重建已读到该账户时，替换上线后由脏集合回补再次移除
+            connection.eval(MARK_DIRTY_SCRIPT, ReturnType.INTEGER, 2, REBUILD_LOCK_KEY, DIRTY_KEY, member);
+            for (Board board : Board.values()) {
+                connection.zRem(board.key, member);
+            }
+        }));
+    }
+
+    @Override
+    public List<UserCoin> getTopAccounts(int limit, String orderBy) {
+        Board board = Board.of(orderBy);
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        try {
+            List<UserCoin> result = new ArrayList<>(size);
+            long offset = 0;
+            for (int page = 0; page < MAX_SCAN_PAGES && result.size() < size; page++) {
+                Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(board.key, offset, offset + size - 1);
+                if (members == null || members.isEmpty()) {
+                    if (page == 0 && !Boolean.TRUE.equals(stringRedisTemplate.hasKey(board.key))) {
+                        // 榜单尚未建立（首次启动或Redis被清空）：后台重建，本次由调用方回退数据库查询
+                        triggerRebuild();
+                        return null;
+                    }
+                    break;
+                }
+                offset += members.size();
+
+                // 一次回表取账户和用户信息，禁用、删除的用户在此过滤
+                List<Long> userIds = members.stream().map(Long::valueOf).toList();
+                Map<Long, UserCoin> accounts = new HashMap<>(userIds.size() * 2);
+                for (UserCoin account : userCoinMapper.selectActiveAccounts(userIds)) {
+                    accounts.put(account.getUserId(), account);
+                }
+                for (Long userId : userIds) {
+                    UserCoin account = accounts.get(userId);
+                    if (account != null && result.size() < size) {
+                        result.add(account);
+                    }
+                }
+                if (members.size() < size) {
+                    break;
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("查询积分排行榜失败，orderBy: {}", orderBy, e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getTopUsers(int limit, String orderBy) {
+        List<UserCoin> accounts = getTopAccounts(limit, orderBy);
+        if (accounts == null) {
+            return null;
+        }
+        List<Map<String, Object>> result = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            UserCoin account = accounts.get(i);
+            Map<String, Object> item = new HashMap<>();
+            item.put("rank", i + 1);
+            item.put("userId", account.getUserId());
+            item.put("username", account.getUsername());
+            item.put("nickname", account.getNickname());
+            item.put("avatar", account.getAvatar());
+            for (Board board : Board.values()) {
+                item.put(board.field, board.scoreOf(account));
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getUserRank(Long userId, String orderBy) {
+        if (userId == null) {
+            return null;
+        }
+        Board board = Board.of(orderBy);
+        String member = userId.toString();
+
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.zRevRank(board.key, member);
+                stringConnection.zScore(board.key, member);
+                return null;
+            });
+
+            Object rank = results.get(0);
+            Map<String, Object> item = new HashMap<>();
+            item.put("userId", userId);
+            item.put("orderBy", board.field);
+            item.put("rank", rank == null ? null : ((Number) rank).longValue() + 1);
+            item.put("score", toInt(results.get(1)));
+            return item;
+        } catch (Exception e) {
+            log.error("Redis查询用户排名失败，userId: {}, orderBy: {}", userId, orderBy, e);
+            return null;
+        }
+    }
+
+    @Override
+    public long rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("积分排行榜正在重建，跳过本次请求");
+            return 0;
+        }
+
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(REBUILD_LOCK_KEY, token, REBUILD_LOCK_TTL))) {
+                log.info("积分排行榜正在其他节点重建，跳过本次请求");
+                return 0;
+            }
+
+            long total;
+            try {
+                total = buildAndSwap();
+            } finally {
+                // 先撤掉标记再回补：此后的增量直接作用在新榜单上
+                stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(REBUILD_LOCK_KEY), token);
+            }
+            long resynced = drainDirty();
+
+            log.info("积分排行榜重建完成，账户数: {}，重建期间变动回补: {}", total, resynced);
+            return total;
+        } catch (Exception e) {
+            log.error("积分排行榜重建失败", e);
+            return 0;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 定时全量重建，修正Redis写入失败造成的偏差
+     */
+    @Scheduled(cron = "${blog.coin.leaderboard-rebuild-cron:0 0 4 * * ?}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    private long buildAndSwap() {
+        for (Board board : Board.values()) {
+            stringRedisTemplate.delete(board.key + REBUILD_SUFFIX);
+        }
+
+        // 流式读取账户，按批写入临时键，内存中最多保留一批
+        List<UserCoin> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        long[] total = {0};
+        userCoinMapper.streamActiveAccounts(context -> {
+            batch.add(context.getResultObject());
+            if (batch.size() >= REBUILD_BATCH_SIZE) {
+                writeRebuildBatch(batch);
+                total[0] += batch.size();
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            writeRebuildBatch(batch);
+            total[0] += batch.size();
+        }
+
+        // 临时键原子替换正式榜单，读请求不会看到半成品
+        for (Board board : Board.values()) {
+            if (total[0] > 0) {
+                stringRedisTemplate.rename(board.key + REBUILD_SUFFIX, board.key);
+            } else {
+                stringRedisTemplate.delete(board.key);
+            }
+        }
+        return total[0];
+    }
+
+    /**
+     * 按数据库当前值回补重建期间发生变动的用户
+     */
+    private long drainDirty() {
+        long total = 0;
+        while (true) {
+            List<String> members = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, REBUILD_BATCH_SIZE);
+            if (members == null || members.isEmpty()) {
+                return total;
+            }
+            resyncUsers(members.stream().map(Long::valueOf).toList());
+            total += members.size();
+        }
+    }
+
+    /**
+     * 按数据库当前值覆盖用户分数，已不是正常状态或没有账户的用户移出榜单
+     */
+    private void resyncUsers(List<Long> userIds) {
+        List<UserCoin> accounts = userCoinMapper.selectActiveAccounts(userIds);
+        Set<Long> active = new HashSet<>(accounts.size() * 2);
+        pipelined(connection -> {
+            for (UserCoin account : accounts) {
+                active.add(account.getUserId());
+                for (Board board : Board.values()) {
+                    connection.zAdd(board.key, board.scoreOf(account), account.getUserId().toString());
+                }
+            }
+            for (Long userId : userIds) {
+                if (!active.contains(userId)) {
+                    for (Board board : Board.values()) {
+                        connection.zRem(board.key, userId.toString());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 增量只作用于已在榜的成员；重建进行中时同时记入脏集合
+     */
+    private void increment(StringRedisConnection connection, String member, int balanceDelta, int earnedDelta,
+                           int consumedDelta) {
+        connection.eval(INCREMENT_SCRIPT, ReturnType.INTEGER, 5,
+                Board.BALANCE.key, Board.EARNED.key, Board.CONSUMED.key, REBUILD_LOCK_KEY, DIRTY_KEY,
+                String.valueOf(balanceDelta), String.valueOf(earnedDelta), String.valueOf(consumedDelta), member);
+    }
+
+    private void markDirty(String member) {
+        stringRedisTemplate.execute(MARK_DIRTY_REDIS_SCRIPT,
+                List.of(REBUILD_LOCK_KEY, DIRTY_KEY), member);
+    }
+
+    private void triggerRebuild() {
+        long now = System.currentTimeMillis();
+        if (now - lastRebuildTrigger < REBUILD_TRIGGER_INTERVAL) {
+            return;
+        }
+        lastRebuildTrigger = now;
+        try {
+            rebuildExecutor.execute(this::rebuild);
+        } catch (RejectedExecutionException e) {
+            log.debug("积分排行榜后台重建未能提交: {}", e.getMessage());
+        }
+    }
+
+    private void writeRebuildBatch(List<UserCoin> accounts) {
+        Set<TypedTuple<String>> balance = new HashSet<>(accounts.size() * 2);
+        Set<TypedTuple<String>> earned = new HashSet<>(accounts.size() * 2);
+        Set<TypedTuple<String>> consumed = new HashSet<>(accounts.size() * 2);
+        for (UserCoin account : accounts) {
+            String member = account.getUserId().toString();
+            balance.add(new DefaultTypedTuple<>(member, (double) toInt(account.getCoinBalance())));
+            earned.add(new DefaultTypedTuple<>(member, (double) toInt(account.getTotalEarned())));
+            consumed.add(new DefaultTypedTuple<>(member, (double) toInt(account.getTotalConsumed())));
+        }
+        stringRedisTemplate.opsForZSet().add(Board.BALANCE.key + REBUILD_SUFFIX, balance);
+        stringRedisTemplate.opsForZSet().add(Board.EARNED.key + REBUILD_SUFFIX, earned);
+        stringRedisTemplate.opsForZSet().add(Board.CONSUMED.key + REBUILD_SUFFIX, consumed);
+    }
+
+    /**
+     * 以管道方式执行榜单写入，失败只记录日志，由定时重建兜底
+     */
+    private void pipelined(Consumer<StringRedisConnection> commands) {
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                commands.accept((StringRedisConnection) connection);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Redis更新积分排行榜失败", e);
+        }
+    }
+
+    /**
+     * 存在事务时延迟到提交后执行，避免回滚的变动进入榜单
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
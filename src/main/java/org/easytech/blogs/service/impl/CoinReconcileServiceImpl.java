@@ -0,0 +1,230 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.dto.CoinLedgerDrift;
+import org.easytech.blogs.dto.CoinReconcileReport;
+import org.easytech.blogs.exception.BusinessException;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.UserCoinMapper;
+import org.easytech.blogs.service.CacheService;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.easytech.blogs.service.CoinReconcileService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 积分对账服务实现类
+ * 按用户ID区间并行汇总流水，只把不一致的账户取回内存，并以增量方式批量校正
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoinReconcileServiceImpl implements CoinReconcileService {
+
+    private static final String CHECKPOINT_KEY = "coin:reconcile:checkpoint";
+    private static final Duration CHECKPOINT_TTL = Duration.ofDays(1);
+
+    // 每条批量校正语句包含的账户数
+    private static final int FIX_BATCH_SIZE = 500;
+    // 报告中保留的偏差样例数
+    private static final int MAX_SAMPLES = 100;
+
+    private final UserCoinMapper userCoinMapper;
+    private final CoinLeaderboardService coinLeaderboardService;
+    private final CacheService cacheService;
+
+    @Value("${blog.coin.reconcile-range-size:10000}")
+    private long rangeSize;
+
+    @Value("${blog.coin.reconcile-threads:4}")
+    private int threads;
+
+    @Value("${blog.coin.reconcile-dry-run:true}")
+    private boolean scheduledDryRun;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Override
+    public CoinReconcileReport reconcileAll(boolean dryRun, boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("积分对账任务正在执行，请稍后重试");
+        }
+
+        long startTime = System.currentTimeMillis();
+        CoinReconcileReport report = new CoinReconcileReport();
+        report.setDryRun(dryRun);
+
+        try {
+            Long minUserId = userCoinMapper.selectMinUserId();
+            Long maxUserId = userCoinMapper.selectMaxUserId();
+            if (minUserId == null || maxUserId == null) {
+                return report;
+            }
+
+            long from = minUserId;
+            long to = maxUserId + 1;
+            if (resume && !dryRun) {
+                Object checkpoint = cacheService.get(CHECKPOINT_KEY);
+                if (checkpoint instanceof Number && ((Number) checkpoint).longValue() > from) {
+                    from = ((Number) checkpoint).longValue();
+                    log.info("积分对账从检查点继续，起始用户ID: {}", from);
+                }
+            }
+            report.setFromUserId(from);
+            report.setToUserId(to);
+            if (from >= to) {
+                cacheService.delete(CHECKPOINT_KEY);
+                return report;
+            }
+
+            int rangeCount = (int) ((to - from + rangeSize - 1) / rangeSize);
+            report.setRangeCount(rangeCount);
+            Checkpoint checkpoint = new Checkpoint(from, rangeCount, dryRun);
+
+            AtomicInteger threadIndex = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, rangeCount)), r -> {
+                Thread thread = new Thread(r, "coin-reconcile-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>(rangeCount);
+                for (int i = 0; i < rangeCount; i++) {
+                    int rangeIndex = i;
+                    long rangeStart = from + rangeIndex * rangeSize;
+                    long rangeEnd = Math.min(rangeStart + rangeSize, to);
+                    futures.add(executor.submit(() -> {
+                        reconcileRange(rangeStart, rangeEnd, dryRun, report);
+                        checkpoint.complete(rangeIndex);
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                log.error("积分对账失败，已完成区间已记录检查点", e.getCause());
+                throw new BusinessException("积分对账失败：" + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("积分对账被中断");
+            } finally {
+                executor.shutdownNow();
+            }
+
+            if (!dryRun) {
+                cacheService.delete(CHECKPOINT_KEY);
+            }
+            return report;
+        } finally {
+            report.setElapsedMillis(System.currentTimeMillis() - startTime);
+            running.set(false);
+            log.info("积分对账结束，dryRun: {}, 区间数: {}, 偏差账户: {}, 已修正: {}, 余额偏差合计: {}, 耗时: {}ms",
+                    dryRun, report.getRangeCount(), report.getMismatchedAccounts(), report.getFixedAccounts(),
+                    report.getBalanceDrift(), report.getElapsedMillis());
+        }
+    }
+
+    @Override
+    public CoinReconcileReport reconcileUser(Long userId, boolean dryRun) {
+        if (userId == null) {
+            throw new ValidationException("用户ID不能为空");
+        }
+
+        long startTime = System.currentTimeMillis();
+        CoinReconcileReport report = new CoinReconcileReport();
+        report.setDryRun(dryRun);
+        report.setFromUserId(userId);
+        report.setToUserId(userId + 1);
+        report.setRangeCount(1);
+        reconcileRange(userId, userId + 1, dryRun, report);
+        report.setElapsedMillis(System.currentTimeMillis() - startTime);
+        return report;
+    }
+
+    /**
+     * 夜间对账任务，默认直接修正，可通过配置改为只报告
+     */
+    @Scheduled(cron = "${blog.coin.reconcile-cron:0 0 2 * * ?}")
+    public void scheduledReconcile() {
+        try {
+            reconcileAll(scheduledDryRun, true);
+        } catch (BusinessException e) {
+            log.warn("定时积分对账未完成: {}", e.getMessage());
+        }
+    }
+
+    private void reconcileRange(long fromUserId, long toUserId, boolean dryRun, CoinReconcileReport report) {
+        List<CoinLedgerDrift> drifts = userCoinMapper.selectLedgerDrift(fromUserId, toUserId);
+
+        int fixed = 0;
+        if (!dryRun && !drifts.isEmpty()) {
+            for (int i = 0; i < drifts.size(); i += FIX_BATCH_SIZE) {
+                fixed += userCoinMapper.batchApplyDrift(drifts.subList(i, Math.min(i + FIX_BATCH_SIZE, drifts.size())));
+            }
+            for (CoinLedgerDrift drift : drifts) {
+                coinLeaderboardService.recordChange(drift.getUserId(),
+                        (int) (drift.getLedgerBalance() - drift.getCoinBalance()),
+                        (int) (drift.getLedgerEarned() - drift.getTotalEarned()),
+                        (int) (drift.getLedgerConsumed() - drift.getTotalConsumed()));
+            }
+            log.info("积分对账区间[{}, {})校正{}个账户", fromUserId, toUserId, fixed);
+        }
+
+        long balanceDrift = 0;
+        for (CoinLedgerDrift drift : drifts) {
+            balanceDrift += Math.abs(drift.getLedgerBalance() - drift.getCoinBalance());
+        }
+
+        synchronized (report) {
+            report.setMismatchedAccounts(report.getMismatchedAccounts() + drifts.size());
+            report.setFixedAccounts(report.getFixedAccounts() + fixed);
+            report.setBalanceDrift(report.getBalanceDrift() + balanceDrift);
+            for (CoinLedgerDrift drift : drifts) {
+                if (report.getSamples().size() >= MAX_SAMPLES) {
+                    break;
+                }
+                report.getSamples().add(drift);
+            }
+        }
+    }
+
+    /**
+     * 区间完成进度，记录从起点开始连续完成的位置作为检查点
+     */
+    private class Checkpoint {
+
+        private final long from;
+        private final boolean[] completed;
+        private final boolean dryRun;
+        private int watermark;
+
+        Checkpoint(long from, int rangeCount, boolean dryRun) {
+            this.from = from;
+            this.completed = new boolean[rangeCount];
+            this.dryRun = dryRun;
+        }
+
+        synchronized void complete(int rangeIndex) {
+            completed[rangeIndex] = true;
+            int previous = watermark;
+            while (watermark < completed.length && completed[watermark]) {
+                watermark++;
+            }
+            if (!dryRun && watermark > previous && watermark < completed.length) {
+                cacheService.set(CHECKPOINT_KEY, from + watermark * rangeSize, CHECKPOINT_TTL);
+            }
+        }
+    }
+}
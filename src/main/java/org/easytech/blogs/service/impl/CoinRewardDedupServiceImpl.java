@@ -0,0 +1,155 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.mapper.CoinMapper;
+import org.easytech.blogs.service.CoinRewardDedupService;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每日积分奖励去重服务实现类
+ * 无关联对象的奖励（签到）使用位图 SETBIT，有关联对象的奖励使用集合 SADD，
+ * 两者都在一条命令内完成“检查并标记”；Redis不可用时降级为本地标记。
+ * 标记可能缺失（上线当天、Redis数据丢失、降级期间），首次占用成功后再以流水确认今日未发放，
+ * 已发放时保留标记，后续重复请求不再查询流水
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoinRewardDedupServiceImpl implements CoinRewardDedupService {
+
+    private static final String KEY_PREFIX = "coin:reward:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    // 多保留一天，跨零点提交的事务回滚时仍能释放前一天的标记
+    private static final Duration KEY_TTL = Duration.ofDays(2);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CoinMapper coinMapper;
+
+    // 降级时的本地标记，只保存当天数据
+    private final Set<String> localMarks = ConcurrentHashMap.newKeySet();
+    private volatile LocalDate localDay = LocalDate.now();
+
+    @Override
+    public boolean tryAcquire(Long userId, Integer operationType, Long relatedId) {
+        if (userId == null || operationType == null) {
+            return false;
+        }
+
+        LocalDate today = LocalDate.now();
+        boolean acquired;
+        try {
+            acquired = acquireInRedis(today, userId, operationType, relatedId);
+        } catch (Exception e) {
+            log.warn("Redis奖励去重不可用，降级为本地标记，用户ID: {}, 操作类型: {}", userId, operationType, e);
+            acquired = acquireLocally(today, userId, operationType, relatedId);
+        }
+        if (!acquired) {
+            return false;
+        }
+
+        boolean granted;
+        try {
+            granted = coinMapper.hasGainedCoinToday(userId, operationType, relatedId,
+                    today.atStartOfDay(), today.atTime(LocalTime.MAX));
+        } catch (RuntimeException e) {
+            // 无法确认时释放占用，下次请求重新校验
+            release(today, userId, operationType, relatedId);
+            throw e;
+        }
+        if (granted) {
+            return false;
+        }
+
+        releaseOnRollback(today, userId, operationType, relatedId);
+        return true;
+    }
+
+    @Override
+    public void release(Long userId, Integer operationType, Long relatedId) {
+        if (userId == null || operationType == null) {
+            return;
+        }
+        release(LocalDate.now(), userId, operationType, relatedId);
+    }
+
+    private boolean acquireInRedis(LocalDate day, Long userId, Integer operationType, Long relatedId) {
+        String key = redisKey(day, operationType);
+        boolean acquired;
+        if (relatedId == null) {
+            // SETBIT 返回旧值，旧值为0即本次首次占用
+            Boolean previous = stringRedisTemplate.opsForValue().setBit(key, userId, true);
+            acquired = !Boolean.TRUE.equals(previous);
+        } else {
+            Long added = stringRedisTemplate.opsForSet().add(key, userId + ":" + relatedId);
+            acquired = added != null && added > 0;
+        }
+        if (acquired) {
+            stringRedisTemplate.expire(key, KEY_TTL);
+        }
+        return acquired;
+    }
+
+    private boolean acquireLocally(LocalDate day, Long userId, Integer operationType, Long relatedId) {
+        if (!day.equals(localDay)) {
+            synchronized (localMarks) {
+                if (!day.equals(localDay)) {
+                    localMarks.clear();
+                    localDay = day;
+                }
+            }
+        }
+
+        // 本地标记无法跨实例共享，其他实例是否已发放由调用方的流水校验确认
+        return localMarks.add(localKey(day, userId, operationType, relatedId));
+    }
+
+    private void release(LocalDate day, Long userId, Integer operationType, Long relatedId) {
+        localMarks.remove(localKey(day, userId, operationType, relatedId));
+        try {
+            String key = redisKey(day, operationType);
+            if (relatedId == null) {
+                stringRedisTemplate.opsForValue().setBit(key, userId, false);
+            } else {
+                stringRedisTemplate.opsForSet().remove(key, userId + ":" + relatedId);
+            }
+        } catch (Exception e) {
+            log.error("Redis释放奖励标记失败，用户ID: {}, 操作类型: {}", userId, operationType, e);
+        }
+    }
+
+    /**
+     * 奖励在事务中发放时，事务回滚后释放占用，避免用户当天无法再次领取
+     */
+    private void releaseOnRollback(LocalDate day, Long userId, Integer operationType, Long relatedId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    release(day, userId, operationType, relatedId);
+                }
+            }
+        });
+    }
+
+    private static String redisKey(LocalDate day, Integer operationType) {
+        return KEY_PREFIX + day.format(DAY_FORMAT) + ":" + operationType;
+    }
+
+    private static String localKey(LocalDate day, Long userId, Integer operationType, Long relatedId) {
+        return day.format(DAY_FORMAT) + ":" + operationType + ":" + userId + ":" + relatedId;
+    }
+}
@@ -10,6 +10,9 @@ import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.CoinMapper;
 import org.easytech.blogs.mapper.UserCoinMapper;
+import org.easytech.blogs.service.CoinDailyStatService;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.easytech.blogs.service.CoinRewardDedupService;
 import org.easytech.blogs.service.CoinService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,7 +20,13 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * 积分服务实现类
@@ -30,6 +39,9 @@ public class CoinServiceImpl implements CoinService {
 
     private final CoinMapper coinMapper;
     private final UserCoinMapper userCoinMapper;
+    private final CoinLeaderboardService coinLeaderboardService;
+    private final CoinRewardDedupService coinRewardDedupService;
+    private final CoinDailyStatService coinDailyStatService;
 
     // 积分操作类型常量
     private static final int OPERATION_TYPE_PUBLISH_POST = 1;    // 发布文章
@@ -39,6 +51,9 @@ public class CoinServiceImpl implements CoinService {
     private static final int OPERATION_TYPE_SIGN_IN = 5;        // 签到
     private static final int OPERATION_TYPE_CONSUME = 6;        // 消费
 
+    // 流水批量写入每批行数
+    private static final int LEDGER_BATCH_SIZE = 500;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean addCoin(Long userId, Integer amount, Integer operationType, String description, Long relatedId) {
@@ -47,30 +62,33 @@ public class CoinServiceImpl implements CoinService {
         }
 
         try {
-            // 确保用户积分账户存在
-            ensureUserCoinAccount(userId);
-
-            // 创建积分记录
-            Coin coinRecord = new Coin();
-            coinRecord.setUserId(userId);
-            coinRecord.setAmount(amount);
-            coinRecord.setOperationType(operationType);
-            coinRecord.setDescription(StringUtils.hasText(description) ? description : "积分增加");
-            coinRecord.setRelatedId(relatedId);
-
-            int result = coinMapper.insert(coinRecord);
-            if (result > 0) {
-                // 更新用户积分余额
-                userCoinMapper.increaseCoin(userId, amount);
-                log.info("用户积分增加成功，用户ID: {}, 积分: {}, 操作类型: {}", userId, amount, operationType);
-                return true;
+            // 原子增加余额，账户不存在时创建后重试一次
+            int updated = userCoinMapper.increaseCoin(userId, amount);
+            boolean created = false;
+            if (updated == 0) {
+                created = userCoinMapper.insertIgnore(userId) > 0;
+                updated = userCoinMapper.increaseCoin(userId, amount);
+            }
+            if (updated == 0) {
+                throw new BusinessException("用户积分账户不存在");
+            }
+
+            insertCoinRecord(userId, amount, operationType,
+                    StringUtils.hasText(description) ? description : "积分增加", relatedId);
+            coinDailyStatService.recordChange(userId, amount);
+            coinLeaderboardService.recordChange(userId, amount, amount, 0);
+            if (created) {
+                // 增量只作用于已在榜成员，新建账户按提交后的数据库值入榜
+                coinLeaderboardService.syncUser(userId);
             }
+            log.info("用户积分增加成功，用户ID: {}, 积分: {}, 操作类型: {}", userId, amount, operationType);
+            return true;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("用户积分增加失败，用户ID: {}, 积分: {}", userId, amount, e);
             throw new BusinessException("积分增加失败，请稍后重试");
         }
-
-        return false;
     }
 
     @Override
@@ -80,38 +98,25 @@ public class CoinServiceImpl implements CoinService {
             throw new ValidationException("参数不能为空，积分数量必须大于0");
         }
 
-        // 检查用户积分余额是否足够
-        Integer currentBalance = getUserCoinBalance(userId);
-        if (currentBalance < amount) {
-            throw new BusinessException("积分余额不足");
-        }
-
         try {
-            // 创建积分记录（负数表示减少）
-            Coin coinRecord = new Coin();
-            coinRecord.setUserId(userId);
-            coinRecord.setAmount(-amount);
-            coinRecord.setOperationType(operationType);
-            coinRecord.setDescription(StringUtils.hasText(description) ? description : "积分消费");
-            coinRecord.setRelatedId(relatedId);
-
-            int result = coinMapper.insert(coinRecord);
-            if (result > 0) {
-                // 更新用户积分余额
-                int updateResult = userCoinMapper.decreaseCoin(userId, amount);
-                if (updateResult == 0) {
-                    throw new BusinessException("积分余额不足或用户不存在");
-                }
-                
-                log.info("用户积分减少成功，用户ID: {}, 积分: {}, 操作类型: {}", userId, amount, operationType);
-                return true;
+            // 条件扣减：余额不足时不更新任何行，无需先读后写
+            int updated = userCoinMapper.decreaseCoin(userId, amount);
+            if (updated == 0) {
+                throw new BusinessException("积分余额不足");
             }
+
+            insertCoinRecord(userId, -amount, operationType,
+                    StringUtils.hasText(description) ? description : "积分消费", relatedId);
+            coinDailyStatService.recordChange(userId, -amount);
+            coinLeaderboardService.recordChange(userId, -amount, 0, amount);
+            log.info("用户积分减少成功，用户ID: {}, 积分: {}, 操作类型: {}", userId, amount, operationType);
+            return true;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("用户积分减少失败，用户ID: {}, 积分: {}", userId, amount, e);
             throw new BusinessException("积分减少失败，请稍后重试");
         }
-
-        return false;
     }
 
     @Override
@@ -139,30 +144,16 @@ public class CoinServiceImpl implements CoinService {
             throw new ValidationException("用户ID不能为空");
         }
 
-        // 检查是否已存在积分账户
-        UserCoin existAccount = userCoinMapper.selectByUserId(userId);
-        if (existAccount != null) {
-            return true; // 账户已存在
-        }
-
         try {
-            UserCoin userCoin = new UserCoin();
-            userCoin.setUserId(userId);
-            userCoin.setCoinBalance(0);
-            userCoin.setTotalEarned(0);
-            userCoin.setTotalConsumed(0);
-
-            int result = userCoinMapper.insert(userCoin);
-            if (result > 0) {
+            if (userCoinMapper.insertIgnore(userId) > 0) {
+                coinLeaderboardService.syncUser(userId);
                 log.info("用户积分账户初始化成功，用户ID: {}", userId);
-                return true;
             }
+            return true;
         } catch (Exception e) {
             log.error("用户积分账户初始化失败，用户ID: {}", userId, e);
             throw new BusinessException("积分账户初始化失败");
         }
-
-        return false;
     }
 
     @Override
@@ -186,7 +177,21 @@ public class CoinServiceImpl implements CoinService {
         if (limit == null || limit <= 0) {
             limit = 10;
         }
-        return coinMapper.selectCoinRanking(limit);
+
+        // 流水净额即账户余额，直接取余额榜，避免对整张流水表 SUM ... GROUP BY
+        List<Map<String, Object>> top = coinLeaderboardService.getTopUsers(limit, "coinBalance");
+        if (top == null) {
+            return coinMapper.selectCoinRanking(limit);
+        }
+
+        List<Coin> ranking = new ArrayList<>(top.size());
+        for (Map<String, Object> item : top) {
+            Coin coin = new Coin();
+            coin.setUserId((Long) item.get("userId"));
+            coin.setAmount((Integer) item.get("coinBalance"));
+            ranking.add(coin);
+        }
+        return ranking;
     }
 
     @Override
@@ -194,7 +199,10 @@ public class CoinServiceImpl implements CoinService {
         if (limit == null || limit <= 0) {
             limit = 10;
         }
-        return userCoinMapper.selectCoinBalanceRanking(limit);
+
+        // 榜单已回表过滤正常状态用户并带出用户名、昵称、头像
+        List<UserCoin> top = coinLeaderboardService.getTopAccounts(limit, "coinBalance");
+        return top != null ? top : userCoinMapper.selectCoinBalanceRanking(limit);
     }
 
     @Override
@@ -222,13 +230,14 @@ public class CoinServiceImpl implements CoinService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean signInReward(Long userId) {
         if (userId == null) {
             throw new ValidationException("用户ID不能为空");
         }
 
-        // 检查今日是否已签到
-        if (hasGainedCoinToday(userId, OPERATION_TYPE_SIGN_IN, null)) {
+        // 原子占用今日签到资格，发放失败时随事务回滚释放
+        if (!coinRewardDedupService.tryAcquire(userId, OPERATION_TYPE_SIGN_IN, null)) {
             throw new BusinessException("今日已签到");
         }
 
@@ -238,13 +247,14 @@ public class CoinServiceImpl implements CoinService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean publishPostReward(Long userId, Long postId) {
         if (userId == null || postId == null) {
             throw new ValidationException("用户ID和文章ID不能为空");
         }
 
         // 检查今日发布文章是否已获得奖励
-        if (hasGainedCoinToday(userId, OPERATION_TYPE_PUBLISH_POST, postId)) {
+        if (!coinRewardDedupService.tryAcquire(userId, OPERATION_TYPE_PUBLISH_POST, postId)) {
             return true; // 已获得奖励
         }
 
@@ -254,13 +264,14 @@ public class CoinServiceImpl implements CoinService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean commentReward(Long userId, Long commentId) {
         if (userId == null || commentId == null) {
             throw new ValidationException("用户ID和评论ID不能为空");
         }
 
         // 检查今日评论是否已获得奖励
-        if (hasGainedCoinToday(userId, OPERATION_TYPE_COMMENT, commentId)) {
+        if (!coinRewardDedupService.tryAcquire(userId, OPERATION_TYPE_COMMENT, commentId)) {
             return true; // 已获得奖励
         }
 
@@ -270,13 +281,14 @@ public class CoinServiceImpl implements CoinService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean likedReward(Long userId, Integer targetType, Long targetId) {
         if (userId == null || targetType == null || targetId == null) {
             throw new ValidationException("参数不能为空");
         }
 
         // 检查今日被点赞是否已获得奖励
-        if (hasGainedCoinToday(userId, OPERATION_TYPE_LIKED, targetId)) {
+        if (!coinRewardDedupService.tryAcquire(userId, OPERATION_TYPE_LIKED, targetId)) {
             return true; // 已获得奖励
         }
 
@@ -311,51 +323,108 @@ public class CoinServiceImpl implements CoinService {
             throw new ValidationException("不能给自己转账");
         }
 
-        // 检查转出用户积分余额
-        Integer fromBalance = getUserCoinBalance(fromUserId);
-        if (fromBalance < amount) {
-            throw new BusinessException("积分余额不足");
+        return batchTransferCoin(fromUserId, Map.of(toUserId, amount), description);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean batchTransferCoin(Long fromUserId, Map<Long, Integer> amounts, String description) {
+        if (fromUserId == null || amounts == null || amounts.isEmpty()) {
+            throw new ValidationException("转出用户和接收用户不能为空");
         }
 
+        // 按用户ID排序，保证所有转账按相同顺序加行锁，避免 A→B / B→A 互相等待
+        TreeMap<Long, Integer> sortedAmounts = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<Long, Integer> entry : amounts.entrySet()) {
+            Long toUserId = entry.getKey();
+            Integer amount = entry.getValue();
+            if (toUserId == null || amount == null || amount <= 0) {
+                throw new ValidationException("接收用户不能为空，转账金额必须大于0");
+            }
+            if (toUserId.equals(fromUserId)) {
+                throw new ValidationException("不能给自己转账");
+            }
+            sortedAmounts.put(toUserId, amount);
+            total += amount;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new ValidationException("转账总额过大");
+        }
+
+        String transferDescription = StringUtils.hasText(description) ? description : "积分转账";
+
         try {
-            // 确保接收方积分账户存在
-            ensureUserCoinAccount(toUserId);
-
-            String transferDescription = StringUtils.hasText(description) ? description : "积分转账";
-
-            // 转出积分
-            boolean deductResult = reduceCoin(fromUserId, amount, OPERATION_TYPE_CONSUME, 
-                "转出积分给用户" + toUserId + "：" + transferDescription, toUserId);
-
-            if (deductResult) {
-                // 转入积分
-                boolean addResult = addCoin(toUserId, amount, OPERATION_TYPE_CONSUME, 
-                    "接收用户" + fromUserId + "转入积分：" + transferDescription, fromUserId);
-
-                if (addResult) {
-                    log.info("积分转账成功，从用户{}转给用户{}，金额: {}", fromUserId, toUserId, amount);
-                    return true;
-                } else {
-                    // 转入失败，回滚转出操作
-                    addCoin(fromUserId, amount, OPERATION_TYPE_CONSUME, "积分转账失败回滚", toUserId);
-                    throw new BusinessException("积分转账失败");
-                }
+            // 仅为缺失账户的接收方建户，避免对已有账户行加共享锁打乱加锁顺序
+            Set<Long> missingAccounts = new HashSet<>(amounts.keySet());
+            userCoinMapper.selectExistingUserIds(amounts.keySet()).forEach(missingAccounts::remove);
+            boolean created = !missingAccounts.isEmpty() && userCoinMapper.batchInsertIgnore(missingAccounts) > 0;
+
+            List<Coin> debits = new ArrayList<>(sortedAmounts.size());
+            List<Coin> lowerCredits = new ArrayList<>();
+            List<Coin> upperCredits = new ArrayList<>();
+            sortedAmounts.forEach((toUserId, amount) -> {
+                debits.add(buildCoinRecord(fromUserId, -amount, OPERATION_TYPE_CONSUME,
+                        "转出积分给用户" + toUserId + "：" + transferDescription, toUserId));
+                Coin credit = buildCoinRecord(toUserId, amount, OPERATION_TYPE_CONSUME,
+                        "接收用户" + fromUserId + "转入积分：" + transferDescription, fromUserId);
+                (toUserId < fromUserId ? lowerCredits : upperCredits).add(credit);
+            });
+
+            // 依ID升序依次加锁：较小ID的接收方 → 转出方（条件扣减） → 较大ID的接收方
+            if (!lowerCredits.isEmpty()) {
+                userCoinMapper.batchIncreaseCoin(lowerCredits);
+            }
+            if (userCoinMapper.decreaseCoin(fromUserId, (int) total) == 0) {
+                throw new BusinessException("积分余额不足");
             }
+            if (!upperCredits.isEmpty()) {
+                userCoinMapper.batchIncreaseCoin(upperCredits);
+            }
+
+            // 双边流水一次多行写入
+            List<Coin> records = new ArrayList<>(debits.size() * 2);
+            records.addAll(debits);
+            records.addAll(lowerCredits);
+            records.addAll(upperCredits);
+            for (int i = 0; i < records.size(); i += LEDGER_BATCH_SIZE) {
+                coinMapper.insertBatch(records.subList(i, Math.min(i + LEDGER_BATCH_SIZE, records.size())));
+            }
+            coinDailyStatService.recordChanges(records);
+
+            coinLeaderboardService.recordChange(fromUserId, (int) -total, 0, (int) total);
+            coinLeaderboardService.recordCredits(sortedAmounts);
+            if (created) {
+                // 新建的接收方账户不在榜上，增量不会生效，提交后按数据库值入榜
+                missingAccounts.forEach(coinLeaderboardService::syncUser);
+            }
+
+            log.info("积分转账成功，从用户{}转给{}个用户，总金额: {}", fromUserId, amounts.size(), total);
+            return true;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("积分转账失败，从用户{}转给用户{}，金额: {}", fromUserId, toUserId, amount, e);
+            log.error("积分转账失败，从用户{}转给用户{}，总金额: {}", fromUserId, amounts.keySet(), total, e);
             throw new BusinessException("积分转账失败，请稍后重试");
         }
-
-        return false;
     }
 
     /**
-     * 确保用户积分账户存在
+     * 写入积分流水
      */
-    private void ensureUserCoinAccount(Long userId) {
-        UserCoin userCoin = userCoinMapper.selectByUserId(userId);
-        if (userCoin == null) {
-            initUserCoinAccount(userId);
+    private void insertCoinRecord(Long userId, Integer amount, Integer operationType, String description, Long relatedId) {
+        if (coinMapper.insert(buildCoinRecord(userId, amount, operationType, description, relatedId)) <= 0) {
+            throw new BusinessException("积分记录写入失败");
         }
     }
+
+    private Coin buildCoinRecord(Long userId, Integer amount, Integer operationType, String description, Long relatedId) {
+        Coin coinRecord = new Coin();
+        coinRecord.setUserId(userId);
+        coinRecord.setAmount(amount);
+        coinRecord.setOperationType(operationType);
+        coinRecord.setDescription(description);
+        coinRecord.setRelatedId(relatedId);
+        return coinRecord;
+    }
 }
\ No newline at end of file
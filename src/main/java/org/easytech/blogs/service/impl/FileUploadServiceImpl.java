@@ -3,7 +3,9 @@ package org.easytech.blogs.service.impl;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.dto.FileMetadata;
 import org.easytech.blogs.entity.FileUpload;
 import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.ForbiddenException;
@@ -11,23 +13,29 @@ import org.easytech.blogs.exception.ResourceNotFoundException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.FileUploadMapper;
 import org.easytech.blogs.service.FileUploadService;
+import org.easytech.blogs.service.UserStorageService;
+import org.easytech.blogs.util.LruCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * 文件上传服务实现类
@@ -39,6 +47,7 @@ import java.util.UUID;
 public class FileUploadServiceImpl implements FileUploadService {
 
     private final FileUploadMapper fileUploadMapper;
+    private final UserStorageService userStorageService;
 
     @Value("${blog.upload.path:./uploads/}")
     private String uploadPath;
@@ -49,6 +58,17 @@ public class FileUploadServiceImpl implements FileUploadService {
     @Value("${blog.upload.allowed-types:jpg,jpeg,png,gif,mp4,avi,pdf,doc,docx,txt,zip,gzip}")
     private String allowedTypes;
 
+    @Value("${blog.upload.metadata-cache-size:10000}")
+    private int metadataCacheSize;
+
+    @Value("${blog.upload.metadata-cache-ttl:600}") // 秒
+    private long metadataCacheTtl;
+
+    /**
+     * 文件元数据缓存：下载/预览无需每次查询 tb_file_upload
+     */
+    private LruCache<Long, FileMetadata> metadataCache;
+
     // 文件类型常量
     private static final Integer FILE_TYPE_IMAGE = 1;
     private static final Integer FILE_TYPE_VIDEO = 2;
@@ -56,6 +76,11 @@ public class FileUploadServiceImpl implements FileUploadService {
     private static final Integer FILE_TYPE_ARCHIVE = 4;
     private static final Integer FILE_TYPE_OTHER = 0;
 
+    @PostConstruct
+    public void initMetadataCache() {
+        metadataCache = new LruCache<>(metadataCacheSize, metadataCacheTtl * 1000);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public FileUpload uploadFile(MultipartFile file, Long userId, Integer relatedType, Long relatedId) {
@@ -68,65 +93,11 @@ public class FileUploadServiceImpl implements FileUploadService {
             throw new ValidationException("用户ID不能为空");
         }
 
-        String originalFileName = file.getOriginalFilename();
-        if (!StringUtils.hasText(originalFileName)) {
-            throw new ValidationException("文件名不能为空");
-        }
+        validateFile(file);
 
-        // 验证文件类型
-        if (!isFileTypeAllowed(originalFileName)) {
-            throw new ValidationException("不支持的文件类型");
-        }
-
-        // 验证文件大小
-        if (!isFileSizeAllowed(file.getSize())) {
-            throw new ValidationException("文件大小超过限制");
-        }
-
-        try {
-            // 创建上传目录
-            String datePath = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-            String uploadDir = uploadPath + "/" + datePath;
-            Path uploadDirPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadDirPath)) {
-                Files.createDirectories(uploadDirPath);
-            }
-
-            // 生成唯一文件名
-            String uniqueFileName = generateUniqueFileName(originalFileName);
-            String filePath = datePath + "/" + uniqueFileName;
-            String fullPath = uploadDir + "/" + uniqueFileName;
-
-            // 保存文件
-            file.transferTo(new File(fullPath));
-
-            // 创建文件记录
-            FileUpload fileUpload = new FileUpload();
-            fileUpload.setUserId(userId);
-            fileUpload.setOriginalName(originalFileName);
-            fileUpload.setFileName(uniqueFileName);
-            fileUpload.setFilePath(filePath);
-            fileUpload.setFileSize(file.getSize());
-            fileUpload.setFileType(getFileTypeByExtension(getFileExtension(originalFileName)));
-            fileUpload.setMimeType(file.getContentType());
-            fileUpload.setRelatedType(relatedType);
-            fileUpload.setRelatedId(relatedId);
-            fileUpload.setStatus(1); // 1-正常，0-临时
-
-            int result = fileUploadMapper.insert(fileUpload);
-            if (result > 0) {
-                log.info("文件上传成功，用户ID: {}, 文件名: {}, 文件大小: {}", userId, originalFileName, file.getSize());
-                return fileUpload;
-            }
-        } catch (IOException e) {
-            log.error("文件保存失败，用户ID: {}, 文件名: {}", userId, originalFileName, e);
-            throw new BusinessException("文件保存失败");
-        } catch (Exception e) {
-            log.error("文件上传失败，用户ID: {}, 文件名: {}", userId, originalFileName, e);
-            throw new BusinessException("文件上传失败，请稍后重试");
-        }
-
-        throw new BusinessException("文件上传失败");
+        // 先写磁盘再占用配额：reserve 对 tb_user_storage 加的行锁持有到事务提交，不能在持锁期间写文件
+        StoredFile storedFile = storeFile(file, userId);
+        return saveRecord(file, storedFile, userId, relatedType, relatedId);
     }
 
     @Override
@@ -140,18 +111,35 @@ public class FileUploadServiceImpl implements FileUploadService {
             throw new ValidationException("用户ID不能为空");
         }
 
-        List<FileUpload> uploadResults = new ArrayList<>();
-        
+        List<MultipartFile> validFiles = new ArrayList<>();
         for (MultipartFile file : files) {
             if (file != null && !file.isEmpty()) {
-                try {
-                    FileUpload result = uploadFile(file, userId, relatedType, relatedId);
-                    uploadResults.add(result);
-                } catch (Exception e) {
-                    log.error("批量上传文件失败，文件名: {}", file.getOriginalFilename(), e);
-                    // 可以选择继续上传其他文件或者全部回滚
-                    throw new BusinessException("文件上传失败: " + file.getOriginalFilename());
-                }
+                validateFile(file);
+                validFiles.add(file);
+            }
+        }
+
+        // 全部文件写入磁盘后再依次占用配额、写入记录，批量上传同样不在持有配额行锁时写文件
+        List<StoredFile> storedFiles = new ArrayList<>(validFiles.size());
+        try {
+            for (MultipartFile file : validFiles) {
+                storedFiles.add(storeFile(file, userId));
+            }
+        } catch (BusinessException e) {
+            storedFiles.forEach(storedFile -> deleteQuietly(storedFile.fullPath()));
+            throw e;
+        }
+
+        List<FileUpload> uploadResults = new ArrayList<>(validFiles.size());
+        for (int i = 0; i < validFiles.size(); i++) {
+            MultipartFile file = validFiles.get(i);
+            try {
+                uploadResults.add(saveRecord(file, storedFiles.get(i), userId, relatedType, relatedId));
+            } catch (Exception e) {
+                log.error("批量上传文件失败，文件名: {}", file.getOriginalFilename(), e);
+                // 已写入记录的文件随事务回滚删除，尚未处理的文件在此删除
+                storedFiles.subList(i + 1, storedFiles.size()).forEach(storedFile -> deleteQuietly(storedFile.fullPath()));
+                throw new BusinessException("文件上传失败: " + file.getOriginalFilename());
             }
         }
 
@@ -185,7 +173,9 @@ public class FileUploadServiceImpl implements FileUploadService {
 
             // 逻辑删除文件记录
             int result = fileUploadMapper.deleteById(fileId);
+            afterCommit(() -> metadataCache.invalidate(fileId));
             if (result > 0) {
+                userStorageService.release(fileUpload.getUserId(), sizeOf(fileUpload), 1);
                 log.info("文件删除成功，文件ID: {}", fileId);
                 return true;
             }
@@ -208,6 +198,17 @@ public class FileUploadServiceImpl implements FileUploadService {
         return fileUploadMapper.selectById(fileId);
     }
 
+    @Override
+    public FileMetadata getFileMetadata(Long fileId) {
+        if (fileId == null) {
+            return null;
+        }
+        return metadataCache.get(fileId, id -> {
+            FileUpload fileUpload = fileUploadMapper.selectById(id);
+            return fileUpload != null ? toMetadata(fileUpload) : null;
+        });
+    }
+
     @Override
     public FileUpload getFileByPath(String filePath) {
         if (!StringUtils.hasText(filePath)) {
@@ -256,7 +257,7 @@ public class FileUploadServiceImpl implements FileUploadService {
         if (userId == null) {
             return 0L;
         }
-        return fileUploadMapper.sumFileSizeByUserId(userId);
+        return userStorageService.getUsedBytes(userId);
     }
 
     @Override
@@ -272,6 +273,7 @@ public class FileUploadServiceImpl implements FileUploadService {
 
         try {
             int result = fileUploadMapper.updateFileStatus(fileId, status);
+            afterCommit(() -> metadataCache.invalidate(fileId));
             if (result > 0) {
                 log.info("文件状态更新成功，文件ID: {}, 状态: {}", fileId, status);
                 return true;
@@ -312,9 +314,15 @@ public class FileUploadServiceImpl implements FileUploadService {
                 }
             }
 
-            // 批量删除数据库记录
+            // 批量删除数据库记录，并按用户释放存储用量
             if (!tempFiles.isEmpty()) {
                 fileUploadMapper.deleteTempFiles(beforeTime);
+                afterCommit(() -> tempFiles.forEach(tempFile -> metadataCache.invalidate(tempFile.getId())));
+
+                Map<Long, List<FileUpload>> filesByUser = tempFiles.stream()
+                        .collect(Collectors.groupingBy(FileUpload::getUserId));
+                filesByUser.forEach((ownerId, files) -> userStorageService.release(ownerId,
+                        files.stream().mapToLong(this::sizeOf).sum(), files.size()));
             }
 
             log.info("清理临时文件完成，清理数量: {}", deletedCount);
@@ -402,4 +410,169 @@ public class FileUploadServiceImpl implements FileUploadService {
 
         return FILE_TYPE_OTHER;
     }
-}
\ No newline at end of file
+
+    private FileMetadata toMetadata(FileUpload fileUpload) {
+        long lastModified = 0L;
+        try {
+            Path path = Paths.get(uploadPath + "/" + fileUpload.getFilePath());
+            if (Files.exists(path)) {
+                lastModified = Files.getLastModifiedTime(path).toMillis();
+            }
+        } catch (IOException e) {
+            log.debug("读取文件修改时间失败，文件ID: {}", fileUpload.getId());
+        }
+        if (lastModified == 0L && fileUpload.getUpdateTime() != null) {
+            lastModified = fileUpload.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        long size = sizeOf(fileUpload);
+        String etag = "\"" + Long.toHexString(fileUpload.getId()) + "-" + Long.toHexString(size)
+                + "-" + Long.toHexString(lastModified) + "\"";
+        return new FileMetadata(fileUpload.getId(), fileUpload.getFilePath(), fileUpload.getOriginalName(),
+                fileUpload.getMimeType(), size, lastModified, etag);
+    }
+
+    private long sizeOf(FileUpload fileUpload) {
+        return fileUpload.getFileSize() != null ? fileUpload.getFileSize() : 0L;
+    }
+
+    /**
+     * 校验文件名、类型和大小
+     */
+    private void validateFile(MultipartFile file) {
+        String originalFileName = file.getOriginalFilename();
+        if (!StringUtils.hasText(originalFileName)) {
+            throw new ValidationException("文件名不能为空");
+        }
+
+        // 验证文件类型
+        if (!isFileTypeAllowed(originalFileName)) {
+            throw new ValidationException("不支持的文件类型");
+        }
+
+        // 验证文件大小
+        if (!isFileSizeAllowed(file.getSize())) {
+            throw new ValidationException("文件大小超过限制");
+        }
+    }
+
+    /**
+     * 将上传文件写入按日期划分的目录
+     */
+    private StoredFile storeFile(MultipartFile file, Long userId) {
+        String originalFileName = file.getOriginalFilename();
+        try {
+            // 创建上传目录
+            String datePath = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+            String uploadDir = uploadPath + "/" + datePath;
+            Path uploadDirPath = Paths.get(uploadDir);
+            if (!Files.exists(uploadDirPath)) {
+                Files.createDirectories(uploadDirPath);
+            }
+
+            // 生成唯一文件名
+            String uniqueFileName = generateUniqueFileName(originalFileName);
+            Path fullPath = Paths.get(uploadDir, uniqueFileName);
+
+            // 保存文件
+            file.transferTo(fullPath.toFile());
+            return new StoredFile(uniqueFileName, datePath + "/" + uniqueFileName, fullPath);
+        } catch (IOException e) {
+            log.error("文件保存失败，用户ID: {}, 文件名: {}", userId, originalFileName, e);
+            throw new BusinessException("文件保存失败");
+        }
+    }
+
+    /**
+     * 占用存储配额并写入文件记录；失败或事务回滚时删除已写入的文件
+     */
+    private FileUpload saveRecord(MultipartFile file, StoredFile storedFile, Long userId,
+                                  Integer relatedType, Long relatedId) {
+        String originalFileName = file.getOriginalFilename();
+        boolean saved = false;
+        try {
+            // 校验并占用用户存储配额（与文件记录同事务，失败时一并回滚）
+            userStorageService.reserve(userId, file.getSize());
+
+            // 创建文件记录
+            FileUpload fileUpload = new FileUpload();
+            fileUpload.setUserId(userId);
+            fileUpload.setOriginalName(originalFileName);
+            fileUpload.setFileName(storedFile.fileName());
+            fileUpload.setFilePath(storedFile.filePath());
+            fileUpload.setFileSize(file.getSize());
+            fileUpload.setFileType(getFileTypeByExtension(getFileExtension(originalFileName)));
+            fileUpload.setMimeType(file.getContentType());
+            fileUpload.setRelatedType(relatedType);
+            fileUpload.setRelatedId(relatedId);
+            fileUpload.setStatus(1); // 1-正常，0-临时
+
+            if (fileUploadMapper.insert(fileUpload) > 0) {
+                saved = true;
+                deleteOnRollback(storedFile.fullPath());
+                log.info("文件上传成功，用户ID: {}, 文件名: {}, 文件大小: {}", userId, originalFileName, file.getSize());
+                return fileUpload;
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("文件上传失败，用户ID: {}, 文件名: {}", userId, originalFileName, e);
+            throw new BusinessException("文件上传失败，请稍后重试");
+        } finally {
+            if (!saved) {
+                deleteQuietly(storedFile.fullPath());
+            }
+        }
+
+        throw new BusinessException("文件上传失败");
+    }
+
+    /**
+     * 事务回滚时删除已写入磁盘的文件，避免留下没有记录的孤儿文件
+     */
+    private void deleteOnRollback(Path path) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteQuietly(path);
+                    }
+                }
+            });
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除未入库的上传文件失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 已写入磁盘的上传文件
+     * @param fileName 唯一文件名
+     * @param filePath 相对上传目录的路径
+     * @param fullPath 磁盘完整路径
+     */
+    private record StoredFile(String fileName, String filePath, Path fullPath) {
+    }
+
+    /**
+     * 存在事务时延迟到提交后执行，避免并发读取在提交前把旧记录重新加载进缓存
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
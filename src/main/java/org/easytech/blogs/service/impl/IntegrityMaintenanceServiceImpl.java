@@ -0,0 +1,185 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.dto.OrphanCleanupReport;
+import org.easytech.blogs.exception.BusinessException;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.IntegrityMapper;
+import org.easytech.blogs.mapper.TagMapper;
+import org.easytech.blogs.service.IntegrityMaintenanceService;
+import org.easytech.blogs.service.TagDictionaryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据完整性维护服务实现类
+ * 按ID区间分块，对每个关联列执行一条反连接DELETE，每块独立提交；
+ * 父表为逻辑删除表时，已逻辑删除的父记录同样视为不存在；删除后修正依赖关联表的派生数据
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IntegrityMaintenanceServiceImpl implements IntegrityMaintenanceService {
+
+    /**
+     * 关联列定义
+     * @param column 关联列
+     * @param parentTable 父表
+     * @param softDelete 父表是否逻辑删除
+     */
+    private record ParentRef(String column, String parentTable, boolean softDelete) {
+    }
+
+    /**
+     * 关联表登记，对应 create_tables.sql 中的多对多关联表
+     */
+    private static final Map<String, List<ParentRef>> RELATIONS = new LinkedHashMap<>();
+
+    static {
+        RELATIONS.put("tb_user_role", List.of(
+                new ParentRef("user_id", "tb_user", true),
+                new ParentRef("role_id", "tb_role", true)));
+        RELATIONS.put("tb_post_tag", List.of(
+                new ParentRef("post_id", "tb_post", true),
+                new ParentRef("tag_id", "tb_tag", true)));
+    }
+
+    // 每处理多少块输出一次进度
+    private static final int PROGRESS_LOG_INTERVAL = 100;
+
+    private final IntegrityMapper integrityMapper;
+    private final TagMapper tagMapper;
+    private final TagDictionaryService tagDictionaryService;
+    private final UserRoleCache userRoleCache;
+
+    @Value("${blog.integrity.chunk-size:5000}")
+    private long chunkSize;
+
+    @Value("${blog.integrity.chunk-pause-millis:20}")
+    private long chunkPauseMillis;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public OrphanCleanupReport cleanOrphans(String relationTable) {
+        List<ParentRef> parents = RELATIONS.get(relationTable);
+        if (parents == null) {
+            throw new ValidationException("未登记的关联表: " + relationTable);
+        }
+        if (!running.add(relationTable)) {
+            throw new BusinessException("关联表清理任务正在执行，请稍后重试");
+        }
+
+        long startTime = System.currentTimeMillis();
+        OrphanCleanupReport report = new OrphanCleanupReport();
+        report.setRelationTable(relationTable);
+        parents.forEach(parent -> report.getDeletedByColumn().put(parent.column(), 0L));
+
+        try {
+            Long minId = integrityMapper.selectMinId(relationTable);
+            Long maxId = integrityMapper.selectMaxId(relationTable);
+            if (minId == null || maxId == null) {
+                return report;
+            }
+            long from = minId;
+            long to = maxId + 1;
+            report.setFromId(from);
+            report.setToId(to);
+            int totalChunks = (int) ((to - from + chunkSize - 1) / chunkSize);
+
+            for (long chunkStart = from; chunkStart < to; chunkStart += chunkSize) {
+                long chunkEnd = Math.min(chunkStart + chunkSize, to);
+                for (ParentRef parent : parents) {
+                    int deleted = integrityMapper.deleteOrphans(relationTable, parent.column(),
+                            parent.parentTable(), parent.softDelete(), chunkStart, chunkEnd);
+                    if (deleted > 0) {
+                        report.getDeletedByColumn().merge(parent.column(), (long) deleted, Long::sum);
+                        report.setDeleted(report.getDeleted() + deleted);
+                    }
+                }
+                report.setChunkCount(report.getChunkCount() + 1);
+
+                if (report.getChunkCount() % PROGRESS_LOG_INTERVAL == 0) {
+                    log.info("关联表{}清理进度: {}/{}块, 已删除: {}", relationTable,
+                            report.getChunkCount(), totalChunks, report.getDeleted());
+                }
+                if (chunkPauseMillis > 0 && chunkEnd < to) {
+                    Thread.sleep(chunkPauseMillis);
+                }
+            }
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("关联表清理被中断");
+        } finally {
+            // 中断或失败时已提交的块同样需要修正
+            refreshDerivedData(relationTable, report.getDeleted());
+            report.setElapsedMillis(System.currentTimeMillis() - startTime);
+            running.remove(relationTable);
+            log.info("关联表{}清理结束，块数: {}, 删除: {}, 明细: {}, 耗时: {}ms", relationTable,
+                    report.getChunkCount(), report.getDeleted(), report.getDeletedByColumn(), report.getElapsedMillis());
+        }
+    }
+
+    /**
+     * 关联删除后修正派生数据：文章标签关联对应标签使用次数，用户角色关联对应角色解析缓存
+     */
+    private void refreshDerivedData(String relationTable, long deleted) {
+        if (deleted <= 0) {
+            return;
+        }
+        try {
+            switch (relationTable) {
+                case "tb_post_tag" -> {
+                    int fixed = tagMapper.rebuildAllUseCounts();
+                    tagDictionaryService.markStale();
+                    log.info("关联表{}清理后重建标签使用次数，修正标签数: {}", relationTable, fixed);
+                }
+                case "tb_user_role" -> userRoleCache.evictAllUsers();
+                default -> {
+                }
+            }
+        } catch (Exception e) {
+            log.error("关联表{}清理后修正派生数据失败", relationTable, e);
+        }
+    }
+
+    @Override
+    public List<OrphanCleanupReport> cleanAllOrphans() {
+        List<OrphanCleanupReport> reports = new ArrayList<>(RELATIONS.size());
+        for (String relationTable : RELATIONS.keySet()) {
+            reports.add(cleanOrphans(relationTable));
+        }
+        return reports;
+    }
+
+    @Override
+    public List<String> getRelationTables() {
+        return List.copyOf(RELATIONS.keySet());
+    }
+
+    /**
+     * 定时清理全部关联表，默认每周日凌晨执行
+     */
+    @Scheduled(cron = "${blog.integrity.cleanup-cron:0 30 3 * * SUN}")
+    public void scheduledCleanup() {
+        for (String relationTable : RELATIONS.keySet()) {
+            try {
+                cleanOrphans(relationTable);
+            } catch (BusinessException e) {
+                log.warn("定时关联表清理未完成，表: {}, 原因: {}", relationTable, e.getMessage());
+            } catch (Exception e) {
+                log.error("定时关联表清理失败，表: {}", relationTable, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最后登录时间异步批量写入
+ * 登录时只记录到内存，同一用户多次登录只保留最后一次；定时按批以单条 UPDATE ... CASE 写入，
+ * 登录请求不再产生同步写，也不影响用户缓存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private final UserMapper userMapper;
+
+    @Value("${blog.last-login.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次登录
+     * @param userId 用户ID
+     */
+    public void record(Long userId) {
+        if (userId != null) {
+            pending.put(userId, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * 等待写入的用户数
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${blog.last-login.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map<Long, LocalDateTime>> batches = new ArrayList<>();
+        Map<Long, LocalDateTime> batch = new LinkedHashMap<>();
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime == null) {
+                continue;
+            }
+            batch.put(userId, loginTime);
+            if (batch.size() >= batchSize) {
+                batches.add(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        int updated = 0;
+        for (Map<Long, LocalDateTime> logins : batches) {
+            try {
+                updated += userMapper.batchUpdateLastLoginTime(logins);
+            } catch (Exception e) {
+                // 写入失败的放回，期间有更新的登录时间不覆盖
+                logins.forEach(pending::putIfAbsent);
+                log.warn("最后登录时间批量写入失败，条数: {}, 原因: {}", logins.size(), e.getMessage());
+            }
+        }
+        log.debug("最后登录时间写入完成，更新: {}", updated);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -10,7 +10,9 @@ import org.easytech.blogs.exception.ForbiddenException;
 import org.easytech.blogs.exception.ResourceNotFoundException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.*;
+import org.easytech.blogs.service.CategorySnapshotService;
 import org.easytech.blogs.service.PostService;
+import org.easytech.blogs.service.TagDictionaryService;
 import org.easytech.blogs.service.UserService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +32,8 @@ public class PostServiceImpl implements PostService {
 
     private final PostMapper postMapper;
     private final TagMapper tagMapper;
+    private final TagDictionaryService tagDictionaryService;
+    private final CategorySnapshotService categorySnapshotService;
     private final PostTagMapper postTagMapper;
     private final LikeRecordMapper likeRecordMapper;
     private final CommentMapper commentMapper;
@@ -251,8 +255,10 @@ public class PostServiceImpl implements PostService {
         }
 
         try {
-            // 删除文章标签关联
+            // 删除文章标签关联，先按关联数扣减标签使用次数
+            tagMapper.decrementUseCountsByPosts(List.of(postId));
             postTagMapper.deleteByPostId(postId);
+            tagDictionaryService.markStale();
             
             // 逻辑删除文章
             int result = postMapper.deleteById(postId);
@@ -417,6 +423,8 @@ public class PostServiceImpl implements PostService {
         try {
             int result = postMapper.updateById(post);
             if (result > 0) {
+                // 发布状态影响"有文章的分类"列表
+                categorySnapshotService.refresh();
                 log.info("文章状态更新成功，文章ID: {}, 状态: {}", postId, status);
                 return true;
             }
@@ -500,19 +508,25 @@ public class PostServiceImpl implements PostService {
      * 处理文章标签关联
      */
     private void handlePostTags(Long postId, List<String> tagNames) {
-        // 删除原有标签关联
+        // 删除原有标签关联，先按关联数扣减标签使用次数
+        tagMapper.decrementUseCountsByPosts(List.of(postId));
         postTagMapper.deleteByPostId(postId);
+        tagDictionaryService.markStale();
 
         if (tagNames != null && !tagNames.isEmpty()) {
             for (String tagName : tagNames) {
                 if (StringUtils.hasText(tagName)) {
                     // 查找或创建标签
-                    Tag tag = tagMapper.findByName(tagName.trim());
+                    Tag tag = tagDictionaryService.getByName(tagName);
+                    if (tag == null) {
+                        tag = tagMapper.findByName(tagName.trim());
+                    }
                     if (tag == null) {
                         tag = new Tag();
                         tag.setName(tagName.trim());
                         tag.setUseCount(0L);
                         tagMapper.insert(tag);
+                        tagDictionaryService.refresh();
                     }
 
                     // 创建文章标签关联
@@ -521,9 +535,8 @@ public class PostServiceImpl implements PostService {
                     postTag.setTagId(tag.getId());
                     postTagMapper.insert(postTag);
 
-                    // 更新标签使用次数
-                    Long useCount = postTagMapper.countByTagId(tag.getId());
-                    tagMapper.updateUseCount(tag.getId(), useCount);
+                    // 按增量更新标签使用次数
+                    tagMapper.adjustUseCount(tag.getId(), 1);
                 }
             }
         }
@@ -536,6 +549,7 @@ public class PostServiceImpl implements PostService {
         if (categoryId != null) {
             Long postCount = postMapper.countByStatus(1); // 只统计已发布的文章
             categoryMapper.updatePostCount(categoryId, postCount);
+            categorySnapshotService.refresh();
         }
     }
 
@@ -3,13 +3,16 @@ package org.easytech.blogs.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.dto.OrphanCleanupReport;
 import org.easytech.blogs.entity.PostTag;
 import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.PostMapper;
 import org.easytech.blogs.mapper.PostTagMapper;
 import org.easytech.blogs.mapper.TagMapper;
+import org.easytech.blogs.service.IntegrityMaintenanceService;
 import org.easytech.blogs.service.PostTagService;
+import org.easytech.blogs.service.TagDictionaryService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +30,8 @@ public class PostTagServiceImpl implements PostTagService {
     private final PostTagMapper postTagMapper;
     private final PostMapper postMapper;
     private final TagMapper tagMapper;
+    private final IntegrityMaintenanceService integrityMaintenanceService;
+    private final TagDictionaryService tagDictionaryService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -47,8 +52,9 @@ public class PostTagServiceImpl implements PostTagService {
 
             int result = postTagMapper.insert(postTag);
             if (result > 0) {
-                // 更新标签使用次数
-                updateTagUseCount(tagId);
+                // 按增量更新标签使用次数
+                tagMapper.adjustUseCount(tagId, result);
+                tagDictionaryService.markStale();
                 log.info("文章标签关联添加成功，文章ID: {}, 标签ID: {}", postId, tagId);
                 return true;
             }
@@ -119,8 +125,9 @@ public class PostTagServiceImpl implements PostTagService {
 
             int result = postTagMapper.delete(queryWrapper);
             if (result > 0) {
-                // 更新标签使用次数
-                updateTagUseCount(tagId);
+                // 按增量更新标签使用次数
+                tagMapper.adjustUseCount(tagId, -result);
+                tagDictionaryService.markStale();
                 log.info("文章标签关联删除成功，文章ID: {}, 标签ID: {}", postId, tagId);
                 return true;
             }
@@ -140,15 +147,10 @@ public class PostTagServiceImpl implements PostTagService {
         }
 
         try {
-            // 获取要删除的标签ID列表，用于更新使用次数
-            List<Long> tagIds = getTagIdsByPostId(postId);
-
+            // 删除前按关联数扣减相关标签的使用次数
+            tagMapper.decrementUseCountsByPosts(List.of(postId));
             int result = postTagMapper.deleteByPostId(postId);
-            
-            // 更新相关标签的使用次数
-            for (Long tagId : tagIds) {
-                updateTagUseCount(tagId);
-            }
+            tagDictionaryService.markStale();
 
             log.info("文章所有标签关联删除成功，文章ID: {}, 删除数量: {}", postId, result);
             return true;
@@ -167,9 +169,10 @@ public class PostTagServiceImpl implements PostTagService {
 
         try {
             int result = postTagMapper.deleteByTagId(tagId);
-            
-            // 更新标签使用次数（应该为0）
-            updateTagUseCount(tagId);
+
+            // 标签已无关联，使用次数直接置0
+            tagMapper.updateUseCount(tagId, 0L);
+            tagDictionaryService.markStale();
 
             log.info("标签所有文章关联删除成功，标签ID: {}, 删除数量: {}", tagId, result);
             return true;
@@ -238,20 +241,13 @@ public class PostTagServiceImpl implements PostTagService {
         }
 
         try {
-            // 获取要删除的标签ID列表，用于更新使用次数
-            List<Long> allTagIds = new java.util.ArrayList<>();
-            for (Long postId : postIds) {
-                allTagIds.addAll(getTagIdsByPostId(postId));
-            }
+            // 删除前按关联数一次扣减相关标签的使用次数
+            tagMapper.decrementUseCountsByPosts(postIds);
 
             QueryWrapper<PostTag> queryWrapper = new QueryWrapper<>();
             queryWrapper.in("post_id", postIds);
             int result = postTagMapper.delete(queryWrapper);
-
-            // 更新相关标签的使用次数
-            for (Long tagId : allTagIds.stream().distinct().collect(java.util.stream.Collectors.toList())) {
-                updateTagUseCount(tagId);
-            }
+            tagDictionaryService.markStale();
 
             log.info("批量删除文章标签关联成功，文章数量: {}, 删除关联数量: {}", postIds.size(), result);
             return true;
@@ -273,10 +269,9 @@ public class PostTagServiceImpl implements PostTagService {
             queryWrapper.in("tag_id", tagIds);
             int result = postTagMapper.delete(queryWrapper);
 
-            // 更新相关标签的使用次数
-            for (Long tagId : tagIds) {
-                updateTagUseCount(tagId);
-            }
+            // 标签已无关联，使用次数直接置0
+            tagMapper.resetUseCounts(tagIds);
+            tagDictionaryService.markStale();
 
             log.info("批量删除标签文章关联成功，标签数量: {}, 删除关联数量: {}", tagIds.size(), result);
             return true;
@@ -287,32 +282,15 @@ public class PostTagServiceImpl implements PostTagService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public int cleanInvalidRelations() {
+        // 按ID区间分块反连接删除，每块独立提交，不把整表读入内存
         try {
-            // 这里需要复杂的SQL查询来找出无效关联，简化实现
-            // 实际场景中应该查询post_tag表中post_id或tag_id在对应表中不存在的记录
-            
-            List<PostTag> allRelations = postTagMapper.selectList(null);
-            int cleanCount = 0;
-
-            for (PostTag relation : allRelations) {
-                // 检查文章是否存在
-                if (postMapper.selectById(relation.getPostId()) == null) {
-                    postTagMapper.deleteById(relation.getId());
-                    cleanCount++;
-                    continue;
-                }
-
-                // 检查标签是否存在
-                if (tagMapper.selectById(relation.getTagId()) == null) {
-                    postTagMapper.deleteById(relation.getId());
-                    cleanCount++;
-                }
-            }
-
-            log.info("清理无效文章标签关联完成，清理数量: {}", cleanCount);
-            return cleanCount;
+            // 有删除时标签使用次数由清理服务重建
+            OrphanCleanupReport report = integrityMaintenanceService.cleanOrphans("tb_post_tag");
+            log.info("清理无效文章标签关联完成，清理数量: {}", report.getDeleted());
+            return (int) report.getDeleted();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("清理无效文章标签关联失败", e);
             throw new BusinessException("清理无效文章标签关联失败");
@@ -328,6 +306,7 @@ public class PostTagServiceImpl implements PostTagService {
         try {
             Long useCount = countPostsByTagId(tagId);
             tagMapper.updateUseCount(tagId, useCount);
+            tagDictionaryService.markStale();
             return true;
         } catch (Exception e) {
             log.error("更新标签使用次数失败，标签ID: {}", tagId, e);
@@ -339,17 +318,11 @@ public class PostTagServiceImpl implements PostTagService {
     @Transactional(rollbackFor = Exception.class)
     public boolean syncAllTagUseCounts() {
         try {
-            List<org.easytech.blogs.entity.Tag> allTags = tagMapper.selectAllTags();
-            int successCount = 0;
-
-            for (org.easytech.blogs.entity.Tag tag : allTags) {
-                if (updateTagUseCount(tag.getId())) {
-                    successCount++;
-                }
-            }
-
-            log.info("同步所有标签使用次数完成，成功更新: {}/{}", successCount, allTags.size());
-            return successCount == allTags.size();
+            // 一次 GROUP BY 汇总 + 一条 UPDATE ... JOIN，不再逐个标签计数
+            int fixedCount = tagMapper.rebuildAllUseCounts();
+            tagDictionaryService.markStale();
+            log.info("同步所有标签使用次数完成，修正标签数: {}", fixedCount);
+            return true;
         } catch (Exception e) {
             log.error("同步所有标签使用次数失败", e);
             throw new BusinessException("同步所有标签使用次数失败");
@@ -0,0 +1,126 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.service.RateLimitService;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限流服务实现类
+ * 本地令牌桶按GCRA实现，每个桶只有一个理论到达时间，CAS更新，无锁；
+ * 放行的请求先记为待上报，定时任务用Lua脚本累加到Redis的当前窗口计数，
+ * 并按上一窗口计数加权得出滑动窗口估计值，超限的桶在本节点阻断到当前窗口结束；
+ * Redis不可用时退化为单节点令牌桶
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitServiceImpl implements RateLimitService {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    // KEYS[1] 当前窗口计数，KEYS[2] 上一窗口计数；ARGV 依次为 本次增量、窗口长度、当前窗口已过时间（毫秒）
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "if current == tonumber(ARGV[1]) then redis.call('PEXPIRE', KEYS[1], ARGV[2] * 2) end " +
+            "local previous = tonumber(redis.call('GET', KEYS[2]) or '0') " +
+            "return math.floor(previous * (ARGV[2] - ARGV[3]) / ARGV[2]) + current", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 本地令牌桶
+     */
+    private static final class Bucket {
+
+        final int limit;
+        final long windowMillis;
+        // 每个令牌的补充间隔
+        final long interval;
+        // 理论到达时间：下一个请求在此之前到达即消耗突发额度
+        final AtomicLong tat = new AtomicLong();
+        // 已放行、尚未上报到Redis的请求数
+        final AtomicInteger pending = new AtomicInteger();
+        volatile long blockedUntil;
+        volatile long lastAccess;
+
+        Bucket(int limit, long windowMillis) {
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+            this.interval = Math.max(1L, windowMillis / limit);
+        }
+    }
+
+    @Override
+    public long tryAcquire(String bucketKey, int limit, long windowMillis) {
+        long now = System.currentTimeMillis();
+        Bucket bucket = buckets.computeIfAbsent(bucketKey, key -> new Bucket(limit, windowMillis));
+        bucket.lastAccess = now;
+
+        long blockedUntil = bucket.blockedUntil;
+        if (blockedUntil > now) {
+            return blockedUntil - now;
+        }
+
+        while (true) {
+            long tat = bucket.tat.get();
+            long newTat = Math.max(tat, now) + bucket.interval;
+            long wait = newTat - now - bucket.windowMillis;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.tat.compareAndSet(tat, newTat)) {
+                break;
+            }
+        }
+        bucket.pending.incrementAndGet();
+        return 0;
+    }
+
+    /**
+     * 上报各桶放行的请求数并取回全局滑动窗口计数，同时清理闲置的桶
+     */
+    @Scheduled(fixedDelayString = "${blog.rate-limit.sync-interval:200}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            int count = bucket.pending.getAndSet(0);
+            if (count == 0) {
+                if (now - bucket.lastAccess > bucket.windowMillis * 2) {
+                    buckets.remove(entry.getKey(), bucket);
+                }
+                continue;
+            }
+
+            long window = now / bucket.windowMillis;
+            long elapsed = now % bucket.windowMillis;
+            String key = KEY_PREFIX + entry.getKey() + ":";
+            try {
+                Long total = stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT,
+                        List.of(key + window, key + (window - 1)),
+                        String.valueOf(count), String.valueOf(bucket.windowMillis), String.valueOf(elapsed));
+                if (total != null && total >= bucket.limit) {
+                    bucket.blockedUntil = now + bucket.windowMillis - elapsed;
+                }
+            } catch (Exception e) {
+                // 未上报成功的计数放回，下一轮与新增的一起上报；本轮不再尝试其他桶，避免Redis故障时逐个等待超时
+                bucket.pending.addAndGet(count);
+                log.warn("限流计数同步Redis失败，暂按本节点令牌桶限流: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+}
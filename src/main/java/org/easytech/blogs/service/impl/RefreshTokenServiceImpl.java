@@ -0,0 +1,161 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.service.RefreshTokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 刷新令牌服务实现类
+ * 每个家族在Redis中一个键，值为当前令牌ID，TTL与刷新令牌有效期一致；
+ * 轮换用Lua脚本比较并替换，同时把被换掉的令牌ID和新令牌在宽限期内记入另一个键；
+ * 出示的令牌ID与当前值不符且不是宽限期内刚换掉的令牌时删除家族；
+ * Redis不可用时创建的家族记在本节点内存中，轮换时Redis查不到再查本地
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final String FAMILY_KEY_PREFIX = "auth:refresh:family:";
+    private static final String GRACE_KEY_SUFFIX = ":grace";
+
+    // KEYS: 家族、宽限记录；ARGV: 出示的令牌ID、新令牌ID、新令牌TTL、新令牌、宽限期（毫秒）
+    // 返回 "1" 轮换成功，"2 <令牌>" 宽限期内重复轮换，"-1" 令牌重用（家族已删除），"0" 家族不存在
+    private static final RedisScript<String> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if not current then return '0' end " +
+            "if current == ARGV[1] then " +
+            "  redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) " +
+            "  if tonumber(ARGV[5]) > 0 then " +
+            "    redis.call('SET', KEYS[2], ARGV[1] .. ' ' .. ARGV[4], 'PX', ARGV[5]) " +
+            "  end " +
+            "  return '1' " +
+            "end " +
+            "local grace = redis.call('GET', KEYS[2]) " +
+            "if grace then " +
+            "  local sep = string.find(grace, ' ', 1, true) " +
+            "  if sep and string.sub(grace, 1, sep - 1) == ARGV[1] then " +
+            "    return '2 ' .. string.sub(grace, sep + 1) " +
+            "  end " +
+            "end " +
+            "redis.call('DEL', KEYS[1], KEYS[2]) " +
+            "return '-1'", String.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${blog.refresh-token.rotation-grace-millis:10000}")
+    private long rotationGraceMillis;
+
+    // Redis不可用期间创建的家族：家族ID → 当前令牌
+    private final Map<String, Family> localFamilies = new ConcurrentHashMap<>();
+
+    /**
+     * 本地家族记录
+     * @param tokenId 当前令牌ID
+     * @param expireAt 过期时间（毫秒）
+     * @param previousTokenId 最近一次被换掉的令牌ID
+     * @param token 当前令牌，宽限期内提供给出示 previousTokenId 的请求
+     * @param graceUntil 宽限期截止时间（毫秒）
+     */
+    private record Family(String tokenId, long expireAt, String previousTokenId, String token, long graceUntil) {
+
+        Family(String tokenId, long expireAt) {
+            this(tokenId, expireAt, null, null, 0L);
+        }
+    }
+
+    @Override
+    public void startFamily(String familyId, String tokenId, Date expiresAt) {
+        long ttl = expiresAt.getTime() - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(FAMILY_KEY_PREFIX + familyId, tokenId, ttl, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Redis记录刷新令牌家族失败，改为本节点记录: {}", e.getMessage());
+            localFamilies.put(familyId, new Family(tokenId, expiresAt.getTime()));
+        }
+    }
+
+    @Override
+    public Rotation rotate(String familyId, String presentedTokenId, String newTokenId, String newToken,
+                           Date newExpiresAt) {
+        long ttl = Math.max(1L, newExpiresAt.getTime() - System.currentTimeMillis());
+        String familyKey = FAMILY_KEY_PREFIX + familyId;
+        try {
+            String result = stringRedisTemplate.execute(ROTATE_SCRIPT, List.of(familyKey, familyKey + GRACE_KEY_SUFFIX),
+                    presentedTokenId, newTokenId, String.valueOf(ttl), newToken,
+                    String.valueOf(Math.max(0L, rotationGraceMillis)));
+            if ("1".equals(result)) {
+                return Rotation.ROTATED;
+            }
+            if (result != null && result.startsWith("2 ")) {
+                return new Rotation(RotationResult.ALREADY_ROTATED, result.substring(2));
+            }
+            if ("-1".equals(result)) {
+                return Rotation.REUSED;
+            }
+        } catch (Exception e) {
+            log.warn("Redis轮换刷新令牌失败，改查本节点记录: {}", e.getMessage());
+        }
+        return rotateLocal(familyId, presentedTokenId, newTokenId, newToken, newExpiresAt.getTime());
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        if (familyId == null) {
+            return;
+        }
+        localFamilies.remove(familyId);
+        try {
+            stringRedisTemplate.delete(List.of(FAMILY_KEY_PREFIX + familyId,
+                    FAMILY_KEY_PREFIX + familyId + GRACE_KEY_SUFFIX));
+        } catch (Exception e) {
+            log.error("Redis删除刷新令牌家族失败，家族ID: {}", familyId, e);
+        }
+    }
+
+    /**
+     * 清理本地过期的家族记录，Redis中的记录由TTL自动过期
+     */
+    @Scheduled(fixedDelayString = "${blog.refresh-token.cleanup-interval:600000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        localFamilies.values().removeIf(family -> family.expireAt() <= now);
+    }
+
+    private Rotation rotateLocal(String familyId, String presentedTokenId, String newTokenId, String newToken,
+                                 long newExpireAt) {
+        long now = System.currentTimeMillis();
+        Rotation[] result = {Rotation.UNKNOWN};
+        localFamilies.computeIfPresent(familyId, (id, family) -> {
+            if (family.expireAt() <= now) {
+                return null;
+            }
+            if (family.tokenId().equals(presentedTokenId)) {
+                result[0] = Rotation.ROTATED;
+                return new Family(newTokenId, newExpireAt, presentedTokenId, newToken, now + rotationGraceMillis);
+            }
+            if (presentedTokenId.equals(family.previousTokenId()) && now < family.graceUntil()) {
+                result[0] = new Rotation(RotationResult.ALREADY_ROTATED, family.token());
+                return family;
+            }
+            result[0] = Rotation.REUSED;
+            return null;
+        });
+        return result[0];
+    }
+}
@@ -26,6 +26,7 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleMapper roleMapper;
     private final UserRoleMapper userRoleMapper;
+    private final UserRoleCache userRoleCache;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -95,6 +96,7 @@ public class RoleServiceImpl implements RoleService {
         try {
             int result = roleMapper.updateById(role);
             if (result > 0) {
+                userRoleCache.reloadRoles();
                 log.info("角色更新成功，角色ID: {}", role.getId());
                 return true;
             }
@@ -127,6 +129,7 @@ public class RoleServiceImpl implements RoleService {
         try {
             int result = roleMapper.deleteById(roleId);
             if (result > 0) {
+                userRoleCache.reloadRoles();
                 log.info("角色删除成功，角色ID: {}", roleId);
                 return true;
             }
@@ -234,6 +237,7 @@ public class RoleServiceImpl implements RoleService {
         try {
             int result = roleMapper.updateById(role);
             if (result > 0) {
+                userRoleCache.reloadRoles();
                 log.info("角色状态更新成功，角色ID: {}, 状态: {}", roleId, status);
                 return true;
             }
@@ -1,5 +1,6 @@
 package org.easytech.blogs.service.impl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.easytech.blogs.entity.SystemConfig;
@@ -8,18 +9,27 @@ import org.easytech.blogs.exception.ResourceNotFoundException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.SystemConfigMapper;
 import org.easytech.blogs.service.SystemConfigService;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * 系统配置服务实现类
  * 实现系统配置相关的业务逻辑处理
+ * 启用的配置加载为不可变快照，读取只需一次volatile读和一次哈希查找；
+ * 配置变更后本节点立即重建快照并递增Redis中的版本号，其他节点轮询版本号发现变更后重新加载
  */
 @Slf4j
 @Service
@@ -27,6 +37,36 @@ import java.util.stream.Collectors;
 public class SystemConfigServiceImpl implements SystemConfigService {
 
     private final SystemConfigMapper systemConfigMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private static final String CONFIG_VERSION_KEY = "system:config:version";
+
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+
+    /**
+     * 启用配置的不可变快照，类型转换在构建时完成
+     */
+    private record ConfigSnapshot(Map<String, ConfigEntry> entries, List<SystemConfig> configs,
+                                  List<String> groups, long version, boolean loaded) {
+
+        static final ConfigSnapshot EMPTY = new ConfigSnapshot(Map.of(), List.of(), List.of(), 0L, false);
+    }
+
+    /**
+     * 单个配置值及其预解析结果，无法解析时对应字段为null
+     */
+    private record ConfigEntry(String value, Integer intValue, Boolean booleanValue) {
+    }
+
+    @PostConstruct
+    public void initConfigSnapshot() {
+        try {
+            reloadSnapshot(readRemoteVersion());
+        } catch (Exception e) {
+            // 启动时数据库不可用不阻断应用，由版本轮询重试加载
+            log.error("系统配置快照加载失败", e);
+        }
+    }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -53,6 +93,7 @@ public class SystemConfigServiceImpl implements SystemConfigService {
             int result = systemConfigMapper.insert(config);
             if (result > 0) {
                 log.info("系统配置创建成功，配置键: {}", config.getConfigKey());
+                refreshConfigCache(); // 刷新缓存
                 return true;
             }
         } catch (Exception e) {
@@ -152,34 +193,26 @@ public class SystemConfigServiceImpl implements SystemConfigService {
             return defaultValue;
         }
 
-        SystemConfig config = systemConfigMapper.selectByConfigKey(configKey);
-        if (config != null && config.getStatus() == 1) {
-            return StringUtils.hasText(config.getConfigValue()) ? config.getConfigValue() : defaultValue;
-        }
-
-        return defaultValue;
+        ConfigEntry entry = snapshot.entries().get(configKey);
+        return entry != null && entry.value() != null ? entry.value() : defaultValue;
     }
 
     @Override
     public Integer getIntConfigValue(String configKey, Integer defaultValue) {
-        String value = getConfigValue(configKey);
-        if (StringUtils.hasText(value)) {
-            try {
-                return Integer.parseInt(value);
-            } catch (NumberFormatException e) {
-                log.warn("配置值格式错误，配置键: {}, 配置值: {}", configKey, value);
-            }
+        if (configKey == null) {
+            return defaultValue;
         }
-        return defaultValue;
+        ConfigEntry entry = snapshot.entries().get(configKey);
+        return entry != null && entry.intValue() != null ? entry.intValue() : defaultValue;
     }
 
     @Override
     public Boolean getBooleanConfigValue(String configKey, Boolean defaultValue) {
-        String value = getConfigValue(configKey);
-        if (StringUtils.hasText(value)) {
-            return "true".equalsIgnoreCase(value) || "1".equals(value) || "yes".equalsIgnoreCase(value);
+        if (configKey == null) {
+            return defaultValue;
         }
-        return defaultValue;
+        ConfigEntry entry = snapshot.entries().get(configKey);
+        return entry != null && entry.booleanValue() != null ? entry.booleanValue() : defaultValue;
     }
 
     @Override
@@ -215,7 +248,8 @@ public class SystemConfigServiceImpl implements SystemConfigService {
 
     @Override
     public List<SystemConfig> getAllEnabledConfigs() {
-        return systemConfigMapper.selectEnabledConfigs();
+        ConfigSnapshot current = snapshot;
+        return current.loaded() ? current.configs() : systemConfigMapper.selectEnabledConfigs();
     }
 
     @Override
@@ -224,14 +258,16 @@ public class SystemConfigServiceImpl implements SystemConfigService {
             return Map.of();
         }
 
-        List<SystemConfig> configs = systemConfigMapper.selectByKeys(configKeys);
-        return configs.stream()
-            .filter(config -> config.getStatus() == 1) // 只返回启用的配置
-            .collect(Collectors.toMap(
-                SystemConfig::getConfigKey,
-                config -> config.getConfigValue() != null ? config.getConfigValue() : "",
-                (existing, replacement) -> existing // 如果有重复键，保留现有值
-            ));
+        // 快照中只有启用的配置
+        Map<String, ConfigEntry> entries = snapshot.entries();
+        Map<String, String> result = new HashMap<>();
+        for (String configKey : configKeys) {
+            ConfigEntry entry = entries.get(configKey);
+            if (entry != null) {
+                result.put(configKey, entry.value() != null ? entry.value() : "");
+            }
+        }
+        return result;
     }
 
     @Override
@@ -252,13 +288,7 @@ public class SystemConfigServiceImpl implements SystemConfigService {
 
     @Override
     public List<String> getAllConfigGroups() {
-        List<SystemConfig> allConfigs = systemConfigMapper.selectEnabledConfigs();
-        return allConfigs.stream()
-            .map(SystemConfig::getConfigGroup)
-            .filter(StringUtils::hasText)
-            .distinct()
-            .sorted()
-            .collect(Collectors.toList());
+        return snapshot.groups();
     }
 
     @Override
@@ -267,18 +297,36 @@ public class SystemConfigServiceImpl implements SystemConfigService {
         if (configs == null || configs.isEmpty()) {
             throw new ValidationException("配置映射不能为空");
         }
+        if (configs.keySet().stream().anyMatch(key -> !StringUtils.hasText(key))) {
+            throw new ValidationException("配置键不能为空");
+        }
 
-        try {
-            int successCount = 0;
-            for (Map.Entry<String, String> entry : configs.entrySet()) {
-                if (updateConfigValue(entry.getKey(), entry.getValue())) {
-                    successCount++;
-                }
-            }
+        // 整批要么全部生效要么全部拒绝，不存在的配置键直接报错而不是部分更新
+        List<String> configKeys = new ArrayList<>(configs.keySet());
+        Set<String> existingKeys = systemConfigMapper.selectByKeys(configKeys).stream()
+            .map(SystemConfig::getConfigKey)
+            .collect(Collectors.toSet());
+        List<String> missingKeys = configKeys.stream()
+            .filter(key -> !existingKeys.contains(key))
+            .sorted()
+            .collect(Collectors.toList());
+        if (!missingKeys.isEmpty()) {
+            throw new ValidationException("配置键不存在: " + String.join(", ", missingKeys));
+        }
 
-            log.info("批量更新配置完成，成功更新: {}/{}", successCount, configs.size());
-            refreshConfigCache(); // 刷新缓存
-            return successCount == configs.size();
+        try {
+            List<SystemConfig> updates = new ArrayList<>(configs.size());
+            configs.forEach((key, value) -> {
+                SystemConfig config = new SystemConfig();
+                config.setConfigKey(key);
+                config.setConfigValue(value);
+                updates.add(config);
+            });
+            systemConfigMapper.batchUpsertValues(updates);
+
+            log.info("批量更新配置完成，配置数: {}", configs.size());
+            refreshConfigCache(); // 提交后一次性替换快照
+            return true;
         } catch (Exception e) {
             log.error("批量更新配置失败", e);
             throw new BusinessException("批量更新配置失败");
@@ -289,18 +337,11 @@ public class SystemConfigServiceImpl implements SystemConfigService {
     @Transactional(rollbackFor = Exception.class)
     public boolean initDefaultConfigs() {
         try {
-            Map<String, SystemConfig> defaultConfigs = getDefaultConfigs();
-            int insertCount = 0;
-
-            for (SystemConfig config : defaultConfigs.values()) {
-                if (!isConfigKeyExists(config.getConfigKey())) {
-                    systemConfigMapper.insert(config);
-                    insertCount++;
-                    log.info("初始化默认配置: {} = {}", config.getConfigKey(), config.getConfigValue());
-                }
-            }
+            List<SystemConfig> defaultConfigs = new ArrayList<>(getDefaultConfigs().values());
+            int affected = systemConfigMapper.batchInsertDefaults(defaultConfigs);
 
-            log.info("默认配置初始化完成，新增配置: {}", insertCount);
+            log.info("默认配置初始化完成，默认配置数: {}, 影响行数: {}", defaultConfigs.size(), affected);
+            refreshConfigCache();
             return true;
         } catch (Exception e) {
             log.error("默认配置初始化失败", e);
@@ -308,11 +349,106 @@ public class SystemConfigServiceImpl implements SystemConfigService {
         }
     }
 
+    @Override
+    public long getConfigVersion() {
+        return snapshot.version();
+    }
+
     @Override
     public void refreshConfigCache() {
-        // 如果使用了缓存（如Redis、本地缓存等），在这里刷新缓存
-        // 当前实现直接从数据库读取，暂不需要缓存刷新操作
-        log.debug("配置缓存刷新完成");
+        // 事务提交后再重建快照，避免读到未提交或已回滚的数据
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishAndReload();
+                }
+            });
+        } else {
+            publishAndReload();
+        }
+    }
+
+    /**
+     * 轮询Redis中的配置版本号，发现其他节点发布的变更后重新加载快照
+     */
+    @Scheduled(fixedDelayString = "${blog.config.refresh-interval:5000}")
+    public void pollConfigVersion() {
+        try {
+            long remoteVersion = readRemoteVersion();
+            ConfigSnapshot current = snapshot;
+            if (!current.loaded() || remoteVersion != current.version()) {
+                reloadSnapshot(remoteVersion);
+            }
+        } catch (Exception e) {
+            log.warn("系统配置版本检查失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 递增全局版本号并重建本节点快照
+     */
+    private void publishAndReload() {
+        long version = snapshot.version();
+        try {
+            Long newVersion = stringRedisTemplate.opsForValue().increment(CONFIG_VERSION_KEY);
+            if (newVersion != null) {
+                version = newVersion;
+            }
+        } catch (Exception e) {
+            log.error("Redis发布配置版本失败，其他节点将延迟感知配置变更", e);
+        }
+        reloadSnapshot(version);
+        log.debug("配置缓存刷新完成，版本: {}", version);
+    }
+
+    private long readRemoteVersion() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(CONFIG_VERSION_KEY);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("Redis读取配置版本失败: {}", e.getMessage());
+            return snapshot.version();
+        }
+    }
+
+    /**
+     * 从数据库加载全部启用配置，构建新快照后整体替换
+     */
+    private synchronized void reloadSnapshot(long version) {
+        List<SystemConfig> configs = systemConfigMapper.selectEnabledConfigs();
+
+        Map<String, ConfigEntry> entries = new HashMap<>(configs.size() * 2);
+        for (SystemConfig config : configs) {
+            entries.putIfAbsent(config.getConfigKey(), buildEntry(config));
+        }
+        List<String> groups = configs.stream()
+            .map(SystemConfig::getConfigGroup)
+            .filter(StringUtils::hasText)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+
+        snapshot = new ConfigSnapshot(Collections.unmodifiableMap(entries),
+                Collections.unmodifiableList(new ArrayList<>(configs)),
+                Collections.unmodifiableList(groups), version, true);
+        log.info("系统配置快照已加载，配置数: {}, 版本: {}", entries.size(), version);
+    }
+
+    private ConfigEntry buildEntry(SystemConfig config) {
+        String value = config.getConfigValue();
+        if (!StringUtils.hasText(value)) {
+            return new ConfigEntry(null, null, null);
+        }
+
+        Integer intValue = null;
+        try {
+            intValue = Integer.parseInt(value.trim());
+        } catch (NumberFormatException ignored) {
+            // 非数值配置
+        }
+        Boolean booleanValue = "true".equalsIgnoreCase(value) || "1".equals(value) || "yes".equalsIgnoreCase(value);
+        return new ConfigEntry(value, intValue, booleanValue);
     }
 
     /**
@@ -358,6 +494,7 @@ public class SystemConfigServiceImpl implements SystemConfigService {
         SystemConfig config = new SystemConfig();
         config.setConfigKey(key);
         config.setConfigValue(value);
+        config.setConfigName(description);
         config.setDescription(description);
         config.setConfigGroup(group);
         config.setSortOrder(sortOrder);
@@ -0,0 +1,208 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.Tag;
+import org.easytech.blogs.mapper.TagMapper;
+import org.easytech.blogs.service.TagDictionaryService;
+import org.easytech.blogs.util.RedisVersionedSnapshot;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 标签字典服务实现类
+ * 全部标签加载为不可变快照：名称（小写）→标签的哈希表用于精确查找，
+ * 按名称排序的数组用于前缀联想（二分定位后顺序扫描连续区间，小顶堆取使用次数前N）；
+ * 名称变更在提交后立即重建，使用次数变更合并到定时任务重建，其他节点通过Redis版本号感知
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagDictionaryServiceImpl implements TagDictionaryService {
+
+    private static final String VERSION_KEY = "tag:dictionary:version";
+    private static final int MAX_SUGGEST = 50;
+
+    private static final Comparator<Tag> BY_USE_COUNT = Comparator
+            .comparing((Tag tag) -> tag.getUseCount() != null ? tag.getUseCount() : 0L).reversed()
+            .thenComparing(Tag::getName);
+
+    private final TagMapper tagMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private volatile Dictionary dictionary = Dictionary.EMPTY;
+    private volatile boolean stale;
+    private RedisVersionedSnapshot versions;
+
+    /**
+     * 字典快照
+     * @param byName 小写名称到标签
+     * @param byId ID到标签
+     * @param all 全部标签，按使用次数降序、创建时间升序
+     * @param sortedNames 排序后的小写名称
+     * @param sortedTags 与 sortedNames 一一对应的标签
+     */
+    private record Dictionary(Map<String, Tag> byName, Map<Long, Tag> byId, List<Tag> all,
+                              String[] sortedNames, Tag[] sortedTags, boolean loaded) {
+
+        static final Dictionary EMPTY = new Dictionary(Map.of(), Map.of(), List.of(), new String[0], new Tag[0], false);
+    }
+
+    @PostConstruct
+    public void init() {
+        versions = new RedisVersionedSnapshot(stringRedisTemplate, VERSION_KEY, "标签字典");
+        try {
+            versions.poll(true, this::reload);
+        } catch (Exception e) {
+            // 启动时数据库不可用不阻断应用，由定时任务重试加载
+            log.error("标签字典加载失败", e);
+        }
+    }
+
+    @Override
+    public Tag getByName(String name) {
+        if (!StringUtils.hasText(name)) {
+            return null;
+        }
+        return current().byName().get(normalize(name));
+    }
+
+    @Override
+    public Tag getById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return current().byId().get(id);
+    }
+
+    @Override
+    public List<Tag> getAll() {
+        return current().all();
+    }
+
+    @Override
+    public List<Tag> getHot(int limit) {
+        List<Tag> all = current().all();
+        List<Tag> result = new ArrayList<>(Math.min(limit, all.size()));
+        for (Tag tag : all) {
+            if (result.size() >= limit || tag.getUseCount() == null || tag.getUseCount() <= 0) {
+                break;
+            }
+            result.add(tag);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Tag> suggest(String prefix, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SUGGEST));
+        if (!StringUtils.hasText(prefix)) {
+            return getHot(size);
+        }
+
+        Dictionary dict = current();
+        String key = normalize(prefix);
+        int from = Arrays.binarySearch(dict.sortedNames(), key);
+        if (from < 0) {
+            from = -from - 1;
+        }
+
+        // 小顶堆保留使用次数最高的 size 个
+        PriorityQueue<Tag> top = new PriorityQueue<>(size + 1, BY_USE_COUNT.reversed());
+        String[] names = dict.sortedNames();
+        for (int i = from; i < names.length && names[i].startsWith(key); i++) {
+            top.offer(dict.sortedTags()[i]);
+            if (top.size() > size) {
+                top.poll();
+            }
+        }
+
+        List<Tag> result = new ArrayList<>(top);
+        result.sort(BY_USE_COUNT);
+        return result;
+    }
+
+    @Override
+    public void refresh() {
+        versions.publishAfterCommit(this::reload);
+    }
+
+    @Override
+    public void markStale() {
+        versions.publishAfterCommit(() -> stale = true);
+    }
+
+    /**
+     * 合并重建：本节点有使用次数变更或其他节点发布了新版本时重建
+     */
+    @Scheduled(fixedDelayString = "${blog.tag-dictionary.refresh-interval:5000}")
+    public void refreshIfStale() {
+        try {
+            versions.poll(stale || !dictionary.loaded(), this::reload);
+        } catch (Exception e) {
+            log.warn("标签字典重建失败: {}", e.getMessage());
+        }
+    }
+
+    private Dictionary current() {
+        Dictionary dict = dictionary;
+        if (!dict.loaded()) {
+            // 启动加载失败时首次访问再尝试一次
+            dict = reload();
+        }
+        return dict;
+    }
+
+    private synchronized Dictionary reload() {
+        stale = false;
+        List<Tag> tags;
+        try {
+            tags = tagMapper.selectAllTags();
+        } catch (RuntimeException e) {
+            // 加载失败时保留待重建标记，下一轮定时任务重试
+            stale = true;
+            throw e;
+        }
+
+        Map<String, Tag> byName = new HashMap<>(tags.size() * 2);
+        Map<Long, Tag> byId = new HashMap<>(tags.size() * 2);
+        for (Tag tag : tags) {
+            byId.put(tag.getId(), tag);
+            if (tag.getName() != null) {
+                byName.putIfAbsent(normalize(tag.getName()), tag);
+            }
+        }
+
+        List<Map.Entry<String, Tag>> entries = new ArrayList<>(byName.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        String[] sortedNames = new String[entries.size()];
+        Tag[] sortedTags = new Tag[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            sortedNames[i] = entries.get(i).getKey();
+            sortedTags[i] = entries.get(i).getValue();
+        }
+
+        Dictionary dict = new Dictionary(Collections.unmodifiableMap(byName), Collections.unmodifiableMap(byId),
+                Collections.unmodifiableList(tags), sortedNames, sortedTags, true);
+        dictionary = dict;
+        log.debug("标签字典已加载，标签数: {}", tags.size());
+        return dict;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
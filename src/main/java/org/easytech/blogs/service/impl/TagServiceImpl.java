@@ -8,6 +8,7 @@ import org.easytech.blogs.exception.ResourceNotFoundException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.PostTagMapper;
 import org.easytech.blogs.mapper.TagMapper;
+import org.easytech.blogs.service.TagDictionaryService;
 import org.easytech.blogs.service.TagService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +28,7 @@ public class TagServiceImpl implements TagService {
 
     private final TagMapper tagMapper;
     private final PostTagMapper postTagMapper;
+    private final TagDictionaryService tagDictionaryService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -37,7 +39,7 @@ public class TagServiceImpl implements TagService {
         }
 
         // 检查标签名称是否已存在
-        if (isTagNameExists(tag.getName(), null)) {
+        if (isTagNameTaken(tag.getName(), null)) {
             throw new BusinessException("标签名称已存在");
         }
 
@@ -49,6 +51,7 @@ public class TagServiceImpl implements TagService {
 
             int result = tagMapper.insert(tag);
             if (result > 0) {
+                tagDictionaryService.refresh();
                 log.info("标签创建成功，标签名称: {}", tag.getName());
                 return true;
             }
@@ -69,7 +72,7 @@ public class TagServiceImpl implements TagService {
         }
 
         // 检查标签名称是否已存在
-        if (isTagNameExists(name, null)) {
+        if (isTagNameTaken(name, null)) {
             throw new BusinessException("标签名称已存在");
         }
 
@@ -82,6 +85,7 @@ public class TagServiceImpl implements TagService {
 
             int result = tagMapper.insert(tag);
             if (result > 0) {
+                tagDictionaryService.refresh();
                 log.info("标签创建成功，标签名称: {}", tag.getName());
                 return tag;
             }
@@ -108,13 +112,14 @@ public class TagServiceImpl implements TagService {
 
         // 检查标签名称是否已存在（排除当前标签）
         if (StringUtils.hasText(tag.getName()) && 
-            isTagNameExists(tag.getName(), tag.getId())) {
+            isTagNameTaken(tag.getName(), tag.getId())) {
             throw new BusinessException("标签名称已存在");
         }
 
         try {
             int result = tagMapper.updateById(tag);
             if (result > 0) {
+                tagDictionaryService.refresh();
                 log.info("标签更新成功，标签ID: {}", tag.getId());
                 return true;
             }
@@ -140,7 +145,7 @@ public class TagServiceImpl implements TagService {
         }
 
         // 检查标签名称是否已存在（排除当前标签）
-        if (StringUtils.hasText(name) && isTagNameExists(name, id)) {
+        if (StringUtils.hasText(name) && isTagNameTaken(name, id)) {
             throw new BusinessException("标签名称已存在");
         }
 
@@ -155,6 +160,7 @@ public class TagServiceImpl implements TagService {
 
             int result = tagMapper.updateById(existTag);
             if (result > 0) {
+                tagDictionaryService.refresh();
                 log.info("标签更新成功，标签ID: {}", existTag.getId());
                 return existTag;
             }
@@ -187,6 +193,7 @@ public class TagServiceImpl implements TagService {
         try {
             int result = tagMapper.deleteById(tagId);
             if (result > 0) {
+                tagDictionaryService.refresh();
                 log.info("标签删除成功，标签ID: {}", tagId);
                 return true;
             }
@@ -203,12 +210,14 @@ public class TagServiceImpl implements TagService {
         if (tagId == null) {
             return null;
         }
-        return tagMapper.selectById(tagId);
+        // 字典未命中时查库，覆盖其他节点刚创建、本节点尚未重建的标签
+        Tag tag = tagDictionaryService.getById(tagId);
+        return tag != null ? tag : tagMapper.selectById(tagId);
     }
 
     @Override
     public List<Tag> getAllTags() {
-        return tagMapper.selectAllTags();
+        return tagDictionaryService.getAll();
     }
 
     @Override
@@ -216,7 +225,7 @@ public class TagServiceImpl implements TagService {
         if (!StringUtils.hasText(name)) {
             return null;
         }
-        return tagMapper.findByName(name);
+        return tagDictionaryService.getByName(name);
     }
 
     @Override
@@ -232,7 +241,7 @@ public class TagServiceImpl implements TagService {
         if (limit == null || limit <= 0) {
             limit = 20;
         }
-        return tagMapper.selectHotTags(limit);
+        return tagDictionaryService.getHot(limit);
     }
 
     @Override
@@ -243,13 +252,17 @@ public class TagServiceImpl implements TagService {
         }
 
         List<Tag> tags = new ArrayList<>();
+        boolean created = false;
         
         for (String tagName : tagNames) {
             if (StringUtils.hasText(tagName)) {
                 String trimmedName = tagName.trim();
                 
-                // 先查找已存在的标签
-                Tag existTag = tagMapper.findByName(trimmedName);
+                // 先查字典，未命中再查库确认（其他节点可能刚创建）
+                Tag existTag = tagDictionaryService.getByName(trimmedName);
+                if (existTag == null) {
+                    existTag = tagMapper.findByName(trimmedName);
+                }
                 if (existTag != null) {
                     tags.add(existTag);
                 } else {
@@ -261,6 +274,7 @@ public class TagServiceImpl implements TagService {
                     try {
                         tagMapper.insert(newTag);
                         tags.add(newTag);
+                        created = true;
                         log.info("创建新标签: {}", trimmedName);
                     } catch (Exception e) {
                         log.error("创建标签失败: {}", trimmedName, e);
@@ -270,6 +284,9 @@ public class TagServiceImpl implements TagService {
             }
         }
 
+        if (created) {
+            tagDictionaryService.refresh();
+        }
         return tags;
     }
 
@@ -279,7 +296,7 @@ public class TagServiceImpl implements TagService {
             return false;
         }
 
-        Tag existTag = tagMapper.findByName(name);
+        Tag existTag = tagDictionaryService.getByName(name);
         if (existTag == null) {
             return false;
         }
@@ -292,6 +309,14 @@ public class TagServiceImpl implements TagService {
         return true;
     }
 
+    /**
+     * 写操作前的名称校验，直接查库而不依赖字典
+     */
+    private boolean isTagNameTaken(String name, Long excludeId) {
+        Tag existTag = tagMapper.findByName(name.trim());
+        return existTag != null && (excludeId == null || !existTag.getId().equals(excludeId));
+    }
+
     @Override
     public boolean updateTagUseCount(Long tagId) {
         if (tagId == null) {
@@ -304,6 +329,7 @@ public class TagServiceImpl implements TagService {
             
             int result = tagMapper.updateUseCount(tagId, useCount);
             if (result > 0) {
+                tagDictionaryService.markStale();
                 log.debug("标签使用次数更新成功，标签ID: {}, 使用次数: {}", tagId, useCount);
                 return true;
             }
@@ -318,17 +344,11 @@ public class TagServiceImpl implements TagService {
     @Transactional(rollbackFor = Exception.class)
     public boolean updateAllTagUseCounts() {
         try {
-            List<Tag> tags = tagMapper.selectAllTags();
-            int successCount = 0;
-
-            for (Tag tag : tags) {
-                if (updateTagUseCount(tag.getId())) {
-                    successCount++;
-                }
-            }
-
-            log.info("批量更新标签使用次数完成，成功更新: {}/{}", successCount, tags.size());
-            return successCount == tags.size();
+            // 一次 GROUP BY 汇总 + 一条 UPDATE ... JOIN，不再逐个标签计数
+            int fixedCount = tagMapper.rebuildAllUseCounts();
+            tagDictionaryService.markStale();
+            log.info("批量更新标签使用次数完成，修正标签数: {}", fixedCount);
+            return true;
         } catch (Exception e) {
             log.error("批量更新标签使用次数失败", e);
             throw new BusinessException("批量更新标签使用次数失败");
@@ -361,6 +381,9 @@ public class TagServiceImpl implements TagService {
                 }
             }
 
+            if (!unusedTags.isEmpty()) {
+                tagDictionaryService.refresh();
+            }
             log.info("清理未使用标签完成，共清理: {} 个", deletedCount);
             return deletedCount;
         } catch (Exception e) {
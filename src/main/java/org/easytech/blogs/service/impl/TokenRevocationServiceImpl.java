@@ -0,0 +1,175 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.service.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌吊销服务实现类
+ * 本节点内存中保存 jti→过期时间 和 用户ID→水位线 两张表，过滤器每次请求只做两次哈希查找；
+ * 吊销时先写本地，再写入Redis（jti 有序集合按过期时间打分、用户水位线哈希）并发布消息通知其他节点；
+ * 定时任务清理过期记录，并从Redis全量同步一次，弥补订阅断线期间丢失的消息和新启动的节点
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private static final String CHANNEL = "auth:revocation";
+    private static final String TOKEN_KEY = "auth:revoked:tokens";
+    private static final String USER_KEY = "auth:revoked:users";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    // 令牌最长有效期（刷新令牌），用户水位线保留这么久后所有更早的令牌都已自然过期
+    @Value("${blog.jwt.refresh-expiration:604800}")
+    private long maxTokenLifetimeSeconds;
+
+    // jti → 令牌过期时间（毫秒）
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // 用户ID → 水位线
+    private final Map<Long, Watermark> userWatermarks = new ConcurrentHashMap<>();
+
+    /**
+     * 用户水位线
+     * @param issuedBefore 签发时间（秒）早于此值的令牌失效
+     * @param expireAt 记录清理时间（毫秒）
+     */
+    private record Watermark(long issuedBefore, long expireAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+        resync();
+    }
+
+    @Override
+    public void revokeToken(String tokenId, Date expiresAt) {
+        if (tokenId == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        long expireAt = expiresAt.getTime();
+        applyToken(tokenId, expireAt);
+
+        try {
+            stringRedisTemplate.opsForZSet().add(TOKEN_KEY, tokenId, expireAt);
+            stringRedisTemplate.convertAndSend(CHANNEL, "T:" + expireAt + ":" + tokenId);
+        } catch (Exception e) {
+            log.error("Redis同步令牌吊销失败，其他节点将在下次全量同步时感知", e);
+        }
+    }
+
+    @Override
+    public void revokeUserTokens(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long issuedBefore = now / 1000;
+        long expireAt = now + maxTokenLifetimeSeconds * 1000;
+        applyUser(userId, new Watermark(issuedBefore, expireAt));
+
+        try {
+            stringRedisTemplate.opsForHash().put(USER_KEY, userId.toString(), issuedBefore + ":" + expireAt);
+            stringRedisTemplate.convertAndSend(CHANNEL, "U:" + userId + ":" + issuedBefore + ":" + expireAt);
+        } catch (Exception e) {
+            log.error("Redis同步用户令牌吊销失败，用户ID: {}", userId, e);
+        }
+        log.info("用户令牌已全部吊销，用户ID: {}", userId);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId, Long userId, Date issuedAt) {
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (userId != null && issuedAt != null) {
+            Watermark watermark = userWatermarks.get(userId);
+            // iat 精度为秒；同一秒内吊销前签发的令牌无法区分，按未吊销处理，避免吊销后立即登录拿到的新令牌失效
+            return watermark != null && issuedAt.getTime() / 1000 < watermark.issuedBefore();
+        }
+        return false;
+    }
+
+    /**
+     * 清理过期记录并从Redis全量同步
+     */
+    @Scheduled(fixedDelayString = "${blog.token-revocation.resync-interval:60000}")
+    public void resync() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expireAt -> expireAt <= now);
+        userWatermarks.values().removeIf(watermark -> watermark.expireAt() <= now);
+
+        try {
+            stringRedisTemplate.opsForZSet().removeRangeByScore(TOKEN_KEY, 0, now);
+            Set<ZSetOperations.TypedTuple<String>> tokens =
+                    stringRedisTemplate.opsForZSet().rangeByScoreWithScores(TOKEN_KEY, now, Double.MAX_VALUE);
+            if (tokens != null) {
+                for (ZSetOperations.TypedTuple<String> token : tokens) {
+                    if (token.getValue() != null && token.getScore() != null) {
+                        applyToken(token.getValue(), token.getScore().longValue());
+                    }
+                }
+            }
+
+            Map<Object, Object> users = stringRedisTemplate.opsForHash().entries(USER_KEY);
+            for (Map.Entry<Object, Object> entry : users.entrySet()) {
+                String[] parts = entry.getValue().toString().split(":");
+                Watermark watermark = new Watermark(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                if (watermark.expireAt() <= now) {
+                    stringRedisTemplate.opsForHash().delete(USER_KEY, entry.getKey());
+                } else {
+                    applyUser(Long.valueOf(entry.getKey().toString()), watermark);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("令牌吊销记录同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 处理其他节点（以及本节点自己）发布的吊销消息，重复应用无副作用
+     */
+    void onMessage(String body) {
+        try {
+            String[] parts = body.split(":", 3);
+            if ("T".equals(parts[0])) {
+                applyToken(parts[2], Long.parseLong(parts[1]));
+            } else if ("U".equals(parts[0])) {
+                String[] values = parts[2].split(":");
+                applyUser(Long.valueOf(parts[1]), new Watermark(Long.parseLong(values[0]), Long.parseLong(values[1])));
+            }
+        } catch (Exception e) {
+            log.warn("无法解析令牌吊销消息: {}", body);
+        }
+    }
+
+    private void applyToken(String tokenId, long expireAt) {
+        if (expireAt > System.currentTimeMillis()) {
+            revokedTokens.merge(tokenId, expireAt, Math::max);
+        }
+    }
+
+    private void applyUser(Long userId, Watermark watermark) {
+        userWatermarks.merge(userId, watermark, (current, incoming) ->
+                incoming.issuedBefore() >= current.issuedBefore() ? incoming : current);
+    }
+}
@@ -0,0 +1,186 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.User;
+import org.easytech.blogs.mapper.UserMapper;
+import org.easytech.blogs.service.UserBloomFilterService;
+import org.easytech.blogs.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+/**
+ * 用户名、邮箱布隆过滤器服务实现类
+ * 启动时流式读取用户表构建两个过滤器；注册和修改时写入本节点并通过Redis发布/订阅通知其他节点；
+ * 标准布隆过滤器不支持删除，已删除或改名的旧值只会造成误判后查库，由定时全量重建清理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserBloomFilterServiceImpl implements UserBloomFilterService {
+
+    private static final String CHANNEL = "user:bloom:add";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final UserMapper userMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${blog.user-bloom.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${blog.user-bloom.fpp:0.01}")
+    private double fpp;
+
+    private volatile Filters filters;
+    // 重建期间新增的值，重建完成后补进新过滤器
+    private volatile Queue<String[]> addedDuringRebuild;
+
+    /**
+     * 过滤器快照
+     * @param usernames 归一后的用户名
+     * @param emails 归一后的邮箱
+     */
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+    }
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // 未加载时所有判断都回落到查库，由定时任务重试
+            log.error("用户布隆过滤器构建失败", e);
+        }
+    }
+
+    @Override
+    public boolean mightContainUsername(String username) {
+        Filters current = filters;
+        if (current == null || !StringUtils.hasText(username)) {
+            return true;
+        }
+        return current.usernames().mightContain(normalize(username));
+    }
+
+    @Override
+    public boolean mightContainEmail(String email) {
+        Filters current = filters;
+        if (current == null || !StringUtils.hasText(email)) {
+            return true;
+        }
+        return current.emails().mightContain(normalize(email));
+    }
+
+    @Override
+    public void add(String username, String email) {
+        apply(username, email);
+        try {
+            if (StringUtils.hasText(username)) {
+                stringRedisTemplate.convertAndSend(CHANNEL, "u:" + username);
+            }
+            if (StringUtils.hasText(email)) {
+                stringRedisTemplate.convertAndSend(CHANNEL, "e:" + email);
+            }
+        } catch (Exception e) {
+            log.error("Redis通知用户布隆过滤器更新失败，其他节点将在下次重建时感知", e);
+        }
+    }
+
+    /**
+     * 全量重建，清理已删除和已改名的旧值
+     */
+    @Scheduled(fixedDelayString = "${blog.user-bloom.rebuild-interval:3600000}",
+            initialDelayString = "${blog.user-bloom.rebuild-interval:3600000}")
+    public void rebuild() {
+        Queue<String[]> added = new ConcurrentLinkedQueue<>();
+        addedDuringRebuild = added;
+        try {
+            // 按实际用户数的两倍留出增长空间，避免误判率随注册增长而升高
+            long capacity = Math.max(expectedUsers, userMapper.selectCount(null) * 2);
+            BloomFilter usernames = new BloomFilter(capacity, fpp);
+            BloomFilter emails = new BloomFilter(capacity, fpp);
+            long[] total = {0};
+            userMapper.streamAllIdentities(context -> {
+                User user = context.getResultObject();
+                if (StringUtils.hasText(user.getUsername())) {
+                    usernames.put(normalize(user.getUsername()));
+                }
+                if (StringUtils.hasText(user.getEmail())) {
+                    emails.put(normalize(user.getEmail()));
+                }
+                total[0]++;
+            });
+
+            synchronized (this) {
+                Filters rebuilt = new Filters(usernames, emails);
+                addedDuringRebuild = null;
+                filters = rebuilt;
+                for (String[] values : added) {
+                    put(rebuilt, values[0], values[1]);
+                }
+            }
+            log.info("用户布隆过滤器已重建，用户数: {}，占用内存: {}KB",
+                    total[0], (usernames.sizeInBytes() + emails.sizeInBytes()) / 1024);
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    /**
+     * 处理其他节点（以及本节点自己）发布的新增消息，重复写入无副作用
+     */
+    void onMessage(String body) {
+        if (body.startsWith("u:")) {
+            apply(body.substring(2), null);
+        } else if (body.startsWith("e:")) {
+            apply(null, body.substring(2));
+        } else {
+            log.warn("无法解析用户布隆过滤器消息: {}", body);
+        }
+    }
+
+    private synchronized void apply(String username, String email) {
+        Filters current = filters;
+        if (current != null) {
+            put(current, username, email);
+        }
+        Queue<String[]> added = addedDuringRebuild;
+        if (added != null) {
+            added.add(new String[]{username, email});
+        }
+    }
+
+    private static void put(Filters target, String username, String email) {
+        if (StringUtils.hasText(username)) {
+            target.usernames().put(normalize(username));
+        }
+        if (StringUtils.hasText(email)) {
+            target.emails().put(normalize(email));
+        }
+    }
+
+    /**
+     * 与 utf8mb4_unicode_ci 的比较方式对齐：忽略首尾空格、大小写和重音
+     */
+    private static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
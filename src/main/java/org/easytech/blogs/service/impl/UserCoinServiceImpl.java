@@ -6,18 +6,26 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.dto.CoinReconcileReport;
 import org.easytech.blogs.entity.UserCoin;
 import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.UserCoinMapper;
+import org.easytech.blogs.service.CoinDailyStatService;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.easytech.blogs.service.CoinReconcileService;
 import org.easytech.blogs.service.CoinService;
 import org.easytech.blogs.service.UserCoinService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +39,29 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
 
     private final UserCoinMapper userCoinMapper;
     private final CoinService coinService;
+    private final CoinLeaderboardService coinLeaderboardService;
+    private final CoinReconcileService coinReconcileService;
+    private final CoinDailyStatService coinDailyStatService;
+
+    // 余额区间标签，与 selectBalanceSummary 的 bucket0 ~ bucket5 一一对应
+    private static final String[] BALANCE_RANGES = {"0", "1-100", "101-500", "501-1000", "1001-5000", "5000+"};
+
+    @Value("${blog.coin.stats-snapshot-ttl:30}")
+    private long statsSnapshotTtl;
+
+    @Value("${blog.coin.stats-refresh-backoff:10}")
+    private long statsRefreshBackoff;
+
+    private volatile CoinStatsSnapshot statsSnapshot;
+    private final Object statsSnapshotLock = new Object();
+
+    /**
+     * 积分统计快照，统计与分布共用一次扫描结果
+     */
+    private record CoinStatsSnapshot(Map<String, Object> statistics,
+                                     List<Map<String, Object>> distribution,
+                                     long expireAt) {
+    }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -44,18 +75,22 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
             throw new BusinessException("用户积分账户已存在");
         }
         
-        // 设置默认值
-        if (userCoin.getCoinBalance() == null) {
-            userCoin.setCoinBalance(0);
-        }
-        if (userCoin.getTotalEarned() == null) {
-            userCoin.setTotalEarned(0);
-        }
-        if (userCoin.getTotalConsumed() == null) {
-            userCoin.setTotalConsumed(0);
-        }
+        // 余额和累计值只能由积分流水产生，初始余额记为一条流水，避免夜间对账把它改回0
+        Integer initialBalance = userCoin.getCoinBalance();
+        userCoin.setCoinBalance(0);
+        userCoin.setTotalEarned(0);
+        userCoin.setTotalConsumed(0);
         
-        return save(userCoin);
+        boolean success = save(userCoin);
+        if (success) {
+            coinLeaderboardService.syncUser(userCoin.getUserId());
+            if (initialBalance != null && initialBalance > 0) {
+                coinService.addCoin(userCoin.getUserId(), initialBalance, 1, "初始积分", null); // 1-增加
+                userCoin.setCoinBalance(initialBalance);
+                userCoin.setTotalEarned(initialBalance);
+            }
+        }
+        return success;
     }
 
     @Override
@@ -73,6 +108,7 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
         
         boolean success = save(userCoin);
         if (success) {
+            coinLeaderboardService.syncUser(userId);
             return userCoin;
         }
         throw new BusinessException("创建用户积分账户失败");
@@ -84,7 +120,28 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
         if (userCoin == null || userCoin.getId() == null) {
             throw new ValidationException("积分账户信息不能为空");
         }
-        return updateById(userCoin);
+
+        UserCoin current = getById(userCoin.getId());
+        if (current == null) {
+            throw new BusinessException("积分账户不存在");
+        }
+        if (userCoin.getUserId() != null && !userCoin.getUserId().equals(current.getUserId())) {
+            throw new ValidationException("不能修改积分账户所属用户");
+        }
+        if ((userCoin.getTotalEarned() != null && !userCoin.getTotalEarned().equals(current.getTotalEarned()))
+                || (userCoin.getTotalConsumed() != null && !userCoin.getTotalConsumed().equals(current.getTotalConsumed()))) {
+            throw new ValidationException("累计获得、累计消费由积分流水汇总，不能直接修改");
+        }
+
+        Integer balance = userCoin.getCoinBalance();
+        if (balance == null || balance.equals(current.getCoinBalance())) {
+            return true;
+        }
+        if (balance < 0) {
+            throw new ValidationException("积分余额不能为负数");
+        }
+        // 管理员改写余额折算为一条调整流水，账户与流水保持一致，夜间对账不会把它改回去
+        return adjustBalance(current.getId(), balance - current.getCoinBalance(), "管理员调整余额");
     }
 
     @Override
@@ -93,7 +150,13 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
         if (id == null) {
             throw new ValidationException("账户ID不能为空");
         }
-        return removeById(id);
+
+        UserCoin userCoin = getById(id);
+        boolean success = removeById(id);
+        if (success && userCoin != null) {
+            coinLeaderboardService.removeUser(userCoin.getUserId());
+        }
+        return success;
     }
 
     @Override
@@ -142,6 +205,12 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
         if (limit == null || limit <= 0) {
             limit = 10;
         }
+
+        // 优先读取Redis有序集合，不可用时回退到数据库排序
+        List<Map<String, Object>> leaderboard = coinLeaderboardService.getTopUsers(limit, orderBy);
+        if (leaderboard != null) {
+            return leaderboard;
+        }
         
         QueryWrapper<UserCoin> queryWrapper = new QueryWrapper<>();
         
@@ -173,88 +242,133 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
         return result;
     }
 
+    @Override
+    public Map<String, Object> getUserCoinRank(Long userId, String orderBy) {
+        if (userId == null) {
+            throw new ValidationException("用户ID不能为空");
+        }
+
+        Map<String, Object> rank = coinLeaderboardService.getUserRank(userId, orderBy);
+        if (rank != null) {
+            return rank;
+        }
+
+        // Redis不可用时按分数计数：排名 = 分数更高的账户数 + 1
+        String column;
+        if ("totalEarned".equals(orderBy)) {
+            column = "total_earned";
+        } else if ("totalConsumed".equals(orderBy)) {
+            column = "total_consumed";
+        } else {
+            orderBy = "coinBalance";
+            column = "coin_balance";
+        }
+
+        rank = new HashMap<>();
+        rank.put("userId", userId);
+        rank.put("orderBy", orderBy);
+        UserCoin userCoin = getUserCoinByUserId(userId);
+        if (userCoin == null) {
+            rank.put("rank", null);
+            rank.put("score", 0);
+            return rank;
+        }
+
+        Integer score = "total_earned".equals(column) ? userCoin.getTotalEarned()
+                : "total_consumed".equals(column) ? userCoin.getTotalConsumed() : userCoin.getCoinBalance();
+        QueryWrapper<UserCoin> queryWrapper = new QueryWrapper<>();
+        queryWrapper.gt(column, score);
+        rank.put("rank", count(queryWrapper) + 1);
+        rank.put("score", score);
+        return rank;
+    }
+
+    @Override
+    public long rebuildCoinLeaderboard() {
+        return coinLeaderboardService.rebuild();
+    }
+
     @Override
     public Map<String, Object> getCoinStatistics() {
-        Map<String, Object> statistics = new HashMap<>();
-        
-        try {
-            // 总用户数
-            long totalUsers = count();
-            statistics.put("totalUsers", totalUsers);
-            
-            // 总积分余额
-            QueryWrapper<UserCoin> queryWrapper = new QueryWrapper<>();
-            queryWrapper.select("IFNULL(SUM(coin_balance), 0) as totalBalance");
-            List<Map<String, Object>> balanceResult = listMaps(queryWrapper);
-            if (!balanceResult.isEmpty()) {
-                statistics.put("totalBalance", balanceResult.get(0).get("totalBalance"));
-            } else {
-                statistics.put("totalBalance", 0);
-            }
-            
-            // 总获得积分
-            queryWrapper = new QueryWrapper<>();
-            queryWrapper.select("IFNULL(SUM(total_earned), 0) as totalEarned");
-            List<Map<String, Object>> earnedResult = listMaps(queryWrapper);
-            if (!earnedResult.isEmpty()) {
-                statistics.put("totalEarned", earnedResult.get(0).get("totalEarned"));
-            } else {
-                statistics.put("totalEarned", 0);
-            }
-            
-            // 总消费积分
-            queryWrapper = new QueryWrapper<>();
-            queryWrapper.select("IFNULL(SUM(total_consumed), 0) as totalConsumed");
-            List<Map<String, Object>> consumedResult = listMaps(queryWrapper);
-            if (!consumedResult.isEmpty()) {
-                statistics.put("totalConsumed", consumedResult.get(0).get("totalConsumed"));
-            } else {
-                statistics.put("totalConsumed", 0);
-            }
-            
-        } catch (Exception e) {
-            log.error("获取积分统计信息失败", e);
+        CoinStatsSnapshot snapshot = getStatsSnapshot();
+        if (snapshot == null) {
+            Map<String, Object> statistics = new HashMap<>();
             statistics.put("totalUsers", 0);
             statistics.put("totalBalance", 0);
             statistics.put("totalEarned", 0);
             statistics.put("totalConsumed", 0);
+            return statistics;
         }
-        
-        return statistics;
+        return snapshot.statistics();
     }
 
     @Override
     public List<Map<String, Object>> getCoinDistribution() {
-        List<Map<String, Object>> distribution = new ArrayList<>();
-        
-        try {
-            // 积分区间分布
-            String[] ranges = {"0", "1-100", "101-500", "501-1000", "1001-5000", "5000+"};
-            String[] conditions = {
-                "coin_balance = 0",
-                "coin_balance BETWEEN 1 AND 100",
-                "coin_balance BETWEEN 101 AND 500", 
-                "coin_balance BETWEEN 501 AND 1000",
-                "coin_balance BETWEEN 1001 AND 5000",
-                "coin_balance > 5000"
-            };
-            
-            for (int i = 0; i < ranges.length; i++) {
-                QueryWrapper<UserCoin> queryWrapper = new QueryWrapper<>();
-                queryWrapper.apply(conditions[i]);
-                long count = count(queryWrapper);
-                
-                Map<String, Object> item = new HashMap<>();
-                item.put("range", ranges[i]);
-                item.put("count", count);
-                distribution.add(item);
+        CoinStatsSnapshot snapshot = getStatsSnapshot();
+        return snapshot != null ? snapshot.distribution() : new ArrayList<>();
+    }
+
+    /**
+     * 获取积分统计快照，过期后由单个线程重新扫描，其余线程复用新结果
+     */
+    private CoinStatsSnapshot getStatsSnapshot() {
+        CoinStatsSnapshot snapshot = statsSnapshot;
+        if (snapshot != null && snapshot.expireAt() > System.currentTimeMillis()) {
+            return snapshot;
+        }
+
+        synchronized (statsSnapshotLock) {
+            snapshot = statsSnapshot;
+            if (snapshot != null && snapshot.expireAt() > System.currentTimeMillis()) {
+                return snapshot;
+            }
+
+            try {
+                Map<String, Object> summary = userCoinMapper.selectBalanceSummary();
+
+                Map<String, Object> statistics = new LinkedHashMap<>();
+                statistics.put("totalUsers", toLong(summary, "totalUsers"));
+                statistics.put("totalBalance", toLong(summary, "totalBalance"));
+                statistics.put("totalEarned", toLong(summary, "totalEarned"));
+                statistics.put("totalConsumed", toLong(summary, "totalConsumed"));
+
+                List<Map<String, Object>> distribution = new ArrayList<>(BALANCE_RANGES.length);
+                for (int i = 0; i < BALANCE_RANGES.length; i++) {
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("range", BALANCE_RANGES[i]);
+                    item.put("count", toLong(summary, "bucket" + i));
+                    distribution.add(Collections.unmodifiableMap(item));
+                }
+
+                snapshot = new CoinStatsSnapshot(Collections.unmodifiableMap(statistics),
+                        Collections.unmodifiableList(distribution),
+                        System.currentTimeMillis() + statsSnapshotTtl * 1000);
+                statsSnapshot = snapshot;
+                return snapshot;
+            } catch (Exception e) {
+                log.error("获取积分统计信息失败", e);
+                if (snapshot == null) {
+                    return null;
+                }
+                // 数据库异常时继续返回旧快照，并推迟下次刷新，避免每个请求都去扫描故障中的数据库
+                snapshot = new CoinStatsSnapshot(snapshot.statistics(), snapshot.distribution(),
+                        System.currentTimeMillis() + statsRefreshBackoff * 1000);
+                statsSnapshot = snapshot;
+                return snapshot;
             }
-            
-        } catch (Exception e) {
-            log.error("获取积分分布统计失败", e);
         }
-        
-        return distribution;
+    }
+
+    private static long toLong(Map<String, Object> row, String key) {
+        if (row == null) {
+            return 0L;
+        }
+        Object value = row.get(key);
+        if (value == null) {
+            // 部分驱动返回大写列名
+            value = row.get(key.toUpperCase());
+        }
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
     }
 
     @Override
@@ -269,62 +383,39 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
             throw new BusinessException("积分账户不存在");
         }
         
-        // 检查余额是否足够（如果是减少积分）
-        if (amount < 0 && userCoin.getCoinBalance() + amount < 0) {
-            throw new BusinessException("积分余额不足");
-        }
-        
-        // 更新余额
-        userCoin.setCoinBalance(userCoin.getCoinBalance() + amount);
-        
-        // 更新统计
+        // 余额变更与积分流水由原子语句完成，余额不足时条件扣减失败
         if (amount > 0) {
-            userCoin.setTotalEarned(userCoin.getTotalEarned() + amount);
-        } else {
-            userCoin.setTotalConsumed(userCoin.getTotalConsumed() + Math.abs(amount));
+            return coinService.addCoin(userCoin.getUserId(), amount, 1, reason, null); // 1-增加
         }
-        
-        boolean success = updateById(userCoin);
-        
-        // 记录积分变化
-        if (success) {
-            try {
-                int operationType = amount > 0 ? 1 : 6; // 1-增加，6-消费
-                coinService.addCoin(userCoin.getUserId(), amount, operationType, reason, null);
-            } catch (Exception e) {
-                log.error("记录积分变化失败", e);
-            }
-        }
-        
-        return success;
+        return coinService.reduceCoin(userCoin.getUserId(), -amount, 6, reason, null); // 6-消费
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean recalculateBalance(Long id) {
-        // 这里应该根据积分记录重新计算余额
-        // 由于没有具体的积分记录查询逻辑，暂时返回true
-        log.info("重新计算用户积分余额: {}", id);
+        if (id == null) {
+            throw new ValidationException("账户ID不能为空");
+        }
+
+        UserCoin userCoin = getById(id);
+        if (userCoin == null) {
+            throw new BusinessException("积分账户不存在");
+        }
+
+        CoinReconcileReport report = coinReconcileService.reconcileUser(userCoin.getUserId(), false);
+        if (report.getFixedAccounts() > 0) {
+            log.info("用户{}积分账户已按流水校正: {}", userCoin.getUserId(), report.getSamples());
+        }
         return true;
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public int recalculateAllBalances() {
-        List<UserCoin> allAccounts = list();
-        int count = 0;
-        
-        for (UserCoin account : allAccounts) {
-            try {
-                if (recalculateBalance(account.getId())) {
-                    count++;
-                }
-            } catch (Exception e) {
-                log.error("重新计算用户{}积分余额失败", account.getUserId(), e);
-            }
-        }
-        
-        return count;
+        return (int) coinReconcileService.reconcileAll(false, false).getFixedAccounts();
+    }
+
+    @Override
+    public CoinReconcileReport reconcileBalances(boolean dryRun, boolean resume) {
+        return coinReconcileService.reconcileAll(dryRun, resume);
     }
 
     @Override
@@ -337,9 +428,20 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
 
     @Override
     public List<Map<String, Object>> getUserCoinTrend(Long id, Integer days) {
-        // 这里应该查询积分变化趋势，暂时返回空列表
-        log.info("获取用户{}最近{}天的积分变化趋势", id, days);
-        return new ArrayList<>();
+        if (id == null) {
+            throw new ValidationException("账户ID不能为空");
+        }
+
+        UserCoin userCoin = getById(id);
+        if (userCoin == null) {
+            throw new BusinessException("积分账户不存在");
+        }
+        return coinDailyStatService.getUserTrend(userCoin.getUserId(), days == null ? 30 : days);
+    }
+
+    @Override
+    public int backfillCoinTrend(LocalDate fromDate, LocalDate toDate) {
+        return coinDailyStatService.backfill(fromDate, toDate);
     }
 
     @Override
@@ -360,28 +462,8 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
             throw new ValidationException("参数不能为空，积分数量必须大于0");
         }
         
-        // 确保用户有积分账户
-        UserCoin userCoin = getUserCoinByUserId(userId);
-        if (userCoin == null) {
-            userCoin = createUserCoinAccount(userId);
-        }
-        
-        // 更新积分账户
-        userCoin.setCoinBalance(userCoin.getCoinBalance() + amount);
-        userCoin.setTotalEarned(userCoin.getTotalEarned() + amount);
-        
-        boolean success = updateById(userCoin);
-        
-        // 记录积分变化
-        if (success) {
-            try {
-                coinService.addCoin(userId, amount, operationType, description, null);
-            } catch (Exception e) {
-                log.error("记录积分变化失败", e);
-            }
-        }
-        
-        return success;
+        // 单条原子UPDATE增加余额并写入积分流水，账户不存在时自动创建
+        return coinService.addCoin(userId, amount, operationType, description, null);
     }
 
     @Override
@@ -391,32 +473,8 @@ public class UserCoinServiceImpl extends ServiceImpl<UserCoinMapper, UserCoin> i
             throw new ValidationException("参数不能为空，积分数量必须大于0");
         }
         
-        UserCoin userCoin = getUserCoinByUserId(userId);
-        if (userCoin == null) {
-            throw new BusinessException("用户积分账户不存在");
-        }
-        
-        // 检查余额是否足够
-        if (userCoin.getCoinBalance() < amount) {
-            throw new BusinessException("积分余额不足");
-        }
-        
-        // 更新积分账户
-        userCoin.setCoinBalance(userCoin.getCoinBalance() - amount);
-        userCoin.setTotalConsumed(userCoin.getTotalConsumed() + amount);
-        
-        boolean success = updateById(userCoin);
-        
-        // 记录积分变化
-        if (success) {
-            try {
-                coinService.reduceCoin(userId, amount, operationType, description, null);
-            } catch (Exception e) {
-                log.error("记录积分变化失败", e);
-            }
-        }
-        
-        return success;
+        // 条件UPDATE（coin_balance >= amount）扣减余额并写入积分流水
+        return coinService.reduceCoin(userId, amount, operationType, description, null);
     }
 
     @Override
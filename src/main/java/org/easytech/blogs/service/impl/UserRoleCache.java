@@ -0,0 +1,332 @@
+package org.easytech.blogs.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.Role;
+import org.easytech.blogs.mapper.RoleMapper;
+import org.easytech.blogs.mapper.UserRoleMapper;
+import org.easytech.blogs.util.LruCache;
+import org.easytech.blogs.util.RedisVersionedSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户角色解析缓存
+ * 角色表整体加载为不可变快照，每个角色分配一个位；用户的角色集合按用户ID缓存为角色编码集合和位掩码，
+ * 权限判断只做一次位运算。本节点的角色变更在事务提交后精确失效，其他节点通过Redis版本号感知后整体失效
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRoleCache {
+
+    private static final String VERSION_KEY = "auth:role:version";
+    private static final Set<String> ADMIN_ROLE_CODES = Set.of("ADMIN", "SUPER_ADMIN");
+    // long 掩码可表示的角色数，超出部分退回到集合判断
+    private static final int MAX_BITS = Long.SIZE;
+
+    private final RoleMapper roleMapper;
+    private final UserRoleMapper userRoleMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${blog.role-cache.max-size:10000}")
+    private int maxSize;
+
+    // 有界LRU，超出容量时只淘汰最久未访问的用户
+    private LruCache<Long, UserRoles> users;
+    // 每次失效递增，加载期间发生失效的结果不写入缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile RoleTable roleTable = RoleTable.EMPTY;
+    private RedisVersionedSnapshot versions;
+    // 因出现未知角色ID而重新加载角色表时的版本号，同一版本内只重新加载一次
+    private volatile long missReloadVersion = -1;
+
+    /**
+     * 角色表快照：角色ID/编码到位序号的映射
+     */
+    private record RoleTable(Map<Long, Role> roles, Map<Long, Integer> bitById, Map<String, Integer> bitByCode,
+                             long adminMask) {
+
+        static final RoleTable EMPTY = new RoleTable(Map.of(), Map.of(), Map.of(), 0L);
+    }
+
+    /**
+     * 用户已解析的角色，集合均不可变
+     * @param roles 角色列表（按排序权重）
+     * @param roleIds 角色ID集合
+     * @param codes 角色编码集合
+     * @param mask 角色位掩码
+     */
+    public record UserRoles(List<Role> roles, Set<Long> roleIds, Set<String> codes, long mask) {
+
+        static final UserRoles NONE = new UserRoles(List.of(), Set.of(), Set.of(), 0L);
+    }
+
+    @PostConstruct
+    public void init() {
+        users = new LruCache<>(maxSize, 0);
+        versions = new RedisVersionedSnapshot(stringRedisTemplate, VERSION_KEY, "角色缓存");
+        try {
+            versions.poll(true, this::reloadRoleTable);
+        } catch (Exception e) {
+            // 启动时数据库不可用不阻断应用，首次解析时再加载
+            log.error("角色表快照加载失败", e);
+        }
+    }
+
+    /**
+     * 解析用户角色，未命中时从数据库加载
+     * @param userId 用户ID
+     * @return 用户角色，用户ID为空时返回空角色
+     */
+    public UserRoles get(Long userId) {
+        if (userId == null) {
+            return UserRoles.NONE;
+        }
+        UserRoles cached = users.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        return put(userId, userRoleMapper.selectRoleIdsByUserId(userId), loadGeneration);
+    }
+
+    /**
+     * 当前失效代数，调用方自行查询角色ID前获取，传给 put
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 写入调用方已查出的角色ID（如登录时与用户一起查询）
+     * @param userId 用户ID
+     * @param roleIds 角色ID
+     * @param loadGeneration 查询前的失效代数，查询期间发生失效时不写入缓存
+     * @return 解析后的用户角色
+     */
+    public UserRoles put(Long userId, List<Long> roleIds, long loadGeneration) {
+        UserRoles loaded = resolve(roleIds);
+        if (generation.get() == loadGeneration) {
+            users.put(userId, loaded);
+            // 写入与失效之间并发时再检查一次，失效已发生则撤回
+            if (generation.get() != loadGeneration) {
+                users.invalidate(userId);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 用户是否拥有指定角色
+     */
+    public boolean hasRole(Long userId, Long roleId) {
+        if (userId == null || roleId == null) {
+            return false;
+        }
+        UserRoles userRoles = get(userId);
+        Integer bit = roleTable.bitById().get(roleId);
+        return bit != null ? (userRoles.mask() & (1L << bit)) != 0 : userRoles.roleIds().contains(roleId);
+    }
+
+    /**
+     * 用户是否拥有指定编码的角色
+     */
+    public boolean hasRoleByCode(Long userId, String roleCode) {
+        if (userId == null || roleCode == null) {
+            return false;
+        }
+        UserRoles userRoles = get(userId);
+        Integer bit = roleTable.bitByCode().get(roleCode);
+        return bit != null ? (userRoles.mask() & (1L << bit)) != 0 : userRoles.codes().contains(roleCode);
+    }
+
+    /**
+     * 用户是否拥有管理权限（ADMIN 或 SUPER_ADMIN）
+     */
+    public boolean hasAdminPermission(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        UserRoles userRoles = get(userId);
+        long adminMask = roleTable.adminMask();
+        if ((userRoles.mask() & adminMask) != 0) {
+            return true;
+        }
+        for (String code : ADMIN_ROLE_CODES) {
+            if (!roleTable.bitByCode().containsKey(code) && userRoles.codes().contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 用户角色变更后失效（在事务中调用时于提交后执行）
+     * @param userIds 用户ID
+     */
+    public void evictUsers(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(userIds);
+        versions.publishAfterCommit(() -> {
+            generation.incrementAndGet();
+            ids.forEach(users::invalidate);
+        });
+    }
+
+    /**
+     * 用户角色变更后失效单个用户
+     */
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            evictUsers(List.of(userId));
+        }
+    }
+
+    /**
+     * 按角色批量变更关联后失效全部用户
+     */
+    public void evictAllUsers() {
+        versions.publishAfterCommit(this::clearUsers);
+    }
+
+    /**
+     * 角色本身变更（编码、状态、删除）后重新加载角色表并失效全部用户
+     */
+    public void reloadRoles() {
+        versions.publishAfterCommit(this::reloadRoleTable);
+    }
+
+    /**
+     * 轮询Redis中的角色版本号，发现其他节点的变更后整体失效
+     */
+    @Scheduled(fixedDelayString = "${blog.role-cache.refresh-interval:5000}")
+    public void pollVersion() {
+        try {
+            // 启动加载失败时角色表仍为空快照，强制重试
+            if (versions.poll(roleTable == RoleTable.EMPTY, this::reloadRoleTable)) {
+                log.debug("角色缓存已按远程版本失效，版本: {}", versions.version());
+            }
+        } catch (Exception e) {
+            log.warn("角色缓存版本检查失败: {}", e.getMessage());
+        }
+    }
+
+    private UserRoles resolve(List<Long> roleIds) {
+        if (roleIds.isEmpty()) {
+            return UserRoles.NONE;
+        }
+
+        RoleTable table = roleTable;
+        if (!table.roles().keySet().containsAll(roleIds)) {
+            table = reloadForUnknownRoles(roleIds);
+        }
+
+        List<Role> roles = new ArrayList<>(roleIds.size());
+        for (Role role : table.roles().values()) {
+            if (roleIds.contains(role.getId())) {
+                roles.add(role);
+            }
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        Set<String> codes = new LinkedHashSet<>();
+        long mask = 0L;
+        for (Role role : roles) {
+            ids.add(role.getId());
+            if (role.getCode() != null) {
+                codes.add(role.getCode());
+            }
+            Integer bit = table.bitById().get(role.getId());
+            if (bit != null) {
+                mask |= 1L << bit;
+            }
+        }
+        return new UserRoles(List.copyOf(roles), Set.copyOf(ids), Set.copyOf(codes), mask);
+    }
+
+    /**
+     * 新建的角色尚未进入快照时重新加载；同一版本内只加载一次，之后仍不存在的ID视为已删除直接忽略，
+     * 避免关联了已删除角色的用户每次解析都重新加载角色表并清空用户缓存
+     */
+    private synchronized RoleTable reloadForUnknownRoles(List<Long> roleIds) {
+        RoleTable table = roleTable;
+        long currentVersion = versions.version();
+        if (missReloadVersion == currentVersion || table.roles().keySet().containsAll(roleIds)) {
+            return table;
+        }
+        table = loadRoleTable(false);
+        missReloadVersion = currentVersion;
+        return table;
+    }
+
+    private RoleTable reloadRoleTable() {
+        return loadRoleTable(true);
+    }
+
+    /**
+     * @param alwaysClear 是否无条件清空用户缓存；为false时仅在角色表实际变化后清空
+     */
+    private synchronized RoleTable loadRoleTable(boolean alwaysClear) {
+        List<Role> roles = roleMapper.selectAllRoles();
+
+        // LinkedHashMap 保持查询的排序权重顺序
+        Map<Long, Role> byId = new LinkedHashMap<>();
+        Map<Long, Integer> bitById = new HashMap<>();
+        Map<String, Integer> bitByCode = new HashMap<>();
+        long adminMask = 0L;
+        int bit = 0;
+        for (Role role : roles) {
+            byId.put(role.getId(), role);
+            if (bit < MAX_BITS) {
+                bitById.put(role.getId(), bit);
+                if (role.getCode() != null) {
+                    bitByCode.putIfAbsent(role.getCode(), bit);
+                    if (ADMIN_ROLE_CODES.contains(role.getCode())) {
+                        adminMask |= 1L << bit;
+                    }
+                }
+                bit++;
+            }
+        }
+        if (roles.size() > MAX_BITS) {
+            log.warn("角色数超过{}，超出部分按集合判断", MAX_BITS);
+        }
+
+        RoleTable table = new RoleTable(Collections.unmodifiableMap(byId), Map.copyOf(bitById),
+                Map.copyOf(bitByCode), adminMask);
+        RoleTable previous = roleTable;
+        roleTable = table;
+        if (!alwaysClear && table.bitById().equals(previous.bitById())
+                && table.bitByCode().equals(previous.bitByCode())) {
+            return table;
+        }
+        // 位序号可能变化，先替换快照再清空用户缓存，按旧快照计算的结果不会再写入
+        clearUsers();
+        log.info("角色表快照已加载，角色数: {}", roles.size());
+        return table;
+    }
+
+    private void clearUsers() {
+        generation.incrementAndGet();
+        users.invalidateAll();
+    }
+}
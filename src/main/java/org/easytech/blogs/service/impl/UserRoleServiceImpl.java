@@ -3,12 +3,14 @@ package org.easytech.blogs.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.dto.OrphanCleanupReport;
 import org.easytech.blogs.entity.UserRole;
 import org.easytech.blogs.exception.BusinessException;
 import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.RoleMapper;
 import org.easytech.blogs.mapper.UserMapper;
 import org.easytech.blogs.mapper.UserRoleMapper;
+import org.easytech.blogs.service.IntegrityMaintenanceService;
 import org.easytech.blogs.service.UserRoleService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +30,8 @@ public class UserRoleServiceImpl implements UserRoleService {
     private final UserRoleMapper userRoleMapper;
     private final UserMapper userMapper;
     private final RoleMapper roleMapper;
+    private final UserRoleCache userRoleCache;
+    private final IntegrityMaintenanceService integrityMaintenanceService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -46,8 +50,8 @@ public class UserRoleServiceImpl implements UserRoleService {
             throw new BusinessException("角色不存在");
         }
 
-        // 检查是否已存在关联
-        if (hasRole(userId, roleId)) {
+        // 检查是否已存在关联（事务内可能刚删除过关联，直接查库而不读缓存）
+        if (userRoleMapper.hasRole(userId, roleId)) {
             return true; // 已存在关联
         }
 
@@ -58,6 +62,7 @@ public class UserRoleServiceImpl implements UserRoleService {
 
             int result = userRoleMapper.insert(userRole);
             if (result > 0) {
+                userRoleCache.evictUser(userId);
                 log.info("用户角色分配成功，用户ID: {}, 角色ID: {}", userId, roleId);
                 return true;
             }
@@ -128,6 +133,7 @@ public class UserRoleServiceImpl implements UserRoleService {
 
             int result = userRoleMapper.delete(queryWrapper);
             if (result > 0) {
+                userRoleCache.evictUser(userId);
                 log.info("用户角色移除成功，用户ID: {}, 角色ID: {}", userId, roleId);
                 return true;
             }
@@ -148,6 +154,7 @@ public class UserRoleServiceImpl implements UserRoleService {
 
         try {
             int result = userRoleMapper.deleteByUserId(userId);
+            userRoleCache.evictUser(userId);
             log.info("用户所有角色移除成功，用户ID: {}, 移除数量: {}", userId, result);
             return true;
         } catch (Exception e) {
@@ -165,6 +172,7 @@ public class UserRoleServiceImpl implements UserRoleService {
 
         try {
             int result = userRoleMapper.deleteByRoleId(roleId);
+            userRoleCache.evictAllUsers();
             log.info("角色所有用户关联移除成功，角色ID: {}, 移除数量: {}", roleId, result);
             return true;
         } catch (Exception e) {
@@ -178,7 +186,7 @@ public class UserRoleServiceImpl implements UserRoleService {
         if (userId == null) {
             return List.of();
         }
-        return userRoleMapper.selectRoleIdsByUserId(userId);
+        return List.copyOf(userRoleCache.get(userId).roleIds());
     }
 
     @Override
@@ -194,7 +202,7 @@ public class UserRoleServiceImpl implements UserRoleService {
         if (userId == null || roleId == null) {
             return false;
         }
-        return userRoleMapper.hasRole(userId, roleId);
+        return userRoleCache.hasRole(userId, roleId);
     }
 
     @Override
@@ -202,7 +210,7 @@ public class UserRoleServiceImpl implements UserRoleService {
         if (userId == null || !StringUtils.hasText(roleCode)) {
             return false;
         }
-        return userRoleMapper.hasRoleByCode(userId, roleCode);
+        return userRoleCache.hasRoleByCode(userId, roleCode);
     }
 
     @Override
@@ -240,6 +248,7 @@ public class UserRoleServiceImpl implements UserRoleService {
             QueryWrapper<UserRole> queryWrapper = new QueryWrapper<>();
             queryWrapper.in("user_id", userIds);
             int result = userRoleMapper.delete(queryWrapper);
+            userRoleCache.evictUsers(userIds);
 
             log.info("批量删除用户角色关联成功，用户数量: {}, 删除关联数量: {}", userIds.size(), result);
             return true;
@@ -260,6 +269,7 @@ public class UserRoleServiceImpl implements UserRoleService {
             QueryWrapper<UserRole> queryWrapper = new QueryWrapper<>();
             queryWrapper.in("role_id", roleIds);
             int result = userRoleMapper.delete(queryWrapper);
+            userRoleCache.evictAllUsers();
 
             log.info("批量删除角色用户关联成功，角色数量: {}, 删除关联数量: {}", roleIds.size(), result);
             return true;
@@ -270,29 +280,15 @@ public class UserRoleServiceImpl implements UserRoleService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public int cleanInvalidRelations() {
+        // 按ID区间分块反连接删除，每块独立提交，不把整表读入内存
         try {
-            List<UserRole> allRelations = userRoleMapper.selectList(null);
-            int cleanCount = 0;
-
-            for (UserRole relation : allRelations) {
-                // 检查用户是否存在
-                if (userMapper.selectById(relation.getUserId()) == null) {
-                    userRoleMapper.deleteById(relation.getId());
-                    cleanCount++;
-                    continue;
-                }
-
-                // 检查角色是否存在
-                if (roleMapper.selectById(relation.getRoleId()) == null) {
-                    userRoleMapper.deleteById(relation.getId());
-                    cleanCount++;
-                }
-            }
-
-            log.info("清理无效用户角色关联完成，清理数量: {}", cleanCount);
-            return cleanCount;
+            // 有删除时角色缓存由清理服务失效
+            OrphanCleanupReport report = integrityMaintenanceService.cleanOrphans("tb_user_role");
+            log.info("清理无效用户角色关联完成，清理数量: {}", report.getDeleted());
+            return (int) report.getDeleted();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("清理无效用户角色关联失败", e);
             throw new BusinessException("清理无效用户角色关联失败");
@@ -306,8 +302,8 @@ public class UserRoleServiceImpl implements UserRoleService {
 
     @Override
     public boolean hasAdminPermission(Long userId) {
-        // 检查是否为管理员或其他有管理权限的角色
-        return hasRoleByCode(userId, "ADMIN") || hasRoleByCode(userId, "SUPER_ADMIN");
+        // 检查是否为管理员或其他有管理权限的角色，一次位运算
+        return userRoleCache.hasAdminPermission(userId);
     }
 
     @Override
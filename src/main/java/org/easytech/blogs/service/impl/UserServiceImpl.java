@@ -12,15 +12,21 @@ import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.RoleMapper;
 import org.easytech.blogs.mapper.UserMapper;
 import org.easytech.blogs.mapper.UserRoleMapper;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.easytech.blogs.service.PasswordHashingService;
+import org.easytech.blogs.service.TokenRevocationService;
+import org.easytech.blogs.service.UserBloomFilterService;
 import org.easytech.blogs.service.UserService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,7 +40,13 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final RoleMapper roleMapper;
     private final UserRoleMapper userRoleMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final UserRoleCache userRoleCache;
+    private final PasswordHashingService passwordHashingService;
+    private final CacheManager cacheManager;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserBloomFilterService userBloomFilterService;
+    private final CoinLeaderboardService coinLeaderboardService;
 
     @Override
     @Cacheable(value = "users", key = "'username:' + #username")
@@ -54,6 +66,25 @@ public class UserServiceImpl implements UserService {
         return userMapper.findByEmail(email);
     }
 
+    @Override
+    public User findLoginUser(String username) {
+        if (!StringUtils.hasText(username)) {
+            return null;
+        }
+        long roleGeneration = userRoleCache.currentGeneration();
+        User user = userMapper.findLoginUser(username);
+        if (user != null) {
+            List<Long> roleIds = new ArrayList<>();
+            if (StringUtils.hasText(user.getRoleIds())) {
+                for (String roleId : user.getRoleIds().split(",")) {
+                    roleIds.add(Long.valueOf(roleId.trim()));
+                }
+            }
+            userRoleCache.put(user.getId(), roleIds, roleGeneration);
+        }
+        return user;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public User register(User user) {
@@ -69,7 +100,7 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("邮箱已存在");
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         
         if (user.getStatus() == null) {
             user.setStatus(1);
@@ -79,6 +110,7 @@ public class UserServiceImpl implements UserService {
             int result = userMapper.insert(user);
             if (result > 0) {
                 assignDefaultRole(user.getId());
+                userBloomFilterService.add(user.getUsername(), user.getEmail());
                 log.info("用户注册成功，用户ID: {}", user.getId());
                 return user;
             } else {
@@ -96,12 +128,12 @@ public class UserServiceImpl implements UserService {
             throw new ValidationException("用户名和密码不能为空");
         }
 
-        User user = findByUsername(username);
+        User user = findLoginUser(username);
         if (user == null) {
             throw new BusinessException("用户不存在");
         }
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new BusinessException("密码错误");
         }
 
@@ -109,8 +141,9 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("用户已被禁用");
         }
 
-        // 更新最后登录时间
-        updateLastLoginTime(user.getId());
+        upgradePasswordHash(user, password);
+
+        recordLastLogin(user.getId());
         
         return user;
     }
@@ -124,6 +157,10 @@ public class UserServiceImpl implements UserService {
 
         try {
             int result = userMapper.updateById(user);
+            if (result > 0) {
+                // 改名或改邮箱后新值加入过滤器，旧值留待全量重建清理
+                userBloomFilterService.add(user.getUsername(), user.getEmail());
+            }
             return result > 0;
         } catch (Exception e) {
             log.error("用户信息更新失败: {}", e.getMessage(), e);
@@ -147,12 +184,17 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("用户不存在");
         }
 
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             throw new BusinessException("原密码错误");
         }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
-        return updateUser(user);
+        user.setPassword(passwordHashingService.encode(newPassword));
+        boolean updated = updateUser(user);
+        if (updated) {
+            // 旧密码下签发的令牌全部失效
+            tokenRevocationService.revokeUserTokens(userId);
+        }
+        return updated;
     }
 
     @Override
@@ -166,8 +208,36 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("用户不存在");
         }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
-        return updateUser(user);
+        user.setPassword(passwordHashingService.encode(newPassword));
+        boolean updated = updateUser(user);
+        if (updated) {
+            // 旧密码下签发的令牌全部失效
+            tokenRevocationService.revokeUserTokens(userId);
+        }
+        return updated;
+    }
+
+    @Override
+    public void upgradePasswordHash(User user, String rawPassword) {
+        if (user == null || user.getId() == null || !passwordHashingService.needsRehash(user.getPassword())) {
+            return;
+        }
+
+        Long userId = user.getId();
+        String oldHash = user.getPassword();
+        String username = user.getUsername();
+        String email = user.getEmail();
+        passwordHashingService.rehashAsync(rawPassword, newHash -> {
+            if (userMapper.updatePasswordHash(userId, oldHash, newHash) > 0) {
+                // 按用户名/邮箱缓存的用户对象含旧哈希
+                Cache cache = cacheManager.getCache("users");
+                if (cache != null) {
+                    cache.evict("username:" + username);
+                    cache.evict("email:" + email);
+                }
+                log.info("用户密码已按新强度重新哈希，用户ID: {}", userId);
+            }
+        });
     }
 
     @Override
@@ -206,6 +276,13 @@ public class UserServiceImpl implements UserService {
 
         try {
             int result = userMapper.updateUserStatus(userId, status);
+            if (result > 0) {
+                if (status != 1) {
+                    tokenRevocationService.revokeUserTokens(userId);
+                }
+                // 积分排行榜只收录正常状态的用户
+                coinLeaderboardService.syncUser(userId);
+            }
             return result > 0;
         } catch (Exception e) {
             log.error("用户状态更新失败: {}", e.getMessage(), e);
@@ -222,7 +299,12 @@ public class UserServiceImpl implements UserService {
 
         try {
             userRoleMapper.deleteByUserId(userId);
+            userRoleCache.evictUser(userId);
             int result = userMapper.deleteById(userId);
+            if (result > 0) {
+                tokenRevocationService.revokeUserTokens(userId);
+                coinLeaderboardService.removeUser(userId);
+            }
             return result > 0;
         } catch (Exception e) {
             log.error("用户删除失败: {}", e.getMessage(), e);
@@ -235,6 +317,10 @@ public class UserServiceImpl implements UserService {
         if (!StringUtils.hasText(username)) {
             return false;
         }
+        // 布隆过滤器判定一定不存在时不再查库
+        if (!userBloomFilterService.mightContainUsername(username)) {
+            return false;
+        }
         User user = findByUsername(username);
         return user != null && (excludeUserId == null || !user.getId().equals(excludeUserId));
     }
@@ -244,6 +330,9 @@ public class UserServiceImpl implements UserService {
         if (!StringUtils.hasText(email)) {
             return false;
         }
+        if (!userBloomFilterService.mightContainEmail(email)) {
+            return false;
+        }
         User user = findByEmail(email);
         return user != null && (excludeUserId == null || !user.getId().equals(excludeUserId));
     }
@@ -265,6 +354,7 @@ public class UserServiceImpl implements UserService {
                 userRole.setRoleId(roleId);
                 userRoleMapper.insert(userRole);
             }
+            userRoleCache.evictUser(userId);
             return true;
         } catch (Exception e) {
             log.error("分配角色失败: {}", e.getMessage(), e);
@@ -277,7 +367,7 @@ public class UserServiceImpl implements UserService {
         if (userId == null) {
             return List.of();
         }
-        return userMapper.getUserRoles(userId);
+        return userRoleCache.get(userId).roles();
     }
 
     @Override
@@ -294,6 +384,11 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Override
+    public void recordLastLogin(Long userId) {
+        lastLoginRecorder.record(userId);
+    }
+
     @Override
     public List<User> searchByNickname(String nickname) {
         if (!StringUtils.hasText(nickname)) {
@@ -330,6 +425,7 @@ public class UserServiceImpl implements UserService {
                 userRole.setUserId(userId);
                 userRole.setRoleId(defaultRole.getId());
                 userRoleMapper.insert(userRole);
+                userRoleCache.evictUser(userId);
             }
         } catch (Exception e) {
             log.warn("分配默认角色失败，用户ID: {}", userId, e);
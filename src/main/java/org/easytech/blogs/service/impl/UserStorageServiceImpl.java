@@ -0,0 +1,118 @@
+package org.easytech.blogs.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.easytech.blogs.entity.UserStorage;
+import org.easytech.blogs.exception.FileUploadException;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.UserStorageMapper;
+import org.easytech.blogs.service.UserStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 用户存储配额服务实现类
+ * 上传/删除时按增量更新 tb_user_storage，配额校验为单条条件UPDATE；
+ * 计数偏差由定时校正任务在行锁下逐个用户按文件表重算修复
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStorageServiceImpl implements UserStorageService {
+
+    private final UserStorageMapper userStorageMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${blog.upload.user-quota:1073741824}") // 1GB
+    private long userQuota;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void reserve(Long userId, long bytes) {
+        if (userId == null || bytes < 0) {
+            throw new ValidationException("参数不能为空");
+        }
+
+        if (tryReserve(userId, bytes)) {
+            return;
+        }
+
+        // 账户不存在时以现有文件初始化后重试一次
+        if (userStorageMapper.selectByUserId(userId) == null) {
+            userStorageMapper.initByUserId(userId);
+            if (tryReserve(userId, bytes)) {
+                return;
+            }
+        }
+
+        log.warn("用户存储空间不足，用户ID: {}, 文件大小: {}, 配额: {}", userId, bytes, userQuota);
+        throw new FileUploadException("存储空间不足，无法上传该文件");
+    }
+
+    @Override
+    public void release(Long userId, long bytes, int fileCount) {
+        if (userId == null || (bytes <= 0 && fileCount <= 0)) {
+            return;
+        }
+        userStorageMapper.releaseUsage(userId, Math.max(bytes, 0), Math.max(fileCount, 0));
+    }
+
+    @Override
+    public long getUsedBytes(Long userId) {
+        if (userId == null) {
+            return 0L;
+        }
+
+        UserStorage storage = userStorageMapper.selectByUserId(userId);
+        if (storage == null) {
+            userStorageMapper.initByUserId(userId);
+            storage = userStorageMapper.selectByUserId(userId);
+        }
+        return storage != null && storage.getUsedBytes() != null ? storage.getUsedBytes() : 0L;
+    }
+
+    @Override
+    public long getQuota() {
+        return Math.max(userQuota, 0);
+    }
+
+    @Override
+    public long reconcileUsage() {
+        // 上传/删除在同一事务内修改文件行并增量更新用量行，用量行锁要到提交才释放；
+        // 先锁定用量行再重算，进行中的事务提交后其文件行与增量同时可见，不会被旧的文件合计覆盖
+        List<Long> userIds = userStorageMapper.selectDriftUserIds();
+        for (Long userId : userIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (userStorageMapper.selectByUserIdForUpdate(userId) != null) {
+                    userStorageMapper.rebuildByUserId(userId);
+                }
+            });
+        }
+        log.info("用户存储用量校正完成，偏差账户数: {}", userIds.size());
+        return userIds.size();
+    }
+
+    /**
+     * 定时校正存储用量
+     */
+    @Scheduled(cron = "${blog.upload.quota-reconcile-cron:0 30 3 * * ?}")
+    public void scheduledReconcile() {
+        try {
+            reconcileUsage();
+        } catch (Exception e) {
+            log.error("用户存储用量校正失败", e);
+        }
+    }
+
+    private boolean tryReserve(Long userId, long bytes) {
+        int result = userQuota > 0
+                ? userStorageMapper.reserveUsage(userId, bytes, userQuota)
+                : userStorageMapper.increaseUsage(userId, bytes);
+        return result > 0;
+    }
+}
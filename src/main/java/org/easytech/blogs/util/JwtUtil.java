@@ -12,6 +12,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * JWT工具类
@@ -33,6 +34,15 @@ public class JwtUtil {
     @Value("${blog.jwt.issuer:blog-system}")
     private String issuer;
 
+    /**
+     * 已签发的令牌
+     * @param token JWT令牌
+     * @param tokenId 令牌ID（jti）
+     * @param expiresAt 过期时间
+     */
+    public record IssuedToken(String token, String tokenId, Date expiresAt) {
+    }
+
     /**
      * 获取签名密钥
      */
@@ -49,14 +59,28 @@ public class JwtUtil {
      * @return JWT token
      */
     public String generateAccessToken(Long userId, String username, List<String> roles) {
+        return generateAccessToken(userId, username, roles, null);
+    }
+
+    /**
+     * 生成访问令牌，携带所属刷新令牌家族ID，登出时据此作废整个家族
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param roles 角色列表
+     * @param familyId 刷新令牌家族ID
+     * @return JWT token
+     */
+    public String generateAccessToken(Long userId, String username, List<String> roles, String familyId) {
         Instant now = Instant.now();
         Instant expiry = now.plus(expiration, ChronoUnit.SECONDS);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("userId", userId)
                 .claim("username", username)
                 .claim("roles", roles)
+                .claim("family", familyId)
                 .claim("tokenType", "access")
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
@@ -72,19 +96,34 @@ public class JwtUtil {
      * @return JWT refresh token
      */
     public String generateRefreshToken(Long userId, String username) {
+        return issueRefreshToken(userId, username, null).token();
+    }
+
+    /**
+     * 签发属于指定家族的刷新令牌
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param familyId 刷新令牌家族ID，同一次登录轮换出的刷新令牌共用
+     * @return 刷新令牌及其ID、过期时间
+     */
+    public IssuedToken issueRefreshToken(Long userId, String username, String familyId) {
         Instant now = Instant.now();
         Instant expiry = now.plus(refreshExpiration, ChronoUnit.SECONDS);
+        String tokenId = UUID.randomUUID().toString();
 
-        return Jwts.builder()
+        String token = Jwts.builder()
+                .id(tokenId)
                 .subject(username)
                 .claim("userId", userId)
                 .claim("username", username)
+                .claim("family", familyId)
                 .claim("tokenType", "refresh")
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiry))
                 .signWith(getSigningKey())
                 .compact();
+        return new IssuedToken(token, tokenId, Date.from(expiry));
     }
 
     /**
@@ -0,0 +1,112 @@
+package org.easytech.blogs.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 线程安全的本地LRU缓存
+ * 容量有界，超出时淘汰最久未访问的条目；可选写入后过期时间
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map;
+    // 失效次数，用于丢弃加载期间已被失效的旧值
+    private long invalidations;
+
+    /**
+     * @param maxSize 最大条目数
+     * @param ttlMillis 写入后过期时间（毫秒），小于等于0表示不过期
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize必须大于0");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，不存在或已过期返回null
+     */
+    public V get(K key) {
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired()) {
+                map.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * 获取缓存值，未命中时通过loader加载并写入（loader返回null时不缓存）
+     * 加载过程不持有锁，并发未命中时可能重复加载；加载期间发生过失效时结果只返回、不写入缓存
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long stamp;
+        synchronized (map) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            stamp = invalidations;
+        }
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (map) {
+                if (invalidations == stamp) {
+                    put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        long expireAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        synchronized (map) {
+            map.put(key, new Entry<>(value, expireAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            invalidations++;
+            map.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            invalidations++;
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    private record Entry<V>(V value, long expireAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expireAt;
+        }
+    }
+}
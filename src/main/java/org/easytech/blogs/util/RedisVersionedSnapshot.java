@@ -0,0 +1,109 @@
+package org.easytech.blogs.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Redis版本号的本地快照跨节点同步
+ * 本节点的变更在事务提交后递增Redis版本号并更新本地快照；各节点定时比对版本号，发现变化时重新加载。
+ * 本地版本号只在加载成功后推进，加载失败时下一轮轮询会重试
+ */
+@Slf4j
+public class RedisVersionedSnapshot {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String versionKey;
+    private final String name;
+
+    // 本节点快照对应的版本号
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param stringRedisTemplate Redis模板
+     * @param versionKey 版本号键
+     * @param name 快照名称，用于日志
+     */
+    public RedisVersionedSnapshot(StringRedisTemplate stringRedisTemplate, String versionKey, String name) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.versionKey = versionKey;
+        this.name = name;
+    }
+
+    /**
+     * 本节点快照对应的版本号
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 远程版本与本地不同（或强制）时执行加载，加载成功后推进本地版本；加载异常原样抛出
+     * @param force 是否无视版本号强制加载（如快照尚未加载、本节点有待合并的变更）
+     * @param reload 加载动作
+     * @return 是否执行了加载
+     */
+    public boolean poll(boolean force, Runnable reload) {
+        long local = version.get();
+        long remote = readRemoteVersion(local);
+        if (!force && remote == local) {
+            return false;
+        }
+        reload.run();
+        // 加载期间本节点又发布过变更时保持较新的版本
+        version.compareAndSet(local, remote);
+        return true;
+    }
+
+    /**
+     * 事务提交后递增远程版本号并执行本地更新（无事务时立即执行）；
+     * 本地更新失败只记录日志，本地版本不推进，由轮询重试
+     * @param localUpdate 本地快照更新动作
+     */
+    public void publishAfterCommit(Runnable localUpdate) {
+        afterCommit(() -> {
+            Long newVersion = null;
+            try {
+                newVersion = stringRedisTemplate.opsForValue().increment(versionKey);
+            } catch (Exception e) {
+                log.error("Redis发布{}版本失败，其他节点将延迟感知变更", name, e);
+            }
+            try {
+                localUpdate.run();
+            } catch (Exception e) {
+                log.error("{}本地更新失败，等待下次轮询重试", name, e);
+                return;
+            }
+            // 只有本节点的这次变更时直接跟进版本，避免轮询时重复加载
+            if (newVersion != null) {
+                version.compareAndSet(newVersion - 1, newVersion);
+            }
+        });
+    }
+
+    private long readRemoteVersion(long fallback) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(versionKey);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("Redis读取{}版本失败: {}", name, e.getMessage());
+            return fallback;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
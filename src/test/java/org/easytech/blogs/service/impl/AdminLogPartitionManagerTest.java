@@ -0,0 +1,143 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.mapper.AdminLogMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 管理员日志分区维护单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class AdminLogPartitionManagerTest {
+
+    private static final String LOCK_KEY = "admin:log:partition:lock";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Mock
+    private AdminLogMapper adminLogMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private AdminLogPartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        partitionManager = new AdminLogPartitionManager(adminLogMapper, stringRedisTemplate);
+        ReflectionTestUtils.setField(partitionManager, "aheadMonths", 3);
+        ReflectionTestUtils.setField(partitionManager, "purgeBatchSize", 100);
+        ReflectionTestUtils.setField(partitionManager, "purgePauseMillis", 0L);
+    }
+
+    @Test
+    void testSplitsOnlyMissingMonthsAfterLatestPartition() {
+        YearMonth now = YearMonth.now();
+        // 分区名乱序，且夹杂不符合命名规则的分区
+        when(adminLogMapper.selectPartitionNames()).thenReturn(List.of(
+                partition(now.plusMonths(1)), "p_legacy", partition(now), "p_future"));
+
+        partitionManager.ensureFuturePartitions();
+
+        InOrder inOrder = inOrder(adminLogMapper);
+        inOrder.verify(adminLogMapper).addMonthPartition(partition(now.plusMonths(2)),
+                now.plusMonths(3).atDay(1).toString());
+        inOrder.verify(adminLogMapper).addMonthPartition(partition(now.plusMonths(3)),
+                now.plusMonths(4).atDay(1).toString());
+        verify(adminLogMapper, times(2)).addMonthPartition(anyString(), anyString());
+    }
+
+    @Test
+    void testSkipsReorganizeWithoutFuturePartitionOrOnPlainTable() {
+        when(adminLogMapper.selectPartitionNames())
+                .thenReturn(List.of())
+                .thenReturn(List.of(partition(YearMonth.now())));
+
+        partitionManager.ensureFuturePartitions();
+        partitionManager.ensureFuturePartitions();
+
+        verify(adminLogMapper, never()).addMonthPartition(anyString(), anyString());
+    }
+
+    @Test
+    void testDropsOnlyMonthsEntirelyBeforeCutoffThenDeletesInBatches() {
+        LocalDateTime cutoff = LocalDateTime.of(2024, 3, 15, 12, 0);
+        when(adminLogMapper.selectPartitionNames())
+                .thenReturn(List.of("p202401", "p202402", "p202403", "p202404", "p_future"));
+        when(adminLogMapper.cleanLogsBefore(cutoff, 100)).thenReturn(100, 100, 7);
+
+        long deleted = partitionManager.purgeBefore(cutoff);
+
+        // 3月分区的上界晚于清理时间点，只能按行删除
+        verify(adminLogMapper).dropPartition("p202401");
+        verify(adminLogMapper).dropPartition("p202402");
+        verify(adminLogMapper, never()).dropPartition("p202403");
+        verify(adminLogMapper, never()).dropPartition("p_future");
+        verify(adminLogMapper, times(2)).dropPartition(anyString());
+        assertEquals(207, deleted);
+    }
+
+    @Test
+    void testMonthEndingExactlyAtCutoffIsDropped() {
+        LocalDateTime cutoff = LocalDateTime.of(2024, 3, 1, 0, 0);
+        when(adminLogMapper.selectPartitionNames()).thenReturn(List.of("p202402", "p202403", "p_future"));
+        when(adminLogMapper.cleanLogsBefore(cutoff, 100)).thenReturn(0);
+
+        assertEquals(0, partitionManager.purgeBefore(cutoff));
+
+        verify(adminLogMapper).dropPartition("p202402");
+        verify(adminLogMapper, never()).dropPartition("p202403");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMaintainRunsUnderLockAndPurgesOnlyWhenRetentionSet() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
+        when(adminLogMapper.selectPartitionNames()).thenReturn(List.of());
+
+        // 默认保留天数为0：只维护分区，不删除日志
+        partitionManager.maintain();
+
+        verify(adminLogMapper, never()).cleanLogsBefore(any(), anyInt());
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK_KEY)), anyString());
+    }
+
+    @Test
+    void testMaintainSkipsWhenLockHeldOrRedisDown() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(LOCK_KEY), anyString(), any(Duration.class)))
+                .thenReturn(false)
+                .thenThrow(new IllegalStateException("redis down"));
+        ReflectionTestUtils.setField(partitionManager, "retentionDays", 30);
+
+        partitionManager.maintain();
+        partitionManager.maintain();
+
+        verifyNoInteractions(adminLogMapper);
+    }
+
+    private static String partition(YearMonth month) {
+        return "p" + month.format(MONTH_FORMAT);
+    }
+}
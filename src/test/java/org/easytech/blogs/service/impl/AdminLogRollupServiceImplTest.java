@@ -0,0 +1,145 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.AdminLog;
+import org.easytech.blogs.entity.AdminLogHourly;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.AdminLogHourlyMapper;
+import org.easytech.blogs.mapper.AdminLogMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 管理员操作小时汇总服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class AdminLogRollupServiceImplTest {
+
+    @Mock
+    private AdminLogHourlyMapper adminLogHourlyMapper;
+
+    @Mock
+    private AdminLogMapper adminLogMapper;
+
+    @InjectMocks
+    private AdminLogRollupServiceImpl adminLogRollupService;
+
+    @Test
+    void testRecordLogsAggregatesPerHourAdminAndType() {
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 10, 15, 30);
+        adminLogRollupService.recordLogs(List.of(
+                buildLog(1L, 2, time),
+                buildLog(1L, 2, time.plusMinutes(20)),
+                buildLog(1L, 3, time),
+                buildLog(1L, 2, time.plusHours(1))));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AdminLogHourly>> captor = ArgumentCaptor.forClass(List.class);
+        verify(adminLogHourlyMapper).batchUpsertDelta(captor.capture());
+        List<AdminLogHourly> rows = captor.getValue();
+
+        assertEquals(3, rows.size());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 10, 0), rows.get(0).getStatHour());
+        assertEquals(2, rows.get(0).getOperationType());
+        assertEquals(2L, rows.get(0).getOpCount());
+        assertEquals(3, rows.get(1).getOperationType());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 11, 0), rows.get(2).getStatHour());
+    }
+
+    @Test
+    void testCountReadsRollupForFullHoursAndRawLogsForEdges() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 30);
+        LocalDateTime end = LocalDateTime.of(2025, 3, 1, 18, 20);
+        LocalDateTime fullFrom = LocalDateTime.of(2025, 3, 1, 10, 0);
+        LocalDateTime fullTo = LocalDateTime.of(2025, 3, 1, 18, 0);
+
+        when(adminLogHourlyMapper.sumByOperationType(null, fullFrom, fullTo))
+                .thenReturn(List.of(buildHourly(2, 100L), buildHourly(4, 5L)));
+        when(adminLogMapper.selectOperationCounts(null, start, fullFrom))
+                .thenReturn(List.of(buildCount(2, 3L)));
+        when(adminLogMapper.selectOperationCounts(null, fullTo, end.plusSeconds(1)))
+                .thenReturn(List.of(buildCount(4, 10L)));
+
+        List<AdminLog> result = adminLogRollupService.countByOperationType(null, start, end);
+
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(0).getOperationType());
+        assertEquals(103L, result.get(0).getOperationCount());
+        assertEquals(15L, result.get(1).getOperationCount());
+        verify(adminLogMapper, times(2)).selectOperationCounts(any(), any(), any());
+    }
+
+    @Test
+    void testShortRangeReadsRawLogsOnly() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 10);
+        LocalDateTime end = LocalDateTime.of(2025, 3, 1, 9, 50);
+        when(adminLogMapper.selectOperationCounts(eq(1L), eq(start), eq(end.plusSeconds(1))))
+                .thenReturn(List.of(buildCount(1, 7L)));
+
+        List<AdminLog> result = adminLogRollupService.countByOperationType(1L, start, end);
+
+        assertEquals(1, result.size());
+        assertEquals(7L, result.get(0).getOperationCount());
+        verifyNoInteractions(adminLogHourlyMapper);
+    }
+
+    @Test
+    void testBackfillRebuildsDaySegmentsFromFirstLog() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime firstLog = currentHour.minusHours(30).plusMinutes(25);
+        when(adminLogMapper.selectFirstLogTime()).thenReturn(firstLog);
+
+        assertEquals(30, adminLogRollupService.backfill(null, null));
+
+        InOrder inOrder = inOrder(adminLogHourlyMapper);
+        inOrder.verify(adminLogHourlyMapper).rebuildRange(currentHour.minusHours(30), currentHour.minusHours(6));
+        inOrder.verify(adminLogHourlyMapper).rebuildRange(currentHour.minusHours(6), currentHour);
+        verify(adminLogHourlyMapper, times(2)).rebuildRange(any(), any());
+    }
+
+    @Test
+    void testBackfillRejectsCurrentHourAndSkipsEmptyLog() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        // 当前小时仍在实时累加
+        assertThrows(ValidationException.class,
+                () -> adminLogRollupService.backfill(currentHour.minusHours(2), currentHour.plusMinutes(10)));
+        assertEquals(0, adminLogRollupService.backfill(null, currentHour));
+        verifyNoInteractions(adminLogHourlyMapper);
+    }
+
+    private AdminLog buildLog(Long adminId, Integer operationType, LocalDateTime createTime) {
+        AdminLog adminLog = new AdminLog();
+        adminLog.setAdminId(adminId);
+        adminLog.setOperationType(operationType);
+        adminLog.setCreateTime(createTime);
+        return adminLog;
+    }
+
+    private AdminLog buildCount(Integer operationType, Long count) {
+        AdminLog stat = new AdminLog();
+        stat.setOperationType(operationType);
+        stat.setOperationCount(count);
+        return stat;
+    }
+
+    private AdminLogHourly buildHourly(Integer operationType, Long count) {
+        AdminLogHourly row = new AdminLogHourly();
+        row.setOperationType(operationType);
+        row.setOpCount(count);
+        return row;
+    }
+}
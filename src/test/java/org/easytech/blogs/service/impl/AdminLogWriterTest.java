@@ -0,0 +1,78 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.AdminLog;
+import org.easytech.blogs.mapper.AdminLogMapper;
+import org.easytech.blogs.service.AdminLogRollupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 管理员日志异步批量写入器单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class AdminLogWriterTest {
+
+    @Mock
+    private AdminLogMapper adminLogMapper;
+
+    @Mock
+    private AdminLogRollupService adminLogRollupService;
+
+    @Test
+    void testBatchesAndDrainsOnShutdown() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(adminLogMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<AdminLog> logs = invocation.getArgument(0);
+            batchSizes.add(logs.size());
+            return logs.size();
+        });
+
+        AdminLogWriter writer = new AdminLogWriter(adminLogMapper, adminLogRollupService, 10000, 50, 10_000, 100, 10_000,
+                AdminLogWriter.OverflowPolicy.DROP);
+        writer.start();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(writer.submit(buildLog(i)));
+        }
+        writer.shutdown();
+
+        assertEquals(0, writer.pendingCount());
+        assertEquals(1000, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 50));
+        verify(adminLogMapper, never()).insert(any(AdminLog.class));
+    }
+
+    @Test
+    void testOverflowPolicies() {
+        when(adminLogMapper.insert(any(AdminLog.class))).thenReturn(1);
+
+        // 未启动写线程时队列只接收不消费，容量1
+        AdminLogWriter dropping = new AdminLogWriter(adminLogMapper, adminLogRollupService, 1, 10, 100, 10, 100,
+                AdminLogWriter.OverflowPolicy.DROP);
+        assertFalse(dropping.submit(buildLog(1)));
+
+        AdminLogWriter callerRuns = new AdminLogWriter(adminLogMapper, adminLogRollupService, 1, 10, 100, 10, 100,
+                AdminLogWriter.OverflowPolicy.CALLER_RUNS);
+        assertTrue(callerRuns.submit(buildLog(2)));
+        verify(adminLogMapper, times(1)).insert(any(AdminLog.class));
+    }
+
+    private AdminLog buildLog(int index) {
+        AdminLog adminLog = new AdminLog();
+        adminLog.setAdminId(1L);
+        adminLog.setOperationType(5);
+        adminLog.setOperationContent("操作" + index);
+        adminLog.setCreateTime(LocalDateTime.now());
+        return adminLog;
+    }
+}
@@ -1,5 +1,6 @@
 package org.easytech.blogs.service.impl;
 
+import io.jsonwebtoken.Claims;
 import org.easytech.blogs.dto.auth.LoginRequest;
 import org.easytech.blogs.dto.auth.LoginResponse;
 import org.easytech.blogs.dto.auth.RegisterRequest;
@@ -7,6 +8,9 @@ import org.easytech.blogs.entity.Role;
 import org.easytech.blogs.entity.User;
 import org.easytech.blogs.exception.UnauthorizedException;
 import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.service.PasswordHashingService;
+import org.easytech.blogs.service.RefreshTokenService;
+import org.easytech.blogs.service.TokenRevocationService;
 import org.easytech.blogs.service.UserCoinService;
 import org.easytech.blogs.service.UserService;
 import org.easytech.blogs.util.JwtUtil;
@@ -16,10 +20,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,7 +46,13 @@ class AuthServiceImplTest {
     private JwtUtil jwtUtil;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -80,12 +90,11 @@ class AuthServiceImplTest {
         request.setUsername("testuser");
         request.setPassword("password123");
 
-        when(userService.findByUsername("testuser")).thenReturn(testUser);
-        when(passwordEncoder.matches("password123", testUser.getPassword())).thenReturn(true);
+        when(userService.findLoginUser("testuser")).thenReturn(testUser);
+        when(passwordHashingService.matches("password123", testUser.getPassword())).thenReturn(true);
         when(userService.getUserRoles(testUser.getId())).thenReturn(testRoles);
-        when(jwtUtil.generateAccessToken(eq(1L), eq("testuser"), any())).thenReturn("access.token.here");
-        when(jwtUtil.generateRefreshToken(1L, "testuser")).thenReturn("refresh.token.here");
-        when(userService.updateLastLoginTime(1L)).thenReturn(true);
+        when(jwtUtil.generateAccessToken(eq(1L), eq("testuser"), any(), anyString())).thenReturn("access.token.here");
+        when(jwtUtil.issueRefreshToken(eq(1L), eq("testuser"), anyString())).thenReturn(issuedToken("refresh.token.here"));
 
         // When
         LoginResponse response = authService.login(request);
@@ -99,7 +108,8 @@ class AuthServiceImplTest {
         assertEquals("testuser", response.getUserInfo().getUsername());
         assertEquals("Test User", response.getUserInfo().getNickname());
 
-        verify(userService).updateLastLoginTime(1L);
+        verify(userService).recordLastLogin(1L);
+        verify(refreshTokenService).startFamily(anyString(), eq("refresh.token.here-jti"), any());
     }
 
     @Test
@@ -109,7 +119,7 @@ class AuthServiceImplTest {
         request.setUsername("nonexistent");
         request.setPassword("password123");
 
-        when(userService.findByUsername("nonexistent")).thenReturn(null);
+        when(userService.findLoginUser("nonexistent")).thenReturn(null);
 
         // When & Then
         assertThrows(UnauthorizedException.class, () -> authService.login(request));
@@ -122,8 +132,8 @@ class AuthServiceImplTest {
         request.setUsername("testuser");
         request.setPassword("wrongpassword");
 
-        when(userService.findByUsername("testuser")).thenReturn(testUser);
-        when(passwordEncoder.matches("wrongpassword", testUser.getPassword())).thenReturn(false);
+        when(userService.findLoginUser("testuser")).thenReturn(testUser);
+        when(passwordHashingService.matches("wrongpassword", testUser.getPassword())).thenReturn(false);
 
         // When & Then
         assertThrows(UnauthorizedException.class, () -> authService.login(request));
@@ -138,8 +148,8 @@ class AuthServiceImplTest {
 
         testUser.setStatus(0); // 禁用状态
 
-        when(userService.findByUsername("testuser")).thenReturn(testUser);
-        when(passwordEncoder.matches("password123", testUser.getPassword())).thenReturn(true);
+        when(userService.findLoginUser("testuser")).thenReturn(testUser);
+        when(passwordHashingService.matches("password123", testUser.getPassword())).thenReturn(true);
 
         // When & Then
         assertThrows(UnauthorizedException.class, () -> authService.login(request));
@@ -160,19 +170,17 @@ class AuthServiceImplTest {
         newUser.setUsername("newuser");
         newUser.setEmail("newuser@example.com");
         newUser.setNickname("New User");
+        newUser.setPassword("$2a$10$encodedNewPassword");
+        newUser.setStatus(1);
 
         when(userService.existsByUsername("newuser")).thenReturn(false);
         when(userService.existsByEmail("newuser@example.com")).thenReturn(false);
-        when(passwordEncoder.encode("password123")).thenReturn("$2a$10$encodedNewPassword");
         when(userService.register(any(User.class))).thenReturn(newUser);
         when(userCoinService.createUserCoinAccount(2L)).thenReturn(any());
 
-        // Mock login after registration
-        when(userService.findByUsername("newuser")).thenReturn(newUser);
-        when(passwordEncoder.matches("password123", "$2a$10$encodedNewPassword")).thenReturn(true);
         when(userService.getUserRoles(2L)).thenReturn(testRoles);
-        when(jwtUtil.generateAccessToken(eq(2L), eq("newuser"), any())).thenReturn("new.access.token");
-        when(jwtUtil.generateRefreshToken(2L, "newuser")).thenReturn("new.refresh.token");
+        when(jwtUtil.generateAccessToken(eq(2L), eq("newuser"), any(), anyString())).thenReturn("new.access.token");
+        when(jwtUtil.issueRefreshToken(eq(2L), eq("newuser"), anyString())).thenReturn(issuedToken("new.refresh.token"));
 
         // When
         LoginResponse response = authService.register(request);
@@ -182,6 +190,8 @@ class AuthServiceImplTest {
         assertEquals("new.access.token", response.getAccessToken());
         verify(userService).register(any(User.class));
         verify(userCoinService).createUserCoinAccount(2L);
+        // 注册后直接签发令牌，不再重复校验密码
+        verify(passwordHashingService, never()).matches(anyString(), anyString());
     }
 
     @Test
@@ -233,13 +243,15 @@ class AuthServiceImplTest {
         // Given
         String refreshToken = "valid.refresh.token";
 
-        when(jwtUtil.validateToken(refreshToken)).thenReturn(true);
-        when(jwtUtil.isRefreshToken(refreshToken)).thenReturn(true);
-        when(jwtUtil.getUserIdFromToken(refreshToken)).thenReturn(1L);
-        when(jwtUtil.getUsernameFromToken(refreshToken)).thenReturn("testuser");
+        Claims claims = mockRefreshClaims("refresh-jti", 1L, "family-1");
+        when(jwtUtil.parseToken(refreshToken)).thenReturn(claims);
         when(userService.getUserById(1L)).thenReturn(testUser);
         when(userService.getUserRoles(1L)).thenReturn(testRoles);
-        when(jwtUtil.generateAccessToken(eq(1L), eq("testuser"), any())).thenReturn("new.access.token");
+        when(jwtUtil.issueRefreshToken(1L, "testuser", "family-1")).thenReturn(issuedToken("rotated.refresh.token"));
+        when(refreshTokenService.rotate(eq("family-1"), eq("refresh-jti"), eq("rotated.refresh.token-jti"),
+                eq("rotated.refresh.token"), any()))
+                .thenReturn(RefreshTokenService.Rotation.ROTATED);
+        when(jwtUtil.generateAccessToken(eq(1L), eq("testuser"), any(), eq("family-1"))).thenReturn("new.access.token");
 
         // When
         LoginResponse response = authService.refreshToken(refreshToken);
@@ -247,8 +259,52 @@ class AuthServiceImplTest {
         // Then
         assertNotNull(response);
         assertEquals("new.access.token", response.getAccessToken());
-        assertEquals(refreshToken, response.getRefreshToken());
+        assertEquals("rotated.refresh.token", response.getRefreshToken());
         assertEquals("testuser", response.getUserInfo().getUsername());
+        // 令牌只解析一次
+        verify(jwtUtil, times(1)).parseToken(refreshToken);
+        verify(jwtUtil, never()).validateToken(anyString());
+    }
+
+    @Test
+    void testRefreshTokenReuseRevokesUserTokens() {
+        // Given
+        String refreshToken = "stale.refresh.token";
+
+        Claims claims = mockRefreshClaims("old-jti", 1L, "family-1");
+        when(jwtUtil.parseToken(refreshToken)).thenReturn(claims);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(jwtUtil.issueRefreshToken(1L, "testuser", "family-1")).thenReturn(issuedToken("rotated.refresh.token"));
+        when(refreshTokenService.rotate(eq("family-1"), eq("old-jti"), anyString(), anyString(), any()))
+                .thenReturn(RefreshTokenService.Rotation.REUSED);
+
+        // When & Then
+        assertThrows(UnauthorizedException.class, () -> authService.refreshToken(refreshToken));
+        verify(tokenRevocationService).revokeUserTokens(1L);
+    }
+
+    @Test
+    void testConcurrentRefreshWithinGraceGetsSameRotatedToken() {
+        // Given：另一个标签页刚用同一个令牌完成了轮换
+        String refreshToken = "shared.refresh.token";
+
+        Claims claims = mockRefreshClaims("shared-jti", 1L, "family-1");
+        when(jwtUtil.parseToken(refreshToken)).thenReturn(claims);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(userService.getUserRoles(1L)).thenReturn(testRoles);
+        when(jwtUtil.issueRefreshToken(1L, "testuser", "family-1")).thenReturn(issuedToken("discarded.refresh.token"));
+        when(refreshTokenService.rotate(eq("family-1"), eq("shared-jti"), anyString(), anyString(), any()))
+                .thenReturn(new RefreshTokenService.Rotation(RefreshTokenService.RotationResult.ALREADY_ROTATED,
+                        "first.tab.refresh.token"));
+        when(jwtUtil.generateAccessToken(eq(1L), eq("testuser"), any(), eq("family-1"))).thenReturn("new.access.token");
+
+        // When
+        LoginResponse response = authService.refreshToken(refreshToken);
+
+        // Then
+        assertEquals("first.tab.refresh.token", response.getRefreshToken());
+        assertEquals("new.access.token", response.getAccessToken());
+        verify(tokenRevocationService, never()).revokeUserTokens(anyLong());
     }
 
     @Test
@@ -256,7 +312,7 @@ class AuthServiceImplTest {
         // Given
         String invalidToken = "invalid.token";
 
-        when(jwtUtil.validateToken(invalidToken)).thenReturn(false);
+        when(jwtUtil.parseToken(invalidToken)).thenThrow(new RuntimeException("Token格式错误"));
 
         // When & Then
         assertThrows(UnauthorizedException.class, () -> authService.refreshToken(invalidToken));
@@ -267,8 +323,9 @@ class AuthServiceImplTest {
         // Given
         String accessToken = "access.token";
 
-        when(jwtUtil.validateToken(accessToken)).thenReturn(true);
-        when(jwtUtil.isRefreshToken(accessToken)).thenReturn(false);
+        Claims claims = mock(Claims.class);
+        when(claims.get("tokenType", String.class)).thenReturn("access");
+        when(jwtUtil.parseToken(accessToken)).thenReturn(claims);
 
         // When & Then
         assertThrows(UnauthorizedException.class, () -> authService.refreshToken(accessToken));
@@ -316,13 +373,53 @@ class AuthServiceImplTest {
         assertFalse(authService.isEmailAvailable("taken@example.com"));
     }
 
+    @Test
+    void testRefreshTokenRevoked() {
+        // Given
+        String refreshToken = "revoked.refresh.token";
+        Claims claims = mockRefreshClaims("refresh-jti", 1L, "family-1");
+        when(jwtUtil.parseToken(refreshToken)).thenReturn(claims);
+        when(tokenRevocationService.isRevoked(eq("refresh-jti"), eq(1L), any())).thenReturn(true);
+
+        // When & Then
+        assertThrows(UnauthorizedException.class, () -> authService.refreshToken(refreshToken));
+        verify(userService, never()).getUserById(any());
+    }
+
     @Test
     void testLogout() {
         // Given
         String token = "valid.token";
-        when(jwtUtil.getUsernameFromToken(token)).thenReturn("testuser");
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        Claims claims = mockClaims("access-jti", 1L, expiration);
+        when(claims.getSubject()).thenReturn("testuser");
+        when(claims.get("family", String.class)).thenReturn("family-1");
+        when(jwtUtil.parseToken(token)).thenReturn(claims);
 
-        // When & Then
-        assertDoesNotThrow(() -> authService.logout(token));
+        // When
+        authService.logout(token);
+
+        // Then
+        verify(tokenRevocationService).revokeToken("access-jti", expiration);
+        verify(refreshTokenService).revokeFamily("family-1");
+    }
+
+    private Claims mockClaims(String tokenId, Long userId, Date expiration) {
+        Claims claims = mock(Claims.class);
+        when(claims.getId()).thenReturn(tokenId);
+        lenient().when(claims.get("userId", Long.class)).thenReturn(userId);
+        lenient().when(claims.getExpiration()).thenReturn(expiration);
+        return claims;
+    }
+
+    private Claims mockRefreshClaims(String tokenId, Long userId, String familyId) {
+        Claims claims = mockClaims(tokenId, userId, null);
+        when(claims.get("tokenType", String.class)).thenReturn("refresh");
+        lenient().when(claims.get("family", String.class)).thenReturn(familyId);
+        return claims;
+    }
+
+    private JwtUtil.IssuedToken issuedToken(String token) {
+        return new JwtUtil.IssuedToken(token, token + "-jti", new Date(System.currentTimeMillis() + 60_000));
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package org.easytech.blogs.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt强度基准
+ * 按 hash-threads 个线程并发执行 matches，统计各强度下单次校验的p50/p99，给出满足目标p99的最大强度。
+ * 类名不以Test结尾，默认构建不执行，在目标机器上手动运行：
+ * mvn test -Dtest=BcryptCostBenchmark -Dbenchmark.targetP99Millis=250 -Dbenchmark.threads=4
+ */
+class BcryptCostBenchmark {
+
+    private static final int MIN_COST = 8;
+    private static final int MAX_COST = 14;
+
+    @Test
+    void pickCostForTargetP99() throws Exception {
+        long targetP99Millis = Long.getLong("benchmark.targetP99Millis", 250L);
+        int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+        int samples = Integer.getInteger("benchmark.samples", 64);
+
+        int recommended = MIN_COST;
+        System.out.printf("BCrypt基准：线程数=%d，每档样本=%d，目标p99=%dms%n", threads, samples, targetP99Millis);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int cost = MIN_COST; cost <= MAX_COST; cost++) {
+                BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+                String hash = encoder.encode("benchmark-password");
+                encoder.matches("benchmark-password", hash); // 预热
+
+                List<Future<Long>> futures = new ArrayList<>(samples);
+                long start = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    futures.add(executor.submit(() -> {
+                        long begin = System.nanoTime();
+                        encoder.matches("benchmark-password", hash);
+                        return System.nanoTime() - begin;
+                    }));
+                }
+                List<Long> latencies = new ArrayList<>(samples);
+                for (Future<Long> future : futures) {
+                    latencies.add(future.get());
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Collections.sort(latencies);
+
+                long p50 = TimeUnit.NANOSECONDS.toMillis(percentile(latencies, 0.50));
+                long p99 = TimeUnit.NANOSECONDS.toMillis(percentile(latencies, 0.99));
+                System.out.printf("cost=%d p50=%dms p99=%dms 吞吐=%.1f次/秒%n", cost, p50, p99, samples / seconds);
+
+                if (p99 > targetP99Millis) {
+                    break;
+                }
+                recommended = cost;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("建议 blog.password.bcrypt-strength=%d%n", recommended);
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
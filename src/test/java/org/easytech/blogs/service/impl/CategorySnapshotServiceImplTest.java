@@ -0,0 +1,84 @@
+package org.easytech.blogs.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.easytech.blogs.entity.Category;
+import org.easytech.blogs.mapper.CategoryMapper;
+import org.easytech.blogs.service.CategorySnapshotService.RenderedJson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分类快照服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CategorySnapshotServiceImplTest {
+
+    @Mock
+    private CategoryMapper categoryMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private CategorySnapshotServiceImpl categorySnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(categoryMapper.selectAllCategories()).thenReturn(List.of(buildCategory(1L, "Java"), buildCategory(2L, "Go")));
+        when(categoryMapper.selectCategoriesWithPosts()).thenReturn(List.of(buildCategory(1L, "Java")));
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        categorySnapshotService = new CategorySnapshotServiceImpl(categoryMapper, stringRedisTemplate, objectMapper);
+        categorySnapshotService.init();
+    }
+
+    @Test
+    void testServesPreRenderedJsonWithoutQueryingAgain() {
+        RenderedJson first = categorySnapshotService.getAllJson();
+        RenderedJson second = categorySnapshotService.getAllJson();
+
+        assertSame(first, second);
+        assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""));
+        assertTrue(new String(first.body(), StandardCharsets.UTF_8).contains("\"name\":\"Go\""));
+        assertEquals(1L, categorySnapshotService.getByName("JAVA").getId());
+        assertEquals(1, categorySnapshotService.getWithPosts().size());
+        verify(categoryMapper, times(1)).selectAllCategories();
+    }
+
+    @Test
+    void testRefreshSwapsSnapshotAndChangesEtag() {
+        String etag = categorySnapshotService.getAllJson().etag();
+
+        when(categoryMapper.selectAllCategories()).thenReturn(List.of(buildCategory(3L, "Rust")));
+        when(valueOperations.increment(anyString())).thenReturn(1L);
+        categorySnapshotService.refresh();
+
+        assertNotEquals(etag, categorySnapshotService.getAllJson().etag());
+        assertNull(categorySnapshotService.getById(1L));
+        assertEquals("Rust", categorySnapshotService.getById(3L).getName());
+    }
+
+    private Category buildCategory(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setSortOrder(0);
+        category.setPostCount(0L);
+        return category;
+    }
+}
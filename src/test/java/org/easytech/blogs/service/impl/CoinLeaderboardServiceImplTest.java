@@ -0,0 +1,142 @@
+package org.easytech.blogs.service.impl;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.easytech.blogs.entity.UserCoin;
+import org.easytech.blogs.mapper.UserCoinMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 积分排行榜服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CoinLeaderboardServiceImplTest {
+
+    private static final String BALANCE_KEY = "coin:leaderboard:balance";
+    private static final String LOCK_KEY = "coin:leaderboard:rebuild:lock";
+    private static final String DIRTY_KEY = "coin:leaderboard:rebuild:dirty";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private UserCoinMapper userCoinMapper;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private CoinLeaderboardServiceImpl coinLeaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        coinLeaderboardService = new CoinLeaderboardServiceImpl(stringRedisTemplate, userCoinMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coinLeaderboardService.shutdown();
+    }
+
+    @Test
+    void testTopUsersSkipInactiveUsersAndKeepRedisOrder() {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(BALANCE_KEY, 0, 2)).thenReturn(new LinkedHashSet<>(List.of("3", "2", "1")));
+        when(zSetOperations.reverseRange(BALANCE_KEY, 3, 5)).thenReturn(new LinkedHashSet<>(List.of("7")));
+        // 用户2已被禁用，回表查询不返回
+        when(userCoinMapper.selectActiveAccounts(List.of(3L, 2L, 1L)))
+                .thenReturn(List.of(buildAccount(1L, "alice", 50), buildAccount(3L, "carol", 90)));
+        when(userCoinMapper.selectActiveAccounts(List.of(7L))).thenReturn(List.of(buildAccount(7L, "grace", 10)));
+
+        List<Map<String, Object>> top = coinLeaderboardService.getTopUsers(3, "coinBalance");
+
+        assertEquals(3, top.size());
+        assertEquals(List.of(3L, 1L, 7L), top.stream().map(item -> item.get("userId")).toList());
+        assertEquals(1, top.get(0).get("rank"));
+        assertEquals("carol", top.get(0).get("username"));
+        assertEquals(90, top.get(0).get("coinBalance"));
+        assertEquals(3, top.get(2).get("rank"));
+    }
+
+    @Test
+    void testMissingBoardFallsBackAndRebuildsInBackground() {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(BALANCE_KEY, 0, 9)).thenReturn(Set.of());
+        when(stringRedisTemplate.hasKey(BALANCE_KEY)).thenReturn(false);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        // 其他节点正在重建
+        when(valueOperations.setIfAbsent(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertNull(coinLeaderboardService.getTopAccounts(10, "coinBalance"));
+        // 短时间内再次缺失不会重复提交重建
+        assertNull(coinLeaderboardService.getTopAccounts(10, "coinBalance"));
+
+        verify(valueOperations, timeout(1000).times(1)).setIfAbsent(eq(LOCK_KEY), anyString(), any(Duration.class));
+        verify(userCoinMapper, never()).streamActiveAccounts(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuildReplaysDirtyUsersAfterSwap() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        doAnswer(invocation -> {
+            ResultHandler<UserCoin> handler = invocation.getArgument(0);
+            ResultContext<UserCoin> context = mock(ResultContext.class);
+            when(context.getResultObject()).thenReturn(buildAccount(1L, null, 100));
+            handler.handleResult(context);
+            return null;
+        }).when(userCoinMapper).streamActiveAccounts(any());
+        // 重建期间用户5有积分变动
+        when(setOperations.pop(DIRTY_KEY, 1000)).thenReturn(List.of("5")).thenReturn(List.of());
+        when(userCoinMapper.selectActiveAccounts(List.of(5L))).thenReturn(List.of(buildAccount(5L, null, 30)));
+
+        assertEquals(1, coinLeaderboardService.rebuild());
+
+        InOrder inOrder = inOrder(stringRedisTemplate, setOperations, userCoinMapper);
+        inOrder.verify(stringRedisTemplate).rename(BALANCE_KEY + ":rebuilding", BALANCE_KEY);
+        inOrder.verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK_KEY)), anyString());
+        inOrder.verify(setOperations).pop(DIRTY_KEY, 1000);
+        inOrder.verify(userCoinMapper).selectActiveAccounts(List.of(5L));
+        inOrder.verify(stringRedisTemplate).executePipelined(any(RedisCallback.class));
+    }
+
+    private UserCoin buildAccount(Long userId, String username, int balance) {
+        UserCoin account = new UserCoin();
+        account.setUserId(userId);
+        account.setUsername(username);
+        account.setCoinBalance(balance);
+        account.setTotalEarned(balance);
+        account.setTotalConsumed(0);
+        return account;
+    }
+}
@@ -0,0 +1,140 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.mapper.CoinMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 每日积分奖励去重服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CoinRewardDedupServiceImplTest {
+
+    private static final long USER_ID = 7L;
+    private static final int SIGN_IN = 5;
+    private static final int COMMENT = 2;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private CoinMapper coinMapper;
+
+    private CoinRewardDedupServiceImpl dedupService;
+
+    @BeforeEach
+    void setUp() {
+        dedupService = new CoinRewardDedupServiceImpl(stringRedisTemplate, coinMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDuplicateSameDayClaimIsRejectedWithoutLedgerQuery() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setBit(signInKey(), USER_ID, true)).thenReturn(false, true);
+
+        assertTrue(dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+        assertFalse(dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+
+        verify(coinMapper, times(1)).hasGainedCoinToday(eq(USER_ID), eq(SIGN_IN), isNull(), any(), any());
+    }
+
+    @Test
+    void testMissingMarkIsConfirmedAgainstLedgerAndKept() {
+        // 上线当天位图为空，但流水显示今日已发放
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.add(anyString(), eq(USER_ID + ":100"))).thenReturn(1L);
+        when(coinMapper.hasGainedCoinToday(eq(USER_ID), eq(COMMENT), eq(100L), any(), any())).thenReturn(true);
+
+        assertFalse(dedupService.tryAcquire(USER_ID, COMMENT, 100L));
+
+        verify(setOperations, never()).remove(anyString(), any());
+    }
+
+    @Test
+    void testSlotIsReleasedOnRollbackOnly() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setBit(signInKey(), USER_ID, true)).thenReturn(false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        verify(valueOperations, never()).setBit(signInKey(), USER_ID, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(valueOperations).setBit(signInKey(), USER_ID, false);
+    }
+
+    @Test
+    void testLocalFallbackRespectsLedger() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setBit(anyString(), anyLong(), anyBoolean()))
+                .thenThrow(new RedisConnectionFailureException("redis down"));
+        // 其他实例今日已向用户7发放，用户8尚未领取
+        when(coinMapper.hasGainedCoinToday(eq(USER_ID), eq(SIGN_IN), isNull(), any(), any())).thenReturn(true);
+
+        assertFalse(dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+        assertTrue(dedupService.tryAcquire(8L, SIGN_IN, null));
+        assertFalse(dedupService.tryAcquire(8L, SIGN_IN, null));
+
+        verify(coinMapper, times(2)).hasGainedCoinToday(anyLong(), eq(SIGN_IN), isNull(), any(), any());
+    }
+
+    @Test
+    void testSecondAcquireSucceedsAfterFailedLedgerCheck() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setBit(signInKey(), USER_ID, true)).thenReturn(false);
+        when(coinMapper.hasGainedCoinToday(eq(USER_ID), eq(SIGN_IN), isNull(), any(), any()))
+                .thenThrow(new QueryTimeoutException("db timeout"))
+                .thenReturn(false);
+
+        assertThrows(QueryTimeoutException.class, () -> dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+        // 校验失败时已释放占用
+        verify(valueOperations).setBit(signInKey(), USER_ID, false);
+
+        assertTrue(dedupService.tryAcquire(USER_ID, SIGN_IN, null));
+    }
+
+    private static void completeTransaction(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static String signInKey() {
+        return "coin:reward:" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ":" + SIGN_IN;
+    }
+}
@@ -0,0 +1,120 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.FileUpload;
+import org.easytech.blogs.exception.BusinessException;
+import org.easytech.blogs.exception.FileUploadException;
+import org.easytech.blogs.mapper.FileUploadMapper;
+import org.easytech.blogs.service.UserStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文件上传服务单元测试
+ * 文件先写入磁盘再占用配额，占用或写入记录失败时删除已写入的文件
+ */
+@ExtendWith(MockitoExtension.class)
+class FileUploadServiceImplTest {
+
+    private static final long USER_ID = 1L;
+
+    @Mock
+    private FileUploadMapper fileUploadMapper;
+
+    @Mock
+    private UserStorageService userStorageService;
+
+    @TempDir
+    Path uploadDir;
+
+    private FileUploadServiceImpl fileUploadService;
+
+    @BeforeEach
+    void setUp() {
+        fileUploadService = new FileUploadServiceImpl(fileUploadMapper, userStorageService);
+        ReflectionTestUtils.setField(fileUploadService, "uploadPath", uploadDir.toString());
+        ReflectionTestUtils.setField(fileUploadService, "maxFileSize", 1024L);
+        ReflectionTestUtils.setField(fileUploadService, "allowedTypes", "txt,png");
+    }
+
+    @Test
+    void testFileIsWrittenBeforeQuotaIsReserved() throws IOException {
+        doAnswer(invocation -> {
+            // 占用配额时文件已在磁盘上
+            assertEquals(1, countFiles());
+            return null;
+        }).when(userStorageService).reserve(USER_ID, 5L);
+        when(fileUploadMapper.insert(any(FileUpload.class))).thenReturn(1);
+
+        FileUpload result = fileUploadService.uploadFile(textFile("a.txt"), USER_ID, null, null);
+
+        assertTrue(Files.exists(uploadDir.resolve(result.getFilePath())));
+        assertEquals(5L, result.getFileSize());
+    }
+
+    @Test
+    void testFileIsDeletedWhenReserveOrInsertFails() throws IOException {
+        doThrow(new FileUploadException("存储空间不足")).doNothing().when(userStorageService).reserve(USER_ID, 5L);
+        when(fileUploadMapper.insert(any(FileUpload.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(FileUploadException.class,
+                () -> fileUploadService.uploadFile(textFile("a.txt"), USER_ID, null, null));
+        assertEquals(0, countFiles());
+
+        assertThrows(BusinessException.class,
+                () -> fileUploadService.uploadFile(textFile("b.txt"), USER_ID, null, null));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void testBatchUploadRemovesUnsavedFilesOnQuotaFailure() throws IOException {
+        doNothing().doThrow(new FileUploadException("存储空间不足")).when(userStorageService).reserve(eq(USER_ID), anyLong());
+        when(fileUploadMapper.insert(any(FileUpload.class))).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertThrows(BusinessException.class, () -> fileUploadService.uploadFiles(
+                new MockMultipartFile[]{textFile("a.txt"), textFile("b.txt"), textFile("c.txt")}, USER_ID, null, null));
+
+        // 未入库的文件立即删除，已入库的第一个文件随事务回滚删除
+        assertEquals(1, countFiles());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(0, countFiles());
+        verify(fileUploadMapper, times(1)).insert(any(FileUpload.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static MockMultipartFile textFile(String name) {
+        return new MockMultipartFile("file", name, "text/plain", "hello".getBytes());
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
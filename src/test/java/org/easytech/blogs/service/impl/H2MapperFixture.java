@@ -0,0 +1,73 @@
+package org.easytech.blogs.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import org.apache.ibatis.mapping.Environment;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * H2（MySQL模式）Mapper测试夹具
+ * 每次创建独立的内存库，执行建表语句并注册Mapper，Mapper与事务模板共用同一数据源，
+ * 在 TransactionTemplate 中调用的Mapper参与同一事务
+ */
+final class H2MapperFixture {
+
+    private final JdbcDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlSessionTemplate sqlSession;
+
+    private H2MapperFixture(JdbcDataSource dataSource, SqlSessionTemplate sqlSession) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.sqlSession = sqlSession;
+    }
+
+    /**
+     * 创建内存库
+     * @param ddl 建表语句，按顺序执行
+     * @param mappers 需要注册的Mapper接口
+     */
+    static H2MapperFixture create(List<String> ddl, Class<?>... mappers) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:test_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        ddl.forEach(jdbcTemplate::execute);
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("test", new SpringManagedTransactionFactory(), dataSource));
+        GlobalConfigUtils.setGlobalConfig(configuration, GlobalConfigUtils.defaults().setBanner(false));
+        for (Class<?> mapper : mappers) {
+            configuration.addMapper(mapper);
+        }
+        return new H2MapperFixture(dataSource,
+                new SqlSessionTemplate(new MybatisSqlSessionFactoryBuilder().build(configuration)));
+    }
+
+    <T> T getMapper(Class<T> mapperType) {
+        return sqlSession.getMapper(mapperType);
+    }
+
+    JdbcDataSource getDataSource() {
+        return dataSource;
+    }
+
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    TransactionTemplate getTransactionTemplate() {
+        return transactionTemplate;
+    }
+}
@@ -0,0 +1,92 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.dto.OrphanCleanupReport;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.IntegrityMapper;
+import org.easytech.blogs.mapper.TagMapper;
+import org.easytech.blogs.service.TagDictionaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 数据完整性维护服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class IntegrityMaintenanceServiceImplTest {
+
+    @Mock
+    private IntegrityMapper integrityMapper;
+
+    @Mock
+    private TagMapper tagMapper;
+
+    @Mock
+    private TagDictionaryService tagDictionaryService;
+
+    @Mock
+    private UserRoleCache userRoleCache;
+
+    @InjectMocks
+    private IntegrityMaintenanceServiceImpl integrityMaintenanceService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(integrityMaintenanceService, "chunkSize", 1000L);
+        ReflectionTestUtils.setField(integrityMaintenanceService, "chunkPauseMillis", 0L);
+    }
+
+    @Test
+    void testCleansEveryChunkForEveryParentColumn() {
+        when(integrityMapper.selectMinId("tb_post_tag")).thenReturn(1L);
+        when(integrityMapper.selectMaxId("tb_post_tag")).thenReturn(2500L);
+        when(integrityMapper.deleteOrphans(eq("tb_post_tag"), eq("post_id"), eq("tb_post"), eq(true), anyLong(), anyLong()))
+                .thenReturn(2);
+        when(integrityMapper.deleteOrphans(eq("tb_post_tag"), eq("tag_id"), eq("tb_tag"), eq(true), anyLong(), anyLong()))
+                .thenReturn(0, 1, 0);
+
+        OrphanCleanupReport report = integrityMaintenanceService.cleanOrphans("tb_post_tag");
+
+        assertEquals(3, report.getChunkCount());
+        assertEquals(7, report.getDeleted());
+        assertEquals(6L, report.getDeletedByColumn().get("post_id"));
+        assertEquals(1L, report.getDeletedByColumn().get("tag_id"));
+        verify(integrityMapper).deleteOrphans("tb_post_tag", "post_id", "tb_post", true, 2001L, 2501L);
+        // 删除了文章标签关联，标签使用次数随之重建
+        verify(tagMapper).rebuildAllUseCounts();
+        verify(tagDictionaryService).markStale();
+        verifyNoInteractions(userRoleCache);
+    }
+
+    @Test
+    void testUserRoleCleanupEvictsRoleCacheOnlyWhenRowsDeleted() {
+        when(integrityMapper.selectMinId("tb_user_role")).thenReturn(1L);
+        when(integrityMapper.selectMaxId("tb_user_role")).thenReturn(10L);
+        when(integrityMapper.deleteOrphans(eq("tb_user_role"), anyString(), anyString(), anyBoolean(), anyLong(), anyLong()))
+                .thenReturn(0);
+
+        integrityMaintenanceService.cleanOrphans("tb_user_role");
+        verifyNoInteractions(userRoleCache);
+
+        when(integrityMapper.deleteOrphans(eq("tb_user_role"), eq("role_id"), eq("tb_role"), eq(true), anyLong(), anyLong()))
+                .thenReturn(3);
+        integrityMaintenanceService.scheduledCleanup();
+
+        verify(userRoleCache).evictAllUsers();
+        verifyNoInteractions(tagMapper, tagDictionaryService);
+    }
+
+    @Test
+    void testRejectsUnregisteredTable() {
+        assertThrows(ValidationException.class, () -> integrityMaintenanceService.cleanOrphans("tb_user"));
+        verifyNoInteractions(integrityMapper);
+    }
+}
@@ -0,0 +1,63 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * 最后登录时间批量写入单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LastLoginRecorderTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    private LastLoginRecorder lastLoginRecorder;
+
+    @BeforeEach
+    void setUp() {
+        lastLoginRecorder = new LastLoginRecorder(userMapper);
+        ReflectionTestUtils.setField(lastLoginRecorder, "batchSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCoalescesLoginsAndWritesInBatches() {
+        lastLoginRecorder.record(1L);
+        lastLoginRecorder.record(1L);
+        lastLoginRecorder.record(2L);
+        lastLoginRecorder.record(3L);
+        when(userMapper.batchUpdateLastLoginTime(anyMap())).thenAnswer(invocation ->
+                ((Map<Long, LocalDateTime>) invocation.getArgument(0)).size());
+
+        lastLoginRecorder.flush();
+
+        ArgumentCaptor<Map<Long, LocalDateTime>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(userMapper, times(2)).batchUpdateLastLoginTime(captor.capture());
+        assertEquals(3, captor.getAllValues().stream().mapToInt(Map::size).sum());
+        assertEquals(0, lastLoginRecorder.pendingCount());
+    }
+
+    @Test
+    void testRequeuesFailedBatch() {
+        lastLoginRecorder.record(1L);
+        when(userMapper.batchUpdateLastLoginTime(anyMap())).thenThrow(new RuntimeException("db down"));
+
+        lastLoginRecorder.flush();
+
+        assertEquals(1, lastLoginRecorder.pendingCount());
+    }
+}
@@ -0,0 +1,61 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 密码哈希服务单元测试
+ */
+class PasswordHashingServiceImplTest {
+
+    @Test
+    void testMatchesAndDetectsCostChange() {
+        PasswordHashingServiceImpl service = new PasswordHashingServiceImpl(new BCryptPasswordEncoder(5), 5, 1, 4, 5000);
+        try {
+            String hash = service.encode("secret");
+
+            assertTrue(service.matches("secret", hash));
+            assertFalse(service.matches("wrong", hash));
+            assertFalse(service.needsRehash(hash));
+            assertTrue(service.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+        when(slowEncoder.encode(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        PasswordHashingServiceImpl service = new PasswordHashingServiceImpl(slowEncoder, 10, 1, 1, 5000);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // 一个占住线程，一个占满队列
+            callers.submit(() -> service.encode("a"));
+            callers.submit(() -> service.encode("b"));
+            Thread.sleep(200);
+
+            assertThrows(ServiceUnavailableException.class, () -> service.encode("c"));
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            service.shutdown();
+        }
+    }
+}
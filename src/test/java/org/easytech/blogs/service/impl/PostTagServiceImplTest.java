@@ -0,0 +1,119 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.PostTag;
+import org.easytech.blogs.exception.BusinessException;
+import org.easytech.blogs.mapper.PostMapper;
+import org.easytech.blogs.mapper.PostTagMapper;
+import org.easytech.blogs.mapper.TagMapper;
+import org.easytech.blogs.service.IntegrityMaintenanceService;
+import org.easytech.blogs.service.TagDictionaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文章标签关联服务单元测试
+ * 标签使用次数按增量维护：扣减必须在删除关联之前（扣减语句按现存关联计数），删除未命中时不扣减
+ */
+@ExtendWith(MockitoExtension.class)
+class PostTagServiceImplTest {
+
+    @Mock
+    private PostTagMapper postTagMapper;
+
+    @Mock
+    private PostMapper postMapper;
+
+    @Mock
+    private TagMapper tagMapper;
+
+    @Mock
+    private IntegrityMaintenanceService integrityMaintenanceService;
+
+    @Mock
+    private TagDictionaryService tagDictionaryService;
+
+    private PostTagServiceImpl postTagService;
+
+    @BeforeEach
+    void setUp() {
+        postTagService = new PostTagServiceImpl(postTagMapper, postMapper, tagMapper,
+                integrityMaintenanceService, tagDictionaryService);
+    }
+
+    @Test
+    void testReplacingTagsDecrementsOldLinksBeforeDeletingThem() {
+        // 标签11已关联（并发请求先写入），不能重复计数
+        when(postTagMapper.selectCount(any())).thenReturn(0L, 1L);
+        when(postTagMapper.insert(any(PostTag.class))).thenReturn(1);
+
+        assertTrue(postTagService.setPostTags(1L, List.of(10L, 11L)));
+
+        InOrder inOrder = inOrder(tagMapper, postTagMapper);
+        inOrder.verify(tagMapper).decrementUseCountsByPosts(List.of(1L));
+        inOrder.verify(postTagMapper).deleteByPostId(1L);
+        inOrder.verify(postTagMapper).insert(any(PostTag.class));
+        inOrder.verify(tagMapper).adjustUseCount(10L, 1);
+        verify(tagMapper, never()).adjustUseCount(eq(11L), anyLong());
+        verify(postTagMapper, times(1)).insert(any(PostTag.class));
+    }
+
+    @Test
+    void testRemoveThatLostTheRaceDoesNotDecrement() {
+        // 另一请求已删除同一关联
+        when(postTagMapper.delete(any())).thenReturn(0, 1);
+
+        assertFalse(postTagService.removePostTag(1L, 10L));
+        verify(tagMapper, never()).adjustUseCount(anyLong(), anyLong());
+        verify(tagDictionaryService, never()).markStale();
+
+        assertTrue(postTagService.removePostTag(1L, 10L));
+        verify(tagMapper).adjustUseCount(10L, -1);
+    }
+
+    @Test
+    void testBatchRemoveDecrementsAllPostsInOneStatement() {
+        List<Long> postIds = List.of(1L, 2L, 3L);
+
+        assertTrue(postTagService.batchRemovePostTags(postIds));
+        assertTrue(postTagService.batchRemovePostTags(List.of()));
+
+        InOrder inOrder = inOrder(tagMapper, postTagMapper);
+        inOrder.verify(tagMapper).decrementUseCountsByPosts(postIds);
+        inOrder.verify(postTagMapper).delete(any());
+        verify(tagMapper, times(1)).decrementUseCountsByPosts(anyList());
+    }
+
+    @Test
+    void testRemovingTagFromAllPostsResetsCountAfterDelete() {
+        when(postTagMapper.deleteByTagId(10L)).thenReturn(4);
+
+        assertTrue(postTagService.removeAllTagPosts(10L));
+
+        InOrder inOrder = inOrder(postTagMapper, tagMapper, tagDictionaryService);
+        inOrder.verify(postTagMapper).deleteByTagId(10L);
+        inOrder.verify(tagMapper).updateUseCount(10L, 0L);
+        inOrder.verify(tagDictionaryService).markStale();
+        verify(tagMapper, never()).decrementUseCountsByPosts(anyList());
+    }
+
+    @Test
+    void testFailedRebuildSurfacesAndLeavesDictionaryAlone() {
+        when(tagMapper.rebuildAllUseCounts()).thenThrow(new IllegalStateException("lock wait timeout")).thenReturn(3);
+
+        assertThrows(BusinessException.class, () -> postTagService.syncAllTagUseCounts());
+        verify(tagDictionaryService, never()).markStale();
+
+        assertTrue(postTagService.syncAllTagUseCounts());
+        verify(tagDictionaryService).markStale();
+    }
+}
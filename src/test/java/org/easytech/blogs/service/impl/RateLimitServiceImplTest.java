@@ -0,0 +1,137 @@
+package org.easytech.blogs.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 限流服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RateLimitServiceImplTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RateLimitServiceImpl rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitService = new RateLimitServiceImpl(stringRedisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLocalBucketAllowsBurstThenRejects() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimitService.tryAcquire("login:ip1", 5, MINUTE));
+        }
+        long retryAfter = rateLimitService.tryAcquire("login:ip1", 5, MINUTE);
+        assertTrue(retryAfter > 0 && retryAfter <= MINUTE / 5);
+        // 其他桶不受影响
+        assertEquals(0, rateLimitService.tryAcquire("login:ip2", 5, MINUTE));
+
+        // Redis不可用时仍按本地令牌桶限流
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        rateLimitService.sync();
+        assertTrue(rateLimitService.tryAcquire("login:ip1", 5, MINUTE) > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGlobalCountOverLimitBlocksBucket() {
+        assertEquals(0, rateLimitService.tryAcquire("comment:u1", 10, MINUTE));
+        // 其他节点已放行了足够多的请求
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("1"), eq(String.valueOf(MINUTE)), anyString()))
+                .thenReturn(10L);
+
+        rateLimitService.sync();
+
+        assertTrue(rateLimitService.tryAcquire("comment:u1", 10, MINUTE) > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedSyncKeepsPendingCountForNextRound() {
+        for (int i = 0; i < 3; i++) {
+            rateLimitService.tryAcquire("post:u1", 100, MINUTE);
+        }
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(5L);
+
+        rateLimitService.sync();
+        rateLimitService.tryAcquire("post:u1", 100, MINUTE);
+        rateLimitService.sync();
+
+        // 失败的3次与之后的1次合并上报
+        verify(stringRedisTemplate, times(2)).execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString());
+        verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), eq("4"), anyString(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAcquiresRacingWithSyncAreReportedExactlyOnce() throws Exception {
+        AtomicLong reported = new AtomicLong();
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    reported.addAndGet(Long.parseLong(invocation.getArgument(2)));
+                    return 0L;
+                });
+
+        int threads = 8;
+        int perThread = 2000;
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < perThread; j++) {
+                        if (rateLimitService.tryAcquire("search:ip1", threads * perThread, MINUTE) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            while (futures.stream().anyMatch(future -> !future.isDone())) {
+                rateLimitService.sync();
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        rateLimitService.sync();
+
+        assertTrue(allowed.get() > 0);
+        assertEquals(allowed.get(), reported.get());
+    }
+}
@@ -0,0 +1,85 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.service.RefreshTokenService.Rotation;
+import org.easytech.blogs.service.RefreshTokenService.RotationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 刷新令牌服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        refreshTokenService = new RefreshTokenServiceImpl(stringRedisTemplate);
+        ReflectionTestUtils.setField(refreshTokenService, "rotationGraceMillis", 10_000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRotateMapsScriptResult() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("jti-1"), eq("jti-2"), anyString(),
+                eq("token-2"), eq("10000"))).thenReturn("1");
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("jti-1"), eq("jti-3"), anyString(),
+                eq("token-3"), eq("10000"))).thenReturn("2 token-2");
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("jti-0"), eq("jti-4"), anyString(),
+                eq("token-4"), eq("10000"))).thenReturn("-1");
+
+        assertEquals(Rotation.ROTATED, refreshTokenService.rotate("family", "jti-1", "jti-2", "token-2", expiry()));
+        Rotation concurrent = refreshTokenService.rotate("family", "jti-1", "jti-3", "token-3", expiry());
+        assertEquals(RotationResult.ALREADY_ROTATED, concurrent.result());
+        assertEquals("token-2", concurrent.refreshToken());
+        assertEquals(Rotation.REUSED, refreshTokenService.rotate("family", "jti-0", "jti-4", "token-4", expiry()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFallsBackToLocalFamiliesWhenRedisUnavailable() {
+        RedisConnectionFailureException failure = new RedisConnectionFailureException("down");
+        doThrow(failure).when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any()))
+                .thenThrow(failure);
+
+        refreshTokenService.startFamily("family", "jti-1", expiry());
+
+        assertEquals(Rotation.ROTATED, refreshTokenService.rotate("family", "jti-1", "jti-2", "token-2", expiry()));
+        // 宽限期内并发刷新拿到同一个新令牌，家族不作废
+        assertEquals("token-2", refreshTokenService.rotate("family", "jti-1", "jti-3", "token-3", expiry()).refreshToken());
+
+        // 宽限期过后旧令牌再次出现：作废家族，之后连当前令牌也无法使用
+        ReflectionTestUtils.setField(refreshTokenService, "rotationGraceMillis", 0L);
+        assertEquals(Rotation.ROTATED, refreshTokenService.rotate("family", "jti-2", "jti-5", "token-5", expiry()));
+        assertEquals(Rotation.REUSED, refreshTokenService.rotate("family", "jti-2", "jti-6", "token-6", expiry()));
+        assertEquals(Rotation.UNKNOWN, refreshTokenService.rotate("family", "jti-5", "jti-7", "token-7", expiry()));
+    }
+
+    private Date expiry() {
+        return new Date(System.currentTimeMillis() + 60_000);
+    }
+}
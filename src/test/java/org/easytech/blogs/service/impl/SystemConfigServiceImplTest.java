@@ -0,0 +1,157 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.SystemConfigMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 系统配置服务测试
+ * 使用H2（MySQL模式）运行真实的Mapper SQL，Redis版本号由Mock提供
+ */
+class SystemConfigServiceImplTest {
+
+    private static final String VERSION_KEY = "system:config:version";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private SystemConfigServiceImpl systemConfigService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        H2MapperFixture fixture = H2MapperFixture.create(List.of("CREATE TABLE tb_system_config (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, config_key VARCHAR(100) NOT NULL UNIQUE, config_value TEXT, " +
+                "config_name VARCHAR(100) NOT NULL, description VARCHAR(255), config_group VARCHAR(50) DEFAULT 'default', " +
+                "data_type TINYINT NOT NULL DEFAULT 1, is_system TINYINT NOT NULL DEFAULT 0, " +
+                "sort_order INT NOT NULL DEFAULT 0, status TINYINT NOT NULL DEFAULT 1, " +
+                "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"),
+                SystemConfigMapper.class);
+        jdbcTemplate = fixture.getJdbcTemplate();
+        transactionTemplate = fixture.getTransactionTemplate();
+        insertConfig("site.name", "旧站名", "网站", 1);
+        insertConfig("post.page.size", "10", "文章", 1);
+        insertConfig("feature.flag", "yes", "功能", 1);
+        insertConfig("feature.hidden", "42", "功能", 0);
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(VERSION_KEY)).thenReturn("5");
+
+        systemConfigService = new SystemConfigServiceImpl(fixture.getMapper(SystemConfigMapper.class), stringRedisTemplate);
+        systemConfigService.initConfigSnapshot();
+    }
+
+    @Test
+    void testSnapshotParsesTypesAndHidesDisabledConfigs() {
+        assertEquals(5, systemConfigService.getConfigVersion());
+        assertEquals(10, systemConfigService.getIntConfigValue("post.page.size", 20));
+        // 非数值配置回退到默认值
+        assertEquals(7, systemConfigService.getIntConfigValue("site.name", 7));
+        assertTrue(systemConfigService.getBooleanConfigValue("feature.flag", false));
+        assertFalse(systemConfigService.getBooleanConfigValue("site.name", true));
+        // 停用的配置不进入快照
+        assertEquals("默认", systemConfigService.getConfigValue("feature.hidden", "默认"));
+        assertEquals(Map.of("site.name", "旧站名"),
+                systemConfigService.getConfigsByKeys(List.of("site.name", "feature.hidden", "missing")));
+        assertEquals(List.of("功能", "文章", "网站"), systemConfigService.getAllConfigGroups());
+    }
+
+    @Test
+    void testWriteIsVisibleOnlyAfterCommitAndRollbackPublishesNothing() {
+        when(valueOperations.increment(VERSION_KEY)).thenReturn(6L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            systemConfigService.updateConfigValue("site.name", "新站名");
+            // 提交前仍读到旧快照
+            assertEquals("旧站名", systemConfigService.getConfigValue("site.name"));
+        });
+        assertEquals("新站名", systemConfigService.getConfigValue("site.name"));
+        assertEquals(6, systemConfigService.getConfigVersion());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            systemConfigService.updateConfigValue("site.name", "回滚的站名");
+            status.setRollbackOnly();
+        });
+        assertEquals("新站名", systemConfigService.getConfigValue("site.name"));
+        verify(valueOperations, times(1)).increment(VERSION_KEY);
+    }
+
+    @Test
+    void testPollKeepsOldSnapshotWhenReloadFailsAndRetriesNextRound() {
+        jdbcTemplate.update("UPDATE tb_system_config SET config_value = '30' WHERE config_key = 'post.page.size'");
+        jdbcTemplate.execute("ALTER TABLE tb_system_config RENAME TO tb_system_config_moved");
+        when(valueOperations.get(VERSION_KEY)).thenReturn("8");
+
+        // 其他节点发布了新版本，但本节点加载失败：继续使用旧快照，版本号不推进
+        systemConfigService.pollConfigVersion();
+        assertEquals(10, systemConfigService.getIntConfigValue("post.page.size", 0));
+        assertEquals(5, systemConfigService.getConfigVersion());
+
+        jdbcTemplate.execute("ALTER TABLE tb_system_config_moved RENAME TO tb_system_config");
+        systemConfigService.pollConfigVersion();
+        assertEquals(30, systemConfigService.getIntConfigValue("post.page.size", 0));
+        assertEquals(8, systemConfigService.getConfigVersion());
+    }
+
+    @Test
+    void testBatchUpdateRejectsWholeBatchOnUnknownKey() {
+        when(valueOperations.increment(VERSION_KEY)).thenReturn(6L);
+
+        ValidationException error = assertThrows(ValidationException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> systemConfigService.batchUpdateConfigs(Map.of("site.name", "新站名", "no.such.key", "x"))));
+        assertTrue(error.getMessage().contains("no.such.key"));
+        assertEquals("旧站名", queryValue("site.name"));
+
+        transactionTemplate.executeWithoutResult(status -> systemConfigService.batchUpdateConfigs(
+                Map.of("site.name", "新站名", "post.page.size", "25", "feature.hidden", "0")));
+
+        assertEquals("新站名", queryValue("site.name"));
+        assertEquals("25", queryValue("post.page.size"));
+        // 只更新配置值：停用状态、名称保持不变，也不会插入新行
+        assertEquals("0", queryValue("feature.hidden"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT status FROM tb_system_config WHERE config_key = 'feature.hidden'", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_system_config", Integer.class));
+        assertEquals(25, systemConfigService.getIntConfigValue("post.page.size", 0));
+        verify(valueOperations, times(1)).increment(VERSION_KEY);
+    }
+
+    @Test
+    void testInitDefaultsKeepsCustomizedValuesAndIsIdempotent() {
+        when(valueOperations.increment(VERSION_KEY)).thenReturn(6L, 7L);
+
+        systemConfigService.initDefaultConfigs();
+        int count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_system_config", Integer.class);
+        systemConfigService.initDefaultConfigs();
+
+        assertEquals(count, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_system_config", Integer.class));
+        // 已存在的配置保持管理员修改过的值
+        assertEquals("旧站名", queryValue("site.name"));
+        assertEquals("10", queryValue("post.page.size"));
+        assertEquals("20", queryValue("coin.post.reward"));
+        assertEquals(20, systemConfigService.getIntConfigValue("coin.post.reward", 0));
+    }
+
+    private String queryValue(String key) {
+        return jdbcTemplate.queryForObject("SELECT config_value FROM tb_system_config WHERE config_key = ?",
+                String.class, key);
+    }
+
+    private void insertConfig(String key, String value, String group, int status) {
+        jdbcTemplate.update("INSERT INTO tb_system_config (config_key, config_value, config_name, config_group, status) " +
+                "VALUES (?, ?, ?, ?, ?)", key, value, key, group, status);
+    }
+}
@@ -0,0 +1,76 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.Tag;
+import org.easytech.blogs.mapper.TagMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 标签字典服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TagDictionaryServiceImplTest {
+
+    @Mock
+    private TagMapper tagMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TagDictionaryServiceImpl tagDictionaryService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(tagMapper.selectAllTags()).thenReturn(List.of(
+                buildTag(1L, "Java", 30L), buildTag(2L, "JavaScript", 50L), buildTag(3L, "Jakarta", 5L),
+                buildTag(4L, "Go", 40L), buildTag(5L, "jvm", 0L)));
+
+        tagDictionaryService = new TagDictionaryServiceImpl(tagMapper, stringRedisTemplate);
+        tagDictionaryService.init();
+    }
+
+    @Test
+    void testSuggestMatchesPrefixOrderedByUseCount() {
+        List<Tag> tags = tagDictionaryService.suggest("JA", 2);
+
+        assertEquals(List.of("JavaScript", "Java"), tags.stream().map(Tag::getName).toList());
+        assertEquals(3, tagDictionaryService.suggest("ja", 10).size());
+        assertTrue(tagDictionaryService.suggest("rust", 10).isEmpty());
+        verify(tagMapper, times(1)).selectAllTags();
+    }
+
+    @Test
+    void testLookupIsCaseInsensitiveAndRefreshReloads() {
+        assertEquals(1L, tagDictionaryService.getByName(" java ").getId());
+        assertNull(tagDictionaryService.getByName("kotlin"));
+
+        when(tagMapper.selectAllTags()).thenReturn(List.of(buildTag(6L, "Kotlin", 1L)));
+        when(valueOperations.increment(anyString())).thenReturn(1L);
+        tagDictionaryService.refresh();
+
+        assertEquals(6L, tagDictionaryService.getByName("KOTLIN").getId());
+        assertNull(tagDictionaryService.getById(1L));
+    }
+
+    private Tag buildTag(Long id, String name, Long useCount) {
+        Tag tag = new Tag();
+        tag.setId(id);
+        tag.setName(name);
+        tag.setUseCount(useCount);
+        return tag;
+    }
+}
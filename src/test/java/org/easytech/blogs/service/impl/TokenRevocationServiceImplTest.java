@@ -0,0 +1,75 @@
+package org.easytech.blogs.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 令牌吊销服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private TokenRevocationServiceImpl tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(stringRedisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        tokenRevocationService = new TokenRevocationServiceImpl(stringRedisTemplate, redisMessageListenerContainer);
+        ReflectionTestUtils.setField(tokenRevocationService, "maxTokenLifetimeSeconds", 604800L);
+    }
+
+    @Test
+    void testRevokedTokenIdAndUserWatermark() {
+        Date issuedLongAgo = new Date(System.currentTimeMillis() - 60_000);
+
+        tokenRevocationService.revokeToken("jti-1", new Date(System.currentTimeMillis() + 60_000));
+        assertTrue(tokenRevocationService.isRevoked("jti-1", 1L, issuedLongAgo));
+        assertFalse(tokenRevocationService.isRevoked("jti-2", 1L, issuedLongAgo));
+        verify(stringRedisTemplate).convertAndSend(eq("auth:revocation"), startsWith("T:"));
+
+        tokenRevocationService.revokeUserTokens(1L);
+        assertTrue(tokenRevocationService.isRevoked("jti-2", 1L, issuedLongAgo));
+        assertFalse(tokenRevocationService.isRevoked("jti-3", 1L, new Date(System.currentTimeMillis() + 1000)));
+        assertFalse(tokenRevocationService.isRevoked("jti-2", 2L, issuedLongAgo));
+    }
+
+    @Test
+    void testAppliesMessagesFromOtherNodes() {
+        long expireAt = System.currentTimeMillis() + 60_000;
+        long issuedBefore = System.currentTimeMillis() / 1000;
+
+        tokenRevocationService.onMessage("T:" + expireAt + ":jti-9");
+        tokenRevocationService.onMessage("U:7:" + issuedBefore + ":" + expireAt);
+
+        assertTrue(tokenRevocationService.isRevoked("jti-9", null, null));
+        assertTrue(tokenRevocationService.isRevoked(null, 7L, new Date((issuedBefore - 5) * 1000)));
+        verifyNoInteractions(zSetOperations);
+    }
+}
@@ -0,0 +1,134 @@
+package org.easytech.blogs.service.impl;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.easytech.blogs.entity.User;
+import org.easytech.blogs.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户布隆过滤器服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class UserBloomFilterServiceImplTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private UserBloomFilterServiceImpl userBloomFilterService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(userMapper.selectCount(null)).thenReturn(2L);
+        doAnswer(invocation -> {
+            ResultHandler<User> handler = invocation.getArgument(0);
+            for (User user : List.of(buildUser("Alice", "alice@example.com"), buildUser("José", "jose@example.com"))) {
+                ResultContext<User> context = mock(ResultContext.class);
+                when(context.getResultObject()).thenReturn(user);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(userMapper).streamAllIdentities(any());
+
+        userBloomFilterService = new UserBloomFilterServiceImpl(userMapper, stringRedisTemplate,
+                redisMessageListenerContainer);
+        ReflectionTestUtils.setField(userBloomFilterService, "expectedUsers", 1000L);
+        ReflectionTestUtils.setField(userBloomFilterService, "fpp", 0.01);
+        userBloomFilterService.init();
+    }
+
+    @Test
+    void testExistingValuesMatchCaseAndAccentInsensitively() {
+        assertTrue(userBloomFilterService.mightContainUsername("alice"));
+        assertTrue(userBloomFilterService.mightContainUsername(" JOSE "));
+        assertTrue(userBloomFilterService.mightContainEmail("Alice@Example.com"));
+        assertFalse(userBloomFilterService.mightContainUsername("nobody-has-this-name"));
+        assertFalse(userBloomFilterService.mightContainEmail("nobody@example.com"));
+    }
+
+    @Test
+    void testAddAndRemoteMessagesUpdateFilter() {
+        userBloomFilterService.add("Bob", "bob@example.com");
+        userBloomFilterService.onMessage("u:Carol");
+
+        assertTrue(userBloomFilterService.mightContainUsername("bob"));
+        assertTrue(userBloomFilterService.mightContainEmail("bob@example.com"));
+        assertTrue(userBloomFilterService.mightContainUsername("carol"));
+        verify(stringRedisTemplate).convertAndSend("user:bloom:add", "u:Bob");
+        verify(stringRedisTemplate).convertAndSend("user:bloom:add", "e:bob@example.com");
+    }
+
+    @Test
+    void testRegistrationDuringRebuildIsReplayedIntoNewFilter() throws Exception {
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch registered = new CountDownLatch(1);
+        // 重建读到的用户表快照不含并发注册的 Dave
+        doAnswer(invocation -> {
+            streaming.countDown();
+            assertTrue(registered.await(1, TimeUnit.SECONDS));
+            return null;
+        }).when(userMapper).streamAllIdentities(any());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> rebuild = executor.submit(() -> userBloomFilterService.rebuild());
+            assertTrue(streaming.await(1, TimeUnit.SECONDS));
+            userBloomFilterService.add("Dave", "dave@example.com");
+            // 重建完成前旧过滤器已可见
+            assertTrue(userBloomFilterService.mightContainUsername("dave"));
+            registered.countDown();
+            rebuild.get(1, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(userBloomFilterService.mightContainUsername("dave"));
+        assertTrue(userBloomFilterService.mightContainEmail("DAVE@example.com"));
+        // 新过滤器只含重建读到的数据与补写的新增
+        assertFalse(userBloomFilterService.mightContainUsername("alice"));
+    }
+
+    @Test
+    void testFailedRebuildKeepsOldFilterAndStopsBuffering() {
+        doThrow(new IllegalStateException("db down")).when(userMapper).streamAllIdentities(any());
+
+        assertThrows(IllegalStateException.class, () -> userBloomFilterService.rebuild());
+
+        assertNull(ReflectionTestUtils.getField(userBloomFilterService, "addedDuringRebuild"));
+        assertTrue(userBloomFilterService.mightContainUsername("alice"));
+        userBloomFilterService.onMessage("e:eve@example.com");
+        assertTrue(userBloomFilterService.mightContainEmail("eve@example.com"));
+    }
+
+    private User buildUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,359 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.UserCoin;
+import org.easytech.blogs.exception.BusinessException;
+import org.easytech.blogs.exception.ValidationException;
+import org.easytech.blogs.mapper.CoinMapper;
+import org.easytech.blogs.mapper.UserCoinDailyMapper;
+import org.easytech.blogs.mapper.UserCoinMapper;
+import org.easytech.blogs.dto.CoinReconcileReport;
+import org.easytech.blogs.service.CacheService;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.easytech.blogs.service.CoinRewardDedupService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 积分账户并发测试
+ * 使用H2（MySQL模式）运行真实的Mapper SQL，每次操作在独立事务中执行，验证64线程并发下余额无丢失更新
+ */
+class UserCoinConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int OPS_PER_THREAD = 50;
+    private static final long USER_ID = 1L;
+
+    private JdbcDataSource dataSource;
+    private CoinServiceImpl coinService;
+    private UserCoinServiceImpl userCoinService;
+    private CoinReconcileServiceImpl reconcileService;
+    private TransactionTemplate transactionTemplate;
+    private CoinLeaderboardService leaderboardService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        H2MapperFixture fixture = H2MapperFixture.create(List.of(
+                "CREATE TABLE tb_user_coin (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL UNIQUE, " +
+                        "coin_balance INT NOT NULL DEFAULT 0, total_earned INT NOT NULL DEFAULT 0, " +
+                        "total_consumed INT NOT NULL DEFAULT 0, " +
+                        "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+                // 流水表不建主键：H2在高并发自增插入时会误报主键冲突，与被测逻辑无关
+                "CREATE TABLE tb_coin (" +
+                        "id BIGINT AUTO_INCREMENT, user_id BIGINT NOT NULL, amount INT NOT NULL, " +
+                        "operation_type TINYINT NOT NULL, description VARCHAR(255), related_id BIGINT, " +
+                        "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+                "CREATE TABLE tb_user_coin_daily (" +
+                        "user_id BIGINT NOT NULL, stat_date DATE NOT NULL, earned INT NOT NULL DEFAULT 0, " +
+                        "consumed INT NOT NULL DEFAULT 0, update_time TIMESTAMP, PRIMARY KEY (user_id, stat_date))"),
+                UserCoinMapper.class, CoinMapper.class, UserCoinDailyMapper.class);
+        dataSource = fixture.getDataSource();
+
+        UserCoinMapper userCoinMapper = fixture.getMapper(UserCoinMapper.class);
+        CoinMapper coinMapper = fixture.getMapper(CoinMapper.class);
+        transactionTemplate = fixture.getTransactionTemplate();
+        CoinDailyStatServiceImpl dailyStatService = new CoinDailyStatServiceImpl(
+                fixture.getMapper(UserCoinDailyMapper.class), transactionTemplate);
+
+        leaderboardService = mock(CoinLeaderboardService.class);
+        coinService = new CoinServiceImpl(coinMapper, userCoinMapper, leaderboardService,
+                mock(CoinRewardDedupService.class), dailyStatService);
+        reconcileService = new CoinReconcileServiceImpl(userCoinMapper, leaderboardService, mock(CacheService.class));
+        ReflectionTestUtils.setField(reconcileService, "rangeSize", 2L);
+        ReflectionTestUtils.setField(reconcileService, "threads", 3);
+        userCoinService = new UserCoinServiceImpl(userCoinMapper, coinService, leaderboardService,
+                reconcileService, dailyStatService);
+        ReflectionTestUtils.setField(userCoinService, "baseMapper", userCoinMapper);
+    }
+
+    @Test
+    void testConcurrentAddHasNoLostUpdates() throws Exception {
+        AtomicInteger failures = runConcurrently(() -> userCoinService.addUserCoin(USER_ID, 1, 1, "并发增加"));
+
+        int expected = THREADS * OPS_PER_THREAD;
+        UserCoin account = userCoinService.getUserCoinByUserId(USER_ID);
+        assertEquals(0, failures.get());
+        assertEquals(expected, account.getCoinBalance());
+        assertEquals(expected, account.getTotalEarned());
+        assertEquals(expected, countLedgerRows());
+    }
+
+    @Test
+    void testConcurrentReduceNeverOverdraws() throws Exception {
+        int initial = THREADS * OPS_PER_THREAD / 2;
+        userCoinService.addUserCoin(USER_ID, initial, 1, "初始积分");
+
+        AtomicInteger failures = runConcurrently(() -> userCoinService.reduceUserCoin(USER_ID, 1, 6, "并发消费"));
+
+        UserCoin account = userCoinService.getUserCoinByUserId(USER_ID);
+        assertEquals(0, account.getCoinBalance());
+        assertEquals(initial, account.getTotalConsumed());
+        assertEquals(THREADS * OPS_PER_THREAD - initial, failures.get());
+        // 1条初始流水 + 每次成功扣减1条
+        assertEquals(1 + initial, countLedgerRows());
+    }
+
+    @Test
+    void testConcurrentMixedOperationsKeepBalanceConsistent() throws Exception {
+        userCoinService.addUserCoin(USER_ID, 1000, 1, "初始积分");
+        AtomicInteger counter = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (counter.getAndIncrement() % 2 == 0) {
+                userCoinService.addUserCoin(USER_ID, 3, 1, "并发增加");
+            } else {
+                userCoinService.reduceUserCoin(USER_ID, 2, 6, "并发消费");
+            }
+        });
+
+        UserCoin account = userCoinService.getUserCoinByUserId(USER_ID);
+        assertEquals(account.getTotalEarned() - account.getTotalConsumed(), account.getCoinBalance());
+        assertEquals(sumLedger(), account.getCoinBalance());
+    }
+
+    @Test
+    void testStatisticsComeFromSingleCachedScan() {
+        userCoinService.addUserCoin(USER_ID, 50, 1, "初始积分");
+        userCoinService.addUserCoin(2L, 600, 1, "初始积分");
+        userCoinService.addUserCoin(3L, 7000, 1, "初始积分");
+        userCoinService.reduceUserCoin(3L, 7000, 6, "全部消费");
+        ReflectionTestUtils.setField(userCoinService, "statsSnapshotTtl", 60L);
+
+        Map<String, Object> statistics = userCoinService.getCoinStatistics();
+        assertEquals(3L, statistics.get("totalUsers"));
+        assertEquals(650L, statistics.get("totalBalance"));
+        assertEquals(7650L, statistics.get("totalEarned"));
+        assertEquals(7000L, statistics.get("totalConsumed"));
+
+        List<Map<String, Object>> distribution = userCoinService.getCoinDistribution();
+        assertEquals(List.of(1L, 1L, 0L, 1L, 0L, 0L),
+                distribution.stream().map(item -> item.get("count")).toList());
+
+        // 快照有效期内不重新扫描
+        userCoinService.addUserCoin(4L, 10, 1, "新增账户");
+        assertEquals(3L, userCoinService.getCoinStatistics().get("totalUsers"));
+    }
+
+    @Test
+    void testFailedStatsRefreshServesStaleSnapshotWithBackoff() throws Exception {
+        userCoinService.addUserCoin(USER_ID, 50, 1, "初始积分");
+        ReflectionTestUtils.setField(userCoinService, "statsSnapshotTtl", 0L);
+        ReflectionTestUtils.setField(userCoinService, "statsRefreshBackoff", 60L);
+        assertEquals(1L, userCoinService.getCoinStatistics().get("totalUsers"));
+
+        execute("ALTER TABLE tb_user_coin RENAME TO tb_user_coin_moved");
+        assertEquals(1L, userCoinService.getCoinStatistics().get("totalUsers"));
+
+        // 数据库恢复后，退避期内仍使用旧快照，不立即重试
+        execute("ALTER TABLE tb_user_coin_moved RENAME TO tb_user_coin");
+        execute("INSERT INTO tb_user_coin (user_id, coin_balance) VALUES (2, 0), (3, -5)");
+        assertEquals(1L, userCoinService.getCoinStatistics().get("totalUsers"));
+
+        ReflectionTestUtils.setField(userCoinService, "statsRefreshBackoff", 0L);
+        ReflectionTestUtils.setField(userCoinService, "statsSnapshot", null);
+        assertEquals(3L, userCoinService.getCoinStatistics().get("totalUsers"));
+        // 只有余额恰好为0的账户计入"0"区间
+        assertEquals(1L, userCoinService.getCoinDistribution().get(0).get("count"));
+    }
+
+    @Test
+    void testReconcileRepairsDriftFromLedger() throws Exception {
+        for (long userId = 1; userId <= 7; userId++) {
+            userCoinService.addUserCoin(userId, 100, 1, "初始积分");
+        }
+        userCoinService.reduceUserCoin(3L, 40, 6, "消费");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE tb_user_coin SET coin_balance = 999 WHERE user_id = 2");
+            statement.executeUpdate("UPDATE tb_user_coin SET total_consumed = 0 WHERE user_id = 3");
+            statement.executeUpdate("UPDATE tb_user_coin SET coin_balance = 0, total_earned = 0 WHERE user_id = 6");
+        }
+
+        CoinReconcileReport dryRun = userCoinService.reconcileBalances(true, false);
+        assertEquals(4, dryRun.getRangeCount());
+        assertEquals(3, dryRun.getMismatchedAccounts());
+        assertEquals(0, dryRun.getFixedAccounts());
+        assertEquals(899 + 100, dryRun.getBalanceDrift());
+        assertEquals(999, userCoinService.getUserCoinBalance(2L));
+
+        assertEquals(3, userCoinService.recalculateAllBalances());
+        for (long userId = 1; userId <= 7; userId++) {
+            UserCoin account = userCoinService.getUserCoinByUserId(userId);
+            assertEquals(account.getTotalEarned() - account.getTotalConsumed(), account.getCoinBalance());
+        }
+        assertEquals(60, userCoinService.getUserCoinBalance(3L));
+        assertEquals(0, userCoinService.reconcileBalances(true, false).getMismatchedAccounts());
+    }
+
+    @Test
+    void testAdminBalanceEditSurvivesReconcile() throws Exception {
+        userCoinService.addUserCoin(USER_ID, 100, 1, "初始积分");
+        UserCoin account = userCoinService.getUserCoinByUserId(USER_ID);
+
+        UserCoin edit = new UserCoin();
+        edit.setId(account.getId());
+        edit.setCoinBalance(30);
+        assertTrue(userCoinService.updateUserCoinAccount(edit));
+
+        edit.setCoinBalance(null);
+        edit.setTotalEarned(500);
+        assertThrows(ValidationException.class, () -> userCoinService.updateUserCoinAccount(edit));
+
+        // 改写折算为一条 -70 的调整流水，对账后余额保持管理员设置的值
+        assertEquals(2, countLedgerRows());
+        assertEquals(0, userCoinService.reconcileBalances(false, false).getMismatchedAccounts());
+        assertEquals(30, userCoinService.getUserCoinBalance(USER_ID));
+    }
+
+    @Test
+    void testTrendReadsDailyRollup() throws Exception {
+        userCoinService.addUserCoin(USER_ID, 100, 1, "初始积分");
+        userCoinService.reduceUserCoin(USER_ID, 30, 6, "消费");
+        coinService.batchTransferCoin(USER_ID, Map.of(2L, 20, 3L, 5), "转账");
+        // 插入一条三天前的流水，由回填写入日汇总
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO tb_coin (user_id, amount, operation_type, description, create_time) " +
+                    "VALUES (1, 7, 1, '历史积分', DATEADD('DAY', -3, CURRENT_DATE))");
+        }
+        userCoinService.backfillCoinTrend(LocalDate.now().minusDays(3), LocalDate.now().minusDays(3));
+
+        Long accountId = userCoinService.getUserCoinByUserId(USER_ID).getId();
+        List<Map<String, Object>> trend = userCoinService.getUserCoinTrend(accountId, 5);
+        assertEquals(5, trend.size());
+        assertEquals(LocalDate.now().toString(), trend.get(4).get("date"));
+        assertEquals(100, trend.get(4).get("earned"));
+        assertEquals(55, trend.get(4).get("consumed"));
+        assertEquals(7, trend.get(1).get("earned"));
+        assertEquals(0, trend.get(0).get("net"));
+    }
+
+    @Test
+    void testBackfillRemovesStaleRowsAndRejectsToday() throws Exception {
+        LocalDate day = LocalDate.now().minusDays(2);
+        // 用户2当天的汇总已没有对应流水（如流水被修正），用户1的汇总与流水不一致
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO tb_user_coin_daily (user_id, stat_date, earned, consumed) " +
+                    "VALUES (1, DATEADD('DAY', -2, CURRENT_DATE), 99, 0), (2, DATEADD('DAY', -2, CURRENT_DATE), 40, 0)");
+            statement.executeUpdate("INSERT INTO tb_coin (user_id, amount, operation_type, description, create_time) " +
+                    "VALUES (1, 12, 1, '历史积分', DATEADD('DAY', -2, CURRENT_DATE)), " +
+                    "(1, -5, 6, '历史消费', DATEADD('DAY', -2, CURRENT_DATE))");
+        }
+
+        assertEquals(1, userCoinService.backfillCoinTrend(day, day));
+
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM tb_user_coin_daily WHERE stat_date = DATEADD('DAY', -2, CURRENT_DATE)"));
+        assertEquals(12, queryLong("SELECT earned FROM tb_user_coin_daily WHERE user_id = 1"));
+        assertEquals(5, queryLong("SELECT consumed FROM tb_user_coin_daily WHERE user_id = 1"));
+        // 当天的汇总由积分变动实时累加，不允许回填
+        assertThrows(ValidationException.class, () -> userCoinService.backfillCoinTrend(day, LocalDate.now()));
+    }
+
+    @Test
+    void testNewlyCreatedAccountsAreSyncedToLeaderboard() {
+        userCoinService.addUserCoin(USER_ID, 100, 1, "初始积分");
+        userCoinService.addUserCoin(USER_ID, 10, 1, "再次获得");
+        verify(leaderboardService, times(1)).syncUser(USER_ID);
+
+        // 用户3已有账户，只有新建的用户2需要入榜
+        coinService.initUserCoinAccount(3L);
+        coinService.initUserCoinAccount(3L);
+        verify(leaderboardService, times(1)).syncUser(3L);
+        coinService.batchTransferCoin(USER_ID, Map.of(2L, 20, 3L, 5), "转账");
+
+        verify(leaderboardService).syncUser(2L);
+        verify(leaderboardService, times(1)).syncUser(3L);
+        verify(leaderboardService, times(3)).syncUser(anyLong());
+    }
+
+    @Test
+    void testConcurrentOpposingTransfersConserveTotal() throws Exception {
+        long otherUserId = 2L;
+        userCoinService.addUserCoin(USER_ID, 500, 1, "初始积分");
+        userCoinService.addUserCoin(otherUserId, 500, 1, "初始积分");
+        AtomicInteger counter = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (counter.getAndIncrement() % 2 == 0) {
+                coinService.transferCoin(USER_ID, otherUserId, 3, "A转B");
+            } else {
+                coinService.transferCoin(otherUserId, USER_ID, 2, "B转A");
+            }
+        });
+
+        UserCoin first = userCoinService.getUserCoinByUserId(USER_ID);
+        UserCoin second = userCoinService.getUserCoinByUserId(otherUserId);
+        assertEquals(1000, first.getCoinBalance() + second.getCoinBalance());
+        assertTrue(first.getCoinBalance() >= 0 && second.getCoinBalance() >= 0);
+        assertEquals(sumLedger(), first.getCoinBalance());
+    }
+
+    private AtomicInteger runConcurrently(Runnable operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < OPS_PER_THREAD; j++) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> operation.run());
+                    } catch (BusinessException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return failures;
+    }
+
+    private long countLedgerRows() throws Exception {
+        return queryLong("SELECT COUNT(*) FROM tb_coin WHERE user_id = " + USER_ID);
+    }
+
+    private int sumLedger() throws Exception {
+        return (int) queryLong("SELECT COALESCE(SUM(amount), 0) FROM tb_coin WHERE user_id = " + USER_ID);
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long queryLong(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.entity.Role;
+import org.easytech.blogs.mapper.RoleMapper;
+import org.easytech.blogs.mapper.UserRoleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户角色解析缓存单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class UserRoleCacheTest {
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private UserRoleCache userRoleCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(roleMapper.selectAllRoles()).thenReturn(List.of(
+                buildRole(1L, "SUPER_ADMIN"), buildRole(2L, "ADMIN"), buildRole(3L, "USER")));
+
+        userRoleCache = new UserRoleCache(roleMapper, userRoleMapper, stringRedisTemplate);
+        ReflectionTestUtils.setField(userRoleCache, "maxSize", 100);
+        userRoleCache.init();
+    }
+
+    @Test
+    void testResolvesOnceAndAnswersByBitTest() {
+        when(userRoleMapper.selectRoleIdsByUserId(10L)).thenReturn(List.of(2L, 3L));
+
+        assertTrue(userRoleCache.hasRoleByCode(10L, "ADMIN"));
+        assertTrue(userRoleCache.hasRole(10L, 3L));
+        assertFalse(userRoleCache.hasRoleByCode(10L, "SUPER_ADMIN"));
+        assertTrue(userRoleCache.hasAdminPermission(10L));
+        assertEquals(List.of("ADMIN", "USER"),
+                userRoleCache.get(10L).roles().stream().map(Role::getCode).toList());
+
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(10L);
+    }
+
+    @Test
+    void testEvictUserReloadsOnlyThatUser() {
+        when(userRoleMapper.selectRoleIdsByUserId(10L)).thenReturn(List.of(3L), List.of(2L, 3L));
+        when(userRoleMapper.selectRoleIdsByUserId(20L)).thenReturn(List.of(3L));
+        when(valueOperations.increment(anyString())).thenReturn(1L);
+
+        assertFalse(userRoleCache.hasAdminPermission(10L));
+        assertFalse(userRoleCache.hasAdminPermission(20L));
+
+        userRoleCache.evictUser(10L);
+
+        assertTrue(userRoleCache.hasAdminPermission(10L));
+        assertFalse(userRoleCache.hasAdminPermission(20L));
+        verify(userRoleMapper, times(2)).selectRoleIdsByUserId(10L);
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(20L);
+    }
+
+    @Test
+    void testDeletedRoleIdReloadsRoleTableOncePerVersion() {
+        // 角色99已删除，但用户关联仍在
+        when(userRoleMapper.selectRoleIdsByUserId(10L)).thenReturn(List.of(3L, 99L));
+        when(userRoleMapper.selectRoleIdsByUserId(20L)).thenReturn(List.of(99L));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(List.of(3L), List.copyOf(userRoleCache.get(10L).roleIds()));
+            assertTrue(userRoleCache.get(20L).roleIds().isEmpty());
+        }
+
+        // 启动加载1次 + 未知ID补加载1次；角色表未变化，不清空用户缓存
+        verify(roleMapper, times(2)).selectAllRoles();
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(10L);
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(20L);
+    }
+
+    @Test
+    void testFullCacheEvictsOnlyLeastRecentlyUsedUser() {
+        ReflectionTestUtils.setField(userRoleCache, "maxSize", 2);
+        userRoleCache.init();
+        when(userRoleMapper.selectRoleIdsByUserId(anyLong())).thenReturn(List.of(3L));
+
+        userRoleCache.get(10L);
+        userRoleCache.get(20L);
+        userRoleCache.get(10L);
+        userRoleCache.get(30L);
+        userRoleCache.get(10L);
+        userRoleCache.get(20L);
+
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(10L);
+        verify(userRoleMapper, times(2)).selectRoleIdsByUserId(20L);
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(30L);
+    }
+
+    @Test
+    void testLoadRacingWithEvictionIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        // 第一次查询读到授权前的角色，返回前角色已变更并失效
+        when(userRoleMapper.selectRoleIdsByUserId(10L)).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(evicted.await(1, TimeUnit.SECONDS));
+            return List.of(3L);
+        }).thenReturn(List.of(2L, 3L));
+        when(valueOperations.increment(anyString())).thenReturn(1L);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> stale = executor.submit(() -> userRoleCache.hasAdminPermission(10L));
+            assertTrue(loading.await(1, TimeUnit.SECONDS));
+            userRoleCache.evictUser(10L);
+            evicted.countDown();
+
+            // 并发中的请求仍按旧角色应答，但结果不会留在缓存里
+            assertFalse(stale.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(userRoleCache.hasAdminPermission(10L));
+        assertTrue(userRoleCache.hasAdminPermission(10L));
+        verify(userRoleMapper, times(2)).selectRoleIdsByUserId(10L);
+    }
+
+    @Test
+    void testPutWithGenerationFromBeforeEvictionIsDropped() {
+        when(valueOperations.increment(anyString())).thenReturn(1L);
+        when(userRoleMapper.selectRoleIdsByUserId(10L)).thenReturn(List.of(2L));
+
+        // 登录流程：先取代数，再连同用户一起查询角色，期间角色被撤销
+        long generation = userRoleCache.currentGeneration();
+        userRoleCache.evictUser(10L);
+        assertTrue(userRoleCache.put(10L, List.of(1L), generation).codes().contains("SUPER_ADMIN"));
+
+        assertEquals(Set.of("ADMIN"), userRoleCache.get(10L).codes());
+        verify(userRoleMapper, times(1)).selectRoleIdsByUserId(10L);
+    }
+
+    private Role buildRole(Long id, String code) {
+        Role role = new Role();
+        role.setId(id);
+        role.setCode(code);
+        role.setStatus(1);
+        return role;
+    }
+}
@@ -7,16 +7,20 @@ import org.easytech.blogs.exception.ValidationException;
 import org.easytech.blogs.mapper.RoleMapper;
 import org.easytech.blogs.mapper.UserMapper;
 import org.easytech.blogs.mapper.UserRoleMapper;
+import org.easytech.blogs.service.CoinLeaderboardService;
+import org.easytech.blogs.service.PasswordHashingService;
+import org.easytech.blogs.service.TokenRevocationService;
+import org.easytech.blogs.service.UserBloomFilterService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,7 +42,22 @@ class UserServiceImplTest {
     private UserRoleMapper userRoleMapper;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private UserRoleCache userRoleCache;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private UserBloomFilterService userBloomFilterService;
+
+    @Mock
+    private CoinLeaderboardService coinLeaderboardService;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -72,6 +91,35 @@ class UserServiceImplTest {
         verify(userMapper).findByUsername("testuser");
     }
 
+    @Test
+    void testFindLoginUserCachesConcatenatedRoleIds() {
+        // Given
+        testUser.setRoleIds("1, 3");
+        when(userRoleCache.currentGeneration()).thenReturn(7L);
+        when(userMapper.findLoginUser("testuser")).thenReturn(testUser);
+
+        // When
+        User result = userService.findLoginUser("testuser");
+
+        // Then
+        assertSame(testUser, result);
+        verify(userRoleCache).put(1L, List.of(1L, 3L), 7L);
+        verify(userMapper, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void testFindLoginUserWithoutRoles() {
+        // Given
+        when(userRoleCache.currentGeneration()).thenReturn(7L);
+        when(userMapper.findLoginUser("testuser")).thenReturn(testUser);
+
+        // When
+        userService.findLoginUser("testuser");
+
+        // Then
+        verify(userRoleCache).put(1L, List.of(), 7L);
+    }
+
     @Test
     void testFindByUsernameEmpty() {
         // When
@@ -104,16 +152,13 @@ class UserServiceImplTest {
         newUser.setPassword("password123");
         newUser.setEmail("new@example.com");
 
-        User savedUser = new User();
-        savedUser.setId(2L);
-        savedUser.setUsername("newuser");
-        savedUser.setPassword("$2a$10$encodedPassword");
-        savedUser.setEmail("new@example.com");
-
+        // 布隆过滤器判定可能存在时才会查库，这里让查库路径生效
+        when(userBloomFilterService.mightContainUsername("newuser")).thenReturn(true);
+        when(userBloomFilterService.mightContainEmail("new@example.com")).thenReturn(true);
         when(userMapper.findByUsername("newuser")).thenReturn(null); // 用户名不存在
-        when(passwordEncoder.encode("password123")).thenReturn("$2a$10$encodedPassword");
+        when(userMapper.findByEmail("new@example.com")).thenReturn(null);
+        when(passwordHashingService.encode("password123")).thenReturn("$2a$10$encodedPassword");
         when(userMapper.insert(any(User.class))).thenReturn(1);
-        when(userMapper.selectById(any(Long.class))).thenReturn(savedUser);
 
         Role defaultRole = new Role();
         defaultRole.setId(1L);
@@ -127,8 +172,9 @@ class UserServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals("newuser", result.getUsername());
-        verify(passwordEncoder).encode("password123");
+        verify(passwordHashingService).encode("password123");
         verify(userMapper).insert(any(User.class));
+        verify(userBloomFilterService).add("newuser", "new@example.com");
     }
 
     @Test
@@ -144,18 +190,20 @@ class UserServiceImplTest {
         newUser.setUsername("existinguser");
         newUser.setPassword("password123");
 
+        when(userBloomFilterService.mightContainUsername("existinguser")).thenReturn(true);
         when(userMapper.findByUsername("existinguser")).thenReturn(testUser);
 
         // When & Then
-        assertThrows(BusinessException.class, () -> userService.register(newUser));
+        BusinessException exception = assertThrows(BusinessException.class, () -> userService.register(newUser));
+        assertEquals("用户名已存在", exception.getMessage());
+        verify(userMapper, never()).insert(any(User.class));
     }
 
     @Test
     void testLoginSuccess() {
         // Given
-        when(userMapper.findByUsername("testuser")).thenReturn(testUser);
-        when(passwordEncoder.matches("password123", testUser.getPassword())).thenReturn(true);
-        when(userMapper.updateLastLoginTime(testUser.getId())).thenReturn(1);
+        when(userMapper.findLoginUser("testuser")).thenReturn(testUser);
+        when(passwordHashingService.matches("password123", testUser.getPassword())).thenReturn(true);
 
         // When
         User result = userService.login("testuser", "password123");
@@ -163,13 +211,13 @@ class UserServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals("testuser", result.getUsername());
-        verify(userMapper).updateLastLoginTime(testUser.getId());
+        verify(lastLoginRecorder).record(testUser.getId());
     }
 
     @Test
     void testLoginUserNotFound() {
         // Given
-        when(userMapper.findByUsername("nonexistent")).thenReturn(null);
+        when(userMapper.findLoginUser("nonexistent")).thenReturn(null);
 
         // When & Then
         assertThrows(BusinessException.class, () -> userService.login("nonexistent", "password123"));
@@ -178,8 +226,8 @@ class UserServiceImplTest {
     @Test
     void testLoginWrongPassword() {
         // Given
-        when(userMapper.findByUsername("testuser")).thenReturn(testUser);
-        when(passwordEncoder.matches("wrongpassword", testUser.getPassword())).thenReturn(false);
+        when(userMapper.findLoginUser("testuser")).thenReturn(testUser);
+        when(passwordHashingService.matches("wrongpassword", testUser.getPassword())).thenReturn(false);
 
         // When & Then
         assertThrows(BusinessException.class, () -> userService.login("testuser", "wrongpassword"));
@@ -189,8 +237,8 @@ class UserServiceImplTest {
     void testLoginDisabledUser() {
         // Given
         testUser.setStatus(0); // 禁用状态
-        when(userMapper.findByUsername("testuser")).thenReturn(testUser);
-        when(passwordEncoder.matches("password123", testUser.getPassword())).thenReturn(true);
+        when(userMapper.findLoginUser("testuser")).thenReturn(testUser);
+        when(passwordHashingService.matches("password123", testUser.getPassword())).thenReturn(true);
 
         // When & Then
         assertThrows(BusinessException.class, () -> userService.login("testuser", "password123"));
@@ -219,8 +267,8 @@ class UserServiceImplTest {
     void testChangePasswordSuccess() {
         // Given
         when(userMapper.selectById(1L)).thenReturn(testUser);
-        when(passwordEncoder.matches("oldpassword", testUser.getPassword())).thenReturn(true);
-        when(passwordEncoder.encode("newpassword")).thenReturn("$2a$10$newEncodedPassword");
+        when(passwordHashingService.matches("oldpassword", testUser.getPassword())).thenReturn(true);
+        when(passwordHashingService.encode("newpassword")).thenReturn("$2a$10$newEncodedPassword");
         when(userMapper.updateById(any(User.class))).thenReturn(1);
 
         // When
@@ -228,14 +276,14 @@ class UserServiceImplTest {
 
         // Then
         assertTrue(result);
-        verify(passwordEncoder).encode("newpassword");
+        verify(passwordHashingService).encode("newpassword");
     }
 
     @Test
     void testChangePasswordWrongOldPassword() {
         // Given
         when(userMapper.selectById(1L)).thenReturn(testUser);
-        when(passwordEncoder.matches("wrongoldpassword", testUser.getPassword())).thenReturn(false);
+        when(passwordHashingService.matches("wrongoldpassword", testUser.getPassword())).thenReturn(false);
 
         // When & Then
         assertThrows(BusinessException.class, () -> 
@@ -277,6 +325,7 @@ class UserServiceImplTest {
         // Then
         assertTrue(result);
         verify(userMapper).updateUserStatus(1L, 0);
+        verify(coinLeaderboardService).syncUser(1L);
     }
 
     @Test
@@ -292,11 +341,13 @@ class UserServiceImplTest {
         assertTrue(result);
         verify(userRoleMapper).deleteByUserId(1L);
         verify(userMapper).deleteById(1L);
+        verify(coinLeaderboardService).removeUser(1L);
     }
 
     @Test
     void testIsUsernameExists() {
         // Given
+        when(userBloomFilterService.mightContainUsername(anyString())).thenReturn(true);
         when(userMapper.findByUsername("existing")).thenReturn(testUser);
         when(userMapper.findByUsername("nonexisting")).thenReturn(null);
 
@@ -308,9 +359,20 @@ class UserServiceImplTest {
         assertFalse(userService.isUsernameExists("existing", 1L));
     }
 
+    @Test
+    void testIsUsernameExistsSkipsQueryWhenFilterRulesOut() {
+        // Given
+        when(userBloomFilterService.mightContainUsername("brandnew")).thenReturn(false);
+
+        // When & Then
+        assertFalse(userService.isUsernameExists("brandnew", null));
+        verify(userMapper, never()).findByUsername(anyString());
+    }
+
     @Test
     void testIsEmailExists() {
         // Given
+        when(userBloomFilterService.mightContainEmail(anyString())).thenReturn(true);
         when(userMapper.findByEmail("existing@example.com")).thenReturn(testUser);
         when(userMapper.findByEmail("nonexisting@example.com")).thenReturn(null);
 
@@ -336,7 +398,7 @@ class UserServiceImplTest {
         role2.setName("管理员");
 
         List<Role> roles = List.of(role1, role2);
-        when(roleMapper.selectByUserId(1L)).thenReturn(roles);
+        when(userRoleCache.get(1L)).thenReturn(new UserRoleCache.UserRoles(roles, Set.of(1L, 2L), Set.of("USER", "ADMIN"), 3L));
 
         // When
         List<Role> result = userService.getUserRoles(1L);
@@ -365,7 +427,7 @@ class UserServiceImplTest {
     void testCountUsers() {
         // Given
         when(userMapper.countByStatus(1)).thenReturn(100L);
-        when(userMapper.countAll()).thenReturn(150L);
+        when(userMapper.selectCount(null)).thenReturn(150L);
 
         // When & Then
         assertEquals(100L, userService.countUsers(1));
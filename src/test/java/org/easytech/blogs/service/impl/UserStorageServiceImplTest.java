@@ -0,0 +1,168 @@
+package org.easytech.blogs.service.impl;
+
+import org.easytech.blogs.exception.FileUploadException;
+import org.easytech.blogs.mapper.UserStorageMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户存储配额测试
+ * 使用H2（MySQL模式）运行真实的Mapper SQL，验证配额校验、释放与校正在并发下的行为
+ */
+class UserStorageServiceImplTest {
+
+    private static final long USER_ID = 1L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private UserStorageServiceImpl userStorageService;
+
+    @BeforeEach
+    void setUp() {
+        H2MapperFixture fixture = H2MapperFixture.create(List.of(
+                "CREATE TABLE tb_user_storage (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL UNIQUE, " +
+                        "used_bytes BIGINT NOT NULL DEFAULT 0, file_count INT NOT NULL DEFAULT 0, " +
+                        "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+                "CREATE TABLE tb_file_upload (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, file_size BIGINT NOT NULL, " +
+                        "is_deleted TINYINT NOT NULL DEFAULT 0)"),
+                UserStorageMapper.class);
+        jdbcTemplate = fixture.getJdbcTemplate();
+        transactionTemplate = fixture.getTransactionTemplate();
+        userStorageService = new UserStorageServiceImpl(fixture.getMapper(UserStorageMapper.class), transactionTemplate);
+        ReflectionTestUtils.setField(userStorageService, "userQuota", 1000L);
+    }
+
+    @Test
+    void testReserveInitializesFromFilesAndRejectsOverQuota() {
+        jdbcTemplate.update("INSERT INTO tb_file_upload (user_id, file_size) VALUES (1, 300), (1, 50)");
+        // 已删除的文件不占用配额
+        jdbcTemplate.update("INSERT INTO tb_file_upload (user_id, file_size, is_deleted) VALUES (1, 900, 1)");
+
+        userStorageService.reserve(USER_ID, 600);
+        assertEquals(950, userStorageService.getUsedBytes(USER_ID));
+
+        assertThrows(FileUploadException.class, () -> userStorageService.reserve(USER_ID, 51));
+        assertEquals(950, userStorageService.getUsedBytes(USER_ID));
+        // 恰好用满配额仍然允许
+        userStorageService.reserve(USER_ID, 50);
+        assertEquals(1000, userStorageService.getUsedBytes(USER_ID));
+        assertEquals(4, fileCount());
+
+        // 配额为0表示不限制
+        ReflectionTestUtils.setField(userStorageService, "userQuota", 0L);
+        userStorageService.reserve(USER_ID, 5000);
+        assertEquals(6000, userStorageService.getUsedBytes(USER_ID));
+    }
+
+    @Test
+    void testConcurrentReservesNeverExceedQuota() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> userStorageService.reserve(USER_ID, 100));
+                } catch (FileUploadException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1000, userStorageService.getUsedBytes(USER_ID));
+        assertEquals(6, rejected.get());
+        assertEquals(10, fileCount());
+    }
+
+    @Test
+    void testReleaseNeverGoesNegative() {
+        jdbcTemplate.update("INSERT INTO tb_user_storage (user_id, used_bytes, file_count) VALUES (1, 200, 2)");
+
+        userStorageService.release(USER_ID, 150, 1);
+        assertEquals(50, userStorageService.getUsedBytes(USER_ID));
+
+        // 计数已偏小时重复释放不会出现负数
+        userStorageService.release(USER_ID, 150, 3);
+        assertEquals(0, userStorageService.getUsedBytes(USER_ID));
+        assertEquals(0, fileCount());
+
+        // 无效参数直接忽略
+        userStorageService.release(null, 100, 1);
+        userStorageService.release(USER_ID, 0, 0);
+        assertEquals(0, userStorageService.getUsedBytes(USER_ID));
+    }
+
+    @Test
+    void testReconcileWaitsForInFlightUploadInsteadOfOverwritingIt() throws Exception {
+        jdbcTemplate.update("INSERT INTO tb_file_upload (user_id, file_size) VALUES (1, 300)");
+        // 用量存在偏差，且用户2已无文件
+        jdbcTemplate.update("INSERT INTO tb_user_storage (user_id, used_bytes, file_count) VALUES (1, 500, 9), (2, 40, 1)");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch finishUpload = new CountDownLatch(1);
+        try {
+            // 上传事务：先占用配额，稍后才写入文件行
+            Future<?> upload = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                userStorageService.reserve(USER_ID, 100);
+                reserved.countDown();
+                await(finishUpload);
+                jdbcTemplate.update("INSERT INTO tb_file_upload (user_id, file_size) VALUES (1, 100)");
+            }));
+            assertTrue(reserved.await(5, TimeUnit.SECONDS));
+
+            Future<Long> reconcile = executor.submit(() -> userStorageService.reconcileUsage());
+            // 校正需等待上传事务释放行锁
+            assertThrows(TimeoutException.class, () -> reconcile.get(300, TimeUnit.MILLISECONDS));
+
+            finishUpload.countDown();
+            upload.get(10, TimeUnit.SECONDS);
+            assertEquals(2L, reconcile.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(400, userStorageService.getUsedBytes(USER_ID));
+        assertEquals(2, fileCount());
+        assertEquals(0, userStorageService.getUsedBytes(2L));
+    }
+
+    private int fileCount() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT file_count FROM tb_user_storage WHERE user_id = " + USER_ID, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.easytech.blogs.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地LRU缓存单元测试
+ */
+class LruCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyAccessedEntry() {
+        LruCache<Integer, String> cache = new LruCache<>(2, 0);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        // 访问1后，2成为最久未访问的条目
+        assertEquals("a", cache.get(1));
+
+        cache.put(3, "c");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals("c", cache.get(3));
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() throws Exception {
+        LruCache<Integer, String> cache = new LruCache<>(10, 20);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1, key -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1, key -> "v" + loads.incrementAndGet()));
+        Thread.sleep(40);
+
+        assertNull(cache.get(1));
+        assertEquals("v2", cache.get(1, key -> "v" + loads.incrementAndGet()));
+        // loader返回null时不缓存
+        assertNull(cache.get(2, key -> null));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testLoadRacingWithInvalidateIsNotCached() throws Exception {
+        LruCache<Integer, String> cache = new LruCache<>(10, 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 加载线程读到旧值后，写入方提交并失效缓存
+            Future<String> stale = executor.submit(() -> cache.get(1, key -> {
+                loading.countDown();
+                await(invalidated);
+                return "old";
+            }));
+            assertTrue(loading.await(1, TimeUnit.SECONDS));
+            cache.invalidate(1);
+            invalidated.countDown();
+
+            assertEquals("old", stale.get(1, TimeUnit.SECONDS));
+            assertNull(cache.get(1));
+            assertEquals("new", cache.get(1, key -> "new"));
+            assertEquals("new", cache.get(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<>(0, 0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
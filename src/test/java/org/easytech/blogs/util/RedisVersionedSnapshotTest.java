@@ -0,0 +1,76 @@
+package org.easytech.blogs.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis版本号快照同步单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisVersionedSnapshotTest {
+
+    private static final String KEY = "test:version";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisVersionedSnapshot versions;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        versions = new RedisVersionedSnapshot(stringRedisTemplate, KEY, "测试快照");
+    }
+
+    @Test
+    void testFailedReloadKeepsVersionSoNextPollRetries() {
+        when(valueOperations.get(KEY)).thenReturn("3");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> versions.poll(false, () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(0, versions.version());
+
+        assertTrue(versions.poll(false, loads::incrementAndGet));
+        assertEquals(3, versions.version());
+        // 版本一致后不再加载，除非强制
+        assertFalse(versions.poll(false, loads::incrementAndGet));
+        assertTrue(versions.poll(true, loads::incrementAndGet));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testPublishAdvancesOnlyAfterSuccessfulLocalUpdate() {
+        when(valueOperations.increment(KEY)).thenReturn(1L, 2L, 4L);
+
+        versions.publishAfterCommit(() -> {
+        });
+        assertEquals(1, versions.version());
+
+        // 本地更新失败：已发布的版本不跟进，等待轮询重新加载
+        versions.publishAfterCommit(() -> {
+            throw new IllegalStateException("db down");
+        });
+        assertEquals(1, versions.version());
+
+        // 期间其他节点发布过版本3，本节点不能跳过它
+        versions.publishAfterCommit(() -> {
+        });
+        assertEquals(1, versions.version());
+    }
+}